@@ -0,0 +1,93 @@
+#!/usr/bin/env bash
+# Mide cuánto tarda la aplicación en mostrar el menú y cuánta memoria (RSS) ocupa en
+# ese momento: el jar normal frente al perfil de arranque rápido (AOT + AppCDS + lazy init).
+# Necesita la base levantada (docker compose up -d).
+#
+#   scripts/medir-arranque.sh              # mide lo ya compilado
+#   scripts/medir-arranque.sh --compilar   # compila las dos variantes antes de medir
+#   REPETICIONES=10 scripts/medir-arranque.sh
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+REPETICIONES=${REPETICIONES:-5}
+NOMBRE=literatura-0.0.1-SNAPSHOT
+BASE=target/arranque-base/$NOMBRE.jar
+RAPIDO=target/arranque/$NOMBRE.jar
+CDS=target/arranque/literatura.jsa
+
+if [[ "${1:-}" == "--compilar" ]]; then
+    ./mvnw -q -DskipTests package
+    mkdir -p target/arranque-base
+    cp "target/$NOMBRE.jar" "$BASE"
+    # Vuelve a generar target/$NOMBRE.jar, ahora con AOT, y entrena el archivo CDS
+    ./mvnw -q -DskipTests -Parranque package
+fi
+
+for archivo in "$BASE" "$RAPIDO" "$CDS"; do
+    if [[ ! -f "$archivo" ]]; then
+        echo "❌ Falta $archivo: ejecute primero scripts/medir-arranque.sh --compilar" >&2
+        exit 1
+    fi
+done
+
+# Arranca la aplicación, espera el prompt del menú e imprime "milisegundos RSS_en_MB"
+medir() {
+    local salida entrada inicio fin pid rss
+    salida=$(mktemp)
+    entrada=$(mktemp -u)
+    mkfifo "$entrada"
+
+    inicio=$(date +%s%N)
+    java "$@" < "$entrada" > "$salida" 2>&1 &
+    pid=$!
+    # Mantiene abierta la entrada: sin ella el Scanner del menú vería fin de archivo
+    exec 3> "$entrada"
+
+    until grep -q "Opción:" "$salida"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "❌ La aplicación terminó antes de mostrar el menú:" >&2
+            tail -20 "$salida" >&2
+            exec 3>&-
+            rm -f "$salida" "$entrada"
+            return 1
+        fi
+        sleep 0.01
+    done
+    fin=$(date +%s%N)
+    rss=$(ps -o rss= -p "$pid" | tr -d ' ')
+
+    # Sin perfil de arranque el servidor web sigue vivo después del menú: se corta aquí
+    kill "$pid" 2> /dev/null || true
+    wait "$pid" 2> /dev/null || true
+    exec 3>&-
+    rm -f "$salida" "$entrada"
+    echo "$(( (fin - inicio) / 1000000 )) $(( rss / 1024 ))"
+}
+
+mediana() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+variante() {
+    local nombre=$1
+    shift
+    local tiempos="" memorias="" resultado
+    for ((i = 1; i <= REPETICIONES; i++)); do
+        resultado=$(medir "$@")
+        echo "   $nombre #$i: ${resultado% *} ms, ${resultado#* } MB" >&2
+        tiempos+="${resultado% *}"$'\n'
+        memorias+="${resultado#* }"$'\n'
+    done
+    printf "%-16s %14s %12s\n" "$nombre" \
+        "$(printf '%s' "$tiempos" | mediana)" "$(printf '%s' "$memorias" | mediana)"
+}
+
+echo "⏱️  Arranque hasta el menú, mediana de $REPETICIONES corridas:" >&2
+resultados=$(
+    variante "sin optimizar" -jar "$BASE"
+    variante "arranque" -XX:SharedArchiveFile="$CDS" -Dspring.aot.enabled=true \
+        -jar "$RAPIDO" --spring.profiles.active=arranque
+)
+printf "\n%-16s %14s %12s\n" "variante" "menú (ms)" "RSS (MB)"
+echo "$resultados"
@@ -0,0 +1,85 @@
+package aluraChallenge.literatura.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aluraChallenge.literatura.models.Autor;
+import aluraChallenge.literatura.service.ArbolIntervalos;
+
+/**
+ * {@link Autor#estabaVivoEn(int)} recorriendo todos los autores, que es lo que hacía
+ * la consulta de autores vivos en un año, frente al árbol de intervalos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class AutoresVivosBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int autores;
+
+    @Param({"1600", "1850"})
+    int anio;
+
+    private List<Autor> catalogo;
+    private ArbolIntervalos vidas;
+
+    @Setup
+    public void preparar() {
+        catalogo = CatalogoSintetico.autores(autores);
+
+        long[] ids = new long[catalogo.size()];
+        int[] inicios = new int[catalogo.size()];
+        int[] fines = new int[catalogo.size()];
+        for (int i = 0; i < catalogo.size(); i++) {
+            Autor autor = catalogo.get(i);
+            ids[i] = i;
+            inicios[i] = autor.getFechaNacimiento() != null ? autor.getFechaNacimiento() : Integer.MIN_VALUE;
+            fines[i] = autor.getFechaMuerte() != null ? autor.getFechaMuerte() : Integer.MAX_VALUE;
+        }
+        vidas = new ArbolIntervalos();
+        vidas.cargar(ids, inicios, fines);
+    }
+
+    @Benchmark
+    public long contarVivosStream() {
+        return catalogo.stream().filter(autor -> autor.estabaVivoEn(anio)).count();
+    }
+
+    @Benchmark
+    public int contarVivosBucle() {
+        int vivos = 0;
+        for (Autor autor : catalogo) {
+            if (autor.estabaVivoEn(anio)) {
+                vivos++;
+            }
+        }
+        return vivos;
+    }
+
+    @Benchmark
+    public int contarVivosArbol() {
+        return vidas.buscar(anio, anio).size();
+    }
+
+    @Benchmark
+    public int histogramaSiglo() {
+        // Sin cambios entre llamadas: mide la lectura del histograma ya calculado
+        return vidas.histograma(anio, anio + 99)[99];
+    }
+}
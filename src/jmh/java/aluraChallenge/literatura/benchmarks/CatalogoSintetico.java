@@ -0,0 +1,100 @@
+package aluraChallenge.literatura.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import aluraChallenge.literatura.dto.DatosAutor;
+import aluraChallenge.literatura.dto.DatosLibro;
+import aluraChallenge.literatura.models.Autor;
+import aluraChallenge.literatura.models.Libro;
+
+/**
+ * Datos de prueba deterministas para los benchmarks: la misma semilla produce
+ * siempre el mismo catálogo, así los resultados son comparables entre ejecuciones.
+ */
+final class CatalogoSintetico {
+
+    static final long SEMILLA = 20240801L;
+
+    private static final String[] IDIOMAS = {"en", "en", "en", "en", "fr", "es", "de", "it", "pt", "fi", "nl"};
+
+    private CatalogoSintetico() {}
+
+    /**
+     * Respuesta de Gutendex con {@code cantidad} libros, armada repitiendo los
+     * resultados de la página de ejemplo (con títulos distintos).
+     */
+    static String respuestaJson(int cantidad) {
+        var mapper = new ObjectMapper();
+        try (InputStream entrada = CatalogoSintetico.class.getResourceAsStream("/fixtures/gutendex-pagina.json")) {
+            var pagina = (ObjectNode) mapper.readTree(entrada);
+            JsonNode modelos = pagina.get("results");
+            ArrayNode resultados = mapper.createArrayNode();
+            for (int i = 0; i < cantidad; i++) {
+                var libro = (ObjectNode) modelos.get(i % modelos.size()).deepCopy();
+                libro.put("title", libro.get("title").asText() + " #" + i);
+                resultados.add(libro);
+            }
+            pagina.set("results", resultados);
+            return mapper.writeValueAsString(pagina);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Tantos autores como libros / 8: así hay autores con varios libros, como en el catálogo real
+    static List<DatosLibro> datosLibros(int cantidad) {
+        var aleatorio = new SplittableRandom(SEMILLA);
+        int totalAutores = Math.max(1, cantidad / 8);
+        List<DatosLibro> libros = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            int autor = aleatorio.nextInt(totalAutores);
+            int nacimiento = 1500 + aleatorio.nextInt(450);
+            var datosAutor = new DatosAutor("Autor " + autor, nacimiento, nacimiento + 20 + aleatorio.nextInt(70));
+            libros.add(new DatosLibro(
+                    "Libro " + i,
+                    List.of(datosAutor),
+                    List.of(IDIOMAS[aleatorio.nextInt(IDIOMAS.length)]),
+                    aleatorio.nextInt(100_000),
+                    i + 1));
+        }
+        return libros;
+    }
+
+    // Un autor de cada cinco no tiene fecha de muerte conocida y uno de cada veinte tampoco de nacimiento
+    static List<Autor> autores(int cantidad) {
+        var aleatorio = new SplittableRandom(SEMILLA);
+        List<Autor> autores = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Integer nacimiento = aleatorio.nextInt(20) == 0 ? null : -500 + aleatorio.nextInt(2500);
+            Integer muerte = aleatorio.nextInt(5) == 0 || nacimiento == null
+                    ? null : nacimiento + 20 + aleatorio.nextInt(70);
+            var autor = new Autor("Autor " + i, nacimiento, muerte);
+            autor.setLibros(new ArrayList<>());
+            autores.add(autor);
+        }
+        return autores;
+    }
+
+    static List<Libro> libros(int cantidad, List<Autor> autores) {
+        var aleatorio = new SplittableRandom(SEMILLA + 1);
+        List<Libro> libros = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            var autor = autores.get(aleatorio.nextInt(autores.size()));
+            var libro = new Libro("Libro " + i, autor,
+                    IDIOMAS[aleatorio.nextInt(IDIOMAS.length)], aleatorio.nextInt(100_000));
+            autor.getLibros().add(libro);
+            libros.add(libro);
+        }
+        return libros;
+    }
+}
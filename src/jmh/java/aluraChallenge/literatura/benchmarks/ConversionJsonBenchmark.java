@@ -0,0 +1,67 @@
+package aluraChallenge.literatura.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import aluraChallenge.literatura.dto.MetadatosPagina;
+import aluraChallenge.literatura.dto.ResultadoBusqueda;
+import aluraChallenge.literatura.service.ConsumoApi;
+
+/**
+ * Decodificación de respuestas de Gutendex: {@link ConsumoApi#convertirDatos} sobre el
+ * cuerpo completo frente a la lectura en streaming de {@link ConsumoApi#decodificarLibros}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ConversionJsonBenchmark {
+
+    // 32 es el tamaño de página de Gutendex
+    @Param({"32", "1000", "10000"})
+    int libros;
+
+    private ConsumoApi consumoApi;
+    private String json;
+    private byte[] bytes;
+
+    @Setup
+    public void preparar() {
+        consumoApi = new ConsumoApi();
+        json = CatalogoSintetico.respuestaJson(libros);
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ResultadoBusqueda convertirDatos() {
+        return consumoApi.convertirDatos(json, ResultadoBusqueda.class);
+    }
+
+    // Incluye pasar de bytes a String, que es lo que hace BodyHandlers.ofString()
+    @Benchmark
+    public ResultadoBusqueda convertirDatosDesdeBytes() {
+        return consumoApi.convertirDatos(new String(bytes, StandardCharsets.UTF_8), ResultadoBusqueda.class);
+    }
+
+    @Benchmark
+    public MetadatosPagina decodificarEnStreaming(Blackhole bh) throws IOException {
+        return consumoApi.decodificarLibros(new ByteArrayInputStream(bytes), bh::consume);
+    }
+}
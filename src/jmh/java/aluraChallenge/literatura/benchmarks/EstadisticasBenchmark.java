@@ -0,0 +1,99 @@
+package aluraChallenge.literatura.benchmarks;
+
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aluraChallenge.literatura.dto.EstadisticasBiblioteca;
+import aluraChallenge.literatura.models.Autor;
+import aluraChallenge.literatura.models.Libro;
+import aluraChallenge.literatura.service.InstantaneaCatalogo;
+
+/**
+ * Agregaciones de la opción "Estadísticas de la biblioteca" sobre el catálogo sintético:
+ * streams sobre entidades ya cargadas frente a la pasada por columnas de
+ * {@link InstantaneaCatalogo#estadisticas()}. No toca ninguna base de datos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class EstadisticasBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int libros;
+
+    private List<Autor> autores;
+    private List<Libro> catalogo;
+    private InstantaneaCatalogo instantanea;
+
+    @Setup
+    public void preparar() throws ReflectiveOperationException {
+        autores = CatalogoSintetico.autores(Math.max(1, libros / 8));
+        catalogo = CatalogoSintetico.libros(libros, autores);
+
+        instantanea = new InstantaneaCatalogo();
+        // Sin base no hay carga: se marca como cargada y se llena con los mismos cambios que registran los listeners
+        var cargado = InstantaneaCatalogo.class.getDeclaredField("cargado");
+        cargado.setAccessible(true);
+        cargado.setBoolean(instantanea, true);
+
+        Map<Autor, Long> idsAutores = new IdentityHashMap<>();
+        for (int i = 0; i < autores.size(); i++) {
+            Autor autor = autores.get(i);
+            idsAutores.put(autor, (long) i + 1);
+            instantanea.registrarAutor((long) i + 1, autor.getNombre(), autor.getFechaNacimiento(), autor.getFechaMuerte());
+        }
+        for (int i = 0; i < catalogo.size(); i++) {
+            Libro libro = catalogo.get(i);
+            instantanea.registrarLibro((long) i + 1, libro.getIdioma(), libro.getNumeroDescargas(),
+                    idsAutores.get(libro.getAutor()));
+        }
+    }
+
+    @Benchmark
+    public EstadisticasBiblioteca calcularConStreams() {
+        DoubleSummaryStatistics descargas = catalogo.stream()
+                .mapToDouble(Libro::getNumeroDescargas)
+                .summaryStatistics();
+        Map<String, Long> librosPorIdioma = catalogo.stream()
+                .collect(Collectors.groupingBy(Libro::getIdioma, Collectors.counting()));
+        Optional<Autor> prolifico = autores.stream()
+                .max(Comparator.comparing(a -> a.getLibros().size()));
+
+        return new EstadisticasBiblioteca(
+                catalogo.size(),
+                autores.size(),
+                descargas.getAverage(),
+                (long) descargas.getMax(),
+                (long) descargas.getMin(),
+                (long) descargas.getSum(),
+                librosPorIdioma,
+                prolifico.map(Autor::getNombre).orElse(null),
+                prolifico.map(a -> (long) a.getLibros().size()).orElse(0L));
+    }
+
+    @Benchmark
+    public EstadisticasBiblioteca calcularConInstantanea() {
+        return instantanea.estadisticas();
+    }
+}
@@ -0,0 +1,69 @@
+package aluraChallenge.literatura.benchmarks;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aluraChallenge.literatura.dto.DatosAutor;
+import aluraChallenge.literatura.dto.DatosLibro;
+import aluraChallenge.literatura.service.MapeoLibros;
+
+/**
+ * Conversión de {@link DatosLibro} a las columnas que {@code GuardadoLibros} inserta con
+ * unnest, con las reglas de {@link MapeoLibros}: el mismo camino del menú y de la carga masiva.
+ * No incluye la base: los ids de libros y autores se fijan en el setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class MapeoLibrosBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int libros;
+
+    private List<DatosLibro> datos;
+    private long[] ids;
+    private Map<String, Long> idsAutores;
+
+    @Setup
+    public void preparar() {
+        datos = CatalogoSintetico.datosLibros(libros);
+        ids = new long[libros];
+        for (int i = 0; i < libros; i++) {
+            ids[i] = i + 1;
+        }
+        // Como si todos los autores ya estuvieran resueltos (caché o base)
+        idsAutores = new HashMap<>();
+        for (String clave : MapeoLibros.autoresPorClave(datos).keySet()) {
+            idsAutores.put(clave, (long) idsAutores.size() + 1);
+        }
+    }
+
+    // Autores distintos del lote por clave normalizada, antes de resolver sus ids
+    @Benchmark
+    public Map<String, DatosAutor> agruparAutores() {
+        return MapeoLibros.autoresPorClave(datos);
+    }
+
+    // Columnas del INSERT de libros, con el id del autor buscado por clave
+    @Benchmark
+    public MapeoLibros.ColumnasLibros armarColumnas() {
+        return MapeoLibros.columnasLibros(datos, ids, idsAutores);
+    }
+}
@@ -0,0 +1,55 @@
+package aluraChallenge.literatura.carga;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opciones de línea de comandos con la forma {@code clave=valor}. exec:exec pasa todas
+ * juntas en un solo argumento (-Dcarga.opciones="libros=50000 clientes=64"), así que
+ * cada argumento se parte además por espacios.
+ */
+final class Opciones {
+
+    private final Map<String, String> valores = new HashMap<>();
+
+    private Opciones() {}
+
+    static Opciones de(String... args) {
+        var opciones = new Opciones();
+        for (String argumento : args) {
+            for (String par : argumento.trim().split("\\s+")) {
+                if (par.isEmpty()) {
+                    continue;
+                }
+                int igual = par.indexOf('=');
+                if (igual <= 0) {
+                    throw new IllegalArgumentException("Opción sin valor (se espera clave=valor): " + par);
+                }
+                opciones.valores.put(par.substring(0, igual), par.substring(igual + 1));
+            }
+        }
+        return opciones;
+    }
+
+    int entero(String clave, int defecto) {
+        String valor = valores.get(clave);
+        return valor != null ? Integer.parseInt(valor) : defecto;
+    }
+
+    double decimal(String clave, double defecto) {
+        String valor = valores.get(clave);
+        return valor != null ? Double.parseDouble(valor) : defecto;
+    }
+
+    boolean logico(String clave, boolean defecto) {
+        String valor = valores.get(clave);
+        return valor != null ? Boolean.parseBoolean(valor) : defecto;
+    }
+
+    // Formato ISO-8601, igual que en application.properties (PT0.05S)
+    Duration duracion(String clave, Duration defecto) {
+        String valor = valores.get(clave);
+        return valor != null ? Duration.parse(valor) : defecto;
+    }
+}
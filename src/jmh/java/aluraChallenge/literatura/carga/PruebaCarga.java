@@ -0,0 +1,225 @@
+package aluraChallenge.literatura.carga;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import aluraChallenge.literatura.LiteraturaApplication;
+import aluraChallenge.literatura.dto.ResumenIngesta;
+import aluraChallenge.literatura.service.ConsumoApi;
+import aluraChallenge.literatura.service.IngestaMasivaService;
+import aluraChallenge.literatura.service.MetricasLiteratura;
+
+/**
+ * Prueba de carga de punta a punta sin salir a internet: levanta un
+ * {@link ServidorGutendexSimulado}, arranca la aplicación apuntando a él (sin menú
+ * ni servidor web) y durante {@code duracion} lanza búsquedas desde {@code clientes}
+ * hilos virtuales mientras, a la vez, corre una ingesta masiva del catálogo. Informa
+ * throughput y percentiles de latencia por operación, medidos desde el llamador.
+ *
+ * Usa la misma base PostgreSQL que la aplicación: la ingesta guarda de verdad.
+ *
+ *   ./mvnw -Pjmh compile exec:exec@carga -Dcarga.opciones="libros=100000 clientes=64 duracion=PT1M"
+ *
+ * Opciones (clave=valor): las del servidor ({@link ServidorGutendexSimulado.Configuracion})
+ * y además clientes, duracion, ingesta-paginas (0 = sin ingesta), en-vuelo, lote y
+ * cache (false por defecto: sin caché de respuestas cada búsqueda llega al servidor).
+ */
+public class PruebaCarga {
+
+    // Proporción de cada búsqueda: sobre todo por título y autor, como desde el menú
+    private static final String[] MEZCLA = {"titulo", "titulo", "titulo", "autor", "autor", "idioma", "tema", "populares"};
+
+    /** Latencias de una operación; cada cliente junta las suyas y se suman al final. */
+    private static final class Muestras {
+        private long[] nanos = new long[1024];
+        private int cantidad;
+        private long errores;
+
+        void agregar(long valor) {
+            if (cantidad == nanos.length) {
+                nanos = Arrays.copyOf(nanos, cantidad * 2);
+            }
+            nanos[cantidad++] = valor;
+        }
+
+        void sumar(Muestras otras) {
+            for (int i = 0; i < otras.cantidad; i++) {
+                agregar(otras.nanos[i]);
+            }
+            errores += otras.errores;
+        }
+
+        // Percentil por rango más cercano; las muestras deben estar ordenadas
+        double percentilMs(double percentil) {
+            if (cantidad == 0) {
+                return 0;
+            }
+            int posicion = (int) Math.ceil(percentil * cantidad) - 1;
+            return nanos[Math.max(0, Math.min(cantidad - 1, posicion))] / 1_000_000.0;
+        }
+
+        void ordenar() {
+            Arrays.sort(nanos, 0, cantidad);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        var opciones = Opciones.de(args);
+        int clientes = opciones.entero("clientes", 32);
+        Duration duracion = opciones.duracion("duracion", Duration.ofSeconds(30));
+        int paginasIngesta = opciones.entero("ingesta-paginas", 200);
+        int enVuelo = opciones.entero("en-vuelo", IngestaMasivaService.EN_VUELO_POR_DEFECTO);
+        int lote = opciones.entero("lote", IngestaMasivaService.TAMANO_LOTE_POR_DEFECTO);
+
+        try (var servidor = ServidorGutendexSimulado.iniciar(0, ServidorGutendexSimulado.Configuracion.desde(opciones));
+             var contexto = arrancarAplicacion(servidor.urlBase(), opciones.logico("cache", false))) {
+            System.out.printf("%n🚀 Prueba de carga: %d clientes durante %s contra %s (%,d libros)%n",
+                    clientes, duracion, servidor.urlBase(), servidor.configuracion().libros());
+
+            var consumoApi = contexto.getBean(ConsumoApi.class);
+            var ingesta = contexto.getBean(IngestaMasivaService.class);
+            long fin = System.nanoTime() + duracion.toNanos();
+            List<Map<String, Muestras>> porCliente = new ArrayList<>();
+            Future<ResumenIngesta> resumenIngesta = null;
+
+            try (var ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+                if (paginasIngesta > 0) {
+                    resumenIngesta = ejecutor.submit(() -> ingesta.ingerirCatalogo(paginasIngesta, enVuelo, lote));
+                }
+                for (int c = 0; c < clientes; c++) {
+                    Map<String, Muestras> muestras = new HashMap<>();
+                    porCliente.add(muestras);
+                    ejecutor.submit(() -> simularCliente(consumoApi, fin, muestras));
+                }
+            }
+
+            imprimirBusquedas(porCliente, duracion);
+            imprimirIngesta(resumenIngesta);
+            imprimirAplicacion(contexto.getBean(MetricasLiteratura.class), consumoApi);
+            imprimirServidor(servidor.estadisticas());
+        }
+    }
+
+    private static ConfigurableApplicationContext arrancarAplicacion(String urlBase, boolean cache) {
+        List<String> argumentos = new ArrayList<>(List.of(
+                "--literatura.api.url-base=" + urlBase,
+                "--literatura.menu.habilitado=false",
+                "--literatura.descargas.actualizacion.habilitada=false",
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off"));
+        if (!cache) {
+            argumentos.addAll(List.of(
+                    "--literatura.cache.ttl.busqueda=PT0S",
+                    "--literatura.cache.ttl.populares=PT0S",
+                    "--literatura.cache.ttl.defecto=PT0S",
+                    "--literatura.cache.directorio="));
+        }
+        return SpringApplication.run(LiteraturaApplication.class, argumentos.toArray(String[]::new));
+    }
+
+    private static void simularCliente(ConsumoApi consumoApi, long fin, Map<String, Muestras> muestras) {
+        var azar = ThreadLocalRandom.current();
+        while (System.nanoTime() < fin) {
+            String operacion = MEZCLA[azar.nextInt(MEZCLA.length)];
+            var registro = muestras.computeIfAbsent(operacion, o -> new Muestras());
+            long inicio = System.nanoTime();
+            try {
+                buscar(consumoApi, operacion, azar);
+                registro.agregar(System.nanoTime() - inicio);
+            } catch (RuntimeException e) {
+                registro.errores++;
+            }
+        }
+    }
+
+    // Términos tomados del vocabulario del servidor: todas las búsquedas encuentran algo
+    private static void buscar(ConsumoApi consumoApi, String operacion, ThreadLocalRandom azar) {
+        switch (operacion) {
+            case "titulo" -> consumoApi.buscarLibrosPorTitulo(
+                    azar(ServidorGutendexSimulado.ADJETIVOS, azar) + " " + azar(ServidorGutendexSimulado.SUSTANTIVOS, azar));
+            case "autor" -> consumoApi.buscarLibrosPorAutor(azar(ServidorGutendexSimulado.APELLIDOS, azar));
+            case "idioma" -> consumoApi.buscarLibrosPorIdioma(azar(ServidorGutendexSimulado.IDIOMAS, azar));
+            case "tema" -> consumoApi.buscarLibrosPorTema(azar(ServidorGutendexSimulado.TEMAS, azar));
+            default -> consumoApi.obtenerLibrosMasPopulares(10);
+        }
+    }
+
+    private static String azar(String[] opciones, ThreadLocalRandom azar) {
+        return opciones[azar.nextInt(opciones.length)];
+    }
+
+    private static void imprimirBusquedas(List<Map<String, Muestras>> porCliente, Duration duracion) {
+        Map<String, Muestras> porOperacion = new TreeMap<>();
+        var total = new Muestras();
+        porCliente.forEach(muestras -> muestras.forEach((operacion, registro) -> {
+            porOperacion.computeIfAbsent(operacion, o -> new Muestras()).sumar(registro);
+            total.sumar(registro);
+        }));
+
+        System.out.println("\n🔎 Búsquedas (latencia desde el llamador):");
+        porOperacion.forEach((operacion, registro) -> imprimirFila(operacion, registro, duracion));
+        imprimirFila("total", total, duracion);
+    }
+
+    private static void imprimirFila(String nombre, Muestras registro, Duration duracion) {
+        registro.ordenar();
+        double segundos = duracion.toNanos() / 1_000_000_000.0;
+        System.out.printf("   • %-10s %,8d ok | %,6d errores | %,8.1f op/s | p50 %,8.1f ms | p95 %,8.1f ms | p99 %,8.1f ms | máx %,8.1f ms%n",
+                nombre, registro.cantidad, registro.errores, registro.cantidad / segundos,
+                registro.percentilMs(0.50), registro.percentilMs(0.95), registro.percentilMs(0.99),
+                registro.percentilMs(1.0));
+    }
+
+    private static void imprimirIngesta(Future<ResumenIngesta> resumenIngesta) throws InterruptedException {
+        if (resumenIngesta == null) {
+            return;
+        }
+        System.out.println("\n📥 Ingesta masiva (en paralelo con las búsquedas):");
+        try {
+            var resumen = resumenIngesta.get();
+            System.out.printf("   • Páginas: %,d leídas | %,d fallidas%n", resumen.paginasLeidas(), resumen.paginasFallidas());
+            System.out.printf("   • Libros: %,d leídos | %,d guardados | %,d duplicados | %,d autores nuevos%n",
+                    resumen.librosLeidos(), resumen.librosGuardados(), resumen.duplicados(), resumen.autoresNuevos());
+            System.out.printf("   • Duración: %,.1f s | %,.0f libros/s guardados | pico de heap %,d MB%n",
+                    resumen.duracion().toMillis() / 1000.0, resumen.librosPorSegundo(),
+                    resumen.heapPicoBytes() / (1024 * 1024));
+        } catch (ExecutionException e) {
+            System.out.println("   ❌ La ingesta falló: " + e.getCause().getMessage());
+        }
+    }
+
+    private static void imprimirAplicacion(MetricasLiteratura metricas, ConsumoApi consumoApi) {
+        System.out.println("\n🌐 Peticiones a Gutendex vistas por la aplicación (consulta estado):");
+        metricas.resumen(MetricasLiteratura.PETICIONES, "consulta", "estado").forEach(fila -> System.out.printf(
+                "   • %-24s %,8d veces | prom %,8.1f ms | p95 %s | máx %,8.1f ms%n",
+                fila.nombre(), fila.cantidad(), fila.promedioMs(),
+                fila.p95Ms() >= 0 ? String.format("%,8.1f ms", fila.p95Ms()) : "       -   ",
+                fila.maximoMs()));
+
+        var limitador = consumoApi.estadoLimitador();
+        var cobertura = consumoApi.estadoCobertura();
+        System.out.printf("   • Límite final: %d | Reducciones: %,d | Reintentos: %,d | Rechazadas: %,d%n",
+                limitador.limite(), limitador.reducciones(), limitador.reintentos(), limitador.rechazos());
+        System.out.printf("   • Coalescidas: %,d | Coberturas: %,d (ganaron %,d)%n",
+                consumoApi.peticionesCoalescidas(), cobertura.coberturas(), cobertura.ganadas());
+    }
+
+    private static void imprimirServidor(ServidorGutendexSimulado.Estadisticas estadisticas) {
+        System.out.println("\n🖥️  Servidor simulado:");
+        System.out.printf("   • Peticiones: %,d | 200: %,d | 429: %,d | 500: %,d | Libros servidos: %,d%n",
+                estadisticas.peticiones(), estadisticas.respuestas200(), estadisticas.errores429(),
+                estadisticas.errores500(), estadisticas.librosServidos());
+    }
+}
@@ -0,0 +1,456 @@
+package aluraChallenge.literatura.carga;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Servidor HTTP local que responde como Gutendex (/books/) sobre un catálogo sintético
+ * generado con semilla fija, para medir la aplicación sin salir a internet.
+ *
+ * Entiende page, search, topic, languages, ids, sort y author_year_start/end; pagina
+ * con count/next/previous y comprime con gzip si el cliente lo pide. Cada respuesta se
+ * demora y puede fallar con 429 o 500 según la {@link Configuracion}, para ejercitar
+ * los reintentos, el límite adaptativo y las coberturas de ConsumoApi.
+ *
+ * También se puede levantar solo y apuntar la aplicación a él:
+ *
+ *   java -cp ... aluraChallenge.literatura.carga.ServidorGutendexSimulado puerto=8090 libros=100000
+ *   ./mvnw spring-boot:run -Dspring-boot.run.arguments=--literatura.api.url-base=http://127.0.0.1:8090/books/
+ */
+public final class ServidorGutendexSimulado implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServidorGutendexSimulado.class);
+
+    static final String RUTA = "/books/";
+
+    // Vocabulario del catálogo; la prueba de carga arma sus búsquedas con estas mismas palabras
+    static final String[] ADJETIVOS = {"Lost", "Silent", "Golden", "Hidden", "Broken", "Secret", "Ancient",
+            "Wandering", "Crimson", "Forgotten", "Little", "Last", "Strange", "Dark", "Bright", "Wild", "Quiet",
+            "Burning", "Frozen", "Distant"};
+    static final String[] SUSTANTIVOS = {"River", "Garden", "Kingdom", "Voyage", "Letters", "Island", "Empire",
+            "Mountain", "Sea", "Forest", "Tower", "Journey", "Dream", "City", "Heart", "Winter", "Shadow", "Crown",
+            "Road", "House"};
+    static final String[] APELLIDOS = {"Austen", "Dickens", "Twain", "Tolstoy", "Cervantes", "Hugo", "Verne",
+            "Shelley", "Poe", "Wilde", "Melville", "Hawthorne", "Eliot", "Bronte", "Doyle", "Kipling", "Stevenson",
+            "Balzac", "Dumas", "Goethe", "Alighieri", "Chekhov", "Ibsen", "Zola", "Galdos"};
+    static final String[] NOMBRES = {"Jane", "Charles", "Mark", "Leo", "Miguel", "Victor", "Jules", "Mary", "Edgar",
+            "Oscar", "Herman", "Nathaniel", "George", "Emily", "Arthur", "Rudyard", "Robert", "Honore", "Alexandre",
+            "Johann"};
+    static final String[] TEMAS = {"Fiction", "Adventure stories", "Love stories", "History", "Poetry", "Drama",
+            "Science fiction", "Philosophy", "Travel", "Children's literature", "Biography", "Short stories"};
+    // Repetido a propósito: la mayoría del catálogo real está en inglés
+    static final String[] IDIOMAS = {"en", "en", "en", "en", "fr", "es", "de", "it", "pt", "fi", "nl"};
+
+    private static final JsonFactory FABRICA_JSON = new JsonFactory();
+
+    /**
+     * @param libros       tamaño del catálogo generado
+     * @param tamanoPagina libros por página (Gutendex usa 32)
+     * @param latencia     demora mínima de cada respuesta
+     * @param variacion    demora extra al azar entre 0 y este valor
+     * @param tasaLentas   fracción de respuestas que tardan {@code latenciaLenta} (la cola del p99)
+     * @param tasa429      fracción de respuestas 429 con Retry-After: 1
+     * @param tasa500      fracción de respuestas 500
+     */
+    public record Configuracion(
+        int libros,
+        int tamanoPagina,
+        Duration latencia,
+        Duration variacion,
+        double tasaLentas,
+        Duration latenciaLenta,
+        double tasa429,
+        double tasa500,
+        long semilla
+    ) {
+        static Configuracion desde(Opciones opciones) {
+            return new Configuracion(
+                    opciones.entero("libros", 20_000),
+                    opciones.entero("pagina", 32),
+                    opciones.duracion("latencia", Duration.ofMillis(50)),
+                    opciones.duracion("variacion", Duration.ofMillis(30)),
+                    opciones.decimal("lentas", 0.01),
+                    opciones.duracion("latencia-lenta", Duration.ofSeconds(1)),
+                    opciones.decimal("errores-429", 0.01),
+                    opciones.decimal("errores-500", 0.005),
+                    opciones.entero("semilla", 20240801));
+        }
+    }
+
+    public record Estadisticas(long peticiones, long respuestas200, long errores429, long errores500, long librosServidos) {}
+
+    private final Configuracion config;
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Catálogo en arreglos paralelos: con un millón de libros ocupa unos cientos de MB
+    private final String[] titulos;
+    private final String[] textoBusqueda;
+    private final int[] autorDe;
+    private final int[] descargas;
+    private final byte[] idiomaDe;
+    private final byte[] temaDe;
+    private final String[] nombresAutores;
+    private final int[] nacimientos;
+    private final int[] muertes;
+    private final int[] porPopularidad;
+
+    private final AtomicLong peticiones = new AtomicLong();
+    private final AtomicLong respuestas200 = new AtomicLong();
+    private final AtomicLong errores429 = new AtomicLong();
+    private final AtomicLong errores500 = new AtomicLong();
+    private final AtomicLong librosServidos = new AtomicLong();
+
+    private ServidorGutendexSimulado(int puerto, Configuracion config) throws IOException {
+        if (config.libros() <= 0 || config.tamanoPagina() <= 0) {
+            throw new IllegalArgumentException("El catálogo y la página deben tener al menos un libro");
+        }
+        this.config = config;
+
+        var aleatorio = new SplittableRandom(config.semilla());
+        // Tantos autores como libros / 8, como en CatalogoSintetico
+        int totalAutores = Math.max(1, config.libros() / 8);
+        nombresAutores = new String[totalAutores];
+        nacimientos = new int[totalAutores];
+        muertes = new int[totalAutores];
+        int combinaciones = APELLIDOS.length * NOMBRES.length;
+        for (int k = 0; k < totalAutores; k++) {
+            String nombre = APELLIDOS[k % APELLIDOS.length] + ", " + NOMBRES[(k / APELLIDOS.length) % NOMBRES.length];
+            nombresAutores[k] = k < combinaciones ? nombre : nombre + " " + (k / combinaciones + 1);
+            nacimientos[k] = 1500 + aleatorio.nextInt(450);
+            muertes[k] = nacimientos[k] + 20 + aleatorio.nextInt(70);
+        }
+
+        int n = config.libros();
+        titulos = new String[n];
+        textoBusqueda = new String[n];
+        autorDe = new int[n];
+        descargas = new int[n];
+        idiomaDe = new byte[n];
+        temaDe = new byte[n];
+        for (int i = 0; i < n; i++) {
+            titulos[i] = ADJETIVOS[aleatorio.nextInt(ADJETIVOS.length)] + " "
+                    + SUSTANTIVOS[aleatorio.nextInt(SUSTANTIVOS.length)] + " (" + (i + 1) + ")";
+            autorDe[i] = aleatorio.nextInt(totalAutores);
+            // Pocos libros concentran la mayoría de las descargas, como en Gutenberg
+            descargas[i] = (int) (200_000 / Math.pow(1 + aleatorio.nextInt(n), 0.8));
+            idiomaDe[i] = (byte) aleatorio.nextInt(IDIOMAS.length);
+            temaDe[i] = (byte) aleatorio.nextInt(TEMAS.length);
+            textoBusqueda[i] = (titulos[i] + " " + nombresAutores[autorDe[i]]).toLowerCase(Locale.ROOT);
+        }
+        // Orden por defecto de Gutendex: más descargados primero
+        porPopularidad = IntStream.range(0, n).boxed()
+                .sorted((a, b) -> descargas[a] != descargas[b] ? Integer.compare(descargas[b], descargas[a])
+                        : Integer.compare(a, b))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", puerto), 1024);
+        servidor.setExecutor(ejecutor);
+        servidor.createContext("/", this::atender);
+    }
+
+    /** Genera el catálogo y empieza a atender; con puerto 0 se elige uno libre. */
+    public static ServidorGutendexSimulado iniciar(int puerto, Configuracion config) throws IOException {
+        var simulado = new ServidorGutendexSimulado(puerto, config);
+        simulado.servidor.start();
+        return simulado;
+    }
+
+    /** Valor para literatura.api.url-base. */
+    public String urlBase() {
+        return "http://127.0.0.1:" + servidor.getAddress().getPort() + RUTA;
+    }
+
+    public Configuracion configuracion() {
+        return config;
+    }
+
+    public Estadisticas estadisticas() {
+        return new Estadisticas(peticiones.get(), respuestas200.get(), errores429.get(), errores500.get(),
+                librosServidos.get());
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+        ejecutor.shutdownNow();
+    }
+
+    private void atender(HttpExchange intercambio) throws IOException {
+        try (intercambio) {
+            peticiones.incrementAndGet();
+            demorar();
+
+            double azar = ThreadLocalRandom.current().nextDouble();
+            if (azar < config.tasa429()) {
+                errores429.incrementAndGet();
+                intercambio.getResponseHeaders().set("Retry-After", "1");
+                responderTexto(intercambio, 429, "{\"detail\":\"Request was throttled.\"}");
+                return;
+            }
+            if (azar < config.tasa429() + config.tasa500()) {
+                errores500.incrementAndGet();
+                responderTexto(intercambio, 500, "{\"detail\":\"Server error.\"}");
+                return;
+            }
+
+            String ruta = intercambio.getRequestURI().getPath();
+            if (!"GET".equals(intercambio.getRequestMethod()) || !(RUTA.equals(ruta) || "/books".equals(ruta))) {
+                responderTexto(intercambio, 404, "{\"detail\":\"Not found.\"}");
+                return;
+            }
+            responderPagina(intercambio);
+        } catch (RuntimeException e) {
+            logger.error("Error al atender {}: {}", intercambio.getRequestURI(), e.getMessage(), e);
+        }
+    }
+
+    private void demorar() {
+        var azar = ThreadLocalRandom.current();
+        long nanos = azar.nextDouble() < config.tasaLentas()
+                ? config.latenciaLenta().toNanos()
+                : config.latencia().toNanos() + (config.variacion().isZero() ? 0 : azar.nextLong(config.variacion().toNanos()));
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void responderPagina(HttpExchange intercambio) throws IOException {
+        Map<String, String> parametros = parametros(intercambio.getRequestURI().getRawQuery());
+        int pagina;
+        try {
+            pagina = Integer.parseInt(parametros.getOrDefault("page", "1"));
+        } catch (NumberFormatException e) {
+            pagina = 0;
+        }
+
+        int desde = (pagina - 1) * config.tamanoPagina();
+        List<Integer> resultados = new ArrayList<>(config.tamanoPagina());
+        int total = buscar(parametros, Math.max(desde, 0), resultados);
+        if (pagina < 1 || (pagina > 1 && desde >= total)) {
+            responderTexto(intercambio, 404, "{\"detail\":\"Invalid page.\"}");
+            return;
+        }
+
+        String base = "http://" + intercambio.getRequestHeaders().getFirst("Host") + intercambio.getRequestURI().getPath();
+        parametros.remove("page");
+        String siguiente = desde + resultados.size() < total ? enlace(base, parametros, pagina + 1) : null;
+        String anterior = pagina > 1 ? enlace(base, parametros, pagina - 1) : null;
+
+        String aceptadas = intercambio.getRequestHeaders().getFirst("Accept-Encoding");
+        boolean gzip = aceptadas != null && aceptadas.toLowerCase(Locale.ROOT).contains("gzip");
+        intercambio.getResponseHeaders().set("Content-Type", "application/json");
+        if (gzip) {
+            intercambio.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        // Largo 0 = respuesta por partes (chunked): el cuerpo se escribe a medida que se genera
+        intercambio.sendResponseHeaders(200, 0);
+        OutputStream salida = gzip
+                ? new GZIPOutputStream(intercambio.getResponseBody(), 8192)
+                : intercambio.getResponseBody();
+        // El generador cierra la salida al terminar, y con ella el gzip
+        try (JsonGenerator json = FABRICA_JSON.createGenerator(salida)) {
+            json.writeStartObject();
+            json.writeNumberField("count", total);
+            json.writeStringField("next", siguiente);
+            json.writeStringField("previous", anterior);
+            json.writeArrayFieldStart("results");
+            for (int indice : resultados) {
+                escribirLibro(json, indice);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        respuestas200.incrementAndGet();
+        librosServidos.addAndGet(resultados.size());
+    }
+
+    /**
+     * Recorre el catálogo en el orden pedido, guarda en {@code pagina} los libros que
+     * caen desde la posición {@code desde} y devuelve el total de coincidencias. Sin
+     * filtros no hace falta recorrer nada: el total es el tamaño del catálogo.
+     */
+    private int buscar(Map<String, String> parametros, int desde, List<Integer> pagina) {
+        IntUnaryOperator orden = switch (parametros.getOrDefault("sort", "popular")) {
+            case "ascending" -> posicion -> posicion;
+            case "descending" -> posicion -> titulos.length - 1 - posicion;
+            default -> posicion -> porPopularidad[posicion];
+        };
+        IntPredicate filtro = filtro(parametros);
+        if (filtro == null) {
+            for (int posicion = desde; posicion < Math.min(desde + config.tamanoPagina(), titulos.length); posicion++) {
+                pagina.add(orden.applyAsInt(posicion));
+            }
+            return titulos.length;
+        }
+
+        int total = 0;
+        for (int posicion = 0; posicion < titulos.length; posicion++) {
+            int indice = orden.applyAsInt(posicion);
+            if (filtro.test(indice)) {
+                if (total >= desde && pagina.size() < config.tamanoPagina()) {
+                    pagina.add(indice);
+                }
+                total++;
+            }
+        }
+        return total;
+    }
+
+    // null si la consulta no filtra nada
+    private IntPredicate filtro(Map<String, String> parametros) {
+        List<IntPredicate> filtros = new ArrayList<>();
+
+        String busqueda = parametros.get("search");
+        if (busqueda != null && !busqueda.isBlank()) {
+            String[] terminos = busqueda.toLowerCase(Locale.ROOT).trim().split("\\s+");
+            filtros.add(i -> Arrays.stream(terminos).allMatch(textoBusqueda[i]::contains));
+        }
+        String tema = parametros.get("topic");
+        if (tema != null && !tema.isBlank()) {
+            String buscado = tema.toLowerCase(Locale.ROOT);
+            filtros.add(i -> TEMAS[temaDe[i]].toLowerCase(Locale.ROOT).contains(buscado));
+        }
+        String idiomas = parametros.get("languages");
+        if (idiomas != null && !idiomas.isBlank()) {
+            Set<String> aceptados = Set.of(idiomas.toLowerCase(Locale.ROOT).split(","));
+            filtros.add(i -> aceptados.contains(IDIOMAS[idiomaDe[i]]));
+        }
+        String ids = parametros.get("ids");
+        if (ids != null && !ids.isBlank()) {
+            Set<Integer> buscados = new HashSet<>();
+            for (String id : ids.split(",")) {
+                buscados.add(Integer.parseInt(id.trim()));
+            }
+            filtros.add(i -> buscados.contains(i + 1));
+        }
+        // Gutendex: al menos un autor vivo en algún momento del rango
+        String inicio = parametros.get("author_year_start");
+        if (inicio != null) {
+            int anio = Integer.parseInt(inicio);
+            filtros.add(i -> muertes[autorDe[i]] >= anio);
+        }
+        String fin = parametros.get("author_year_end");
+        if (fin != null) {
+            int anio = Integer.parseInt(fin);
+            filtros.add(i -> nacimientos[autorDe[i]] <= anio);
+        }
+
+        return filtros.stream().reduce(IntPredicate::and).orElse(null);
+    }
+
+    // Mismos campos que Gutendex, aunque la aplicación solo lee algunos
+    private void escribirLibro(JsonGenerator json, int indice) throws IOException {
+        int id = indice + 1;
+        int autor = autorDe[indice];
+        json.writeStartObject();
+        json.writeNumberField("id", id);
+        json.writeStringField("title", titulos[indice]);
+        json.writeArrayFieldStart("authors");
+        json.writeStartObject();
+        json.writeStringField("name", nombresAutores[autor]);
+        json.writeNumberField("birth_year", nacimientos[autor]);
+        json.writeNumberField("death_year", muertes[autor]);
+        json.writeEndObject();
+        json.writeEndArray();
+        json.writeArrayFieldStart("summaries");
+        json.writeEndArray();
+        json.writeArrayFieldStart("translators");
+        json.writeEndArray();
+        json.writeArrayFieldStart("subjects");
+        json.writeString(TEMAS[temaDe[indice]]);
+        json.writeEndArray();
+        json.writeArrayFieldStart("bookshelves");
+        json.writeEndArray();
+        json.writeArrayFieldStart("languages");
+        json.writeString(IDIOMAS[idiomaDe[indice]]);
+        json.writeEndArray();
+        json.writeBooleanField("copyright", false);
+        json.writeStringField("media_type", "Text");
+        json.writeObjectFieldStart("formats");
+        json.writeStringField("text/plain; charset=us-ascii", "https://www.gutenberg.org/ebooks/" + id + ".txt.utf-8");
+        json.writeEndObject();
+        json.writeNumberField("download_count", descargas[indice]);
+        json.writeEndObject();
+    }
+
+    private static void responderTexto(HttpExchange intercambio, int estado, String cuerpo) throws IOException {
+        byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json");
+        intercambio.sendResponseHeaders(estado, bytes.length);
+        intercambio.getResponseBody().write(bytes);
+    }
+
+    private static Map<String, String> parametros(String consulta) {
+        Map<String, String> parametros = new LinkedHashMap<>();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = URLDecoder.decode(igual < 0 ? par : par.substring(0, igual), StandardCharsets.UTF_8);
+            String valor = igual < 0 ? "" : URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8);
+            parametros.put(clave, valor);
+        }
+        return parametros;
+    }
+
+    // Como Gutendex: los enlaces conservan la consulta y la primera página va sin page
+    private static String enlace(String base, Map<String, String> parametros, int pagina) {
+        var consulta = new LinkedHashMap<>(parametros);
+        if (pagina > 1) {
+            consulta.put("page", String.valueOf(pagina));
+        }
+        if (consulta.isEmpty()) {
+            return base;
+        }
+        return base + "?" + consulta.entrySet().stream()
+                .map(e -> e.getKey() + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+    }
+
+    public static void main(String[] args) throws IOException {
+        var opciones = Opciones.de(args);
+        var simulado = iniciar(opciones.entero("puerto", 8090), Configuracion.desde(opciones));
+        Runtime.getRuntime().addShutdownHook(new Thread(simulado::close));
+        System.out.printf("📚 Gutendex simulado en %s (%,d libros, %s)%n",
+                simulado.urlBase(), simulado.config.libros(), simulado.config);
+    }
+}
@@ -1,22 +1,32 @@
 package aluraChallenge.literatura;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+// Scheduling: actualización periódica de descargas (ActualizacionDescargas)
 @SpringBootApplication
+@EnableScheduling
 public class LiteraturaApplication implements CommandLineRunner {
 
     @Autowired
     private Principal principal;
 
+    @Value("${literatura.menu.habilitado:true}")
+    private boolean menuHabilitado;
+
     public static void main(String[] args) {
         SpringApplication.run(LiteraturaApplication.class, args);
     }
 
     @Override
     public void run(String... args) throws Exception {
+        if (!menuHabilitado) {
+            return;
+        }
         System.out.println("""
             ╔════════════════════════════════════════════════════╗
             ║                                                    ║
@@ -1,28 +1,45 @@
 package aluraChallenge.literatura;
 
-import java.util.Comparator;
-import java.util.DoubleSummaryStatistics;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.InputMismatchException;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Scanner;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import aluraChallenge.literatura.dto.DatosLibro;
+import aluraChallenge.literatura.dto.PosicionRanking;
 import aluraChallenge.literatura.dto.ResultadoBusqueda;
 import aluraChallenge.literatura.models.Autor;
 import aluraChallenge.literatura.models.Libro;
 import aluraChallenge.literatura.repository.AutorRepository;
 import aluraChallenge.literatura.repository.LibroRepository;
+import aluraChallenge.literatura.service.ActualizacionDescargas;
+import aluraChallenge.literatura.service.AnalisisCatalogo;
+import aluraChallenge.literatura.service.CacheAutores;
 import aluraChallenge.literatura.service.ConsumoApi;
+import aluraChallenge.literatura.service.EstadisticasService;
+import aluraChallenge.literatura.service.ExportacionCatalogo;
+import aluraChallenge.literatura.service.GuardadoLibros;
+import aluraChallenge.literatura.service.ImportacionCatalogoService;
+import aluraChallenge.literatura.service.IndiceAutoresVivos;
+import aluraChallenge.literatura.service.IndiceBusqueda;
+import aluraChallenge.literatura.service.IngestaMasivaService;
+import aluraChallenge.literatura.service.InstantaneaCatalogo;
+import aluraChallenge.literatura.service.MetricasLiteratura;
+import aluraChallenge.literatura.service.RankingDescargas;
 
 @Component
 public class Principal {
     
+    // Títulos del índice entre los que se busca uno igual al pedido (los más descargados primero)
+    private static final int CANDIDATOS_TITULO = 50;
+    
     private final Scanner teclado = new Scanner(System.in);
     
     @Autowired
@@ -34,6 +51,45 @@ public class Principal {
     @Autowired
     private AutorRepository autorRepository;
     
+    @Autowired
+    private GuardadoLibros guardadoLibros;
+    
+    @Autowired
+    private CacheAutores cacheAutores;
+    
+    @Autowired
+    private MetricasLiteratura metricas;
+    
+    @Autowired
+    private IngestaMasivaService ingestaMasivaService;
+    
+    @Autowired
+    private EstadisticasService estadisticasService;
+    
+    @Autowired
+    private RankingDescargas rankingDescargas;
+    
+    @Autowired
+    private IndiceBusqueda indiceBusqueda;
+    
+    @Autowired
+    private IndiceAutoresVivos indiceAutoresVivos;
+    
+    @Autowired
+    private ExportacionCatalogo exportacionCatalogo;
+    
+    @Autowired
+    private ImportacionCatalogoService importacionCatalogoService;
+    
+    @Autowired
+    private ActualizacionDescargas actualizacionDescargas;
+    
+    @Autowired
+    private InstantaneaCatalogo instantaneaCatalogo;
+    
+    @Autowired
+    private AnalisisCatalogo analisisCatalogo;
+    
     public void muestraElMenu() {
         var opcion = -1;
         while (opcion != 0) {
@@ -54,6 +110,14 @@ public class Principal {
                     ║ 8 - Estadísticas de la biblioteca       ║
                     ║ 9 - Buscar libros por tema              ║
                     ║ 10- Explorar libros populares           ║
+                    ║ 11- Carga masiva del catálogo           ║
+                    ║ 12- Estado de la conexión con la API    ║
+                    ║ 13- Línea de tiempo de autores          ║
+                    ║ 14- Exportar catálogo (NDJSON/CSV)      ║
+                    ║ 15- Importar pg_catalog.csv (sin red)   ║
+                    ║ 16- Métricas de rendimiento             ║
+                    ║ 17- Actualizar descargas desde la API   ║
+                    ║ 18- Análisis del catálogo en memoria    ║
                     ║ 0 - Salir                               ║
                     ╚══════════════════════════════════════════╝
                     """;
@@ -65,18 +129,26 @@ public class Principal {
                 teclado.nextLine(); // Limpiar buffer
                 
                 switch (opcion) {
-                    case 1 -> buscarLibroPorTitulo();
-                    case 2 -> listarLibrosRegistrados();
-                    case 3 -> listarAutoresRegistrados();
-                    case 4 -> listarAutoresVivosEnAño();
-                    case 5 -> listarLibrosPorIdioma();
-                    case 6 -> top10LibrosMasDescargados();
-                    case 7 -> buscarAutorPorNombre();
-                    case 8 -> mostrarEstadisticas();
-                    case 9 -> buscarLibrosPorTema();
-                    case 10 -> explorarLibrosPopulares();
+                    case 1 -> metricas.medir("buscar_libro", this::buscarLibroPorTitulo);
+                    case 2 -> metricas.medir("listar_libros", this::listarLibrosRegistrados);
+                    case 3 -> metricas.medir("listar_autores", this::listarAutoresRegistrados);
+                    case 4 -> metricas.medir("autores_vivos", this::listarAutoresVivosEnAño);
+                    case 5 -> metricas.medir("libros_por_idioma", this::listarLibrosPorIdioma);
+                    case 6 -> metricas.medir("top10", this::top10LibrosMasDescargados);
+                    case 7 -> metricas.medir("buscar_autor", this::buscarAutorPorNombre);
+                    case 8 -> metricas.medir("estadisticas", this::mostrarEstadisticas);
+                    case 9 -> metricas.medir("buscar_tema", this::buscarLibrosPorTema);
+                    case 10 -> metricas.medir("populares", this::explorarLibrosPopulares);
+                    case 11 -> metricas.medir("carga_masiva", this::cargarCatalogoCompleto);
+                    case 12 -> metricas.medir("estado_api", this::mostrarEstadoApi);
+                    case 13 -> metricas.medir("linea_de_tiempo", this::mostrarLineaDeTiempo);
+                    case 14 -> metricas.medir("exportar", this::exportarCatalogo);
+                    case 15 -> metricas.medir("importar_csv", this::importarCatalogoLocal);
+                    case 16 -> mostrarMetricas();
+                    case 17 -> metricas.medir("actualizar_descargas", this::actualizarDescargas);
+                    case 18 -> metricas.medir("analisis_catalogo", this::analizarCatalogo);
                     case 0 -> salir();
-                    default -> System.out.println("❌ Opción inválida. Por favor, elija un número del 0 al 10.");
+                    default -> System.out.println("❌ Opción inválida. Por favor, elija un número del 0 al 18.");
                 }
             } catch (InputMismatchException e) {
                 System.out.println("❌ Por favor, ingrese un número válido.");
@@ -99,6 +171,22 @@ public class Principal {
             return;
         }
         
+        // Primero el índice en memoria: solo el título completo evita ir a Gutendex. Las
+        // coincidencias parciales se muestran, pero el libro buscado puede ser otro
+        List<PosicionRanking> enBiblioteca = indiceBusqueda.buscarLibros(tituloLibro, CANDIDATOS_TITULO);
+        List<PosicionRanking> mismoTitulo = enBiblioteca.stream()
+                .filter(libro -> IndiceBusqueda.mismoTitulo(libro.titulo(), tituloLibro))
+                .toList();
+        if (!mismoTitulo.isEmpty()) {
+            System.out.println("📚 ¡Encontrado en tu biblioteca!");
+            mostrarPosiciones(mismoTitulo);
+            return;
+        }
+        if (!enBiblioteca.isEmpty()) {
+            System.out.println("📚 Parecidos en tu biblioteca:");
+            mostrarPosiciones(enBiblioteca.subList(0, Math.min(5, enBiblioteca.size())));
+        }
+        
         try {
             System.out.println("🔍 Buscando en la biblioteca de Gutendx...");
             
@@ -107,51 +195,45 @@ public class Principal {
             
             if (datosBusqueda.libros().isEmpty()) {
                 System.out.println("😔 Lo siento, no se encontró el libro: " + tituloLibro);
+                List<String> sugerencias = indiceBusqueda.completarTitulo(tituloLibro, 5);
+                if (!sugerencias.isEmpty()) {
+                    System.out.println("💡 Palabras parecidas en tu biblioteca: " + String.join(", ", sugerencias));
+                }
                 return;
             }
             
             var datosLibro = datosBusqueda.libros().get(0);
             
-            // Verificar si el libro ya existe
-            Optional<Libro> libroExistente = libroRepository.findByTituloContainsIgnoreCase(datosLibro.titulo());
-            if (libroExistente.isPresent()) {
+            // Autor y libro se resuelven en una sola transacción; un título repetido no se inserta
+            var resultado = guardadoLibros.guardar(List.of(datosLibro));
+            if (resultado.guardados().isEmpty()) {
                 System.out.println("📚 ¡Este libro ya está en tu biblioteca!");
-                System.out.println(libroExistente.get());
+                System.out.println("📖 " + datosLibro.titulo());
                 return;
             }
-            
-            // Crear/buscar autor
-            Autor autor = null;
-            if (!datosLibro.autores().isEmpty()) {
-                var datosAutor = datosLibro.autores().get(0);
-                Optional<Autor> autorExistente = autorRepository.findByNombreContainsIgnoreCase(datosAutor.nombre());
-                
-                if (autorExistente.isPresent()) {
-                    autor = autorExistente.get();
-                } else {
-                    autor = new Autor(datosAutor.nombre(), 
-                            datosAutor.fechaNacimiento(), 
-                            datosAutor.fechaMuerte());
-                    autor = autorRepository.save(autor);
-                    System.out.println("✨ Nuevo autor agregado: " + autor.getNombre());
-                }
+            if (resultado.autoresNuevos() > 0) {
+                System.out.println("✨ Nuevo autor agregado: " + datosLibro.autores().get(0).nombre());
             }
             
-            // Crear libro
-            String idioma = datosLibro.idiomas().isEmpty() ? "desconocido" : datosLibro.idiomas().get(0);
-            Integer descargas = datosLibro.numeroDescargas() != null ? datosLibro.numeroDescargas() : 0;
-            
-            Libro libro = new Libro(datosLibro.titulo(), autor, idioma, descargas);
-            libroRepository.save(libro);
-            
+            var libro = resultado.guardados().get(0);
             System.out.println("\n🎉 ¡Libro agregado exitosamente a tu biblioteca!");
-            System.out.println(libro);
+            System.out.printf("📖 %s%n", libro.titulo());
+            System.out.printf("   👤 %s | 🌍 %s | 📥 %,d descargas%n",
+                    libro.autor(), libro.idioma(), libro.descargas());
             
         } catch (Exception e) {
             System.out.println("❌ Error al buscar el libro: " + e.getMessage());
         }
     }
     
+    private static void mostrarPosiciones(List<PosicionRanking> libros) {
+        libros.forEach(libro -> {
+            System.out.printf("📖 %s%n", libro.titulo());
+            System.out.printf("   👤 %s | 🌍 %s | 📥 %,d descargas%n",
+                    libro.autor(), libro.idioma(), libro.descargas());
+        });
+    }
+    
     private void listarLibrosRegistrados() {
         List<Libro> libros = libroRepository.findAll();
         
@@ -196,35 +278,82 @@ public class Principal {
     }
     
     private void listarAutoresVivosEnAño() {
-        System.out.print("\n📅 Ingrese el año para buscar autores vivos: ");
+        System.out.print("\n📅 Ingrese el año (o un rango, p. ej. 1800-1850) para buscar autores vivos: ");
+        var entrada = teclado.nextLine().trim();
         
+        int desde;
+        int hasta;
         try {
-            var año = teclado.nextInt();
-            teclado.nextLine();
-            
-            if (año < 0 || año > 2024) {
-                System.out.println("❌ Por favor ingrese un año válido.");
-                return;
-            }
-            
-            List<Autor> autoresVivos = autorRepository.findAutoresVivosEnAño(año);
-            
-            if (autoresVivos.isEmpty()) {
-                System.out.printf("😔 No se encontraron autores vivos en el año %d en tu biblioteca.%n", año);
+            var partes = entrada.split("\\s*-\\s*", 2);
+            desde = Integer.parseInt(partes[0]);
+            hasta = partes.length > 1 ? Integer.parseInt(partes[1]) : desde;
+        } catch (NumberFormatException e) {
+            System.out.println("❌ Por favor, ingrese un año válido (número entero).");
+            return;
+        }
+        
+        if (desde < 0 || hasta > 2024 || desde > hasta) {
+            System.out.println("❌ Por favor ingrese un año válido.");
+            return;
+        }
+        
+        // Índice de intervalos en memoria: no recorre la tabla de autores
+        List<Long> ids = indiceAutoresVivos.vivosEntre(desde, hasta);
+        String periodo = desde == hasta ? "el año " + desde : "el período " + desde + "-" + hasta;
+        
+        if (ids.isEmpty()) {
+            System.out.printf("😔 No se encontraron autores vivos en %s en tu biblioteca.%n", periodo);
+            return;
+        }
+        
+        // En el orden del índice (por nacimiento): findAllById lo pierde
+        List<Autor> autoresVivos = autorRepository.findAllByIdEnOrden(ids);
+        System.out.printf("%n🌟 Autores vivos en %s:%n", periodo);
+        System.out.println("═".repeat(40));
+        
+        autoresVivos.forEach(autor -> {
+            System.out.println(autor);
+            System.out.println("─".repeat(30));
+        });
+    }
+    
+    private void mostrarLineaDeTiempo() {
+        var rango = indiceAutoresVivos.rangoConocido();
+        if (rango == null) {
+            System.out.println("\n👤 No hay autores con fechas registradas.");
+            return;
+        }
+        
+        System.out.printf("%n📅 Rango de años (Enter = %d-%d): ", rango[0], rango[1]);
+        var entrada = teclado.nextLine().trim();
+        int desde = rango[0];
+        int hasta = rango[1];
+        if (!entrada.isEmpty()) {
+            try {
+                var partes = entrada.split("\\s*-\\s*", 2);
+                desde = Integer.parseInt(partes[0]);
+                hasta = Integer.parseInt(partes[partes.length - 1]);
+            } catch (NumberFormatException e) {
+                System.out.println("❌ Por favor, ingrese un rango válido (p. ej. 1700-1900).");
                 return;
             }
-            
-            System.out.printf("%n🌟 Autores vivos en %d:%n", año);
-            System.out.println("═".repeat(40));
-            
-            autoresVivos.forEach(autor -> {
-                System.out.println(autor);
-                System.out.println("─".repeat(30));
-            });
-            
-        } catch (InputMismatchException e) {
-            System.out.println("❌ Por favor, ingrese un año válido (número entero).");
-            teclado.nextLine();
+        }
+        if (desde > hasta) {
+            System.out.println("❌ El año inicial debe ser menor o igual al final.");
+            return;
+        }
+        
+        // Conteo por año ya calculado: una sola pasada para todo el gráfico
+        int[] vivos = indiceAutoresVivos.histograma(desde, hasta);
+        int paso = Math.max(1, (hasta - desde + 1) / 30);
+        int maximo = Math.max(1, Arrays.stream(vivos).max().orElse(0));
+        
+        System.out.println("\n╔══════════════════════════════════════════╗");
+        System.out.println("║      📅 AUTORES VIVOS POR AÑO 📅        ║");
+        System.out.println("╚══════════════════════════════════════════╝");
+        for (int i = 0; i < vivos.length; i += paso) {
+            int barra = (int) Math.round(40.0 * vivos[i] / maximo);
+            System.out.printf("%5d │%s %,d%n", desde + i, "█".repeat(barra), vivos[i]);
         }
     }
     
@@ -280,9 +409,13 @@ public class Principal {
     }
     
     private void top10LibrosMasDescargados() {
-        List<Libro> libros = libroRepository.findAllOrderByNumeroDescargasDesc();
+        System.out.print("\n🌍 Código de idioma para filtrar (Enter = todos): ");
+        var idioma = teclado.nextLine().trim().toLowerCase();
         
-        if (libros.isEmpty()) {
+        // Ranking en memoria: no recorre la tabla de libros
+        List<PosicionRanking> top = rankingDescargas.top(idioma.isEmpty() ? null : idioma, 10);
+        
+        if (top.isEmpty()) {
             System.out.println("\n📚 No hay libros registrados para mostrar estadísticas.");
             return;
         }
@@ -290,15 +423,16 @@ public class Principal {
         System.out.println("\n╔══════════════════════════════════════════╗");
         System.out.println("║       🏆 TOP 10 MÁS DESCARGADOS 🏆      ║");
         System.out.println("╚══════════════════════════════════════════╝");
+        if (!idioma.isEmpty()) {
+            System.out.printf("🌍 Idioma: %s%n", obtenerNombreIdioma(idioma));
+        }
         
-        libros.stream()
-                .limit(10)
-                .forEach(libro -> {
-                    System.out.printf("📖 %s%n", libro.getTitulo());
-                    System.out.printf("   👤 %s%n", libro.getAutor().getNombre());
-                    System.out.printf("   📥 %,d descargas%n", libro.getNumeroDescargas());
-                    System.out.println("   " + "─".repeat(40));
-                });
+        top.forEach(libro -> {
+            System.out.printf("📖 %s%n", libro.titulo());
+            System.out.printf("   👤 %s%n", libro.autor());
+            System.out.printf("   📥 %,d descargas%n", libro.descargas());
+            System.out.println("   " + "─".repeat(40));
+        });
     }
     
     private void buscarAutorPorNombre() {
@@ -310,7 +444,11 @@ public class Principal {
             return;
         }
         
-        List<Autor> autores = autorRepository.findByNombreContaining(nombreAutor);
+        // El índice en memoria responde sin consultar texto en la base; si no hay nada, búsqueda completa
+        List<Long> ids = indiceBusqueda.buscarAutores(nombreAutor, 20);
+        List<Autor> autores = ids.isEmpty()
+                ? autorRepository.buscarPorNombre(nombreAutor, 20)
+                : autorRepository.findAllByIdEnOrden(ids);
         
         if (autores.isEmpty()) {
             System.out.printf("😔 No se encontró ningún autor con el nombre '%s'.%n", nombreAutor);
@@ -333,52 +471,41 @@ public class Principal {
     }
     
     private void mostrarEstadisticas() {
-        List<Libro> libros = libroRepository.findAll();
-        List<Autor> autores = autorRepository.findAll();
+        // Totales mantenidos por la base de datos: no se cargan libros ni autores
+        var stats = estadisticasService.obtener();
         
-        if (libros.isEmpty()) {
+        if (stats.totalLibros() == 0) {
             System.out.println("\n📊 No hay datos suficientes para mostrar estadísticas.");
             return;
         }
         
-        // Calcular estadísticas
-        DoubleSummaryStatistics statsDescargas = libros.stream()
-                .mapToDouble(Libro::getNumeroDescargas)
-                .summaryStatistics();
-        
-        Map<String, Long> librosPorIdioma = libros.stream()
-                .collect(Collectors.groupingBy(Libro::getIdioma, Collectors.counting()));
-        
         System.out.println("\n╔══════════════════════════════════════════╗");
         System.out.println("║         📊 ESTADÍSTICAS BIBLIOTECA 📊   ║");
         System.out.println("╚══════════════════════════════════════════╝");
         
-        System.out.printf("📚 Total de libros: %d%n", libros.size());
-        System.out.printf("👥 Total de autores: %d%n", autores.size());
+        System.out.printf("📚 Total de libros: %d%n", stats.totalLibros());
+        System.out.printf("👥 Total de autores: %d%n", stats.totalAutores());
         System.out.println();
         
         System.out.println("📥 Estadísticas de descargas:");
-        System.out.printf("   • Promedio: %,.0f descargas%n", statsDescargas.getAverage());
-        System.out.printf("   • Máximo: %,.0f descargas%n", statsDescargas.getMax());
-        System.out.printf("   • Mínimo: %,.0f descargas%n", statsDescargas.getMin());
-        System.out.printf("   • Total: %,.0f descargas%n", statsDescargas.getSum());
+        System.out.printf("   • Promedio: %,.0f descargas%n", stats.promedioDescargas());
+        System.out.printf("   • Máximo: %,d descargas%n", stats.maxDescargas());
+        System.out.printf("   • Mínimo: %,d descargas%n", stats.minDescargas());
+        System.out.printf("   • Total: %,d descargas%n", stats.totalDescargas());
         System.out.println();
         
         System.out.println("🌍 Distribución por idiomas:");
-        librosPorIdioma.entrySet().stream()
+        stats.librosPorIdioma().entrySet().stream()
                 .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
                 .forEach(entry -> System.out.printf("   • %s: %d libros%n", 
                     obtenerNombreIdioma(entry.getKey()), entry.getValue()));
         
         // Autor más prolífico
-        Optional<Autor> autorMasProlífico = autores.stream()
-                .max(Comparator.comparing(a -> a.getLibros().size()));
-        
-        if (autorMasProlífico.isPresent() && !autorMasProlífico.get().getLibros().isEmpty()) {
+        if (stats.autorMasProlifico() != null && stats.librosAutorMasProlifico() > 0) {
             System.out.println();
             System.out.printf("🏆 Autor más prolífico: %s (%d libros)%n", 
-                autorMasProlífico.get().getNombre(),
-                autorMasProlífico.get().getLibros().size());
+                stats.autorMasProlifico(),
+                stats.librosAutorMasProlifico());
         }
     }
     
@@ -446,68 +573,332 @@ public class Principal {
             System.out.printf("%n🌟 Los libros más populares de Project Gutenberg:%n");
             System.out.println("═".repeat(60));
             
-            datosBusqueda.libros().stream()
-                    .limit(15)
-                    .forEach(libro -> {
-                        System.out.printf("📖 %s%n", libro.titulo());
-                        if (!libro.autores().isEmpty()) {
-                            System.out.printf("   👤 %s%n", libro.autores().get(0).nombre());
-                        }
-                        System.out.printf("   🌍 %s%n", !libro.idiomas().isEmpty() ? 
-                            obtenerNombreIdioma(libro.idiomas().get(0)) : "Desconocido");
-                        System.out.printf("   📥 %,d descargas%n", libro.numeroDescargas());
-                        
-                        // Verificar si ya está en la biblioteca
-                        Optional<Libro> libroExistente = libroRepository.findByTituloContainsIgnoreCase(libro.titulo());
-                        if (libroExistente.isPresent()) {
-                            System.out.println("   ✅ Ya está en tu biblioteca");
-                        } else {
-                            System.out.print("   ¿Agregar a tu biblioteca? (s/n): ");
-                            String respuesta = teclado.nextLine().trim().toLowerCase();
-                            if (respuesta.equals("s") || respuesta.equals("si")) {
-                                guardarLibroDesdeAPI(libro);
-                            }
-                        }
-                        System.out.println("   " + "─".repeat(50));
-                    });
+            var populares = datosBusqueda.libros().stream().limit(15).toList();
+            // Una sola consulta para saber cuáles ya están guardados
+            Set<String> enBiblioteca = libroRepository.findTitulosExistentes(
+                    populares.stream().map(DatosLibro::titulo).toList());
+            
+            populares.forEach(libro -> {
+                System.out.printf("📖 %s%n", libro.titulo());
+                if (!libro.autores().isEmpty()) {
+                    System.out.printf("   👤 %s%n", libro.autores().get(0).nombre());
+                }
+                System.out.printf("   🌍 %s%n", !libro.idiomas().isEmpty() ? 
+                    obtenerNombreIdioma(libro.idiomas().get(0)) : "Desconocido");
+                System.out.printf("   📥 %,d descargas%n", libro.numeroDescargas());
+                
+                if (enBiblioteca.contains(libro.titulo())) {
+                    System.out.println("   ✅ Ya está en tu biblioteca");
+                } else {
+                    System.out.print("   ¿Agregar a tu biblioteca? (s/n): ");
+                    String respuesta = teclado.nextLine().trim().toLowerCase();
+                    if (respuesta.equals("s") || respuesta.equals("si")) {
+                        guardarLibroDesdeAPI(libro);
+                    }
+                }
+                System.out.println("   " + "─".repeat(50));
+            });
             
         } catch (Exception e) {
             System.out.println("❌ Error al obtener libros populares: " + e.getMessage());
         }
     }
     
+    private void cargarCatalogoCompleto() {
+        try {
+            System.out.print("\n📦 Número máximo de páginas a cargar (0 = catálogo completo): ");
+            var maxPaginas = teclado.nextInt();
+            System.out.printf("🔀 Peticiones simultáneas (Enter = %d): ", IngestaMasivaService.EN_VUELO_POR_DEFECTO);
+            teclado.nextLine();
+            var entrada = teclado.nextLine().trim();
+            var enVuelo = entrada.isEmpty() ? IngestaMasivaService.EN_VUELO_POR_DEFECTO : Integer.parseInt(entrada);
+            
+            System.out.println("🚚 Cargando el catálogo de Gutendx, esto puede tardar...");
+            var resumen = ingestaMasivaService.ingerirCatalogo(maxPaginas, enVuelo,
+                    IngestaMasivaService.TAMANO_LOTE_POR_DEFECTO);
+            
+            System.out.println("\n╔══════════════════════════════════════════╗");
+            System.out.println("║          📦 CARGA MASIVA TERMINADA 📦    ║");
+            System.out.println("╚══════════════════════════════════════════╝");
+            System.out.printf("📄 Páginas leídas: %,d (fallidas: %,d)%n", resumen.paginasLeidas(), resumen.paginasFallidas());
+            System.out.printf("📖 Libros leídos: %,d%n", resumen.librosLeidos());
+            System.out.printf("✅ Libros guardados: %,d%n", resumen.librosGuardados());
+            System.out.printf("👥 Autores nuevos: %,d%n", resumen.autoresNuevos());
+            System.out.printf("♻️  Ya existentes/repetidos: %,d%n", resumen.duplicados());
+            System.out.printf("❌ Libros con error: %,d%n", resumen.fallidos());
+            System.out.printf("⏱️  Duración: %,.1f s%n", resumen.duracion().toMillis() / 1000.0);
+            System.out.printf("⚡ Rendimiento: %,.1f libros/s%n", resumen.librosPorSegundo());
+            System.out.printf("🧠 Pico de heap: %,d MB%n", resumen.heapPicoBytes() / (1024 * 1024));
+            System.out.printf("🗜️  Transferencia: %,d KB por la red, %,d KB descomprimidos (ahorro %.0f%%)%n",
+                    resumen.transferencia().red() / 1024, resumen.transferencia().decodificados() / 1024,
+                    resumen.transferencia().ahorro() * 100);
+            
+        } catch (InputMismatchException e) {
+            System.out.println("❌ Por favor, ingrese un número válido.");
+            teclado.nextLine();
+        } catch (NumberFormatException e) {
+            System.out.println("❌ Por favor, ingrese un número válido.");
+        } catch (Exception e) {
+            System.out.println("❌ Error en la carga masiva: " + e.getMessage());
+        }
+    }
+    
+    private void actualizarDescargas() {
+        System.out.println("\n🔄 Consultando en Gutendex las descargas de los libros guardados, esto puede tardar...");
+        try {
+            var resumen = actualizacionDescargas.actualizar();
+            
+            System.out.println("\n╔══════════════════════════════════════════╗");
+            System.out.println("║       🔄 DESCARGAS ACTUALIZADAS 🔄       ║");
+            System.out.println("╚══════════════════════════════════════════╝");
+            System.out.printf("📚 Libros revisados: %,d (%,d peticiones)%n", resumen.librosRevisados(), resumen.peticiones());
+            System.out.printf("✅ Actualizados: %,d%n", resumen.actualizados());
+            System.out.printf("♻️  Sin cambios: %,d%n", resumen.sinCambios());
+            System.out.printf("❔ No encontrados en Gutendex: %,d%n", resumen.noEncontrados());
+            System.out.printf("❌ Sin respuesta: %,d%n", resumen.fallidos());
+            System.out.printf("⏱️  Duración: %,.1f s%n", resumen.duracion().toMillis() / 1000.0);
+            System.out.println("(los libros guardados antes de conservar el id de Gutenberg se saltan)");
+        } catch (Exception e) {
+            System.out.println("❌ Error al actualizar las descargas: " + e.getMessage());
+        }
+    }
+    
+    private void analizarCatalogo() {
+        // En paralelo sobre las columnas en memoria: ninguna consulta a la base después de la primera carga
+        var analisis = analisisCatalogo.analizar();
+        if (analisis.libros() == 0) {
+            System.out.println("\n📊 No hay libros registrados para analizar.");
+            return;
+        }
+        String aprox = analisis.aproximado() ? "≈ " : "";
+        
+        System.out.println("\n╔══════════════════════════════════════════╗");
+        System.out.println("║        🧮 ANÁLISIS DEL CATÁLOGO 🧮       ║");
+        System.out.println("╚══════════════════════════════════════════╝");
+        System.out.printf("📚 %,d libros | 👥 %s%,d autores con libros | 📥 %,d descargas%n",
+                analisis.libros(), aprox, analisis.autoresDistintos(), analisis.totalDescargas());
+        System.out.printf("⚙️  Modo %s | %d particiones | %,.1f ms%n",
+                analisis.aproximado() ? "aproximado (t-digest, HyperLogLog)" : "exacto",
+                analisis.particiones(), analisis.duracion().toNanos() / 1_000_000.0);
+        
+        System.out.println("\n📥 Descargas por libro:");
+        System.out.printf("   • Promedio: %,.0f | Mínimo: %,d | Máximo: %,d%n",
+                analisis.promedioDescargas(), analisis.minDescargas(), analisis.maxDescargas());
+        System.out.printf("   • p50: %s%,.0f | p90: %s%,.0f | p99: %s%,.0f%n",
+                aprox, analisis.p50(), aprox, analisis.p90(), aprox, analisis.p99());
+        
+        System.out.println("\n📊 Histograma de descargas:");
+        long[] histograma = analisis.histograma();
+        long mayor = Arrays.stream(histograma).max().orElse(1);
+        for (int clase = 0; clase < histograma.length; clase++) {
+            if (histograma[clase] == 0) {
+                continue;
+            }
+            String rango = clase == 0 ? "0" : String.format("%,d-%,d", (long) Math.pow(10, clase - 1), (long) Math.pow(10, clase) - 1);
+            System.out.printf("   %-27s %,10d %s%n", rango, histograma[clase],
+                    "█".repeat((int) Math.max(1, histograma[clase] * 30 / mayor)));
+        }
+        
+        System.out.println("\n🌍 Por idioma:");
+        analisis.porIdioma().forEach(idioma -> System.out.printf(
+                "   • %-12s %,9d libros | %s%,7d autores | prom %,9.0f | máx %,9d | total %,12d descargas%n",
+                idioma.idioma() != null ? obtenerNombreIdioma(idioma.idioma()) : "Sin idioma", idioma.libros(),
+                aprox, idioma.autores(), idioma.promedioDescargas(), idioma.maxDescargas(), idioma.descargas()));
+        
+        if (!analisis.porSiglo().isEmpty()) {
+            System.out.println("\n📜 Por siglo de nacimiento del autor:");
+            long conFecha = 0;
+            for (var siglo : analisis.porSiglo().entrySet()) {
+                System.out.printf("   • %5d-%-5d %,9d libros%n", siglo.getKey(), siglo.getKey() + 99, siglo.getValue());
+                conFecha += siglo.getValue();
+            }
+            System.out.printf("   • %-11s %,9d libros%n", "Sin fecha", analisis.libros() - conFecha);
+        }
+        
+        System.out.print("\n📅 Año para contar libros de autores vivos (Enter para omitir): ");
+        var entrada = teclado.nextLine().trim();
+        if (entrada.isEmpty()) {
+            return;
+        }
+        try {
+            int año = Integer.parseInt(entrada);
+            System.out.printf("👥 Libros de autores vivos en %d: %,d%n", año,
+                    instantaneaCatalogo.contarDeAutoresVivosEn(año, null));
+        } catch (NumberFormatException e) {
+            System.out.println("❌ Año inválido.");
+        }
+    }
+    
+    private void importarCatalogoLocal() {
+        System.out.print("\n📂 Ruta de pg_catalog.csv (Enter = pg_catalog.csv): ");
+        var entrada = teclado.nextLine().trim();
+        var archivo = Path.of(entrada.isEmpty() ? "pg_catalog.csv" : entrada);
+        if (!Files.isRegularFile(archivo)) {
+            System.out.println("❌ No se encontró el archivo " + archivo.toAbsolutePath());
+            System.out.println("   Se descarga de https://www.gutenberg.org/cache/epub/feeds/pg_catalog.csv");
+            return;
+        }
+        
+        try {
+            int hilos = Runtime.getRuntime().availableProcessors();
+            System.out.printf("🚚 Importando con %d hilos...%n", hilos);
+            var resumen = importacionCatalogoService.importar(archivo, hilos,
+                    ImportacionCatalogoService.TAMANO_LOTE_POR_DEFECTO);
+            
+            System.out.println("\n╔══════════════════════════════════════════╗");
+            System.out.println("║        📂 IMPORTACIÓN TERMINADA 📂       ║");
+            System.out.println("╚══════════════════════════════════════════╝");
+            System.out.printf("📄 Filas leídas: %,d (descartadas: %,d)%n", resumen.filasLeidas(), resumen.filasDescartadas());
+            if (resumen.trozosFallidos() > 0) {
+                System.out.printf("⚠️  %,d trozos del archivo no se pudieron leer: la importación quedó incompleta (ver el log)%n",
+                        resumen.trozosFallidos());
+            }
+            System.out.printf("✅ Libros guardados: %,d%n", resumen.librosGuardados());
+            System.out.printf("👥 Autores nuevos: %,d%n", resumen.autoresNuevos());
+            System.out.printf("♻️  Ya existentes/repetidos: %,d%n", resumen.duplicados());
+            System.out.printf("❌ Libros con error: %,d%n", resumen.fallidos());
+            System.out.printf("⏱️  Lectura: %,.1f s | Total: %,.1f s%n",
+                    resumen.duracionLectura().toMillis() / 1000.0, resumen.duracion().toMillis() / 1000.0);
+            System.out.printf("⚡ Rendimiento: %,.1f libros/s%n", resumen.librosPorSegundo());
+        } catch (Exception e) {
+            System.out.println("❌ Error en la importación: " + e.getMessage());
+        }
+    }
+    
+    private void exportarCatalogo() {
+        System.out.print("\n📤 ¿Qué exportar? (1 = libros, 2 = autores): ");
+        var tabla = switch (teclado.nextLine().trim()) {
+            case "1", "" -> ExportacionCatalogo.Tabla.LIBROS;
+            case "2" -> ExportacionCatalogo.Tabla.AUTORES;
+            default -> null;
+        };
+        if (tabla == null) {
+            System.out.println("❌ Opción inválida.");
+            return;
+        }
+        
+        System.out.print("📄 Formato (ndjson/csv, Enter = ndjson): ");
+        var formato = teclado.nextLine().trim().equalsIgnoreCase("csv")
+                ? ExportacionCatalogo.Formato.CSV
+                : ExportacionCatalogo.Formato.NDJSON;
+        System.out.print("🗜️  ¿Comprimir con gzip? (s/n): ");
+        var gzip = teclado.nextLine().trim().equalsIgnoreCase("s");
+        
+        var porDefecto = "exportaciones/" + tabla.name().toLowerCase() + formato.extension() + (gzip ? ".gz" : "");
+        System.out.printf("💾 Archivo de destino (Enter = %s): ", porDefecto);
+        var entrada = teclado.nextLine().trim();
+        var destino = Path.of(entrada.isEmpty() ? porDefecto : entrada);
+        
+        try {
+            System.out.println("🚚 Exportando...");
+            var resumen = exportacionCatalogo.exportar(tabla, formato, gzip, destino);
+            System.out.printf("✅ %,d filas escritas en %s%n", resumen.filas(), resumen.archivo().toAbsolutePath());
+            System.out.printf("📦 Tamaño: %,d KB%n", resumen.bytes() / 1024);
+            System.out.printf("⏱️  Duración: %,.1f s (%,.0f filas/s)%n",
+                    resumen.duracion().toMillis() / 1000.0, resumen.filasPorSegundo());
+        } catch (Exception e) {
+            System.out.println("❌ Error al exportar: " + e.getMessage());
+        }
+    }
+    
+    private void mostrarEstadoApi() {
+        var stats = consumoApi.estadisticasCache();
+        
+        System.out.println("\n╔══════════════════════════════════════════╗");
+        System.out.println("║          🗄️  CACHÉ DE LA API 🗄️           ║");
+        System.out.println("╚══════════════════════════════════════════╝");
+        System.out.printf("✅ Aciertos: %,d%n", stats.aciertos());
+        System.out.printf("❌ Fallos: %,d%n", stats.fallos());
+        System.out.printf("🎯 Tasa de aciertos: %.1f%%%n", stats.tasaAciertos() * 100);
+        System.out.printf("🔄 Revalidaciones (304): %,d%n", stats.revalidaciones());
+        System.out.printf("🧹 Desalojos: %,d%n", stats.desalojos());
+        System.out.printf("📦 Entradas: %,d (%,d KB)%n", stats.entradas(), stats.bytes() / 1024);
+        System.out.printf("🤝 Peticiones compartidas: %,d%n", consumoApi.peticionesCoalescidas());
+        var transferencia = consumoApi.transferencia();
+        System.out.printf("🗜️  Recibido: %,d KB por la red, %,d KB descomprimidos (ahorro %.0f%%)%n",
+                transferencia.red() / 1024, transferencia.decodificados() / 1024, transferencia.ahorro() * 100);
+        
+        var limitador = consumoApi.estadoLimitador();
+        System.out.println();
+        System.out.println("🚦 Control de concurrencia:");
+        System.out.printf("   • Límite actual: %d peticiones simultáneas%n", limitador.limite());
+        System.out.printf("   • En curso: %d | En cola: %d%n", limitador.enVuelo(), limitador.enCola());
+        System.out.printf("   • Rechazadas: %,d | Reducciones del límite: %,d%n", limitador.rechazos(), limitador.reducciones());
+        System.out.printf("   • Reintentos: %,d%n", limitador.reintentos());
+        
+        var cobertura = consumoApi.estadoCobertura();
+        System.out.println();
+        System.out.println("🛡️  Peticiones de cobertura (hedging):" + (cobertura.habilitada() ? "" : " desactivadas"));
+        if (cobertura.habilitada()) {
+            System.out.printf("   • Enviadas: %,d de %,d peticiones (%.1f%%)%n",
+                    cobertura.coberturas(), cobertura.peticiones(), cobertura.tasaCobertura() * 100);
+            System.out.printf("   • Ganaron a la original: %,d (%.1f%%) | Sin presupuesto: %,d%n",
+                    cobertura.ganadas(), cobertura.tasaGanadas() * 100, cobertura.sinPresupuesto());
+            cobertura.umbralesMs().forEach((tipo, umbral) ->
+                    System.out.printf("   • Espera antes de cubrir '%s': %,d ms%n", tipo, umbral));
+        }
+        
+        var autores = cacheAutores.estadisticas();
+        System.out.println();
+        System.out.println("👥 Caché de autores (nombre -> id):");
+        System.out.printf("   • Tasa de aciertos: %.1f%% (%,d aciertos, %,d fallos)%n",
+                autores.tasaAciertos() * 100, autores.aciertos(), autores.fallos());
+        System.out.printf("   • Entradas: %,d de %,d | Desalojos: %,d%n",
+                autores.entradas(), autores.maxEntradas(), autores.desalojos());
+    }
+    
+    private void mostrarMetricas() {
+        System.out.println("\n╔══════════════════════════════════════════╗");
+        System.out.println("║        ⏱️  MÉTRICAS DE RENDIMIENTO ⏱️      ║");
+        System.out.println("╚══════════════════════════════════════════╝");
+        System.out.println("(también en http://localhost:8080/actuator/prometheus)");
+        
+        System.out.println("\n🌐 Peticiones a Gutendex (consulta estado):");
+        imprimirMediciones(metricas.resumen(MetricasLiteratura.PETICIONES, "consulta", "estado"), 10);
+        
+        System.out.println("\n🗃️  Repositorios (método):");
+        imprimirMediciones(metricas.resumen(MetricasLiteratura.REPOSITORIOS, "repository", "method"), 10);
+        
+        System.out.println("\n📋 Opciones del menú (entidades y sentencias promedio):");
+        metricas.resumen(MetricasLiteratura.OPERACIONES, "operacion", "resultado").forEach(fila -> {
+            String operacion = fila.nombre().split(" ")[0];
+            System.out.printf("   • %-28s %,6d veces | prom %,9.1f ms | máx %,9.1f ms | %,.0f entidades | %,.0f sentencias%n",
+                    fila.nombre(), fila.cantidad(), fila.promedioMs(), fila.maximoMs(),
+                    metricas.promedio(MetricasLiteratura.ENTIDADES, "operacion", operacion),
+                    metricas.promedio(MetricasLiteratura.SENTENCIAS, "operacion", operacion));
+        });
+        
+        var hibernate = metricas.hibernate();
+        System.out.println("\n🐘 Hibernate (desde el arranque):");
+        System.out.printf("   • Entidades cargadas: %,d | insertadas: %,d | actualizadas: %,d%n",
+                hibernate.getEntityLoadCount(), hibernate.getEntityInsertCount(), hibernate.getEntityUpdateCount());
+        System.out.printf("   • Consultas: %,d | Sentencias preparadas: %,d | Transacciones: %,d%n",
+                hibernate.getQueryExecutionCount(), hibernate.getPrepareStatementCount(), hibernate.getTransactionCount());
+        System.out.printf("   • Caché de segundo nivel (autores): %.1f%% de aciertos%n",
+                metricas.tasaAciertosCacheAutores() * 100);
+        System.out.printf("   • Sentencias lentas: %,d%n", metricas.consultasLentas());
+    }
+    
+    private void imprimirMediciones(List<MetricasLiteratura.Medicion> mediciones, int maximo) {
+        if (mediciones.isEmpty()) {
+            System.out.println("   (sin datos todavía)");
+            return;
+        }
+        mediciones.stream().limit(maximo).forEach(fila -> System.out.printf(
+                "   • %-40s %,6d veces | prom %,8.1f ms | p95 %s | máx %,8.1f ms%n",
+                fila.nombre(), fila.cantidad(), fila.promedioMs(),
+                fila.p95Ms() >= 0 ? String.format("%,8.1f ms", fila.p95Ms()) : "       -   ",
+                fila.maximoMs()));
+    }
+    
     private void guardarLibroDesdeAPI(DatosLibro datosLibro) {
         try {
-            // Verificar si ya existe
-            Optional<Libro> libroExistente = libroRepository.findByTituloContainsIgnoreCase(datosLibro.titulo());
-            if (libroExistente.isPresent()) {
+            var resultado = guardadoLibros.guardar(List.of(datosLibro));
+            if (resultado.guardados().isEmpty()) {
                 System.out.println("   ⚠️  El libro ya está en tu biblioteca.");
                 return;
             }
             
-            // Crear/buscar autor
-            Autor autor = null;
-            if (!datosLibro.autores().isEmpty()) {
-                var datosAutor = datosLibro.autores().get(0);
-                Optional<Autor> autorExistente = autorRepository.findByNombreContainsIgnoreCase(datosAutor.nombre());
-                
-                if (autorExistente.isPresent()) {
-                    autor = autorExistente.get();
-                } else {
-                    autor = new Autor(datosAutor.nombre(), 
-                            datosAutor.fechaNacimiento(), 
-                            datosAutor.fechaMuerte());
-                    autor = autorRepository.save(autor);
-                }
-            }
-            
-            // Crear libro
-            String idioma = datosLibro.idiomas().isEmpty() ? "desconocido" : datosLibro.idiomas().get(0);
-            Integer descargas = datosLibro.numeroDescargas() != null ? datosLibro.numeroDescargas() : 0;
-            
-            Libro libro = new Libro(datosLibro.titulo(), autor, idioma, descargas);
-            libroRepository.save(libro);
-            
             System.out.println("   ✅ ¡Libro agregado exitosamente!");
             
         } catch (Exception e) {
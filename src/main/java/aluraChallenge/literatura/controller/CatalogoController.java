@@ -0,0 +1,235 @@
+package aluraChallenge.literatura.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import aluraChallenge.literatura.dto.AutorRespuesta;
+import aluraChallenge.literatura.dto.EstadisticasBiblioteca;
+import aluraChallenge.literatura.dto.EstadisticasCacheAutores;
+import aluraChallenge.literatura.dto.LibroRespuesta;
+import aluraChallenge.literatura.dto.Pagina;
+import aluraChallenge.literatura.dto.PosicionRanking;
+import aluraChallenge.literatura.models.Autor;
+import aluraChallenge.literatura.models.Libro;
+import aluraChallenge.literatura.repository.AutorRepository;
+import aluraChallenge.literatura.repository.LibroRepository;
+import aluraChallenge.literatura.service.CacheAutores;
+import aluraChallenge.literatura.service.EstadisticasService;
+import aluraChallenge.literatura.service.IndiceAutoresVivos;
+import aluraChallenge.literatura.service.IndiceBusqueda;
+import aluraChallenge.literatura.service.RankingDescargas;
+import aluraChallenge.literatura.service.RecorridoCatalogo;
+
+/**
+ * Las operaciones del menú de consola como API HTTP.
+ *
+ * Cada petición se atiende en un hilo virtual (spring.threads.virtual.enabled).
+ * Los listados se paginan por clave: la respuesta trae el id desde el que sigue
+ * la página siguiente. Para el catálogo completo está /api/libros/ndjson, que
+ * escribe un libro por línea a medida que los lee de la base.
+ */
+@RestController
+@RequestMapping("/api")
+public class CatalogoController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogoController.class);
+
+    private static final int TAMANO_MAXIMO = 500;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private IndiceBusqueda indiceBusqueda;
+
+    @Autowired
+    private IndiceAutoresVivos indiceAutoresVivos;
+
+    @Autowired
+    private RankingDescargas rankingDescargas;
+
+    @Autowired
+    private EstadisticasService estadisticasService;
+
+    @Autowired
+    private CacheAutores cacheAutores;
+
+    @Autowired
+    private RecorridoCatalogo recorridoCatalogo;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @GetMapping("/libros")
+    public Pagina<LibroRespuesta> listarLibros(@RequestParam(defaultValue = "0") long despuesDe,
+                                               @RequestParam(defaultValue = "50") int tamano) {
+        var libros = libroRepository.findPaginaDespuesDe(despuesDe, pagina(tamano));
+        return paginaDeLibros(libros, tamano);
+    }
+
+    @GetMapping("/libros/idioma")
+    public Pagina<LibroRespuesta> listarPorIdioma(@RequestParam String idioma,
+                                                  @RequestParam(defaultValue = "0") long despuesDe,
+                                                  @RequestParam(defaultValue = "50") int tamano) {
+        var libros = libroRepository.findPaginaPorIdiomaDespuesDe(idioma.trim().toLowerCase(), despuesDe, pagina(tamano));
+        return paginaDeLibros(libros, tamano);
+    }
+
+    @GetMapping("/libros/buscar")
+    public List<LibroRespuesta> buscarLibros(@RequestParam String titulo,
+                                             @RequestParam(defaultValue = "20") int limite) {
+        validarTexto(titulo, "titulo");
+        int cantidad = limitar(limite);
+        List<PosicionRanking> enIndice = indiceBusqueda.buscarLibros(titulo, cantidad);
+        if (!enIndice.isEmpty()) {
+            return enIndice.stream().map(LibroRespuesta::de).toList();
+        }
+        return libroRepository.buscarPorTitulo(titulo, cantidad).stream().map(LibroRespuesta::de).toList();
+    }
+
+    @GetMapping("/libros/top")
+    public List<PosicionRanking> topDescargados(@RequestParam(defaultValue = "10") int n,
+                                                @RequestParam(required = false) String idioma) {
+        String filtro = idioma == null || idioma.isBlank() ? null : idioma.trim().toLowerCase();
+        return rankingDescargas.top(filtro, limitar(n));
+    }
+
+    /**
+     * Todos los libros (o los de un idioma) como NDJSON. La memoria usada no depende
+     * de la cantidad de libros: se leen con un cursor y se escriben uno por uno.
+     */
+    @GetMapping(value = "/libros/ndjson", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarLibros(@RequestParam(required = false) String idioma) {
+        String filtro = idioma == null || idioma.isBlank() ? null : idioma.trim().toLowerCase();
+        StreamingResponseBody cuerpo = salida -> {
+            // Sin flush por libro: el buffer de la respuesta decide cuándo se envía cada trozo
+            try (SequenceWriter escritor = objectMapper.writerFor(LibroRespuesta.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(salida)) {
+                long filas = recorridoCatalogo.recorrerLibros(filtro, libro -> {
+                    try {
+                        escritor.write(LibroRespuesta.de(libro));
+                    } catch (IOException e) {
+                        // El cliente cortó la conexión: se aborta el recorrido
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                salida.write('\n');
+                logger.debug("NDJSON enviado: {} libros", filas);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(cuerpo);
+    }
+
+    @GetMapping("/autores")
+    public Pagina<AutorRespuesta> listarAutores(@RequestParam(defaultValue = "0") long despuesDe,
+                                                @RequestParam(defaultValue = "50") int tamano) {
+        var autores = autorRepository.findPaginaDespuesDe(despuesDe, pagina(tamano));
+        return paginaDeAutores(autores, tamano);
+    }
+
+    @GetMapping("/autores/buscar")
+    public List<AutorRespuesta> buscarAutores(@RequestParam String nombre,
+                                              @RequestParam(defaultValue = "20") int limite) {
+        validarTexto(nombre, "nombre");
+        int cantidad = limitar(limite);
+        List<Long> ids = indiceBusqueda.buscarAutores(nombre, cantidad);
+        List<Autor> autores = ids.isEmpty()
+                ? autorRepository.buscarPorNombre(nombre, cantidad)
+                : autorRepository.findAllByIdEnOrden(ids);
+        return autores.stream().map(AutorRespuesta::de).toList();
+    }
+
+    /**
+     * Autores vivos en el año {@code desde}, o en algún momento entre {@code desde} y {@code hasta}.
+     */
+    @GetMapping("/autores/vivos")
+    public Pagina<AutorRespuesta> autoresVivos(@RequestParam int desde,
+                                               @RequestParam(required = false) Integer hasta,
+                                               @RequestParam(defaultValue = "0") long despuesDe,
+                                               @RequestParam(defaultValue = "50") int tamano) {
+        int fin = hasta != null ? hasta : desde;
+        if (fin < desde) {
+            throw new IllegalArgumentException("'hasta' debe ser mayor o igual a 'desde'");
+        }
+        int cantidad = limitar(tamano);
+        // El índice devuelve ids; la página se arma sobre ellos ordenados, igual que las demás
+        List<Long> ids = indiceAutoresVivos.vivosEntre(desde, fin).stream()
+                .filter(id -> id > despuesDe)
+                .sorted()
+                .limit(cantidad)
+                .toList();
+        var autores = autorRepository.findAllById(ids).stream()
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                .toList();
+        return paginaDeAutores(autores, cantidad);
+    }
+
+    @GetMapping("/estadisticas")
+    public EstadisticasBiblioteca estadisticas() {
+        return estadisticasService.obtener();
+    }
+
+    @GetMapping("/estadisticas/cache-autores")
+    public EstadisticasCacheAutores estadisticasCacheAutores() {
+        return cacheAutores.estadisticas();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> parametroInvalido(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    private static PageRequest pagina(int tamano) {
+        return PageRequest.of(0, limitar(tamano));
+    }
+
+    private static int limitar(int tamano) {
+        if (tamano <= 0) {
+            throw new IllegalArgumentException("El tamaño debe ser mayor a 0");
+        }
+        return Math.min(tamano, TAMANO_MAXIMO);
+    }
+
+    private static void validarTexto(String texto, String parametro) {
+        if (texto.isBlank()) {
+            throw new IllegalArgumentException("'" + parametro + "' no puede estar vacío");
+        }
+    }
+
+    private static Pagina<LibroRespuesta> paginaDeLibros(List<Libro> libros, int tamano) {
+        // Una página incompleta es la última
+        Long siguiente = libros.size() < Math.min(tamano, TAMANO_MAXIMO) ? null : libros.get(libros.size() - 1).getId();
+        return new Pagina<>(libros.stream().map(LibroRespuesta::de).toList(), siguiente);
+    }
+
+    private static Pagina<AutorRespuesta> paginaDeAutores(List<Autor> autores, int tamano) {
+        Long siguiente = autores.size() < Math.min(tamano, TAMANO_MAXIMO) ? null : autores.get(autores.size() - 1).getId();
+        return new Pagina<>(autores.stream().map(AutorRespuesta::de).toList(), siguiente);
+    }
+}
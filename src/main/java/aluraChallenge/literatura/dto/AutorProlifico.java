@@ -0,0 +1,7 @@
+package aluraChallenge.literatura.dto;
+
+// Proyección: autor y número de libros suyos en la biblioteca
+public interface AutorProlifico {
+    String getNombre();
+    long getTotalLibros();
+}
@@ -0,0 +1,15 @@
+package aluraChallenge.literatura.dto;
+
+import aluraChallenge.literatura.models.Autor;
+
+// Autor tal como lo devuelve la API REST; sus libros se piden aparte
+public record AutorRespuesta(
+    Long id,
+    String nombre,
+    Integer fechaNacimiento,
+    Integer fechaMuerte
+) {
+    public static AutorRespuesta de(Autor autor) {
+        return new AutorRespuesta(autor.getId(), autor.getNombre(), autor.getFechaNacimiento(), autor.getFechaMuerte());
+    }
+}
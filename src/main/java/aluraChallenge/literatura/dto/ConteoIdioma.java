@@ -0,0 +1,7 @@
+package aluraChallenge.literatura.dto;
+
+// Proyección: libros por idioma
+public interface ConteoIdioma {
+    String getIdioma();
+    long getTotalLibros();
+}
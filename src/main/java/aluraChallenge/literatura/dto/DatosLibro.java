@@ -9,5 +9,6 @@ public record DatosLibro(
     @JsonAlias("title") String titulo,
     @JsonAlias("authors") List<DatosAutor> autores,
     @JsonAlias("languages") List<String> idiomas,
-    @JsonAlias("download_count") Integer numeroDescargas
+    @JsonAlias("download_count") Integer numeroDescargas,
+    @JsonAlias("id") Integer idGutenberg
 ) {}
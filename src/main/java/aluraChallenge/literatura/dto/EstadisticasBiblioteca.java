@@ -0,0 +1,15 @@
+package aluraChallenge.literatura.dto;
+
+import java.util.Map;
+
+public record EstadisticasBiblioteca(
+    long totalLibros,
+    long totalAutores,
+    double promedioDescargas,
+    long maxDescargas,
+    long minDescargas,
+    long totalDescargas,
+    Map<String, Long> librosPorIdioma,
+    String autorMasProlifico,
+    long librosAutorMasProlifico
+) {}
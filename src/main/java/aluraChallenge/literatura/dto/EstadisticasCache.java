@@ -0,0 +1,15 @@
+package aluraChallenge.literatura.dto;
+
+public record EstadisticasCache(
+    long aciertos,
+    long fallos,
+    long revalidaciones,
+    long desalojos,
+    int entradas,
+    long bytes
+) {
+    public double tasaAciertos() {
+        long consultas = aciertos + fallos;
+        return consultas > 0 ? (double) aciertos / consultas : 0;
+    }
+}
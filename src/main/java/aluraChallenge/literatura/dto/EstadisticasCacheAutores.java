@@ -0,0 +1,14 @@
+package aluraChallenge.literatura.dto;
+
+public record EstadisticasCacheAutores(
+    long aciertos,
+    long fallos,
+    long desalojos,
+    long entradas,
+    long maxEntradas
+) {
+    public double tasaAciertos() {
+        long consultas = aciertos + fallos;
+        return consultas > 0 ? (double) aciertos / consultas : 0;
+    }
+}
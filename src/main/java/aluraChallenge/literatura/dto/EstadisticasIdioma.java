@@ -0,0 +1,14 @@
+package aluraChallenge.literatura.dto;
+
+// Libros, descargas y autores distintos de un idioma, calculados sobre la instantánea en memoria
+public record EstadisticasIdioma(
+    String idioma,
+    long libros,
+    long descargas,
+    int maxDescargas,
+    long autores
+) {
+    public double promedioDescargas() {
+        return libros > 0 ? (double) descargas / libros : 0;
+    }
+}
@@ -0,0 +1,22 @@
+package aluraChallenge.literatura.dto;
+
+import java.util.Map;
+
+public record EstadoCobertura(
+    boolean habilitada,
+    long peticiones,
+    long coberturas,
+    long ganadas,
+    long sinPresupuesto,
+    Map<String, Long> umbralesMs
+) {
+    // Fracción de peticiones que necesitaron una segunda petición
+    public double tasaCobertura() {
+        return peticiones > 0 ? (double) coberturas / peticiones : 0;
+    }
+
+    // Fracción de coberturas que respondieron antes que la original
+    public double tasaGanadas() {
+        return coberturas > 0 ? (double) ganadas / coberturas : 0;
+    }
+}
@@ -0,0 +1,10 @@
+package aluraChallenge.literatura.dto;
+
+public record EstadoLimitador(
+    int limite,
+    int enVuelo,
+    int enCola,
+    long rechazos,
+    long reducciones,
+    long reintentos
+) {}
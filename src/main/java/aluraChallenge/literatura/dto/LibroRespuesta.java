@@ -0,0 +1,25 @@
+package aluraChallenge.literatura.dto;
+
+import aluraChallenge.literatura.models.Libro;
+
+// Libro tal como lo devuelve la API REST, sin la entidad ni sus relaciones
+public record LibroRespuesta(
+    Long id,
+    String titulo,
+    String autor,
+    String idioma,
+    Integer numeroDescargas
+) {
+    public static LibroRespuesta de(Libro libro) {
+        return new LibroRespuesta(
+                libro.getId(),
+                libro.getTitulo(),
+                libro.getAutor() != null ? libro.getAutor().getNombre() : null,
+                libro.getIdioma(),
+                libro.getNumeroDescargas());
+    }
+    
+    public static LibroRespuesta de(PosicionRanking posicion) {
+        return new LibroRespuesta(posicion.id(), posicion.titulo(), posicion.autor(), posicion.idioma(), posicion.descargas());
+    }
+}
@@ -0,0 +1,8 @@
+package aluraChallenge.literatura.dto;
+
+// Datos de paginación de una respuesta leída en streaming; los libros ya se entregaron al consumidor
+public record MetadatosPagina(
+    Integer total,
+    String siguiente,
+    int librosEmitidos
+) {}
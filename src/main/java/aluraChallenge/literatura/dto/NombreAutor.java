@@ -0,0 +1,7 @@
+package aluraChallenge.literatura.dto;
+
+// Proyección con lo mínimo para indexar el nombre de cada autor
+public interface NombreAutor {
+    Long getId();
+    String getNombre();
+}
@@ -0,0 +1,12 @@
+package aluraChallenge.literatura.dto;
+
+import java.util.List;
+
+/**
+ * Una página de resultados de la API. Para pedir la siguiente se pasa
+ * {@code siguiente} como parámetro {@code despuesDe}; es null en la última.
+ */
+public record Pagina<T>(
+    List<T> elementos,
+    Long siguiente
+) {}
@@ -0,0 +1,21 @@
+package aluraChallenge.literatura.dto;
+
+import aluraChallenge.literatura.models.Libro;
+
+// Copia inmutable de lo que muestra el ranking, para no retener entidades en memoria
+public record PosicionRanking(
+    Long id,
+    String titulo,
+    String autor,
+    String idioma,
+    int descargas
+) {
+    public static PosicionRanking de(Libro libro) {
+        return new PosicionRanking(
+                libro.getId(),
+                libro.getTitulo(),
+                libro.getAutor() != null ? libro.getAutor().getNombre() : "Desconocido",
+                libro.getIdioma(),
+                libro.getNumeroDescargas() != null ? libro.getNumeroDescargas() : 0);
+    }
+}
@@ -0,0 +1,34 @@
+package aluraChallenge.literatura.dto;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Análisis del catálogo en memoria. Con {@code aproximado} los percentiles salen de un
+ * t-digest y los autores distintos de HyperLogLog; el resto es exacto en ambos modos.
+ *
+ * {@code histograma[0]} cuenta los libros sin descargas e {@code histograma[i]} los que
+ * tienen entre 10^(i-1) y 10^i − 1. {@code porSiglo} va de primer año del siglo de
+ * nacimiento del autor (1800 = 1800–1899) a cantidad de libros.
+ */
+public record ResultadoAnalisis(
+    boolean aproximado,
+    int particiones,
+    Duration duracion,
+    long libros,
+    long totalDescargas,
+    int minDescargas,
+    int maxDescargas,
+    double p50,
+    double p90,
+    double p99,
+    long autoresDistintos,
+    long[] histograma,
+    List<EstadisticasIdioma> porIdioma,
+    SortedMap<Integer, Long> porSiglo
+) {
+    public double promedioDescargas() {
+        return libros > 0 ? (double) totalDescargas / libros : 0;
+    }
+}
@@ -6,5 +6,7 @@ import java.util.List;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public record ResultadoBusqueda(
+    @JsonAlias("count") Integer total,
+    @JsonAlias("next") String siguiente,
     @JsonAlias("results") List<DatosLibro> libros
 ) {}
\ No newline at end of file
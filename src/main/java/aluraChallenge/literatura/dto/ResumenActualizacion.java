@@ -0,0 +1,13 @@
+package aluraChallenge.literatura.dto;
+
+import java.time.Duration;
+
+public record ResumenActualizacion(
+    int librosRevisados,
+    int peticiones,
+    int actualizados,
+    int sinCambios,
+    int noEncontrados,
+    int fallidos,
+    Duration duracion
+) {}
@@ -0,0 +1,10 @@
+package aluraChallenge.literatura.dto;
+
+// Proyección de los totales del catálogo
+public interface ResumenCatalogo {
+    long getTotalLibros();
+    long getTotalAutores();
+    Long getTotalDescargas();
+    Integer getMaxDescargas();
+    Integer getMinDescargas();
+}
@@ -0,0 +1,16 @@
+package aluraChallenge.literatura.dto;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+public record ResumenExportacion(
+    Path archivo,
+    long filas,
+    long bytes,
+    Duration duracion
+) {
+    public double filasPorSegundo() {
+        double segundos = duracion.toNanos() / 1_000_000_000.0;
+        return segundos > 0 ? filas / segundos : 0;
+    }
+}
@@ -0,0 +1,20 @@
+package aluraChallenge.literatura.dto;
+
+import java.time.Duration;
+
+public record ResumenImportacion(
+    int filasLeidas,
+    int filasDescartadas,
+    int trozosFallidos,
+    int librosGuardados,
+    int autoresNuevos,
+    int duplicados,
+    int fallidos,
+    Duration duracionLectura,
+    Duration duracion
+) {
+    public double librosPorSegundo() {
+        double segundos = duracion.toNanos() / 1_000_000_000.0;
+        return segundos > 0 ? librosGuardados / segundos : 0;
+    }
+}
@@ -0,0 +1,21 @@
+package aluraChallenge.literatura.dto;
+
+import java.time.Duration;
+
+public record ResumenIngesta(
+    int paginasLeidas,
+    int paginasFallidas,
+    int librosLeidos,
+    int librosGuardados,
+    int autoresNuevos,
+    int duplicados,
+    int fallidos,
+    Duration duracion,
+    long heapPicoBytes,
+    TransferenciaBytes transferencia
+) {
+    public double librosPorSegundo() {
+        double segundos = duracion.toNanos() / 1_000_000_000.0;
+        return segundos > 0 ? librosGuardados / segundos : 0;
+    }
+}
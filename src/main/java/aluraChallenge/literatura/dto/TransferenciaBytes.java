@@ -0,0 +1,15 @@
+package aluraChallenge.literatura.dto;
+
+public record TransferenciaBytes(
+    long red,
+    long decodificados
+) {
+    // Fracción de bytes que la compresión ahorró en la red
+    public double ahorro() {
+        return decodificados > 0 ? 1 - (double) red / decodificados : 0;
+    }
+
+    public TransferenciaBytes menos(TransferenciaBytes anterior) {
+        return new TransferenciaBytes(red - anterior.red, decodificados - anterior.decodificados);
+    }
+}
@@ -0,0 +1,8 @@
+package aluraChallenge.literatura.dto;
+
+// Proyección con lo mínimo para indexar cuándo vivió cada autor
+public interface VidaAutor {
+    Long getId();
+    Integer getFechaNacimiento();
+    Integer getFechaMuerte();
+}
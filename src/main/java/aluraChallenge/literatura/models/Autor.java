@@ -1,13 +1,32 @@
 package aluraChallenge.literatura.models;
 
+import aluraChallenge.literatura.service.CacheAutoresListener;
+import aluraChallenge.literatura.service.IndiceAutoresVivosListener;
+import aluraChallenge.literatura.service.IndiceBusquedaListener;
+import aluraChallenge.literatura.service.InstantaneaCatalogoListener;
 import jakarta.persistence.*;
 import java.util.List;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "autores")
+@EntityListeners({IndiceBusquedaListener.class, IndiceAutoresVivosListener.class, CacheAutoresListener.class,
+        InstantaneaCatalogoListener.class})
+// Caché de segundo nivel: un id resuelto por CacheAutores se carga sin ir a la base
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Autor.REGION_CACHE)
 public class Autor {
+    public static final String REGION_CACHE = "autores";
+    
+    // Ids de una secuencia, reservados de a bloques: a diferencia de IDENTITY, Hibernate
+    // puede agrupar los INSERT en lotes JDBC
+    public static final String SECUENCIA = "autores_seq";
+    public static final int BLOQUE_IDS = 50;
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SECUENCIA)
+    @SequenceGenerator(name = SECUENCIA, sequenceName = SECUENCIA, allocationSize = BLOQUE_IDS)
     private Long id;
     
     @Column(unique = true)
@@ -19,6 +38,11 @@ public class Autor {
     @OneToMany(mappedBy = "autor", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Libro> libros;
     
+    // El nombre tal como está en la base (lo anota CacheAutoresListener): al renombrar,
+    // la caché de autores tiene que olvidar la clave anterior
+    @Transient
+    private String nombreGuardado;
+    
     // Constructores
     public Autor() {}
     
@@ -44,6 +68,9 @@ public class Autor {
     public List<Libro> getLibros() { return libros; }
     public void setLibros(List<Libro> libros) { this.libros = libros; }
     
+    public String getNombreGuardado() { return nombreGuardado; }
+    public void setNombreGuardado(String nombreGuardado) { this.nombreGuardado = nombreGuardado; }
+    
     // Método para verificar si estaba vivo en un año específico
     public boolean estabaVivoEn(int año) {
         boolean nacioAntes = fechaNacimiento == null || fechaNacimiento <= año;
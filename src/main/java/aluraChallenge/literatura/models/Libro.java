@@ -1,12 +1,22 @@
 package aluraChallenge.literatura.models;
 
+import aluraChallenge.literatura.service.IndiceBusquedaListener;
+import aluraChallenge.literatura.service.InstantaneaCatalogoListener;
+import aluraChallenge.literatura.service.RankingDescargasListener;
 import jakarta.persistence.*;
 
 @Entity
 @Table(name = "libros")
+@EntityListeners({RankingDescargasListener.class, IndiceBusquedaListener.class, InstantaneaCatalogoListener.class})
 public class Libro {
+    // Ids de una secuencia, reservados de a bloques: a diferencia de IDENTITY, Hibernate
+    // puede agrupar los INSERT en lotes JDBC
+    public static final String SECUENCIA = "libros_seq";
+    public static final int BLOQUE_IDS = 50;
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SECUENCIA)
+    @SequenceGenerator(name = SECUENCIA, sequenceName = SECUENCIA, allocationSize = BLOQUE_IDS)
     private Long id;
     
     @Column(unique = true)
@@ -19,6 +29,10 @@ public class Libro {
     private String idioma;
     private Integer numeroDescargas;
     
+    // Id del libro en Gutenberg/Gutendex; con él se refrescan las descargas (?ids=)
+    @Column(unique = true)
+    private Integer idGutenberg;
+    
     // Constructores
     public Libro() {}
     
@@ -45,6 +59,9 @@ public class Libro {
     public Integer getNumeroDescargas() { return numeroDescargas; }
     public void setNumeroDescargas(Integer numeroDescargas) { this.numeroDescargas = numeroDescargas; }
     
+    public Integer getIdGutenberg() { return idGutenberg; }
+    public void setIdGutenberg(Integer idGutenberg) { this.idGutenberg = idGutenberg; }
+    
     @Override
     public String toString() {
         return String.format("""
@@ -1,21 +1,81 @@
 package aluraChallenge.literatura.repository;
 
+import aluraChallenge.literatura.dto.AutorProlifico;
+import aluraChallenge.literatura.dto.NombreAutor;
+import aluraChallenge.literatura.dto.VidaAutor;
 import aluraChallenge.literatura.models.Autor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AutorRepository extends JpaRepository<Autor, Long> {
-    Optional<Autor> findByNombreContainsIgnoreCase(String nombre);
+    // "charles dickens" encuentra "Dickens, Charles"; los trigramas cubren errores de tipeo
+    @Query(value = "SELECT a.* FROM autores a " +
+                   "WHERE a.nombre_busqueda @@ websearch_to_tsquery('simple', f_unaccent(:texto)) " +
+                   "   OR f_unaccent(lower(a.nombre)) % f_unaccent(lower(:texto)) " +
+                   "ORDER BY ts_rank(a.nombre_busqueda, websearch_to_tsquery('simple', f_unaccent(:texto))) DESC, " +
+                   "         similarity(f_unaccent(lower(a.nombre)), f_unaccent(lower(:texto))) DESC " +
+                   "LIMIT :limite",
+           nativeQuery = true)
+    List<Autor> buscarPorNombre(@Param("texto") String texto, @Param("limite") int limite);
     
     @Query("SELECT a FROM Autor a WHERE " +
            "(a.fechaNacimiento IS NULL OR a.fechaNacimiento <= :año) AND " +
            "(a.fechaMuerte IS NULL OR a.fechaMuerte >= :año)")
     List<Autor> findAutoresVivosEnAño(@Param("año") int año);
     
-    List<Autor> findByNombreContaining(String nombre);
+    @Query("SELECT a.id AS id, a.fechaNacimiento AS fechaNacimiento, a.fechaMuerte AS fechaMuerte FROM Autor a")
+    List<VidaAutor> findVidasAutores();
+    
+    // findAllById no respeta el orden de los ids: se reordena para conservar el de un ranking
+    default List<Autor> findAllByIdEnOrden(List<Long> ids) {
+        Map<Long, Integer> posiciones = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            posiciones.putIfAbsent(ids.get(i), i);
+        }
+        return findAllById(ids).stream()
+                .sorted(Comparator.comparing(autor -> posiciones.get(autor.getId())))
+                .toList();
+    }
+    
+    // Paginación por clave, igual que en LibroRepository
+    @Query("SELECT a FROM Autor a WHERE a.id > :despuesDe ORDER BY a.id")
+    List<Autor> findPaginaDespuesDe(@Param("despuesDe") long despuesDe, Pageable pageable);
+    
+    // Cursor del servidor, igual que LibroRepository.streamTodos()
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT a FROM Autor a ORDER BY a.id")
+    Stream<Autor> streamTodos();
+    
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT a.id AS id, a.nombre AS nombre FROM Autor a ORDER BY a.id")
+    Stream<NombreAutor> streamNombres();
+    
+    @Query("SELECT a.nombre AS nombre, COUNT(l) AS totalLibros FROM Libro l JOIN l.autor a " +
+           "GROUP BY a.id, a.nombre ORDER BY COUNT(l) DESC")
+    List<AutorProlifico> findAutoresMasProlificos(Pageable pageable);
+    
+    // Lee el conteo mantenido por trigger; el índice sobre total_libros evita recorrer la tabla
+    @Query(value = "SELECT a.nombre AS \"nombre\", e.total_libros AS \"totalLibros\" " +
+                   "FROM estadisticas_autor e JOIN autores a ON a.id = e.autor_id " +
+                   "ORDER BY e.total_libros DESC LIMIT 1",
+           nativeQuery = true)
+    Optional<AutorProlifico> findAutorMasProlificoResumen();
 }
\ No newline at end of file
@@ -1,17 +1,108 @@
 package aluraChallenge.literatura.repository;
 
+import aluraChallenge.literatura.dto.ConteoIdioma;
+import aluraChallenge.literatura.dto.PosicionRanking;
+import aluraChallenge.literatura.dto.ResumenCatalogo;
 import aluraChallenge.literatura.models.Libro;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface LibroRepository extends JpaRepository<Libro, Long> {
-    Optional<Libro> findByTituloContainsIgnoreCase(String titulo);
+    // Palabras del título en cualquier orden o parecido por trigramas, ordenado por relevancia
+    @Query(value = "SELECT l.* FROM libros l " +
+                   "WHERE l.titulo_busqueda @@ websearch_to_tsquery('simple', f_unaccent(:texto)) " +
+                   "   OR f_unaccent(lower(l.titulo)) % f_unaccent(lower(:texto)) " +
+                   "ORDER BY ts_rank(l.titulo_busqueda, websearch_to_tsquery('simple', f_unaccent(:texto))) DESC, " +
+                   "         similarity(f_unaccent(lower(l.titulo)), f_unaccent(lower(:texto))) DESC " +
+                   "LIMIT :limite",
+           nativeQuery = true)
+    List<Libro> buscarPorTitulo(@Param("texto") String texto, @Param("limite") int limite);
+    
     List<Libro> findByIdioma(String idioma);
     
-    @Query("SELECT l FROM Libro l ORDER BY l.numeroDescargas DESC")
-    List<Libro> findAllOrderByNumeroDescargasDesc();
+    // Usan el índice idx_libros_descargas / idx_libros_idioma_descargas de schema.sql
+    @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autor ORDER BY l.numeroDescargas DESC NULLS LAST")
+    List<Libro> findMasDescargados(Pageable pageable);
+    
+    @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autor WHERE l.idioma = :idioma " +
+           "ORDER BY l.numeroDescargas DESC NULLS LAST")
+    List<Libro> findMasDescargadosPorIdioma(@Param("idioma") String idioma, Pageable pageable);
+    
+    // Paginación por clave: cada página empieza después del último id visto, sin OFFSET
+    @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autor WHERE l.id > :despuesDe ORDER BY l.id")
+    List<Libro> findPaginaDespuesDe(@Param("despuesDe") long despuesDe, Pageable pageable);
+    
+    @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autor " +
+           "WHERE l.idioma = :idioma AND l.id > :despuesDe ORDER BY l.id")
+    List<Libro> findPaginaPorIdiomaDespuesDe(@Param("idioma") String idioma,
+                                             @Param("despuesDe") long despuesDe,
+                                             Pageable pageable);
+    
+    // Cursor del servidor: se leen filas de a poco en vez de traer todo el resultado.
+    // Requiere una transacción abierta mientras se consume el Stream.
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autor ORDER BY l.id")
+    Stream<Libro> streamTodos();
+    
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autor WHERE l.idioma = :idioma ORDER BY l.id")
+    Stream<Libro> streamPorIdioma(@Param("idioma") String idioma);
+    
+    // Igual que streamTodos(), pero solo las columnas que muestra una búsqueda: sin entidades
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT new aluraChallenge.literatura.dto.PosicionRanking(l.id, l.titulo, COALESCE(a.nombre, 'Desconocido'), " +
+           "l.idioma, COALESCE(l.numeroDescargas, 0)) FROM Libro l LEFT JOIN l.autor a ORDER BY l.id")
+    Stream<PosicionRanking> streamPosiciones();
+    
+    @Query("SELECT l.titulo FROM Libro l WHERE l.titulo IN :titulos")
+    Set<String> findTitulosExistentes(@Param("titulos") Collection<String> titulos);
+    
+    // Agregados calculados por la base de datos (recorren la tabla)
+    @Query("SELECT COUNT(l) AS totalLibros, (SELECT COUNT(a) FROM Autor a) AS totalAutores, " +
+           "SUM(l.numeroDescargas) AS totalDescargas, MAX(l.numeroDescargas) AS maxDescargas, " +
+           "MIN(l.numeroDescargas) AS minDescargas FROM Libro l")
+    ResumenCatalogo calcularResumenCatalogo();
+    
+    @Query("SELECT COALESCE(l.idioma, 'desconocido') AS idioma, COUNT(l) AS totalLibros " +
+           "FROM Libro l GROUP BY COALESCE(l.idioma, 'desconocido')")
+    List<ConteoIdioma> contarPorIdioma();
+    
+    // Resumen mantenido por los triggers de schema.sql (lectura en tiempo constante)
+    @Query(value = "SELECT total_libros AS \"totalLibros\", total_autores AS \"totalAutores\", " +
+                   "total_descargas AS \"totalDescargas\", max_descargas AS \"maxDescargas\", " +
+                   "min_descargas AS \"minDescargas\" FROM estadisticas_catalogo WHERE id = 1",
+           nativeQuery = true)
+    Optional<ResumenCatalogo> findResumenCatalogo();
+    
+    @Query(value = "SELECT idioma AS \"idioma\", total_libros AS \"totalLibros\" " +
+                   "FROM estadisticas_idioma WHERE total_libros > 0",
+           nativeQuery = true)
+    List<ConteoIdioma> findResumenIdiomas();
+    
+    @Transactional
+    @Modifying
+    @Query(value = "CALL recalcular_estadisticas()", nativeQuery = true)
+    void recalcularEstadisticas();
 }
@@ -0,0 +1,258 @@
+package aluraChallenge.literatura.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import aluraChallenge.literatura.dto.DatosLibro;
+import aluraChallenge.literatura.dto.PosicionRanking;
+import aluraChallenge.literatura.dto.ResultadoBusqueda;
+import aluraChallenge.literatura.dto.ResumenActualizacion;
+
+/**
+ * Refresca el número de descargas de los libros guardados pidiéndolos otra vez a
+ * Gutendex por id (?ids=1,2,3), de a {@code idsPorPeticion} por petición. Estas
+ * peticiones no pasan por la caché de respuestas: un conteo guardado quedaría viejo, y
+ * las páginas por id, que no se vuelven a pedir, desplazarían a las búsquedas del menú.
+ *
+ * La tabla se recorre por clave en tramos de {@link #LIBROS_POR_TRAMO} y cada tramo se
+ * escribe con un solo UPDATE sobre arreglos (unnest) que lleva únicamente las filas
+ * cuyo valor cambió; los triggers de estadísticas y los índices en memoria solo ven
+ * cambios reales. Los libros guardados sin id de Gutenberg se saltan.
+ *
+ * Corre sola cada literatura.descargas.actualizacion.intervalo y no pasa de
+ * {@code peticionesPorSegundo}, además del límite de concurrencia de ConsumoApi.
+ */
+@Service
+public class ActualizacionDescargas {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActualizacionDescargas.class);
+
+    private static final int LIBROS_POR_TRAMO = 1000;
+
+    private static final String SQL_LEER_TRAMO =
+            "SELECT id, id_gutenberg, numero_descargas FROM libros " +
+            "WHERE id_gutenberg IS NOT NULL AND id > ? " +
+            "ORDER BY id LIMIT ?";
+
+    // IS DISTINCT FROM vuelve a comprobar el cambio por si la fila se tocó mientras tanto
+    private static final String SQL_ACTUALIZAR =
+            "UPDATE libros SET numero_descargas = d.descargas " +
+            "FROM unnest(?::bigint[], ?::int[]) AS d(id, descargas) " +
+            "WHERE libros.id = d.id AND libros.numero_descargas IS DISTINCT FROM d.descargas " +
+            "RETURNING libros.id, libros.titulo, libros.idioma, libros.numero_descargas, " +
+            "(SELECT nombre FROM autores WHERE autores.id = libros.autor_id) AS autor";
+
+    private record Fila(long id, int idGutenberg, Integer descargas) {}
+
+    // Contadores de una pasada; la recorre un solo hilo
+    private static final class Conteo {
+        int revisados;
+        int peticiones;
+        int actualizados;
+        int sinCambios;
+        int noEncontrados;
+        int fallidos;
+    }
+
+    @Value("${literatura.descargas.actualizacion.habilitada:true}")
+    private boolean habilitada;
+
+    @Value("${literatura.descargas.actualizacion.ids-por-peticion:32}")
+    private int idsPorPeticion;
+
+    @Value("${literatura.descargas.actualizacion.peticiones-por-segundo:2}")
+    private double peticionesPorSegundo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ConsumoApi consumoApi;
+
+    @Autowired
+    private RankingDescargas rankingDescargas;
+
+    @Autowired
+    private IndiceBusqueda indiceBusqueda;
+
+    @Autowired
+    private InstantaneaCatalogo instantaneaCatalogo;
+
+    // Una sola pasada a la vez: la programada y la pedida desde el menú no se pisan
+    private final ReentrantLock enCurso = new ReentrantLock();
+    private long siguienteTurno;
+
+    @Scheduled(initialDelayString = "${literatura.descargas.actualizacion.demora-inicial:PT10M}",
+               fixedDelayString = "${literatura.descargas.actualizacion.intervalo:PT24H}")
+    void actualizarProgramada() {
+        if (!habilitada) {
+            return;
+        }
+        try {
+            var resumen = actualizar();
+            logger.info("Actualización programada de descargas terminada: {}", resumen);
+        } catch (RuntimeException e) {
+            logger.error("Falló la actualización programada de descargas: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recorre todos los libros con id de Gutenberg y guarda las descargas que cambiaron.
+     */
+    public ResumenActualizacion actualizar() {
+        if (!enCurso.tryLock()) {
+            throw new IllegalStateException("Ya hay una actualización de descargas en curso");
+        }
+        try {
+            long inicio = System.nanoTime();
+            var conteo = new Conteo();
+            long despuesDe = 0;
+            while (true) {
+                List<Fila> tramo = jdbcTemplate.query(SQL_LEER_TRAMO,
+                        (rs, fila) -> new Fila(rs.getLong("id"), rs.getInt("id_gutenberg"),
+                                rs.getObject("numero_descargas", Integer.class)),
+                        despuesDe, LIBROS_POR_TRAMO);
+                if (tramo.isEmpty()) {
+                    break;
+                }
+                despuesDe = tramo.get(tramo.size() - 1).id();
+                actualizarTramo(tramo, conteo);
+            }
+            return new ResumenActualizacion(conteo.revisados, conteo.peticiones, conteo.actualizados,
+                    conteo.sinCambios, conteo.noEncontrados, conteo.fallidos,
+                    Duration.ofNanos(System.nanoTime() - inicio));
+        } finally {
+            enCurso.unlock();
+        }
+    }
+
+    private void actualizarTramo(List<Fila> tramo, Conteo conteo) {
+        Set<Integer> sinRespuesta = new HashSet<>();
+        Map<Integer, Integer> descargas = consultarDescargas(tramo, conteo, sinRespuesta);
+
+        List<Long> ids = new ArrayList<>();
+        List<Integer> nuevas = new ArrayList<>();
+        for (Fila fila : tramo) {
+            conteo.revisados++;
+            Integer actual = descargas.get(fila.idGutenberg());
+            if (sinRespuesta.contains(fila.idGutenberg())) {
+                conteo.fallidos++;
+            } else if (actual == null) {
+                // Retirado de Gutenberg o con otro id: se deja como está
+                conteo.noEncontrados++;
+            } else if (actual.equals(fila.descargas())) {
+                conteo.sinCambios++;
+            } else {
+                ids.add(fila.id());
+                nuevas.add(actual);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        List<PosicionRanking> cambiados = transactionTemplate.execute(estado -> {
+            List<PosicionRanking> filas = jdbcTemplate.query(SQL_ACTUALIZAR,
+                    (rs, fila) -> new PosicionRanking(rs.getLong("id"), rs.getString("titulo"),
+                            rs.getString("autor") != null ? rs.getString("autor") : "Desconocido",
+                            rs.getString("idioma"), rs.getInt("numero_descargas")),
+                    ids.toArray(Long[]::new), nuevas.toArray(Integer[]::new));
+            // Las filas no pasan por JPA: el ranking y el índice se actualizan aquí, como en GuardadoLibros
+            Transacciones.alConfirmar(() -> filas.forEach(posicion -> {
+                rankingDescargas.registrar(posicion);
+                indiceBusqueda.registrarLibro(posicion);
+                instantaneaCatalogo.actualizarDescargas(posicion.id(), posicion.descargas());
+            }));
+            return filas;
+        });
+        conteo.actualizados += cambiados.size();
+        conteo.sinCambios += ids.size() - cambiados.size();
+    }
+
+    /**
+     * Descargas actuales por id de Gutenberg. Las peticiones del tramo salen juntas (a
+     * ritmo) y se esperan al final; los ids de una petición que falló van a {@code sinRespuesta}.
+     */
+    private Map<Integer, Integer> consultarDescargas(List<Fila> tramo, Conteo conteo, Set<Integer> sinRespuesta) {
+        List<List<Integer>> grupos = new ArrayList<>();
+        List<CompletableFuture<String>> respuestas = new ArrayList<>();
+        for (int desde = 0; desde < tramo.size(); desde += idsPorPeticion) {
+            List<Integer> grupo = tramo.subList(desde, Math.min(desde + idsPorPeticion, tramo.size())).stream()
+                    .map(Fila::idGutenberg)
+                    .toList();
+            esperarTurno();
+            conteo.peticiones++;
+            grupos.add(grupo);
+            respuestas.add(consumoApi.buscarLibrosPorIdsSinCacheAsync(grupo));
+        }
+
+        Map<Integer, Integer> descargas = new HashMap<>();
+        for (int i = 0; i < grupos.size(); i++) {
+            try {
+                var resultado = consumoApi.convertirDatos(respuestas.get(i).join(), ResultadoBusqueda.class);
+                agregar(resultado, descargas);
+                // Por si Gutendex devuelve menos libros por página que ids pedidos
+                while (resultado.siguiente() != null) {
+                    esperarTurno();
+                    conteo.peticiones++;
+                    resultado = consumoApi.convertirDatos(consumoApi.obtenerDatosSinCache(resultado.siguiente()), ResultadoBusqueda.class);
+                    agregar(resultado, descargas);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("No se pudieron consultar {} libros por id: {}", grupos.get(i).size(), e.getMessage());
+                grupos.get(i).stream()
+                        .filter(id -> !descargas.containsKey(id))
+                        .forEach(sinRespuesta::add);
+            }
+        }
+        return descargas;
+    }
+
+    private static void agregar(ResultadoBusqueda resultado, Map<Integer, Integer> descargas) {
+        if (resultado.libros() == null) {
+            return;
+        }
+        for (DatosLibro libro : resultado.libros()) {
+            if (libro.idGutenberg() != null) {
+                descargas.put(libro.idGutenberg(), MapeoLibros.descargas(libro));
+            }
+        }
+    }
+
+    // Ritmo parejo de peticionesPorSegundo, sin ráfagas; solo lo usa el hilo que tiene enCurso
+    private void esperarTurno() {
+        long ahora = System.nanoTime();
+        long espera = siguienteTurno - ahora;
+        siguienteTurno = Math.max(ahora, siguienteTurno) + (long) (1_000_000_000L / peticionesPorSegundo);
+        if (espera <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(espera));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            String errorMsg = "Actualización de descargas interrumpida";
+            logger.error(errorMsg, e);
+            throw new RuntimeException(errorMsg, e);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package aluraChallenge.literatura.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import aluraChallenge.literatura.dto.EstadisticasIdioma;
+import aluraChallenge.literatura.dto.ResultadoAnalisis;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Percentiles de descargas, histograma, desgloses por idioma y por siglo y autores
+ * distintos, calculados en paralelo sobre las columnas de {@link InstantaneaCatalogo}.
+ *
+ * Las filas se reparten en particiones contiguas (a lo sumo {@link #PARTICIONES_POR_HILO}
+ * por hilo del pool) que un {@link RecursiveTask} recorre por separado; cada una deja
+ * un resultado parcial y los parciales se unen de a pares al volver.
+ *
+ * Conteos, sumas, histograma y desgloses son siempre exactos y ocupan lo mismo para
+ * cualquier tamaño de catálogo. Percentiles y autores distintos tienen dos modos:
+ * <ul>
+ *   <li>exacto: ordena una copia de las descargas y de los pares (idioma, autor),
+ *       unos 12 bytes extra por libro;</li>
+ *   <li>aproximado: cada partición llena un {@link TDigest} y un {@link HyperLogLog}
+ *       por idioma (sobre el id del autor, no el ordinal, para poder unir parciales
+ *       de otros procesos); la memoria no depende de la cantidad de libros.</li>
+ * </ul>
+ * En modo auto se usa el aproximado desde literatura.analisis.umbral-aproximado libros.
+ */
+@Service
+public class AnalisisCatalogo {
+
+    public enum Modo { EXACTO, APROXIMADO, AUTO }
+
+    private static final int PARTICIONES_POR_HILO = 4;
+    private static final int MIN_FILAS_POR_PARTICION = 50_000;
+
+    // Primer valor de cada clase del histograma a partir de la 1; la 0 es "sin descargas"
+    private static final int[] LIMITES_HISTOGRAMA = {
+        1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000
+    };
+
+    @Value("${literatura.analisis.modo:auto}")
+    private String modo;
+
+    @Value("${literatura.analisis.umbral-aproximado:5000000}")
+    private long umbralAproximado;
+
+    // 0 = un hilo por núcleo
+    @Value("${literatura.analisis.paralelismo:0}")
+    private int paralelismo;
+
+    @Autowired
+    private InstantaneaCatalogo instantaneaCatalogo;
+
+    private Modo modoPorDefecto;
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void iniciar() {
+        modoPorDefecto = Modo.valueOf(modo.trim().toUpperCase(Locale.ROOT));
+        pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void cerrar() {
+        pool.shutdownNow();
+    }
+
+    public ResultadoAnalisis analizar() {
+        return analizar(modoPorDefecto);
+    }
+
+    public ResultadoAnalisis analizar(Modo pedido) {
+        long inicio = System.nanoTime();
+        return instantaneaCatalogo.consultar(columnas -> {
+            boolean aproximado = pedido == Modo.APROXIMADO
+                    || (pedido == Modo.AUTO && columnas.filas() >= umbralAproximado);
+            // Todo dentro del pool: también los ordenamientos del modo exacto usan sus hilos
+            return pool.submit(() -> calcular(columnas, aproximado, inicio)).join();
+        });
+    }
+
+    private ResultadoAnalisis calcular(InstantaneaCatalogo.Columnas columnas, boolean aproximado, long inicio) {
+        int filas = columnas.filas();
+        int[] siglos = rangoSiglos(columnas);
+        int porParticion = Math.max(MIN_FILAS_POR_PARTICION,
+                Math.ceilDiv(filas, pool.getParallelism() * PARTICIONES_POR_HILO));
+        var formato = new Formato(columnas, columnas.idiomasPorCodigo().size(), siglos[0], siglos[1], aproximado);
+        Parcial total = new Particion(formato, 0, filas, porParticion).invoke();
+
+        double p50;
+        double p90;
+        double p99;
+        long[] autoresPorIdioma;
+        long autoresDistintos;
+        if (aproximado) {
+            p50 = filas > 0 ? total.digest.cuantil(0.50) : 0;
+            p90 = filas > 0 ? total.digest.cuantil(0.90) : 0;
+            p99 = filas > 0 ? total.digest.cuantil(0.99) : 0;
+            autoresPorIdioma = new long[formato.idiomas];
+            var todos = new HyperLogLog();
+            for (int codigo = 0; codigo < formato.idiomas; codigo++) {
+                if (total.autoresIdioma[codigo] != null) {
+                    autoresPorIdioma[codigo] = total.autoresIdioma[codigo].estimar();
+                    todos.unir(total.autoresIdioma[codigo]);
+                }
+            }
+            autoresDistintos = todos.estimar();
+        } else {
+            int[] ordenadas = Arrays.copyOf(columnas.descargas(), filas);
+            Arrays.parallelSort(ordenadas);
+            p50 = percentil(ordenadas, 0.50);
+            p90 = percentil(ordenadas, 0.90);
+            p99 = percentil(ordenadas, 0.99);
+            autoresPorIdioma = autoresPorIdiomaExacto(columnas, formato.idiomas);
+            autoresDistintos = 0;
+            for (int a = 0; a < columnas.ordinales(); a++) {
+                if (columnas.librosPorAutor()[a] > 0) {
+                    autoresDistintos++;
+                }
+            }
+        }
+
+        List<EstadisticasIdioma> porIdioma = new ArrayList<>();
+        for (int codigo = 0; codigo < formato.idiomas; codigo++) {
+            if (total.librosIdioma[codigo] > 0) {
+                porIdioma.add(new EstadisticasIdioma(columnas.idiomasPorCodigo().get(codigo),
+                        total.librosIdioma[codigo], total.descargasIdioma[codigo],
+                        total.maxIdioma[codigo], autoresPorIdioma[codigo]));
+            }
+        }
+        porIdioma.sort(Comparator.comparingLong(EstadisticasIdioma::libros).reversed());
+
+        SortedMap<Integer, Long> porSiglo = new TreeMap<>();
+        for (int s = 0; s < total.porSiglo.length; s++) {
+            if (total.porSiglo[s] > 0) {
+                porSiglo.put((siglos[0] + s) * 100, total.porSiglo[s]);
+            }
+        }
+
+        return new ResultadoAnalisis(aproximado, total.particiones, Duration.ofNanos(System.nanoTime() - inicio),
+                total.libros, total.descargas, filas > 0 ? total.minimo : 0, total.maximo,
+                p50, p90, p99, autoresDistintos, total.histograma, porIdioma, porSiglo);
+    }
+
+    // Primer siglo con nacimientos y cantidad de siglos hasta el último (0 si no hay fechas)
+    private static int[] rangoSiglos(InstantaneaCatalogo.Columnas columnas) {
+        int primero = Integer.MAX_VALUE;
+        int ultimo = Integer.MIN_VALUE;
+        for (int a = 0; a < columnas.ordinales(); a++) {
+            int nacimiento = columnas.nacimientos()[a];
+            if (nacimiento != InstantaneaCatalogo.SIN_AÑO) {
+                primero = Math.min(primero, Math.floorDiv(nacimiento, 100));
+                ultimo = Math.max(ultimo, Math.floorDiv(nacimiento, 100));
+            }
+        }
+        return primero > ultimo ? new int[] {0, 0} : new int[] {primero, ultimo - primero + 1};
+    }
+
+    // Pares (idioma, autor) ordenados: cada cambio de par es un autor distinto en ese idioma
+    private static long[] autoresPorIdiomaExacto(InstantaneaCatalogo.Columnas columnas, int idiomas) {
+        long[] claves = new long[columnas.filas()];
+        int n = 0;
+        for (int i = 0; i < columnas.filas(); i++) {
+            int autor = columnas.autores()[i];
+            if (autor != InstantaneaCatalogo.SIN_AUTOR) {
+                claves[n++] = ((long) columnas.idiomas()[i] << 32) | autor;
+            }
+        }
+        Arrays.parallelSort(claves, 0, n);
+        long[] autores = new long[idiomas];
+        for (int k = 0; k < n; k++) {
+            if (k == 0 || claves[k] != claves[k - 1]) {
+                autores[(int) (claves[k] >>> 32)]++;
+            }
+        }
+        return autores;
+    }
+
+    // Rango más cercano sobre valores ordenados
+    private static double percentil(int[] ordenadas, double q) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int posicion = (int) Math.ceil(q * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, Math.min(ordenadas.length - 1, posicion))];
+    }
+
+    private static int claseHistograma(int descargas) {
+        int clase = 0;
+        while (clase < LIMITES_HISTOGRAMA.length && descargas >= LIMITES_HISTOGRAMA[clase]) {
+            clase++;
+        }
+        return clase;
+    }
+
+    /** Lo que comparten todas las particiones de un análisis. */
+    private record Formato(InstantaneaCatalogo.Columnas columnas, int idiomas, int primerSiglo, int siglos,
+                           boolean aproximado) {}
+
+    /** Resultado de una partición; se une con el de su vecina al volver. */
+    private static final class Parcial {
+        int particiones = 1;
+        long libros;
+        long descargas;
+        int minimo = Integer.MAX_VALUE;
+        int maximo;
+        final long[] histograma = new long[LIMITES_HISTOGRAMA.length + 1];
+        final long[] librosIdioma;
+        final long[] descargasIdioma;
+        final int[] maxIdioma;
+        final long[] porSiglo;
+        // Solo en modo aproximado; un HyperLogLog por idioma, creado con el primer autor
+        final TDigest digest;
+        final HyperLogLog[] autoresIdioma;
+
+        Parcial(Formato formato) {
+            librosIdioma = new long[formato.idiomas()];
+            descargasIdioma = new long[formato.idiomas()];
+            maxIdioma = new int[formato.idiomas()];
+            porSiglo = new long[formato.siglos()];
+            digest = formato.aproximado() ? new TDigest() : null;
+            autoresIdioma = formato.aproximado() ? new HyperLogLog[formato.idiomas()] : null;
+        }
+
+        void unir(Parcial otro) {
+            particiones += otro.particiones;
+            libros += otro.libros;
+            descargas += otro.descargas;
+            minimo = Math.min(minimo, otro.minimo);
+            maximo = Math.max(maximo, otro.maximo);
+            for (int c = 0; c < histograma.length; c++) {
+                histograma[c] += otro.histograma[c];
+            }
+            for (int codigo = 0; codigo < librosIdioma.length; codigo++) {
+                librosIdioma[codigo] += otro.librosIdioma[codigo];
+                descargasIdioma[codigo] += otro.descargasIdioma[codigo];
+                maxIdioma[codigo] = Math.max(maxIdioma[codigo], otro.maxIdioma[codigo]);
+            }
+            for (int s = 0; s < porSiglo.length; s++) {
+                porSiglo[s] += otro.porSiglo[s];
+            }
+            if (digest != null) {
+                digest.unir(otro.digest);
+                for (int codigo = 0; codigo < autoresIdioma.length; codigo++) {
+                    if (otro.autoresIdioma[codigo] == null) {
+                        continue;
+                    }
+                    if (autoresIdioma[codigo] == null) {
+                        autoresIdioma[codigo] = otro.autoresIdioma[codigo];
+                    } else {
+                        autoresIdioma[codigo].unir(otro.autoresIdioma[codigo]);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Filas [desde, hasta): se parte a la mitad hasta llegar a {@code porParticion} filas. */
+    private static final class Particion extends RecursiveTask<Parcial> {
+        private final Formato formato;
+        private final int desde;
+        private final int hasta;
+        private final int porParticion;
+
+        Particion(Formato formato, int desde, int hasta, int porParticion) {
+            this.formato = formato;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.porParticion = porParticion;
+        }
+
+        @Override
+        protected Parcial compute() {
+            if (hasta - desde > porParticion) {
+                int medio = (desde + hasta) >>> 1;
+                var izquierda = new Particion(formato, desde, medio, porParticion);
+                izquierda.fork();
+                Parcial derecha = new Particion(formato, medio, hasta, porParticion).compute();
+                Parcial resultado = izquierda.join();
+                resultado.unir(derecha);
+                return resultado;
+            }
+            return recorrer();
+        }
+
+        private Parcial recorrer() {
+            var columnas = formato.columnas();
+            int[] descargas = columnas.descargas();
+            short[] idiomas = columnas.idiomas();
+            int[] autores = columnas.autores();
+            int[] nacimientos = columnas.nacimientos();
+            long[] idsAutor = columnas.idsAutor();
+            var parcial = new Parcial(formato);
+            for (int i = desde; i < hasta; i++) {
+                int valor = descargas[i];
+                short idioma = idiomas[i];
+                int autor = autores[i];
+                parcial.libros++;
+                parcial.descargas += valor;
+                parcial.minimo = Math.min(parcial.minimo, valor);
+                parcial.maximo = Math.max(parcial.maximo, valor);
+                parcial.histograma[claseHistograma(valor)]++;
+                parcial.librosIdioma[idioma]++;
+                parcial.descargasIdioma[idioma] += valor;
+                parcial.maxIdioma[idioma] = Math.max(parcial.maxIdioma[idioma], valor);
+                if (autor != InstantaneaCatalogo.SIN_AUTOR && nacimientos[autor] != InstantaneaCatalogo.SIN_AÑO) {
+                    parcial.porSiglo[Math.floorDiv(nacimientos[autor], 100) - formato.primerSiglo()]++;
+                }
+                if (parcial.digest != null) {
+                    parcial.digest.agregar(valor);
+                    if (autor != InstantaneaCatalogo.SIN_AUTOR) {
+                        var autoresIdioma = parcial.autoresIdioma[idioma];
+                        if (autoresIdioma == null) {
+                            autoresIdioma = new HyperLogLog();
+                            parcial.autoresIdioma[idioma] = autoresIdioma;
+                        }
+                        autoresIdioma.agregar(idsAutor[autor]);
+                    }
+                }
+            }
+            return parcial;
+        }
+    }
+}
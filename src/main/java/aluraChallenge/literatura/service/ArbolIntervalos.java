@@ -0,0 +1,273 @@
+package aluraChallenge.literatura.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Intervalos cerrados [inicio, fin] de años, consultables por solapamiento.
+ *
+ * Los intervalos se ordenan por inicio en arreglos paralelos y forman un árbol
+ * binario implícito (la raíz de [lo, hi) es el elemento del medio) donde cada
+ * nodo conoce el mayor fin de su subárbol. Así una consulta descarta ramas
+ * completas y cuesta O(log n + k). Los cambios posteriores quedan en una lista
+ * de pendientes que se recorre aparte, y el árbol se reconstruye cuando esa
+ * lista crece demasiado.
+ *
+ * Un extremo desconocido se representa con {@link Integer#MIN_VALUE} o
+ * {@link Integer#MAX_VALUE}.
+ */
+public class ArbolIntervalos {
+
+    private record Intervalo(long id, int inicio, int fin) {}
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Fuente de verdad: el último intervalo conocido de cada id
+    private final Map<Long, Intervalo> porId = new HashMap<>();
+
+    // Árbol reconstruido; los ids en "retirados" tienen aquí un intervalo viejo
+    private long[] ids = new long[0];
+    private int[] inicios = new int[0];
+    private int[] fines = new int[0];
+    private int[] maxFin = new int[0];
+    // Los mismos ids ordenados, para saber en O(log n) si un id está en el árbol
+    private long[] idsOrdenados = new long[0];
+    private final Set<Long> retirados = new HashSet<>();
+    private final List<Intervalo> pendientes = new ArrayList<>();
+
+    private int[] histograma;
+    private int histogramaDesde;
+
+    public void guardar(long id, int inicio, int fin) {
+        lock.writeLock().lock();
+        try {
+            var intervalo = new Intervalo(id, inicio, fin);
+            var anterior = porId.put(id, intervalo);
+            if (intervalo.equals(anterior)) {
+                return;
+            }
+            if (anterior != null) {
+                sacarDePendientes(id);
+            }
+            if (enArbol(id)) {
+                retirados.add(id);
+            }
+            pendientes.add(intervalo);
+            cambio();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(long id) {
+        lock.writeLock().lock();
+        try {
+            if (porId.remove(id) == null) {
+                return;
+            }
+            sacarDePendientes(id);
+            if (enArbol(id)) {
+                retirados.add(id);
+            }
+            cambio();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reemplaza todo el contenido y reconstruye el árbol.
+     */
+    public void cargar(long[] nuevosIds, int[] nuevosInicios, int[] nuevosFines) {
+        lock.writeLock().lock();
+        try {
+            porId.clear();
+            for (int i = 0; i < nuevosIds.length; i++) {
+                porId.put(nuevosIds[i], new Intervalo(nuevosIds[i], nuevosInicios[i], nuevosFines[i]));
+            }
+            reconstruir();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids cuyos intervalos se solapan con [desde, hasta]; con desde == hasta, los que
+     * contienen ese año.
+     */
+    public List<Long> buscar(int desde, int hasta) {
+        lock.readLock().lock();
+        try {
+            List<Long> resultado = new ArrayList<>();
+            buscar(0, ids.length, desde, hasta, resultado);
+            for (Intervalo intervalo : pendientes) {
+                if (intervalo.inicio() <= hasta && intervalo.fin() >= desde) {
+                    resultado.add(intervalo.id());
+                }
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void buscar(int lo, int hi, int desde, int hasta, List<Long> resultado) {
+        while (lo < hi) {
+            int medio = (lo + hi) >>> 1;
+            if (maxFin[medio] < desde) {
+                // Ningún intervalo de este subárbol llega hasta "desde"
+                return;
+            }
+            buscar(lo, medio, desde, hasta, resultado);
+            if (inicios[medio] > hasta) {
+                // Ordenados por inicio: todo lo de la derecha empieza aún más tarde
+                return;
+            }
+            if (fines[medio] >= desde && !retirados.contains(ids[medio])) {
+                resultado.add(ids[medio]);
+            }
+            lo = medio + 1;
+        }
+    }
+
+    /**
+     * Cuántos intervalos contienen cada año de [desde, hasta]: vivos[i] corresponde
+     * al año desde + i. Se calcula una vez y se reutiliza hasta el siguiente cambio.
+     */
+    public int[] histograma(int desde, int hasta) {
+        if (hasta < desde) {
+            return new int[0];
+        }
+        lock.writeLock().lock();
+        try {
+            if (histograma == null || desde < histogramaDesde || hasta >= histogramaDesde + histograma.length) {
+                calcularHistograma(desde, hasta);
+            }
+            return Arrays.copyOfRange(histograma, desde - histogramaDesde, hasta - histogramaDesde + 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Primer y último año conocidos (extremos desconocidos excluidos), o null si no hay ninguno.
+     */
+    public int[] rango() {
+        lock.readLock().lock();
+        try {
+            int min = rangoMinimo();
+            int max = rangoMaximo();
+            return min > max ? null : new int[] {min, max};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tamano() {
+        lock.readLock().lock();
+        try {
+            return porId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int rangoMinimo() {
+        int min = Integer.MAX_VALUE;
+        for (Intervalo intervalo : porId.values()) {
+            if (intervalo.inicio() != Integer.MIN_VALUE) {
+                min = Math.min(min, intervalo.inicio());
+            }
+            if (intervalo.fin() != Integer.MAX_VALUE) {
+                min = Math.min(min, intervalo.fin());
+            }
+        }
+        return min;
+    }
+
+    private int rangoMaximo() {
+        int max = Integer.MIN_VALUE;
+        for (Intervalo intervalo : porId.values()) {
+            if (intervalo.inicio() != Integer.MIN_VALUE) {
+                max = Math.max(max, intervalo.inicio());
+            }
+            if (intervalo.fin() != Integer.MAX_VALUE) {
+                max = Math.max(max, intervalo.fin());
+            }
+        }
+        return max;
+    }
+
+    // Suma de diferencias: +1 el año de inicio, -1 el año siguiente al fin
+    private void calcularHistograma(int desde, int hasta) {
+        int[] diferencias = new int[hasta - desde + 2];
+        for (Intervalo intervalo : porId.values()) {
+            long inicio = Math.max((long) intervalo.inicio(), desde);
+            long fin = Math.min((long) intervalo.fin(), hasta);
+            if (inicio <= fin) {
+                diferencias[(int) (inicio - desde)]++;
+                diferencias[(int) (fin - desde) + 1]--;
+            }
+        }
+        histograma = new int[hasta - desde + 1];
+        int vivos = 0;
+        for (int i = 0; i < histograma.length; i++) {
+            vivos += diferencias[i];
+            histograma[i] = vivos;
+        }
+        histogramaDesde = desde;
+    }
+
+    private boolean enArbol(long id) {
+        return Arrays.binarySearch(idsOrdenados, id) >= 0;
+    }
+
+    private void sacarDePendientes(long id) {
+        pendientes.removeIf(intervalo -> intervalo.id() == id);
+    }
+
+    private void cambio() {
+        histograma = null;
+        // Los pendientes se recorren enteros en cada consulta: se mantienen pocos
+        if (pendientes.size() + retirados.size() > 64 + ids.length / 16) {
+            reconstruir();
+        }
+    }
+
+    private void reconstruir() {
+        Intervalo[] ordenados = porId.values().toArray(Intervalo[]::new);
+        Arrays.sort(ordenados, (a, b) -> Integer.compare(a.inicio(), b.inicio()));
+        int n = ordenados.length;
+        ids = new long[n];
+        inicios = new int[n];
+        fines = new int[n];
+        maxFin = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = ordenados[i].id();
+            inicios[i] = ordenados[i].inicio();
+            fines[i] = ordenados[i].fin();
+        }
+        calcularMaxFin(0, n);
+        idsOrdenados = ids.clone();
+        Arrays.sort(idsOrdenados);
+        retirados.clear();
+        pendientes.clear();
+        histograma = null;
+    }
+
+    private int calcularMaxFin(int lo, int hi) {
+        if (lo >= hi) {
+            return Integer.MIN_VALUE;
+        }
+        int medio = (lo + hi) >>> 1;
+        int max = Math.max(fines[medio], Math.max(calcularMaxFin(lo, medio), calcularMaxFin(medio + 1, hi)));
+        maxFin[medio] = max;
+        return max;
+    }
+}
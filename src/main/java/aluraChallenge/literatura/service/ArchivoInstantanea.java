@@ -0,0 +1,259 @@
+package aluraChallenge.literatura.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formato binario de la instantánea del catálogo en disco ({@link InstantaneaCatalogo}).
+ *
+ * Todo en big-endian, en este orden:
+ * <pre>
+ *   cabecera   int magia "LITC", int versión, long marca (µs desde 1970),
+ *              int filas, int ordinales de autor, int idiomas, int cadenas
+ *   libros     long[filas] ids, int[filas] descargas, short[filas] idiomas, int[filas] autores
+ *   autores    long[] ids, int[] nombres, int[] nacimientos, int[] muertes,
+ *              int[] libros, byte[] activo (1/0)
+ *   idiomas    int[idiomas] posición de cada código en las cadenas
+ *   cadenas    por cada una: int largo en bytes (-1 = null) y los bytes UTF-8
+ * </pre>
+ * Nombres e idiomas se guardan una sola vez en la tabla de cadenas y las columnas
+ * llevan su posición (-1 = null). Se escribe en un temporal que reemplaza al archivo
+ * con un movimiento atómico, así que quien lo abre nunca ve uno a medio escribir. Se
+ * lee mapeándolo en memoria: cada columna se copia de una vez desde la página mapeada.
+ */
+final class ArchivoInstantanea {
+
+    private static final int MAGIA = 0x4C495443; // "LITC"
+    // 2: la marca también cubre los borrados (borrados_catalogo). El formato no cambió, pero
+    // un archivo de la versión 1 no puede saber qué se borró antes de que existiera esa tabla
+    static final int VERSION = 2;
+
+    /** Columnas de la instantánea; los arreglos pueden ser más largos que {@code filas} y {@code ordinales}. */
+    record Contenido(
+        Instant marca,
+        int filas,
+        long[] ids,
+        int[] descargas,
+        short[] idiomas,
+        int[] autores,
+        List<String> idiomasPorCodigo,
+        int ordinales,
+        long[] idsAutor,
+        String[] nombresAutor,
+        int[] nacimientos,
+        int[] muertes,
+        int[] librosPorAutor,
+        boolean[] autorActivo
+    ) {}
+
+    private ArchivoInstantanea() {}
+
+    static void escribir(Path archivo, Contenido contenido) throws IOException {
+        Path carpeta = archivo.toAbsolutePath().getParent();
+        Files.createDirectories(carpeta);
+        Path temporal = Files.createTempFile(carpeta, "instantanea", ".tmp");
+        try {
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE);
+                 var salida = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal), 1 << 16))) {
+                escribirContenido(salida, contenido);
+                salida.flush();
+                canal.force(true);
+            }
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    static Contenido leer(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("La instantánea pasa de 2 GB: " + archivo);
+            }
+            MappedByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            return leerContenido(datos);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Instantánea truncada o dañada: " + archivo, e);
+        }
+    }
+
+    private static void escribirContenido(DataOutputStream salida, Contenido contenido) throws IOException {
+        // Tabla de cadenas sin repetidos: primero los idiomas, después los nombres
+        List<String> cadenas = new ArrayList<>();
+        Map<String, Integer> posiciones = new HashMap<>();
+        int[] idiomas = new int[contenido.idiomasPorCodigo().size()];
+        for (int codigo = 0; codigo < idiomas.length; codigo++) {
+            idiomas[codigo] = posicion(contenido.idiomasPorCodigo().get(codigo), cadenas, posiciones);
+        }
+        int[] nombres = new int[contenido.ordinales()];
+        for (int a = 0; a < nombres.length; a++) {
+            nombres[a] = posicion(contenido.nombresAutor()[a], cadenas, posiciones);
+        }
+
+        int filas = contenido.filas();
+        int ordinales = contenido.ordinales();
+        salida.writeInt(MAGIA);
+        salida.writeInt(VERSION);
+        salida.writeLong(ChronoUnit.MICROS.between(Instant.EPOCH, contenido.marca()));
+        salida.writeInt(filas);
+        salida.writeInt(ordinales);
+        salida.writeInt(idiomas.length);
+        salida.writeInt(cadenas.size());
+
+        for (int i = 0; i < filas; i++) {
+            salida.writeLong(contenido.ids()[i]);
+        }
+        escribirEnteros(salida, contenido.descargas(), filas);
+        for (int i = 0; i < filas; i++) {
+            salida.writeShort(contenido.idiomas()[i]);
+        }
+        escribirEnteros(salida, contenido.autores(), filas);
+
+        for (int a = 0; a < ordinales; a++) {
+            salida.writeLong(contenido.idsAutor()[a]);
+        }
+        escribirEnteros(salida, nombres, ordinales);
+        escribirEnteros(salida, contenido.nacimientos(), ordinales);
+        escribirEnteros(salida, contenido.muertes(), ordinales);
+        escribirEnteros(salida, contenido.librosPorAutor(), ordinales);
+        for (int a = 0; a < ordinales; a++) {
+            salida.writeByte(contenido.autorActivo()[a] ? 1 : 0);
+        }
+
+        escribirEnteros(salida, idiomas, idiomas.length);
+        for (String cadena : cadenas) {
+            if (cadena == null) {
+                salida.writeInt(-1);
+            } else {
+                byte[] bytes = cadena.getBytes(StandardCharsets.UTF_8);
+                salida.writeInt(bytes.length);
+                salida.write(bytes);
+            }
+        }
+    }
+
+    private static Contenido leerContenido(MappedByteBuffer datos) throws IOException {
+        if (datos.getInt() != MAGIA) {
+            throw new IOException("No es una instantánea del catálogo");
+        }
+        int version = datos.getInt();
+        if (version != VERSION) {
+            throw new IOException("Versión de instantánea " + version + ", se esperaba " + VERSION);
+        }
+        Instant marca = Instant.EPOCH.plus(datos.getLong(), ChronoUnit.MICROS);
+        int filas = datos.getInt();
+        int ordinales = datos.getInt();
+        int cantidadIdiomas = datos.getInt();
+        int cantidadCadenas = datos.getInt();
+        // Antes de reservar nada: una cabecera dañada no puede pedir arreglos de gigas
+        long necesarios = (long) cantidad(filas, "filas") * (Long.BYTES + Integer.BYTES + Short.BYTES + Integer.BYTES)
+                + (long) cantidad(ordinales, "autores") * (Long.BYTES + 4 * Integer.BYTES + 1)
+                + (long) cantidad(cantidadIdiomas, "idiomas") * Integer.BYTES
+                + (long) cantidad(cantidadCadenas, "cadenas") * Integer.BYTES;
+        alcanza(datos, necesarios);
+
+        long[] ids = new long[filas];
+        datos.asLongBuffer().get(ids);
+        avanzar(datos, Long.BYTES, filas);
+        int[] descargas = leerEnteros(datos, filas);
+        short[] idiomas = new short[filas];
+        datos.asShortBuffer().get(idiomas);
+        avanzar(datos, Short.BYTES, filas);
+        int[] autores = leerEnteros(datos, filas);
+
+        long[] idsAutor = new long[ordinales];
+        datos.asLongBuffer().get(idsAutor);
+        avanzar(datos, Long.BYTES, ordinales);
+        int[] nombres = leerEnteros(datos, ordinales);
+        int[] nacimientos = leerEnteros(datos, ordinales);
+        int[] muertes = leerEnteros(datos, ordinales);
+        int[] librosPorAutor = leerEnteros(datos, ordinales);
+        boolean[] autorActivo = new boolean[ordinales];
+        for (int a = 0; a < ordinales; a++) {
+            autorActivo[a] = datos.get() != 0;
+        }
+
+        int[] posicionesIdioma = leerEnteros(datos, cantidadIdiomas);
+        String[] cadenas = new String[cantidadCadenas];
+        for (int c = 0; c < cantidadCadenas; c++) {
+            int largo = datos.getInt();
+            if (largo < -1) {
+                throw new IOException("Instantánea dañada: cadena de " + largo + " bytes");
+            }
+            if (largo >= 0) {
+                alcanza(datos, largo);
+                byte[] bytes = new byte[largo];
+                datos.get(bytes);
+                cadenas[c] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+
+        List<String> idiomasPorCodigo = new ArrayList<>(cantidadIdiomas);
+        for (int posicion : posicionesIdioma) {
+            idiomasPorCodigo.add(posicion >= 0 ? cadenas[posicion] : null);
+        }
+        String[] nombresAutor = new String[ordinales];
+        for (int a = 0; a < ordinales; a++) {
+            nombresAutor[a] = nombres[a] >= 0 ? cadenas[nombres[a]] : null;
+        }
+        return new Contenido(marca, filas, ids, descargas, idiomas, autores, idiomasPorCodigo,
+                ordinales, idsAutor, nombresAutor, nacimientos, muertes, librosPorAutor, autorActivo);
+    }
+
+    private static int cantidad(int valor, String que) throws IOException {
+        if (valor < 0) {
+            throw new IOException("Instantánea dañada: " + valor + " " + que + " en la cabecera");
+        }
+        return valor;
+    }
+
+    private static void alcanza(MappedByteBuffer datos, long bytes) throws IOException {
+        if (bytes > datos.remaining()) {
+            throw new IOException("Instantánea truncada o dañada: faltan " + (bytes - datos.remaining()) + " bytes");
+        }
+    }
+
+    private static int posicion(String cadena, List<String> cadenas, Map<String, Integer> posiciones) {
+        if (cadena == null) {
+            return -1;
+        }
+        return posiciones.computeIfAbsent(cadena, c -> {
+            cadenas.add(c);
+            return cadenas.size() - 1;
+        });
+    }
+
+    private static void escribirEnteros(DataOutputStream salida, int[] valores, int cantidad) throws IOException {
+        for (int i = 0; i < cantidad; i++) {
+            salida.writeInt(valores[i]);
+        }
+    }
+
+    // Las vistas (asIntBuffer...) no mueven la posición del buffer original
+    private static int[] leerEnteros(MappedByteBuffer datos, int cantidad) {
+        int[] valores = new int[cantidad];
+        datos.asIntBuffer().get(valores);
+        avanzar(datos, Integer.BYTES, cantidad);
+        return valores;
+    }
+
+    private static void avanzar(MappedByteBuffer datos, int bytes, int cantidad) {
+        datos.position(datos.position() + bytes * cantidad);
+    }
+}
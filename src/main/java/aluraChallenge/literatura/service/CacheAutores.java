@@ -0,0 +1,89 @@
+package aluraChallenge.literatura.service;
+
+import java.text.Normalizer;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import aluraChallenge.literatura.dto.EstadisticasCacheAutores;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Caché acotada nombre de autor -> id, delante de la búsqueda de autores al guardar libros.
+ *
+ * Se llena a demanda: lo que no está se busca en la base y se agrega. Los mismos pocos
+ * cientos de autores (Dickens, Twain, Shakespeare) aparecen una y otra vez en las cargas,
+ * así que casi todos los lotes se resuelven sin consultar la tabla. Solo se agregan ids
+ * confirmados, y {@link CacheAutoresListener} la mantiene al día con los cambios de JPA.
+ * La entidad {@code Autor} completa vive en la caché de segundo nivel de Hibernate.
+ */
+@Component
+public class CacheAutores {
+
+    /**
+     * Espacios Unicode (propiedad White_Space) escritos uno por uno: la misma expresión
+     * aparece literal en clave_autor de schema.sql. {@code \s} no sirve porque en Java
+     * solo cubre ASCII y en PostgreSQL depende del locale de la base.
+     */
+    static final String CLASE_ESPACIOS =
+            "[\\t\\n\\x0B\\f\\r \\x85\\xA0\\u1680\\u2000-\\u200A\\u2028\\u2029\\u202F\\u205F\\u3000]";
+
+    private static final Pattern ESPACIOS = Pattern.compile(CLASE_ESPACIOS + "+");
+    private static final Pattern BORDES = Pattern.compile("^ | $");
+
+    @Value("${literatura.cache.autores.max-entradas:20000}")
+    private long maxEntradas;
+
+    private Cache<String, Long> ids;
+
+    @PostConstruct
+    void iniciar() {
+        ids = Caffeine.newBuilder()
+                .maximumSize(maxEntradas)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * "  Dickens,   CHARLES " -> "dickens, charles". Debe coincidir con la función
+     * clave_autor de schema.sql, que indexa la misma clave en la tabla: los mismos
+     * espacios y minúsculas Unicode completas (allí con la colación ICU raíz, igual
+     * que {@link Locale#ROOT}).
+     */
+    public static String clave(String nombre) {
+        String espacios = ESPACIOS.matcher(Normalizer.normalize(nombre, Normalizer.Form.NFC)).replaceAll(" ");
+        return BORDES.matcher(espacios).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Ids ya conocidos de las claves pedidas; las que faltan cuentan como fallos.
+     */
+    public Map<String, Long> buscar(Collection<String> claves) {
+        return ids.getAllPresent(claves);
+    }
+
+    public void registrar(String nombre, long id) {
+        ids.put(clave(nombre), id);
+    }
+
+    public void registrarTodos(Map<String, Long> idsPorClave) {
+        ids.putAll(idsPorClave);
+    }
+
+    public void quitar(String nombre) {
+        ids.invalidate(clave(nombre));
+    }
+
+    public EstadisticasCacheAutores estadisticas() {
+        var stats = ids.stats();
+        return new EstadisticasCacheAutores(stats.hitCount(), stats.missCount(), stats.evictionCount(),
+                ids.estimatedSize(), maxEntradas);
+    }
+}
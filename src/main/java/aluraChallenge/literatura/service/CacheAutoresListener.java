@@ -0,0 +1,57 @@
+package aluraChallenge.literatura.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import aluraChallenge.literatura.models.Autor;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Mantiene la caché de nombres de autores al día con los autores que guarda o borra
+ * JPA. Los cambios se aplican al confirmar la transacción; al renombrar un autor se
+ * olvida también su nombre anterior.
+ */
+@Component
+public class CacheAutoresListener {
+
+    @Autowired
+    private CacheAutores cacheAutores;
+
+    @PostLoad
+    void cargado(Autor autor) {
+        autor.setNombreGuardado(autor.getNombre());
+    }
+
+    @PostPersist
+    @PostUpdate
+    void guardado(Autor autor) {
+        var id = autor.getId();
+        var nombre = autor.getNombre();
+        var anterior = autor.getNombreGuardado();
+        autor.setNombreGuardado(nombre);
+        // Renombrado: la clave vieja seguiría resolviendo a este id
+        var renombrado = anterior != null
+                && (nombre == null || !CacheAutores.clave(anterior).equals(CacheAutores.clave(nombre)));
+        if (renombrado || nombre != null) {
+            Transacciones.alConfirmar(() -> {
+                if (renombrado) {
+                    cacheAutores.quitar(anterior);
+                }
+                if (nombre != null) {
+                    cacheAutores.registrar(nombre, id);
+                }
+            });
+        }
+    }
+
+    @PostRemove
+    void borrado(Autor autor) {
+        var nombre = autor.getNombre();
+        if (nombre != null) {
+            Transacciones.alConfirmar(() -> cacheAutores.quitar(nombre));
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package aluraChallenge.literatura.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import aluraChallenge.literatura.dto.EstadisticasCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Caché LRU de respuestas de Gutendex, acotada por tamaño total.
+ *
+ * Cada tipo de consulta tiene su propio TTL. Las entradas vencidas se conservan
+ * mientras quepan para poder revalidarlas con ETag/Last-Modified. El tamaño se mide
+ * en bytes UTF-8 del cuerpo. Si se configura un directorio, las entradas se copian a
+ * disco cada pocos segundos (varias escrituras de la misma URL cuentan como una) y se
+ * recargan al arrancar, empezando por las más recientes y sin pasar del máximo.
+ */
+@Component
+public class CacheRespuestas {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheRespuestas.class);
+
+    public record Entrada(
+        String url,
+        String cuerpo,
+        String etag,
+        String ultimaModificacion,
+        long expiraEn
+    ) {
+        public boolean vigente() {
+            return System.currentTimeMillis() < expiraEn;
+        }
+
+        public boolean revalidable() {
+            return etag != null || ultimaModificacion != null;
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // El tamaño en bytes se calcula una sola vez, al guardar
+    private record Guardada(Entrada entrada, long bytes) {}
+
+    // accessOrder = true: el primer elemento es siempre el menos usado recientemente
+    private final LinkedHashMap<String, Guardada> entradas = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytesEnMemoria;
+    // Cambios aún no copiados a disco, por clave; null = borrar el archivo
+    private Map<String, Entrada> pendientesDisco = new LinkedHashMap<>();
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private final ReentrantLock cerrojoDisco = new ReentrantLock();
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong revalidaciones = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+
+    @Value("${literatura.cache.max-bytes:33554432}")
+    private long maxBytes;
+
+    @Value("${literatura.cache.ttl.busqueda:PT10M}")
+    private Duration ttlBusqueda;
+
+    @Value("${literatura.cache.ttl.populares:PT1H}")
+    private Duration ttlPopulares;
+
+    @Value("${literatura.cache.ttl.catalogo:PT0S}")
+    private Duration ttlCatalogo;
+
+    @Value("${literatura.cache.ttl.defecto:PT15M}")
+    private Duration ttlDefecto;
+
+    @Value("${literatura.cache.directorio:}")
+    private String directorio;
+
+    @PostConstruct
+    void cargarDesdeDisco() {
+        Path carpeta = carpeta();
+        if (carpeta == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(carpeta);
+            List<Path> archivos;
+            try (Stream<Path> listado = Files.list(carpeta)) {
+                archivos = listado.toList();
+            }
+            // Temporales de una escritura que se cortó (la aplicación murió antes de moverlos)
+            archivos.stream()
+                    .filter(archivo -> archivo.getFileName().toString().startsWith("entrada")
+                            && archivo.toString().endsWith(".tmp"))
+                    .forEach(this::borrarArchivo);
+            // Del más viejo al más nuevo: si no entran todos, el desalojo se lleva los viejos
+            archivos.stream()
+                    .filter(archivo -> archivo.toString().endsWith(".json"))
+                    .sorted(Comparator.comparing(CacheRespuestas::modificado))
+                    .forEach(this::cargarArchivo);
+            escribirPendientes();
+            logger.info("Caché cargada desde {}: {} entradas, {} bytes", carpeta, entradas.size(), bytesEnMemoria);
+        } catch (IOException e) {
+            logger.warn("No se pudo cargar la caché desde {}: {}", carpeta, e.getMessage());
+        }
+    }
+
+    private void cargarArchivo(Path archivo) {
+        try {
+            Entrada entrada = objectMapper.readValue(archivo.toFile(), Entrada.class);
+            long bytes = bytesUtf8(entrada.cuerpo());
+            if (bytes > maxBytes) {
+                borrarArchivo(archivo);
+                return;
+            }
+            cerrojo.lock();
+            try {
+                insertar(normalizar(entrada.url()), entrada, bytes);
+            } finally {
+                cerrojo.unlock();
+            }
+        } catch (IOException e) {
+            logger.debug("Entrada de caché ilegible, se descarta: {}", archivo);
+            borrarArchivo(archivo);
+        }
+    }
+
+    /**
+     * Devuelve la entrada guardada para la URL, aunque esté vencida, o null si no existe.
+     * Solo cuenta como acierto si la entrada sigue vigente.
+     */
+    public Entrada consultar(String url) {
+        Guardada guardada;
+        cerrojo.lock();
+        try {
+            guardada = entradas.get(normalizar(url));
+        } finally {
+            cerrojo.unlock();
+        }
+        Entrada entrada = guardada != null ? guardada.entrada() : null;
+        if (entrada != null && entrada.vigente()) {
+            aciertos.incrementAndGet();
+        } else {
+            fallos.incrementAndGet();
+        }
+        return entrada;
+    }
+
+    public void guardar(String url, String cuerpo, String etag, String ultimaModificacion) {
+        Duration ttl = ttlPara(url);
+        if (ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+        long bytes = bytesUtf8(cuerpo);
+        if (bytes > maxBytes) {
+            return;
+        }
+        almacenar(new Entrada(url, cuerpo, etag, ultimaModificacion,
+                System.currentTimeMillis() + ttl.toMillis()), bytes);
+    }
+
+    // El servidor respondió 304: el contenido no cambió y vuelve a quedar vigente
+    public Entrada revalidada(Entrada entrada) {
+        revalidaciones.incrementAndGet();
+        Entrada renovada = new Entrada(entrada.url(), entrada.cuerpo(), entrada.etag(),
+                entrada.ultimaModificacion(), System.currentTimeMillis() + ttlPara(entrada.url()).toMillis());
+        almacenar(renovada, bytesUtf8(renovada.cuerpo()));
+        return renovada;
+    }
+
+    private void almacenar(Entrada entrada, long bytes) {
+        String clave = normalizar(entrada.url());
+        cerrojo.lock();
+        try {
+            insertar(clave, entrada, bytes);
+            if (carpeta() != null) {
+                pendientesDisco.put(clave, entrada);
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    // Con el cerrojo tomado: agrega la entrada y desaloja las menos usadas hasta caber
+    private void insertar(String clave, Entrada entrada, long bytes) {
+        Guardada anterior = entradas.put(clave, new Guardada(entrada, bytes));
+        if (anterior != null) {
+            bytesEnMemoria -= anterior.bytes();
+        }
+        bytesEnMemoria += bytes;
+
+        Iterator<Map.Entry<String, Guardada>> it = entradas.entrySet().iterator();
+        while (bytesEnMemoria > maxBytes && it.hasNext()) {
+            var masAntigua = it.next();
+            if (masAntigua.getKey().equals(clave)) {
+                continue;
+            }
+            bytesEnMemoria -= masAntigua.getValue().bytes();
+            desalojos.incrementAndGet();
+            if (carpeta() != null) {
+                pendientesDisco.put(masAntigua.getKey(), null);
+            }
+            it.remove();
+        }
+    }
+
+    /** Copia a disco las entradas guardadas o desalojadas desde la última vez. */
+    @Scheduled(fixedDelayString = "${literatura.cache.escritura:PT5S}")
+    @PreDestroy
+    void escribirPendientes() {
+        Path carpeta = carpeta();
+        if (carpeta == null) {
+            return;
+        }
+        // Un solo escritor a la vez: así una copia vieja no pisa a una más nueva
+        cerrojoDisco.lock();
+        try {
+            Map<String, Entrada> cambios;
+            cerrojo.lock();
+            try {
+                if (pendientesDisco.isEmpty()) {
+                    return;
+                }
+                cambios = pendientesDisco;
+                pendientesDisco = new LinkedHashMap<>();
+            } finally {
+                cerrojo.unlock();
+            }
+            cambios.forEach((clave, entrada) -> {
+                if (entrada != null) {
+                    escribirArchivo(carpeta, clave, entrada);
+                } else {
+                    borrarArchivo(carpeta.resolve(nombreArchivo(clave)));
+                }
+            });
+        } finally {
+            cerrojoDisco.unlock();
+        }
+    }
+
+    private void escribirArchivo(Path carpeta, String clave, Entrada entrada) {
+        Path destino = carpeta.resolve(nombreArchivo(clave));
+        try {
+            Files.createDirectories(carpeta);
+            Path temporal = Files.createTempFile(carpeta, "entrada", ".tmp");
+            try {
+                objectMapper.writeValue(temporal.toFile(), entrada);
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporal);
+            }
+        } catch (IOException e) {
+            logger.warn("No se pudo escribir la entrada de caché {}: {}", destino, e.getMessage());
+        }
+    }
+
+    private void borrarArchivo(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            logger.debug("No se pudo borrar {}: {}", archivo, e.getMessage());
+        }
+    }
+
+    public EstadisticasCache estadisticas() {
+        cerrojo.lock();
+        try {
+            return new EstadisticasCache(aciertos.get(), fallos.get(), revalidaciones.get(),
+                    desalojos.get(), entradas.size(), bytesEnMemoria);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    private Duration ttlPara(String url) {
+        String consulta = URI.create(url).getRawQuery();
+        if (consulta == null) {
+            return ttlDefecto;
+        }
+        if (consulta.contains("sort=popular")) {
+            return ttlPopulares;
+        }
+        if (consulta.contains("search=") || consulta.contains("topic=")) {
+            return ttlBusqueda;
+        }
+        if (consulta.contains("page=") || consulta.contains("ids=")) {
+            return ttlCatalogo;
+        }
+        return ttlDefecto;
+    }
+
+    /**
+     * Clave de caché: esquema y host en minúsculas, sin puerto por defecto ni fragmento
+     * y con los parámetros ordenados, para que la misma búsqueda comparta entrada.
+     */
+    static String normalizar(String url) {
+        URI uri = URI.create(url.trim());
+        String esquema = uri.getScheme() != null ? uri.getScheme().toLowerCase() : "https";
+        String host = uri.getHost() != null ? uri.getHost().toLowerCase() : "";
+        int puerto = uri.getPort();
+        boolean puertoPorDefecto = puerto == -1
+                || (puerto == 443 && esquema.equals("https"))
+                || (puerto == 80 && esquema.equals("http"));
+        String ruta = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+
+        var clave = new StringBuilder(esquema).append("://").append(host);
+        if (!puertoPorDefecto) {
+            clave.append(':').append(puerto);
+        }
+        clave.append(ruta);
+
+        if (uri.getRawQuery() != null && !uri.getRawQuery().isEmpty()) {
+            String parametros = Arrays.stream(uri.getRawQuery().split("&"))
+                    .filter(parametro -> !parametro.isEmpty())
+                    .sorted()
+                    .collect(Collectors.joining("&"));
+            if (!parametros.isEmpty()) {
+                clave.append('?').append(parametros);
+            }
+        }
+        return clave.toString();
+    }
+
+    // Largo en UTF-8 sin copiar el texto; un par sustituto válido ocupa 4 bytes
+    static long bytesUtf8(String texto) {
+        long bytes = 0;
+        int largo = texto.length();
+        for (int i = 0; i < largo; i++) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < largo && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static String nombreArchivo(String clave) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(clave.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash) + ".json";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static FileTime modificado(Path archivo) {
+        try {
+            return Files.getLastModifiedTime(archivo);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private Path carpeta() {
+        return directorio == null || directorio.isBlank() ? null : Path.of(directorio);
+    }
+}
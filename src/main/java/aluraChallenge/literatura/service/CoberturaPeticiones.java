@@ -0,0 +1,152 @@
+package aluraChallenge.literatura.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import aluraChallenge.literatura.dto.EstadoCobertura;
+
+/**
+ * Decide cuándo enviar una petición de cobertura (hedged request) a Gutendex: si la
+ * respuesta no llegó en el percentil 95 observado para ese tipo de consulta, se
+ * manda una segunda igual y gana la primera que responda.
+ *
+ * La carga extra está acotada por un presupuesto: cada petición original suma
+ * {@code presupuesto} fichas (0.05 = 5 %) y cada cobertura gasta una. Está
+ * desactivado por defecto (literatura.api.cobertura.habilitada).
+ */
+@Component
+public class CoberturaPeticiones {
+
+    // Latencias recientes por tipo de consulta; el percentil se recalcula cada tantas muestras
+    private static final int MUESTRAS = 256;
+    private static final int RECALCULAR_CADA = 16;
+    // Fichas acumulables: permite una ráfaga corta de coberturas tras un rato tranquilo
+    private static final double FICHAS_MAXIMAS = 10;
+
+    @Value("${literatura.api.cobertura.habilitada:false}")
+    private boolean habilitada;
+
+    @Value("${literatura.api.cobertura.presupuesto:0.05}")
+    private double presupuesto;
+
+    @Value("${literatura.api.cobertura.percentil:0.95}")
+    private double percentil;
+
+    @Value("${literatura.api.cobertura.muestras-minimas:20}")
+    private int muestrasMinimas;
+
+    @Value("${literatura.api.cobertura.espera-minima:PT0.05S}")
+    private Duration esperaMinima;
+
+    private static final class Latencias {
+        final long[] nanos = new long[MUESTRAS];
+        int cantidad;
+        int siguiente;
+        long umbral = -1;
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Latencias> porTipo = new HashMap<>();
+    private double fichas;
+
+    private final AtomicLong peticiones = new AtomicLong();
+    private final AtomicLong coberturas = new AtomicLong();
+    private final AtomicLong ganadas = new AtomicLong();
+    private final AtomicLong sinPresupuesto = new AtomicLong();
+
+    public boolean habilitada() {
+        return habilitada;
+    }
+
+    /**
+     * Registra una petición original y devuelve cuánto esperar antes de cubrirla, o
+     * null si no corresponde (desactivado o aún sin suficientes muestras de ese tipo).
+     */
+    public Duration esperaAntesDeCubrir(String tipo) {
+        if (!habilitada) {
+            return null;
+        }
+        peticiones.incrementAndGet();
+        lock.lock();
+        try {
+            fichas = Math.min(FICHAS_MAXIMAS, fichas + presupuesto);
+            var latencias = porTipo.get(tipo);
+            if (latencias == null || latencias.umbral < 0) {
+                return null;
+            }
+            return Duration.ofNanos(Math.max(latencias.umbral, esperaMinima.toNanos()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gasta una ficha si queda presupuesto. Se consulta recién al vencer la espera,
+     * así las peticiones que responden a tiempo no consumen nada.
+     */
+    public boolean intentarCubrir() {
+        lock.lock();
+        try {
+            if (fichas < 1) {
+                sinPresupuesto.incrementAndGet();
+                return false;
+            }
+            fichas -= 1;
+        } finally {
+            lock.unlock();
+        }
+        coberturas.incrementAndGet();
+        return true;
+    }
+
+    public void registrarGanada() {
+        ganadas.incrementAndGet();
+    }
+
+    /**
+     * Latencia de una respuesta correcta; alimenta el percentil de su tipo de consulta.
+     */
+    public void registrarLatencia(String tipo, long nanos) {
+        if (!habilitada) {
+            return;
+        }
+        lock.lock();
+        try {
+            var latencias = porTipo.computeIfAbsent(tipo, t -> new Latencias());
+            latencias.nanos[latencias.siguiente] = nanos;
+            latencias.siguiente = (latencias.siguiente + 1) % MUESTRAS;
+            latencias.cantidad = Math.min(latencias.cantidad + 1, MUESTRAS);
+            if (latencias.cantidad >= muestrasMinimas
+                    && (latencias.umbral < 0 || latencias.siguiente % RECALCULAR_CADA == 0)) {
+                long[] ordenadas = Arrays.copyOf(latencias.nanos, latencias.cantidad);
+                Arrays.sort(ordenadas);
+                latencias.umbral = ordenadas[(int) Math.min(ordenadas.length - 1, Math.ceil(percentil * ordenadas.length) - 1)];
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public EstadoCobertura estado() {
+        Map<String, Long> umbrales = new HashMap<>();
+        lock.lock();
+        try {
+            porTipo.forEach((tipo, latencias) -> {
+                if (latencias.umbral >= 0) {
+                    umbrales.put(tipo, latencias.umbral / 1_000_000);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+        return new EstadoCobertura(habilitada, peticiones.get(), coberturas.get(), ganadas.get(),
+                sinPresupuesto.get(), umbrales);
+    }
+}
@@ -0,0 +1,71 @@
+package aluraChallenge.literatura.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compresión del transporte HTTP con Gutendex. java.net.http no negocia ni
+ * descomprime nada por su cuenta: se pide con Accept-Encoding y se descomprime
+ * aquí según el Content-Encoding de la respuesta, a medida que se lee.
+ */
+final class Compresion {
+
+    // El JDK no trae decodificador de brotli: solo se ofrece lo que se puede leer
+    static final String ACEPTADAS = "gzip, deflate";
+
+    private Compresion() {}
+
+    static InputStream decodificar(String contentEncoding, InputStream entrada) throws IOException {
+        return switch (contentEncoding == null ? "identity" : contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(entrada, 8192);
+            case "deflate" -> new InflaterInputStream(entrada);
+            case "identity", "" -> entrada;
+            default -> throw new IOException("Content-Encoding no soportado: " + contentEncoding);
+        };
+    }
+
+    /**
+     * Cuenta los bytes que pasan por el flujo. Uno debajo de la descompresión mide lo
+     * que viajó por la red y otro encima, lo que se decodificó.
+     */
+    static final class Contador extends FilterInputStream {
+        private long bytes;
+
+        Contador(InputStream entrada) {
+            super(entrada);
+        }
+
+        long bytes() {
+            return bytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] destino, int desde, int largo) throws IOException {
+            int leidos = super.read(destino, desde, largo);
+            if (leidos > 0) {
+                bytes += leidos;
+            }
+            return leidos;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long saltados = super.skip(n);
+            bytes += saltados;
+            return saltados;
+        }
+    }
+}
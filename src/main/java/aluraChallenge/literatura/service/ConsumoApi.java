@@ -1,6 +1,10 @@
 package aluraChallenge.literatura.service;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -8,54 +12,580 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import aluraChallenge.literatura.dto.DatosLibro;
+import aluraChallenge.literatura.dto.EstadisticasCache;
+import aluraChallenge.literatura.dto.EstadoCobertura;
+import aluraChallenge.literatura.dto.EstadoLimitador;
+import aluraChallenge.literatura.dto.MetadatosPagina;
+import aluraChallenge.literatura.dto.TransferenciaBytes;
+import jakarta.annotation.PreDestroy;
 
 @Service
 public class ConsumoApi {
     
     private static final Logger logger = LoggerFactory.getLogger(ConsumoApi.class);
     
+    // Un hilo virtual por tarea: el cliente nunca se queda sin hilos con cientos de peticiones en vuelo
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    // HTTP/2 explícito: todas las peticiones a Gutendex comparten una conexión multiplexada
     private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .executor(ejecutor)
             .connectTimeout(Duration.ofSeconds(10))
             .followRedirects(HttpClient.Redirect.NORMAL)
             .build();
     
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final String URL_BASE = "https://gutendex.com/books/";
+    private final ObjectReader lectorLibro = objectMapper.readerFor(DatosLibro.class);
+    
+    // Peticiones en curso por URL normalizada, para no repetir la misma petición
+    private final ConcurrentHashMap<String, CompletableFuture<String>> peticionesEnVuelo = new ConcurrentHashMap<>();
+    private final AtomicLong peticionesCoalescidas = new AtomicLong();
+    private final AtomicLong bytesRed = new AtomicLong();
+    private final AtomicLong bytesDecodificados = new AtomicLong();
+    
+    @Autowired
+    private CacheRespuestas cacheRespuestas;
+    
+    @Autowired
+    private LimitadorConcurrencia limitador;
+    
+    @Autowired
+    private PoliticaReintentos politicaReintentos;
+    
+    @Autowired
+    private MetricasLiteratura metricas;
+    
+    @Autowired
+    private CoberturaPeticiones cobertura;
+    
+    // Configurable para apuntar a un servidor local (pruebas de carga sin salir a internet)
+    @Value("${literatura.api.url-base:https://gutendex.com/books/}")
+    private String urlBase;
     
     public String obtenerDatos(String url) {
-        logger.info("Realizando petición a: {}", url);
+        return esperar(obtenerDatosAsync(url));
+    }
+    
+    /**
+     * Como {@link #obtenerDatos} pero sin pasar por la caché de respuestas: ni la consulta
+     * ni guarda lo recibido. Para datos que se piden justamente porque cambian, como los
+     * conteos de descargas, y cuyas URLs no se repiten.
+     */
+    public String obtenerDatosSinCache(String url) {
+        return esperar(obtenerDatosSinCacheAsync(url));
+    }
+    
+    public CompletableFuture<String> obtenerDatosSinCacheAsync(String url) {
+        logger.debug("Realizando petición sin caché a: {}", url);
+        return enviarConCobertura(nuevaPeticion(url).build())
+                .thenApply(response -> procesarRespuesta(url, null, response, false));
+    }
+    
+    private String esperar(CompletableFuture<String> respuesta) {
+        try {
+            return respuesta.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            String errorMsg = "Petición interrumpida: " + e.getMessage();
+            logger.error(errorMsg, e);
+            throw new RuntimeException(errorMsg, e);
+        } catch (ExecutionException e) {
+            throw comoExcepcion(e.getCause());
+        }
+    }
+    
+    /**
+     * Versión asíncrona de {@link #obtenerDatos}. Si ya hay una petición en curso para
+     * la misma URL normalizada, el llamador se suma a ella en lugar de lanzar otra.
+     */
+    public CompletableFuture<String> obtenerDatosAsync(String url) {
+        var enCache = cacheRespuestas.consultar(url);
+        if (enCache != null && enCache.vigente()) {
+            logger.debug("Respuesta servida desde caché: {}", url);
+            return CompletableFuture.completedFuture(enCache.cuerpo());
+        }
         
-        HttpRequest request = HttpRequest.newBuilder()
+        HttpRequest request = construirPeticion(url, enCache);
+        String clave = CacheRespuestas.normalizar(url);
+        var nueva = new CompletableFuture<String>();
+        var enCurso = peticionesEnVuelo.putIfAbsent(clave, nueva);
+        if (enCurso != null) {
+            peticionesCoalescidas.incrementAndGet();
+            logger.debug("Petición ya en curso, se comparte: {}", url);
+            return enCurso.copy();
+        }
+        
+        logger.debug("Realizando petición a: {}", url);
+        enviarConCobertura(request)
+                .thenApply(response -> procesarRespuesta(url, enCache, response, true))
+                .whenComplete((cuerpo, error) -> {
+                    // Se retira antes de completar: quien llegue después ya la encuentra en caché
+                    peticionesEnVuelo.remove(clave, nueva);
+                    if (error != null) {
+                        nueva.completeExceptionally(comoExcepcion(error));
+                    } else {
+                        nueva.complete(cuerpo);
+                    }
+                });
+        
+        // Cada llamador recibe su copia: cancelarla no afecta a los demás
+        return nueva.copy();
+    }
+    
+    /**
+     * Envía la petición y, si la cobertura está habilitada y la respuesta tarda más que
+     * el percentil 95 de ese tipo de consulta, una segunda igual. Gana la primera
+     * respuesta; la petición solo falla si fallan las dos. Al decidirse, la que sigue en
+     * vuelo se cancela para que devuelva su permiso y su conexión.
+     */
+    private CompletableFuture<HttpResponse<String>> enviarConCobertura(HttpRequest request) {
+        var envioOriginal = Envio.conReintentos();
+        var original = enviar(request, cuerpoTexto(request), envioOriginal, 0);
+        Duration espera = cobertura.esperaAntesDeCubrir(MetricasLiteratura.tipoConsulta(request.uri().toString()));
+        if (espera == null) {
+            return original;
+        }
+        
+        var resultado = new CompletableFuture<HttpResponse<String>>();
+        var pendientes = new AtomicInteger(1);
+        // La cobertura no reintenta: los reintentos ya los hace la original
+        var envioCobertura = Envio.sinReintentos();
+        resultado.whenComplete((response, error) -> {
+            envioOriginal.cancelar();
+            envioCobertura.cancelar();
+        });
+        original.whenComplete((response, error) -> {
+            if (error == null) {
+                resultado.complete(response);
+            } else if (pendientes.decrementAndGet() == 0) {
+                resultado.completeExceptionally(error);
+            }
+        });
+        
+        Executor demorado = CompletableFuture.delayedExecutor(espera.toNanos(), TimeUnit.NANOSECONDS);
+        demorado.execute(() -> {
+            if (resultado.isDone() || !cobertura.intentarCubrir()) {
+                return;
+            }
+            pendientes.incrementAndGet();
+            logger.debug("Sin respuesta en {} ms, se envía una cobertura: {}", espera.toMillis(), request.uri());
+            enviar(request, cuerpoTexto(request), envioCobertura, 0)
+                    .whenComplete((response, error) -> {
+                        // Un 429/5xx de la cobertura no debe ganarle a la original, que sí reintenta
+                        boolean util = error == null && !PoliticaReintentos.esReintentable(response.statusCode());
+                        if (util) {
+                            if (resultado.complete(response)) {
+                                cobertura.registrarGanada();
+                            }
+                        } else if (pendientes.decrementAndGet() == 0) {
+                            if (error != null) {
+                                resultado.completeExceptionally(error);
+                            } else {
+                                resultado.complete(response);
+                            }
+                        }
+                    });
+        });
+        return resultado;
+    }
+    
+    /**
+     * Cuerpo completo como texto, descomprimido según Content-Encoding. Las respuestas de
+     * búsqueda son chicas: se descomprimen de una vez al terminar de llegar.
+     */
+    private HttpResponse.BodyHandler<String> cuerpoTexto(HttpRequest request) {
+        return info -> HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), comprimido -> {
+            try (var entrada = Compresion.decodificar(info.headers().firstValue("Content-Encoding").orElse(null),
+                    new ByteArrayInputStream(comprimido))) {
+                byte[] decodificado = entrada.readAllBytes();
+                registrarBytes(request.uri().toString(), comprimido.length, decodificado.length);
+                return new String(decodificado, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error al descomprimir la respuesta: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    private void registrarBytes(String url, long red, long decodificados) {
+        bytesRed.addAndGet(red);
+        bytesDecodificados.addAndGet(decodificados);
+        metricas.registrarBytes(url, red, decodificados);
+    }
+    
+    /**
+     * Envía la petición respetando el límite de concurrencia. Las respuestas 429/5xx y
+     * los errores de red se reintentan con espera exponencial y jitter, respetando
+     * Retry-After; si se agotan los intentos se devuelve la última respuesta o error.
+     *
+     * Con un cuerpo de texto el permiso se devuelve al completarse la respuesta, que ya
+     * trae el cuerpo entero. Con un cuerpo {@link CuerpoEnStreaming} la respuesta llega
+     * con las cabeceras y el cuerpo se sigue descargando mientras se lee, así que el
+     * permiso se devuelve recién cuando el stream se agota o se cierra.
+     *
+     * Solo se reintenta si {@code envio} lo permite, y nunca después de cancelarlo.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> enviar(HttpRequest request,
+            HttpResponse.BodyHandler<T> handler, Envio envio, int intento) {
+        return limitador.adquirir()
+                .thenCompose(permiso -> {
+                    // Cancelado mientras esperaba el permiso o entre reintentos
+                    if (envio.cancelado()) {
+                        limitador.liberar(false);
+                        return CompletableFuture.<HttpResponse<T>>failedFuture(
+                                new CancellationException("Envío cancelado: " + request.uri()));
+                    }
+                    long inicio = System.nanoTime();
+                    var enVuelo = client.sendAsync(request, handler);
+                    envio.enCurso(enVuelo);
+                    return enVuelo
+                            .whenComplete((response, error) -> {
+                                // Cancelar no es una señal de sobrecarga del servidor
+                                Throwable causa = error instanceof CompletionException && error.getCause() != null
+                                        ? error.getCause() : error;
+                                boolean sobrecarga = response != null
+                                        ? PoliticaReintentos.esReintentable(response.statusCode())
+                                        : !(causa instanceof CancellationException);
+                                registrarMetricas(request, response, error, System.nanoTime() - inicio);
+                                if (response != null && response.body() instanceof CuerpoEnStreaming cuerpo) {
+                                    cuerpo.alTerminar(() -> limitador.liberar(sobrecarga));
+                                } else {
+                                    limitador.liberar(sobrecarga);
+                                }
+                            });
+                })
+                .handle((response, error) -> {
+                    Throwable causa = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    boolean reintentable = response != null
+                            ? PoliticaReintentos.esReintentable(response.statusCode())
+                            : causa instanceof IOException;
+                    
+                    // Sin espera posible (el servidor pide más que el máximo) tampoco se reintenta
+                    Optional<Duration> siguiente = reintentable && envio.reintentar() && !envio.cancelado()
+                            && politicaReintentos.debeReintentar(intento)
+                            ? politicaReintentos.espera(intento,
+                                    response != null ? response.headers().firstValue("Retry-After") : Optional.empty())
+                            : Optional.empty();
+                    if (siguiente.isEmpty()) {
+                        return response != null
+                                ? CompletableFuture.completedFuture(response)
+                                : CompletableFuture.<HttpResponse<T>>failedFuture(causa);
+                    }
+                    
+                    Duration espera = siguiente.get();
+                    logger.warn("Fallo pasajero en {} ({}), reintento {} en {} ms", request.uri(),
+                            response != null ? "HTTP " + response.statusCode() : causa.getMessage(),
+                            intento + 1, espera.toMillis());
+                    if (response != null) {
+                        descartar(response);
+                    }
+                    limitador.registrarReintento();
+                    
+                    Executor demorado = CompletableFuture.delayedExecutor(espera.toMillis(), TimeUnit.MILLISECONDS);
+                    return CompletableFuture.runAsync(() -> {}, demorado)
+                            .thenCompose(listo -> enviar(request, handler, envio, intento + 1));
+                })
+                .thenCompose(Function.identity());
+    }
+    
+    // Cada intento cuenta por separado: un reintento es otra petición a Gutendex
+    private void registrarMetricas(HttpRequest request, HttpResponse<?> response, Throwable error, long nanos) {
+        if (response == null) {
+            Throwable causa = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            metricas.registrarPeticion(request.uri().toString(), causa.getClass().getSimpleName(), nanos);
+            return;
+        }
+        metricas.registrarPeticion(request.uri().toString(), String.valueOf(response.statusCode()), nanos);
+        if (response.statusCode() == 200 || response.statusCode() == 304) {
+            cobertura.registrarLatencia(MetricasLiteratura.tipoConsulta(request.uri().toString()), nanos);
+        }
+    }
+    
+    /**
+     * Un envío con todos sus intentos: si reintenta o no, y la posibilidad de cancelarlo.
+     * Cancelar aborta el intento en vuelo (el cliente HTTP cierra el intercambio, y con
+     * eso se devuelve el permiso) y evita los que faltaban.
+     */
+    private static final class Envio {
+        
+        private final boolean reintentar;
+        private volatile boolean cancelado;
+        private volatile CompletableFuture<?> enCurso;
+        
+        private Envio(boolean reintentar) {
+            this.reintentar = reintentar;
+        }
+        
+        static Envio conReintentos() {
+            return new Envio(true);
+        }
+        
+        static Envio sinReintentos() {
+            return new Envio(false);
+        }
+        
+        boolean reintentar() {
+            return reintentar;
+        }
+        
+        boolean cancelado() {
+            return cancelado;
+        }
+        
+        void enCurso(CompletableFuture<?> intento) {
+            enCurso = intento;
+            // Si se canceló justo antes de registrarlo, cancelar() no lo vio
+            if (cancelado) {
+                intento.cancel(true);
+            }
+        }
+        
+        void cancelar() {
+            cancelado = true;
+            var intento = enCurso;
+            if (intento != null) {
+                intento.cancel(true);
+            }
+        }
+    }
+    
+    /**
+     * Cuerpo en streaming que avisa una sola vez cuando termina: al leer el último byte o
+     * al cerrarse, lo que ocurra primero. Si termina antes de registrar el aviso, el aviso
+     * corre en el momento de registrarlo.
+     */
+    private static final class CuerpoEnStreaming extends FilterInputStream {
+        
+        static final HttpResponse.BodyHandler<InputStream> HANDLER = info -> HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofInputStream(), CuerpoEnStreaming::new);
+        
+        private static final Runnable TERMINADO = () -> {};
+        
+        private final AtomicReference<Runnable> alTerminar = new AtomicReference<>();
+        
+        private CuerpoEnStreaming(InputStream entrada) {
+            super(entrada);
+        }
+        
+        void alTerminar(Runnable aviso) {
+            if (!alTerminar.compareAndSet(null, aviso)) {
+                aviso.run();
+            }
+        }
+        
+        @Override
+        public int read() throws IOException {
+            return terminarSiAgotado(super.read());
+        }
+        
+        @Override
+        public int read(byte[] destino, int desde, int largo) throws IOException {
+            return terminarSiAgotado(super.read(destino, desde, largo));
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                terminar();
+            }
+        }
+        
+        private int terminarSiAgotado(int leido) {
+            if (leido < 0) {
+                terminar();
+            }
+            return leido;
+        }
+        
+        private void terminar() {
+            Runnable aviso = alTerminar.getAndSet(TERMINADO);
+            if (aviso != null && aviso != TERMINADO) {
+                aviso.run();
+            }
+        }
+    }
+    
+    // Una respuesta en streaming que no se va a leer debe cerrarse para liberar la conexión
+    private static void descartar(HttpResponse<?> response) {
+        if (response.body() instanceof InputStream cuerpo) {
+            try {
+                cuerpo.close();
+            } catch (IOException e) {
+                logger.debug("No se pudo cerrar la respuesta descartada: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private HttpRequest construirPeticion(String url, CacheRespuestas.Entrada enCache) {
+        HttpRequest.Builder builder = nuevaPeticion(url);
+        
+        // Entrada vencida: se pide al servidor solo si cambió
+        if (enCache != null && enCache.revalidable()) {
+            if (enCache.etag() != null) {
+                builder.header("If-None-Match", enCache.etag());
+            }
+            if (enCache.ultimaModificacion() != null) {
+                builder.header("If-Modified-Since", enCache.ultimaModificacion());
+            }
+        }
+        return builder.build();
+    }
+    
+    private String procesarRespuesta(String url, CacheRespuestas.Entrada enCache, HttpResponse<String> response,
+            boolean guardar) {
+        logger.debug("Código de respuesta: {}", response.statusCode());
+        
+        if (response.statusCode() == 304 && enCache != null) {
+            logger.debug("Contenido sin cambios, se reutiliza la caché");
+            return cacheRespuestas.revalidada(enCache).cuerpo();
+        } else if (response.statusCode() == 200) {
+            logger.debug("Respuesta exitosa, longitud: {}", response.body().length());
+            if (guardar) {
+                cacheRespuestas.guardar(url, response.body(),
+                        response.headers().firstValue("ETag").orElse(null),
+                        response.headers().firstValue("Last-Modified").orElse(null));
+            }
+            return response.body();
+        } else {
+            String errorMsg = String.format("Error HTTP %d: %s", 
+                response.statusCode(), response.body());
+            logger.error(errorMsg);
+            throw new RuntimeException(errorMsg);
+        }
+    }
+    
+    private RuntimeException comoExcepcion(Throwable error) {
+        Throwable causa = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+        if (causa instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        
+        String errorMsg = causa instanceof IOException
+                ? "Error de conexión: " + causa.getMessage()
+                : "Error inesperado: " + causa.getMessage();
+        logger.error(errorMsg, causa);
+        return new RuntimeException(errorMsg, causa);
+    }
+    
+    public EstadoLimitador estadoLimitador() {
+        return limitador.estado();
+    }
+    
+    public EstadoCobertura estadoCobertura() {
+        return cobertura.estado();
+    }
+    
+    /** Bytes recibidos por la red y bytes ya descomprimidos, desde el arranque. */
+    public TransferenciaBytes transferencia() {
+        return new TransferenciaBytes(bytesRed.get(), bytesDecodificados.get());
+    }
+    
+    @PreDestroy
+    void cerrar() {
+        ejecutor.shutdownNow();
+    }
+    
+    public long peticionesCoalescidas() {
+        return peticionesCoalescidas.get();
+    }
+    
+    private HttpRequest.Builder nuevaPeticion(String url) {
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .timeout(Duration.ofSeconds(30))
                 .header("User-Agent", "LiterAlura/1.0")
                 .header("Accept", "application/json")
-                .GET()
-                .build();
+                .header("Accept-Encoding", Compresion.ACEPTADAS)
+                .GET();
+    }
+    
+    public <T> T convertirDatos(String json, Class<T> clase) {
+        if (json == null || json.trim().isEmpty()) {
+            throw new RuntimeException("JSON vacío o nulo");
+        }
         
         try {
-            HttpResponse<String> response = client.send(request, 
-                    HttpResponse.BodyHandlers.ofString());
+            logger.debug("Convirtiendo JSON a clase: {}", clase.getSimpleName());
+            if (logger.isTraceEnabled()) {
+                logger.trace("JSON a convertir (primeros 200 chars): {}", 
+                    json.length() > 200 ? json.substring(0, 200) + "..." : json);
+            }
             
-            logger.info("Código de respuesta: {}", response.statusCode());
+            return objectMapper.readValue(json, clase);
             
-            if (response.statusCode() == 200) {
-                logger.debug("Respuesta exitosa, longitud: {}", response.body().length());
-                return response.body();
-            } else {
-                String errorMsg = String.format("Error HTTP %d: %s", 
-                    response.statusCode(), response.body());
+        } catch (JsonProcessingException e) {
+            // Solo la ubicación del error: volcar el JSON completo duplica en el log páginas enteras
+            String errorMsg = String.format("Error al convertir JSON a %s: %s", 
+                clase.getSimpleName(), e.getOriginalMessage());
+            logger.error("{} (longitud del JSON: {}, posición: {})", errorMsg, json.length(), e.getLocation());
+            throw new RuntimeException(errorMsg, e);
+        }
+    }
+    
+    /**
+     * Descarga una página de resultados y entrega cada libro al consumidor a medida
+     * que se decodifica, sin guardar el cuerpo de la respuesta ni la lista completa.
+     * Esta ruta no pasa por la caché de respuestas.
+     */
+    public MetadatosPagina procesarLibros(String url, Consumer<DatosLibro> consumidor) {
+        logger.debug("Realizando petición (streaming) a: {}", url);
+        
+        try {
+            HttpResponse<InputStream> response = enviar(nuevaPeticion(url).build(),
+                    CuerpoEnStreaming.HANDLER, Envio.conReintentos(), 0).get();
+            
+            if (response.statusCode() != 200) {
+                descartar(response);
+                String errorMsg = String.format("Error HTTP %d en %s", response.statusCode(), url);
                 logger.error(errorMsg);
                 throw new RuntimeException(errorMsg);
             }
             
+            try (var red = new Compresion.Contador(response.body());
+                 var cuerpo = new Compresion.Contador(Compresion.decodificar(
+                         response.headers().firstValue("Content-Encoding").orElse(null), red))) {
+                // Se descomprime a medida que el decodificador JSON pide más bytes
+                var metadatos = decodificarLibros(cuerpo, consumidor);
+                registrarBytes(url, red.bytes(), cuerpo.bytes());
+                return metadatos;
+            }
+            
         } catch (IOException e) {
             String errorMsg = "Error de conexión: " + e.getMessage();
             logger.error(errorMsg, e);
@@ -65,62 +595,139 @@ public class ConsumoApi {
             String errorMsg = "Petición interrumpida: " + e.getMessage();
             logger.error(errorMsg, e);
             throw new RuntimeException(errorMsg, e);
-        } catch (Exception e) {
-            String errorMsg = "Error inesperado: " + e.getMessage();
-            logger.error(errorMsg, e);
-            throw new RuntimeException(errorMsg, e);
+        } catch (ExecutionException e) {
+            throw comoExcepcion(e.getCause());
         }
     }
     
-    public <T> T convertirDatos(String json, Class<T> clase) {
-        try {
-            logger.debug("Convirtiendo JSON a clase: {}", clase.getSimpleName());
-            logger.debug("JSON a convertir (primeros 200 chars): {}", 
-                json.length() > 200 ? json.substring(0, 200) + "..." : json);
-            
-            if (json == null || json.trim().isEmpty()) {
-                throw new RuntimeException("JSON vacío o nulo");
+    /**
+     * Lee una respuesta de Gutendex token a token: toma "count" y "next" y emite cada
+     * elemento de "results" como {@link DatosLibro}. Ignora el resto de campos.
+     */
+    public MetadatosPagina decodificarLibros(InputStream entrada, Consumer<DatosLibro> consumidor) throws IOException {
+        Integer total = null;
+        String siguiente = null;
+        int emitidos = 0;
+        
+        try (JsonParser parser = objectMapper.getFactory().createParser(entrada)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Se esperaba un objeto JSON");
             }
             
-            return objectMapper.readValue(json, clase);
-            
-        } catch (JsonProcessingException e) {
-            String errorMsg = String.format("Error al convertir JSON a %s: %s", 
-                clase.getSimpleName(), e.getMessage());
-            logger.error(errorMsg, e);
-            logger.error("JSON problemático: {}", json);
-            throw new RuntimeException(errorMsg, e);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                JsonToken valor = parser.nextToken();
+                
+                switch (campo) {
+                    case "count" -> total = valor == JsonToken.VALUE_NULL ? null : parser.getIntValue();
+                    case "next" -> siguiente = valor == JsonToken.VALUE_NULL ? null : parser.getText();
+                    case "results" -> {
+                        if (valor != JsonToken.START_ARRAY) {
+                            parser.skipChildren();
+                            break;
+                        }
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            consumidor.accept(lectorLibro.readValue(parser));
+                            emitidos++;
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
         }
+        
+        return new MetadatosPagina(total, siguiente, emitidos);
     }
     
     // Métodos específicos para diferentes tipos de búsqueda
     public String buscarLibrosPorTitulo(String titulo) {
+        return obtenerDatos(urlPorTitulo(titulo));
+    }
+    
+    public String buscarLibrosPorAutor(String autor) {
+        return obtenerDatos(urlPorAutor(autor));
+    }
+    
+    public String buscarLibrosPorIdioma(String idioma) {
+        return obtenerDatos(urlPorIdioma(idioma));
+    }
+    
+    public String obtenerLibrosMasPopulares(int limite) {
+        return obtenerDatos(urlPopulares(limite));
+    }
+    
+    public String buscarLibrosPorTema(String tema) {
+        return obtenerDatos(urlPorTema(tema));
+    }
+    
+    public String buscarLibrosPorAñoAutor(int añoInicio, int añoFin) {
+        if (añoInicio > añoFin) {
+            throw new IllegalArgumentException("El año de inicio no puede ser mayor al año de fin");
+        }
+        
+        if (añoInicio < -3000 || añoFin > 2024) {
+            throw new IllegalArgumentException("Rango de años inválido");
+        }
+        
+        String url = urlBase + "?author_year_start=" + añoInicio + "&author_year_end=" + añoFin;
+        logger.debug("Buscando libros por rango de años del autor: {} - {}", añoInicio, añoFin);
+        
+        return obtenerDatos(url);
+    }
+    
+    // Variantes asíncronas: búsquedas idénticas simultáneas comparten una sola petición
+    public CompletableFuture<String> buscarLibrosPorTituloAsync(String titulo) {
+        return obtenerDatosAsync(urlPorTitulo(titulo));
+    }
+    
+    public CompletableFuture<String> buscarLibrosPorAutorAsync(String autor) {
+        return obtenerDatosAsync(urlPorAutor(autor));
+    }
+    
+    public CompletableFuture<String> buscarLibrosPorIdiomaAsync(String idioma) {
+        return obtenerDatosAsync(urlPorIdioma(idioma));
+    }
+    
+    public CompletableFuture<String> obtenerLibrosMasPopularesAsync(int limite) {
+        return obtenerDatosAsync(urlPopulares(limite));
+    }
+    
+    public CompletableFuture<String> buscarLibrosPorTemaAsync(String tema) {
+        return obtenerDatosAsync(urlPorTema(tema));
+    }
+    
+    // Sin caché: se usa para refrescar descargas, que deben llegar al día
+    public CompletableFuture<String> buscarLibrosPorIdsSinCacheAsync(Collection<Integer> ids) {
+        return obtenerDatosSinCacheAsync(urlPorIds(ids));
+    }
+    
+    private String urlPorTitulo(String titulo) {
         if (titulo == null || titulo.trim().isEmpty()) {
             throw new IllegalArgumentException("El título no puede estar vacío");
         }
         
         String tituloEncoded = URLEncoder.encode(titulo.trim(), StandardCharsets.UTF_8);
-        String url = URL_BASE + "?search=" + tituloEncoded;
+        String url = urlBase + "?search=" + tituloEncoded;
         
-        logger.info("Buscando libros por título: '{}'", titulo);
-        logger.info("URL de búsqueda: {}", url);
+        logger.debug("Buscando libros por título: '{}'", titulo);
+        logger.debug("URL de búsqueda: {}", url);
         
-        return obtenerDatos(url);
+        return url;
     }
     
-    public String buscarLibrosPorAutor(String autor) {
+    private String urlPorAutor(String autor) {
         if (autor == null || autor.trim().isEmpty()) {
             throw new IllegalArgumentException("El autor no puede estar vacío");
         }
         
         String autorEncoded = URLEncoder.encode(autor.trim(), StandardCharsets.UTF_8);
-        String url = URL_BASE + "?search=" + autorEncoded;
+        String url = urlBase + "?search=" + autorEncoded;
         
-        logger.info("Buscando libros por autor: '{}'", autor);
-        return obtenerDatos(url);
+        logger.debug("Buscando libros por autor: '{}'", autor);
+        return url;
     }
     
-    public String buscarLibrosPorIdioma(String idioma) {
+    private String urlPorIdioma(String idioma) {
         if (idioma == null || idioma.trim().isEmpty()) {
             throw new IllegalArgumentException("El idioma no puede estar vacío");
         }
@@ -130,54 +737,77 @@ public class ConsumoApi {
             throw new IllegalArgumentException("El idioma debe ser un código de 2 letras (ej: 'es', 'en')");
         }
         
-        String url = URL_BASE + "?languages=" + idioma.toLowerCase();
-        logger.info("Buscando libros por idioma: '{}'", idioma);
+        String url = urlBase + "?languages=" + idioma.toLowerCase();
+        logger.debug("Buscando libros por idioma: '{}'", idioma);
         
-        return obtenerDatos(url);
+        return url;
     }
     
-    public String buscarLibrosPorAñoAutor(int añoInicio, int añoFin) {
-        if (añoInicio > añoFin) {
-            throw new IllegalArgumentException("El año de inicio no puede ser mayor al año de fin");
+    private String urlPopulares(int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite debe ser mayor a 0");
         }
         
-        if (añoInicio < -3000 || añoFin > 2024) {
-            throw new IllegalArgumentException("Rango de años inválido");
+        // La API de Gutendex usa paginación, no límite directo
+        String url = urlBase + "?sort=popular";
+        logger.debug("Obteniendo libros más populares");
+        
+        return url;
+    }
+    
+    private String urlPorTema(String tema) {
+        if (tema == null || tema.trim().isEmpty()) {
+            throw new IllegalArgumentException("El tema no puede estar vacío");
         }
         
-        String url = URL_BASE + "?author_year_start=" + añoInicio + "&author_year_end=" + añoFin;
-        logger.info("Buscando libros por rango de años del autor: {} - {}", añoInicio, añoFin);
+        String temaEncoded = URLEncoder.encode(tema.trim(), StandardCharsets.UTF_8);
+        String url = urlBase + "?topic=" + temaEncoded;
         
-        return obtenerDatos(url);
+        logger.debug("Buscando libros por tema: '{}'", tema);
+        return url;
     }
     
-    public String obtenerLibrosMasPopulares(int limite) {
-        if (limite <= 0) {
-            throw new IllegalArgumentException("El límite debe ser mayor a 0");
+    // Gutendex pagina también esta consulta: más ids que una página obliga a seguir "next"
+    private String urlPorIds(Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("La lista de ids no puede estar vacía");
         }
         
-        // La API de Gutendex usa paginación, no límite directo
-        String url = URL_BASE + "?sort=popular";
-        logger.info("Obteniendo libros más populares");
+        String url = urlBase + "?ids=" + ids.stream()
+                .sorted()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        logger.debug("Buscando {} libros por id", ids.size());
         
-        return obtenerDatos(url);
+        return url;
     }
     
-    public String buscarLibrosPorTema(String tema) {
-        if (tema == null || tema.trim().isEmpty()) {
-            throw new IllegalArgumentException("El tema no puede estar vacío");
+    public String obtenerPaginaCatalogo(int pagina) {
+        if (pagina <= 0) {
+            throw new IllegalArgumentException("La página debe ser mayor a 0");
         }
         
-        String temaEncoded = URLEncoder.encode(tema.trim(), StandardCharsets.UTF_8);
-        String url = URL_BASE + "?topic=" + temaEncoded;
+        String url = urlBase + "?page=" + pagina;
+        logger.debug("Obteniendo página {} del catálogo", pagina);
         
-        logger.info("Buscando libros por tema: '{}'", tema);
         return obtenerDatos(url);
     }
     
+    public EstadisticasCache estadisticasCache() {
+        return cacheRespuestas.estadisticas();
+    }
+    
+    public MetadatosPagina procesarPaginaCatalogo(int pagina, Consumer<DatosLibro> consumidor) {
+        if (pagina <= 0) {
+            throw new IllegalArgumentException("La página debe ser mayor a 0");
+        }
+        
+        return procesarLibros(urlBase + "?page=" + pagina, consumidor);
+    }
+    
     // Método adicional para testing/debugging
     public String testConexion() {
         logger.info("Probando conexión con la API");
-        return obtenerDatos(URL_BASE);
+        return obtenerDatos(urlBase);
     }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package aluraChallenge.literatura.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import aluraChallenge.literatura.dto.AutorProlifico;
+import aluraChallenge.literatura.dto.ConteoIdioma;
+import aluraChallenge.literatura.dto.EstadisticasBiblioteca;
+import aluraChallenge.literatura.dto.ResumenCatalogo;
+import aluraChallenge.literatura.repository.AutorRepository;
+import aluraChallenge.literatura.repository.LibroRepository;
+
+/**
+ * Estadísticas de la biblioteca sin cargar entidades.
+ *
+ * {@link #obtener()} lee las tablas de resumen que mantienen los triggers de
+ * schema.sql, por lo que su coste no depende del tamaño del catálogo.
+ * {@link #recalcular()} las reconstruye con consultas de agregación.
+ */
+@Service
+public class EstadisticasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EstadisticasService.class);
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    public EstadisticasBiblioteca obtener() {
+        var resumen = libroRepository.findResumenCatalogo();
+        if (resumen.isEmpty()) {
+            // Solo pasa si schema.sql no se ejecutó: se calculan los agregados al vuelo
+            logger.warn("Tabla de resumen vacía, calculando estadísticas con agregados");
+            return calcularConAgregados();
+        }
+        return construir(resumen.get(),
+                libroRepository.findResumenIdiomas(),
+                autorRepository.findAutorMasProlificoResumen().orElse(null));
+    }
+
+    public EstadisticasBiblioteca recalcular() {
+        libroRepository.recalcularEstadisticas();
+        return obtener();
+    }
+
+    private EstadisticasBiblioteca calcularConAgregados() {
+        return construir(libroRepository.calcularResumenCatalogo(),
+                libroRepository.contarPorIdioma(),
+                autorRepository.findAutoresMasProlificos(PageRequest.of(0, 1)).stream().findFirst().orElse(null));
+    }
+
+    private static EstadisticasBiblioteca construir(ResumenCatalogo resumen,
+                                                    List<ConteoIdioma> idiomas,
+                                                    AutorProlifico autor) {
+        long totalDescargas = resumen.getTotalDescargas() != null ? resumen.getTotalDescargas() : 0;
+        double promedio = resumen.getTotalLibros() > 0 ? (double) totalDescargas / resumen.getTotalLibros() : 0;
+        Map<String, Long> librosPorIdioma = idiomas.stream()
+                .collect(Collectors.toMap(ConteoIdioma::getIdioma, ConteoIdioma::getTotalLibros));
+
+        return new EstadisticasBiblioteca(
+                resumen.getTotalLibros(),
+                resumen.getTotalAutores(),
+                promedio,
+                resumen.getMaxDescargas() != null ? resumen.getMaxDescargas() : 0,
+                resumen.getMinDescargas() != null ? resumen.getMinDescargas() : 0,
+                totalDescargas,
+                librosPorIdioma,
+                autor != null ? autor.getNombre() : null,
+                autor != null ? autor.getTotalLibros() : 0);
+    }
+}
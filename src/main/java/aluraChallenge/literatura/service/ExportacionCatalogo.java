@@ -0,0 +1,236 @@
+package aluraChallenge.literatura.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import aluraChallenge.literatura.dto.ResumenExportacion;
+import aluraChallenge.literatura.models.Autor;
+import aluraChallenge.literatura.models.Libro;
+
+/**
+ * Exporta las tablas de libros y autores a un archivo NDJSON o CSV, opcionalmente
+ * comprimido con gzip.
+ *
+ * Las filas se leen con un cursor ({@link RecorridoCatalogo}) y se escriben una a
+ * una, así que la memoria usada no depende del tamaño del catálogo. Los libros
+ * traen a su autor en la misma consulta. El archivo se escribe con otro nombre y
+ * se renombra al terminar, para que nunca quede uno a medias con el nombre final.
+ */
+@Service
+public class ExportacionCatalogo {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportacionCatalogo.class);
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+    private static final int FILAS_POR_AVANCE = 100_000;
+
+    private static final String CABECERA_LIBROS =
+            "id,titulo,idioma,numero_descargas,autor_id,autor,autor_nacimiento,autor_muerte";
+    private static final String CABECERA_AUTORES = "id,nombre,fecha_nacimiento,fecha_muerte";
+
+    public enum Tabla { LIBROS, AUTORES }
+
+    public enum Formato {
+        NDJSON(".ndjson"), CSV(".csv");
+
+        private final String extension;
+
+        Formato(String extension) {
+            this.extension = extension;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Autowired
+    private RecorridoCatalogo recorridoCatalogo;
+
+    public ResumenExportacion exportar(Tabla tabla, Formato formato, boolean gzip, Path destino) {
+        long inicio = System.nanoTime();
+        Path parcial = destino.resolveSibling(destino.getFileName() + ".parcial");
+        boolean movido = false;
+
+        try {
+            if (destino.getParent() != null) {
+                Files.createDirectories(destino.getParent());
+            }
+            long filas;
+            try (FileChannel canal = FileChannel.open(parcial, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 OutputStream salida = abrir(canal, gzip)) {
+                filas = formato == Formato.NDJSON
+                        ? escribirNdjson(tabla, salida, inicio)
+                        : escribirCsv(tabla, salida, inicio);
+            }
+            Files.move(parcial, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            movido = true;
+
+            var resumen = new ResumenExportacion(destino, filas, Files.size(destino),
+                    Duration.ofNanos(System.nanoTime() - inicio));
+            logger.info("Exportación terminada: {} filas en {} ({} bytes, {} filas/s)",
+                    filas, destino, resumen.bytes(), Math.round(resumen.filasPorSegundo()));
+            return resumen;
+        } catch (IOException | UncheckedIOException e) {
+            String errorMsg = "Error al exportar a " + destino + ": " + e.getMessage();
+            logger.error(errorMsg, e);
+            throw new RuntimeException(errorMsg, e);
+        } finally {
+            // Cualquier falla, no solo de E/S (la base, un error de programación), deja el parcial
+            if (!movido) {
+                try {
+                    Files.deleteIfExists(parcial);
+                } catch (IOException ex) {
+                    logger.warn("No se pudo borrar {}: {}", parcial, ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private static OutputStream abrir(FileChannel canal, boolean gzip) throws IOException {
+        OutputStream salida = new BufferedOutputStream(Channels.newOutputStream(canal), TAMANO_BUFFER);
+        return gzip ? new GZIPOutputStream(salida, TAMANO_BUFFER) : salida;
+    }
+
+    private long escribirNdjson(Tabla tabla, OutputStream salida, long inicio) throws IOException {
+        // Un solo generador para todo el archivo: sin objetos intermedios por fila
+        try (JsonGenerator json = jsonFactory.createGenerator(salida)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+            var avance = new Avance(inicio);
+            if (tabla == Tabla.LIBROS) {
+                return recorridoCatalogo.recorrerLibros(null, libro -> escribir(() -> {
+                    Autor autor = libro.getAutor();
+                    json.writeStartObject();
+                    json.writeObjectField("id", libro.getId());
+                    json.writeStringField("titulo", libro.getTitulo());
+                    json.writeStringField("idioma", libro.getIdioma());
+                    json.writeObjectField("numeroDescargas", libro.getNumeroDescargas());
+                    json.writeObjectField("autorId", autor != null ? autor.getId() : null);
+                    json.writeStringField("autor", autor != null ? autor.getNombre() : null);
+                    json.writeObjectField("autorNacimiento", autor != null ? autor.getFechaNacimiento() : null);
+                    json.writeObjectField("autorMuerte", autor != null ? autor.getFechaMuerte() : null);
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                    avance.fila();
+                }));
+            }
+            return recorridoCatalogo.recorrerAutores(autor -> escribir(() -> {
+                json.writeStartObject();
+                json.writeObjectField("id", autor.getId());
+                json.writeStringField("nombre", autor.getNombre());
+                json.writeObjectField("fechaNacimiento", autor.getFechaNacimiento());
+                json.writeObjectField("fechaMuerte", autor.getFechaMuerte());
+                json.writeEndObject();
+                json.writeRaw('\n');
+                avance.fila();
+            }));
+        }
+    }
+
+    private long escribirCsv(Tabla tabla, OutputStream salida, long inicio) throws IOException {
+        // El OutputStream ya tiene buffer; el Writer solo codifica a UTF-8
+        Writer csv = new OutputStreamWriter(salida, StandardCharsets.UTF_8);
+        var avance = new Avance(inicio);
+        long filas;
+        if (tabla == Tabla.LIBROS) {
+            csv.write(CABECERA_LIBROS);
+            csv.write('\n');
+            filas = recorridoCatalogo.recorrerLibros(null, libro -> escribir(() -> {
+                Autor autor = libro.getAutor();
+                fila(csv, libro.getId(), libro.getTitulo(), libro.getIdioma(), libro.getNumeroDescargas(),
+                        autor != null ? autor.getId() : null,
+                        autor != null ? autor.getNombre() : null,
+                        autor != null ? autor.getFechaNacimiento() : null,
+                        autor != null ? autor.getFechaMuerte() : null);
+                avance.fila();
+            }));
+        } else {
+            csv.write(CABECERA_AUTORES);
+            csv.write('\n');
+            filas = recorridoCatalogo.recorrerAutores(autor -> escribir(() -> {
+                fila(csv, autor.getId(), autor.getNombre(), autor.getFechaNacimiento(), autor.getFechaMuerte());
+                avance.fila();
+            }));
+        }
+        csv.flush();
+        return filas;
+    }
+
+    // RFC 4180: se entrecomilla solo lo que lo necesita y las comillas se duplican
+    private static void fila(Writer csv, Object... valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                csv.write(',');
+            }
+            Object valor = valores[i];
+            if (valor == null) {
+                continue;
+            }
+            String texto = valor.toString();
+            if (texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0
+                    || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0) {
+                csv.write('"');
+                csv.write(texto.replace("\"", "\"\""));
+                csv.write('"');
+            } else {
+                csv.write(texto);
+            }
+        }
+        csv.write('\n');
+    }
+
+    @FunctionalInterface
+    private interface Escritura {
+        void ejecutar() throws IOException;
+    }
+
+    // Los Consumer del recorrido no pueden lanzar IOException: viaja envuelta hasta exportar()
+    private static void escribir(Escritura escritura) {
+        try {
+            escritura.ejecutar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Avance {
+        private final long inicio;
+        private long filas;
+
+        Avance(long inicio) {
+            this.inicio = inicio;
+        }
+
+        void fila() {
+            if (++filas % FILAS_POR_AVANCE == 0) {
+                double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+                logger.info("Exportadas {} filas ({} filas/s)", filas, Math.round(filas / segundos));
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package aluraChallenge.literatura.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import aluraChallenge.literatura.dto.DatosAutor;
+import aluraChallenge.literatura.dto.DatosLibro;
+import aluraChallenge.literatura.dto.PosicionRanking;
+import aluraChallenge.literatura.models.Autor;
+import aluraChallenge.literatura.models.Libro;
+
+/**
+ * Guarda una lista de libros de Gutendex con pocas sentencias, sin importar su tamaño.
+ *
+ * Los autores se resuelven primero con {@link CacheAutores}, luego con una sola
+ * consulta por los que falten, y los que no existen se insertan juntos; después se insertan los libros. Cada INSERT lleva hasta
+ * {@link #FILAS_POR_SENTENCIA} filas en arreglos (unnest) con ON CONFLICT DO NOTHING,
+ * así que un título o un autor que ya existe no hace fallar al resto, y RETURNING
+ * dice exactamente qué filas se insertaron. Se aplican las reglas de {@link MapeoLibros}.
+ *
+ * Como las filas no pasan por JPA, los índices en memoria se actualizan aquí
+ * mismo al confirmar la transacción, igual que lo harían los listeners.
+ */
+@Service
+public class GuardadoLibros {
+
+    private static final int FILAS_POR_SENTENCIA = 1000;
+
+    // Se mandan los nombres tal como llegaron y la base calcula la clave de ambos lados, así
+    // el cruce no depende de que CacheAutores.clave dé exactamente lo mismo que clave_autor.
+    // Si hay nombres repetidos con otra grafía ("Twain, Mark" y "twain,  mark") gana el más antiguo
+    private static final String SQL_BUSCAR_AUTORES =
+            "SELECT DISTINCT ON (p.nombre) p.nombre AS pedido, a.id FROM unnest(?::text[]) AS p(nombre) " +
+            "JOIN autores a ON clave_autor(a.nombre) = clave_autor(p.nombre) " +
+            "ORDER BY p.nombre, a.id";
+
+    private static final String SQL_INSERTAR_AUTORES =
+            "INSERT INTO autores (id, nombre, fecha_nacimiento, fecha_muerte) " +
+            "SELECT * FROM unnest(?::bigint[], ?::text[], ?::int[], ?::int[]) " +
+            "ON CONFLICT (nombre) DO NOTHING " +
+            "RETURNING id, nombre";
+
+    // Sin columna en ON CONFLICT: también se salta un id de Gutenberg ya guardado con otro título
+    private static final String SQL_INSERTAR_LIBROS =
+            "INSERT INTO libros (id, titulo, autor_id, idioma, numero_descargas, id_gutenberg) " +
+            "SELECT * FROM unnest(?::bigint[], ?::text[], ?::bigint[], ?::text[], ?::int[], ?::int[]) " +
+            "ON CONFLICT DO NOTHING " +
+            "RETURNING id, titulo";
+
+    // Libros guardados antes de conservar el id de Gutenberg: lo reciben la próxima vez que llegan
+    private static final String SQL_COMPLETAR_IDS_GUTENBERG =
+            "UPDATE libros SET id_gutenberg = d.id_gutenberg " +
+            "FROM unnest(?::text[], ?::int[]) AS d(titulo, id_gutenberg) " +
+            "WHERE libros.titulo = d.titulo AND libros.id_gutenberg IS NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM libros otro WHERE otro.id_gutenberg = d.id_gutenberg)";
+
+    private static final String SQL_RESERVAR_IDS =
+            "SELECT nextval(?::regclass) FROM generate_series(1, ?)";
+
+    public record Resultado(List<PosicionRanking> guardados, int autoresNuevos, int duplicados) {}
+
+    private record IdClave(long id, String clave) {}
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheAutores cacheAutores;
+
+    @Autowired
+    private RankingDescargas rankingDescargas;
+
+    @Autowired
+    private IndiceBusqueda indiceBusqueda;
+
+    @Autowired
+    private IndiceAutoresVivos indiceAutoresVivos;
+
+    @Autowired
+    private InstantaneaCatalogo instantaneaCatalogo;
+
+    @Transactional
+    public Resultado guardar(List<DatosLibro> lote) {
+        // La columna titulo es única: dentro del lote gana el primero
+        Map<String, DatosLibro> porTitulo = new LinkedHashMap<>();
+        for (DatosLibro datosLibro : lote) {
+            if (datosLibro.titulo() != null && !datosLibro.titulo().isBlank()) {
+                porTitulo.putIfAbsent(datosLibro.titulo(), datosLibro);
+            }
+        }
+        int repetidosEnLote = lote.size() - porTitulo.size();
+        if (porTitulo.isEmpty()) {
+            return new Resultado(List.of(), 0, repetidosEnLote);
+        }
+
+        Map<String, DatosAutor> autores = MapeoLibros.autoresPorClave(porTitulo.values());
+        Map<String, Long> idsAutores = new HashMap<>();
+        int autoresNuevos = resolverAutores(autores, idsAutores);
+
+        List<DatosLibro> libros = new ArrayList<>(porTitulo.values());
+        List<MapeoLibros.LibroMapeado> insertados = new ArrayList<>();
+        for (int desde = 0; desde < libros.size(); desde += FILAS_POR_SENTENCIA) {
+            var tramo = libros.subList(desde, Math.min(desde + FILAS_POR_SENTENCIA, libros.size()));
+            insertados.addAll(insertarLibros(tramo, idsAutores));
+        }
+        List<PosicionRanking> guardados = insertados.stream().map(MapeoLibros.LibroMapeado::posicion).toList();
+        completarIdsGutenberg(libros, guardados);
+
+        Transacciones.alConfirmar(() -> insertados.forEach(insertado -> {
+            var libro = insertado.posicion();
+            rankingDescargas.registrar(libro);
+            indiceBusqueda.registrarLibro(libro);
+            instantaneaCatalogo.registrarLibro(libro.id(), libro.idioma(), libro.descargas(), insertado.autorId());
+        }));
+        return new Resultado(guardados, autoresNuevos, repetidosEnLote + porTitulo.size() - guardados.size());
+    }
+
+    /**
+     * Completa {@code ids} (por clave normalizada) con el id de cada autor: primero la
+     * caché, después una sola consulta por los que faltan, y los que no existen se insertan.
+     *
+     * @return cantidad de autores insertados
+     */
+    private int resolverAutores(Map<String, DatosAutor> autores, Map<String, Long> ids) {
+        if (autores.isEmpty()) {
+            return 0;
+        }
+        ids.putAll(cacheAutores.buscar(autores.keySet()));
+        if (ids.size() == autores.size()) {
+            return 0;
+        }
+
+        Map<String, Long> deLaBase = buscarAutores(sinId(autores, ids));
+        ids.putAll(deLaBase);
+        // Filas ya confirmadas: pueden ir a la caché sin esperar a esta transacción
+        cacheAutores.registrarTodos(deLaBase);
+
+        List<DatosAutor> faltantes = autores.entrySet().stream()
+                .filter(autor -> !ids.containsKey(autor.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+        Map<String, Long> insertados = new HashMap<>();
+        for (int desde = 0; desde < faltantes.size(); desde += FILAS_POR_SENTENCIA) {
+            var tramo = faltantes.subList(desde, Math.min(desde + FILAS_POR_SENTENCIA, faltantes.size()));
+            insertarAutores(tramo).forEach(autor -> insertados.put(autor.clave(), autor.id()));
+        }
+        ids.putAll(insertados);
+
+        // Los que chocaron con un INSERT concurrente ya existen: se leen de nuevo
+        String[] aunSinId = sinId(autores, ids);
+        if (aunSinId.length > 0) {
+            ids.putAll(buscarAutores(aunSinId));
+        }
+
+        Transacciones.alConfirmar(() -> insertados.forEach((clave, id) -> {
+            DatosAutor datos = autores.get(clave);
+            cacheAutores.registrar(datos.nombre(), id);
+            indiceBusqueda.registrarAutor(id, datos.nombre());
+            indiceAutoresVivos.registrar(id, datos.fechaNacimiento(), datos.fechaMuerte());
+            instantaneaCatalogo.registrarAutor(id, datos.nombre(), datos.fechaNacimiento(), datos.fechaMuerte());
+        }));
+        return insertados.size();
+    }
+
+    // Nombres de los autores cuya clave todavía no tiene id
+    private static String[] sinId(Map<String, DatosAutor> autores, Map<String, Long> ids) {
+        return autores.entrySet().stream()
+                .filter(autor -> !ids.containsKey(autor.getKey()))
+                .map(autor -> autor.getValue().nombre())
+                .toArray(String[]::new);
+    }
+
+    // Ids por clave de Java: cada nombre pedido vuelve tal cual y se recalcula su clave aquí
+    private Map<String, Long> buscarAutores(String[] nombres) {
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(SQL_BUSCAR_AUTORES,
+                (rs, fila) -> ids.put(CacheAutores.clave(rs.getString("pedido")), rs.getLong("id")),
+                (Object) nombres);
+        return ids;
+    }
+
+    private List<IdClave> insertarAutores(List<DatosAutor> autores) {
+        long[] ids = reservarIds(Autor.SECUENCIA, Autor.BLOQUE_IDS, autores.size());
+        int n = autores.size();
+        Long[] columnaId = new Long[n];
+        String[] nombres = new String[n];
+        Integer[] nacimientos = new Integer[n];
+        Integer[] muertes = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            DatosAutor autor = autores.get(i);
+            columnaId[i] = ids[i];
+            nombres[i] = autor.nombre();
+            nacimientos[i] = autor.fechaNacimiento();
+            muertes[i] = autor.fechaMuerte();
+        }
+        return jdbcTemplate.query(SQL_INSERTAR_AUTORES,
+                (rs, fila) -> new IdClave(rs.getLong("id"), CacheAutores.clave(rs.getString("nombre"))),
+                columnaId, nombres, nacimientos, muertes);
+    }
+
+    private List<MapeoLibros.LibroMapeado> insertarLibros(List<DatosLibro> libros, Map<String, Long> idsAutores) {
+        long[] ids = reservarIds(Libro.SECUENCIA, Libro.BLOQUE_IDS, libros.size());
+        var columnas = MapeoLibros.columnasLibros(libros, ids, idsAutores);
+        // Solo vuelven las filas insertadas; las que chocaron con un título existente no
+        return jdbcTemplate.query(SQL_INSERTAR_LIBROS,
+                (rs, fila) -> columnas.porTitulo().get(rs.getString("titulo")),
+                columnas.ids(), columnas.titulos(), columnas.autores(), columnas.idiomas(),
+                columnas.descargas(), columnas.idsGutenberg());
+    }
+
+    private void completarIdsGutenberg(List<DatosLibro> libros, List<PosicionRanking> guardados) {
+        Set<String> insertados = new HashSet<>();
+        guardados.forEach(libro -> insertados.add(libro.titulo()));
+        // Un id por título: dos títulos con el mismo id chocarían con la restricción única
+        Map<Integer, String> titulosPorId = new LinkedHashMap<>();
+        for (DatosLibro libro : libros) {
+            if (libro.idGutenberg() != null && !insertados.contains(libro.titulo())) {
+                titulosPorId.putIfAbsent(libro.idGutenberg(), libro.titulo());
+            }
+        }
+        if (titulosPorId.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(SQL_COMPLETAR_IDS_GUTENBERG,
+                titulosPorId.values().toArray(String[]::new),
+                titulosPorId.keySet().toArray(Integer[]::new));
+    }
+
+    /**
+     * Reserva {@code cantidad} ids de la secuencia con el mismo criterio que el optimizador
+     * "pooled" de Hibernate: cada valor de la secuencia es el último id de un bloque de
+     * {@code bloque} ids. Así los ids de JPA y los de este servicio nunca se pisan.
+     * schema.sql deja la secuencia por encima del mayor id, de modo que ningún bloque baja de 1.
+     */
+    private long[] reservarIds(String secuencia, int bloque, int cantidad) {
+        int bloques = (cantidad + bloque - 1) / bloque;
+        List<Long> techos = jdbcTemplate.queryForList(SQL_RESERVAR_IDS, Long.class, secuencia, bloques);
+        long[] ids = new long[cantidad];
+        int k = 0;
+        for (long techo : techos) {
+            for (long id = techo - bloque + 1; id <= techo && k < cantidad; id++) {
+                ids[k++] = id;
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,155 @@
+package aluraChallenge.literatura.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import aluraChallenge.literatura.dto.DatosLibro;
+import aluraChallenge.literatura.dto.ResumenImportacion;
+
+/**
+ * Carga la biblioteca desde una copia local de pg_catalog.csv, sin acceso a la red.
+ *
+ * El archivo se mapea en memoria, se divide en trozos que empiezan en una fila y
+ * cada trozo se lee en su propio hilo. Los libros leídos pasan por una cola acotada
+ * a {@link PersistenciaLotes}, con las mismas reglas que la carga desde Gutendex.
+ */
+@Service
+public class ImportacionCatalogoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportacionCatalogoService.class);
+
+    public static final int TAMANO_LOTE_POR_DEFECTO = 1000;
+
+    // Marca de fin de la cola; se compara por identidad
+    private static final List<DatosLibro> FIN = new ArrayList<>(0);
+
+    @Autowired
+    private PersistenciaLotes persistenciaLotes;
+
+    public ResumenImportacion importar(Path archivo, int hilos, int tamanoLote) {
+        if (hilos <= 0) {
+            throw new IllegalArgumentException("El número de hilos debe ser mayor a 0");
+        }
+        long inicio = System.nanoTime();
+        var etapa = persistenciaLotes.nuevaEtapa(tamanoLote);
+
+        MappedByteBuffer datos;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("El archivo supera los 2 GB que se pueden mapear de una vez");
+            }
+            // El mapeo sigue siendo válido después de cerrar el canal
+            datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        } catch (IOException e) {
+            String errorMsg = "Error al abrir el catálogo " + archivo + ": " + e.getMessage();
+            logger.error(errorMsg, e);
+            throw new RuntimeException(errorMsg, e);
+        }
+
+        int[] cortes = LectorCatalogoCsv.dividir(datos, hilos * 4);
+        int trozos = cortes.length - 1;
+        logger.info("Importando {} ({} bytes) en {} trozos con {} hilos", archivo, datos.limit(), trozos, hilos);
+
+        var filas = new AtomicInteger();
+        var descartadas = new AtomicInteger();
+        var trozosFallidos = new AtomicInteger();
+        var finLectura = new AtomicLong();
+        var pendientes = new AtomicInteger(trozos);
+        BlockingQueue<List<DatosLibro>> cola = new ArrayBlockingQueue<>(hilos * 2);
+
+        // Leer y decodificar usa CPU: hilos de plataforma, uno por núcleo pedido
+        ExecutorService lectores = Executors.newFixedThreadPool(hilos);
+        try {
+            for (int t = 0; t < trozos; t++) {
+                int desde = cortes[t];
+                int hasta = cortes[t + 1];
+                lectores.submit(() -> {
+                    try {
+                        List<DatosLibro> lote = new ArrayList<>(tamanoLote);
+                        var conteo = LectorCatalogoCsv.leer(datos, desde, hasta, libro -> {
+                            lote.add(libro);
+                            if (lote.size() >= tamanoLote) {
+                                encolar(cola, List.copyOf(lote));
+                                lote.clear();
+                            }
+                        });
+                        if (!lote.isEmpty()) {
+                            encolar(cola, List.copyOf(lote));
+                        }
+                        filas.addAndGet(conteo.filas());
+                        descartadas.addAndGet(conteo.descartadas());
+                    } catch (RuntimeException e) {
+                        // Las filas del trozo que ya se encolaron se guardan; el resto se pierde
+                        trozosFallidos.incrementAndGet();
+                        logger.error("Error al leer el trozo {}-{}: {}", desde, hasta, e.getMessage(), e);
+                    } finally {
+                        if (pendientes.decrementAndGet() == 0) {
+                            finLectura.set(System.nanoTime());
+                            encolar(cola, FIN);
+                        }
+                    }
+                });
+            }
+
+            // La persistencia corre en este hilo, como en la carga masiva
+            while (true) {
+                List<DatosLibro> libros = cola.take();
+                if (libros == FIN) {
+                    break;
+                }
+                etapa.agregar(libros);
+            }
+            etapa.vaciar();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Importación interrumpida", e);
+        } finally {
+            lectores.shutdownNow();
+        }
+
+        var resumen = new ResumenImportacion(
+                filas.get(),
+                descartadas.get(),
+                trozosFallidos.get(),
+                etapa.librosGuardados(),
+                etapa.autoresNuevos(),
+                etapa.duplicados(),
+                etapa.fallidos(),
+                Duration.ofNanos(finLectura.get() - inicio),
+                Duration.ofNanos(System.nanoTime() - inicio));
+        if (resumen.trozosFallidos() > 0) {
+            logger.warn("Importación incompleta: {} de {} trozos fallaron, {}", resumen.trozosFallidos(), trozos, resumen);
+        } else {
+            logger.info("Importación terminada: {}", resumen);
+        }
+        return resumen;
+    }
+
+    // A diferencia de la carga masiva, un lector interrumpido abandona su trozo: solo
+    // pasa si la persistencia terminó con error y ya nadie consume la cola
+    private static void encolar(BlockingQueue<List<DatosLibro>> cola, List<DatosLibro> libros) {
+        try {
+            cola.put(libros);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Importación cancelada", e);
+        }
+    }
+}
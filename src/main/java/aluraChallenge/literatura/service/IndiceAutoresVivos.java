@@ -0,0 +1,171 @@
+package aluraChallenge.literatura.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import aluraChallenge.literatura.dto.VidaAutor;
+import aluraChallenge.literatura.repository.AutorRepository;
+
+/**
+ * Autores vivos en un año o en algún momento de un rango, sin recorrer la tabla
+ * de autores en cada consulta.
+ *
+ * Las fechas de vida se cargan la primera vez que se consultan y después se
+ * actualizan con cada autor guardado (ver {@link IndiceAutoresVivosListener}). Los
+ * cambios que llegan mientras la carga consulta la base se anotan y se aplican sobre
+ * su resultado: un autor confirmado justo después de la lectura no se pierde.
+ * Igual que {@link aluraChallenge.literatura.models.Autor#estabaVivoEn(int)}, un
+ * nacimiento o una muerte desconocidos no limitan el intervalo.
+ */
+@Component
+public class IndiceAutoresVivos {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceAutoresVivos.class);
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    // Un cambio recibido durante la carga; quitado = true si el autor se borró
+    private record Cambio(long id, int inicio, int fin, boolean quitado) {}
+
+    private final ArbolIntervalos vidas = new ArbolIntervalos();
+    private final ReentrantLock carga = new ReentrantLock();
+    // Protege duranteCarga y el paso de "cargando" a "cargado"
+    private final ReentrantLock cambios = new ReentrantLock();
+    private List<Cambio> duranteCarga;
+    private volatile boolean cargado;
+
+    public List<Long> vivosEn(int año) {
+        return vivosEntre(año, año);
+    }
+
+    public List<Long> vivosEntre(int desde, int hasta) {
+        cargarSiHaceFalta();
+        return vidas.buscar(desde, hasta);
+    }
+
+    /**
+     * Autores vivos en cada año de [desde, hasta]; el elemento i corresponde a desde + i.
+     */
+    public int[] histograma(int desde, int hasta) {
+        cargarSiHaceFalta();
+        return vidas.histograma(desde, hasta);
+    }
+
+    /**
+     * Primer y último año con nacimientos o muertes registrados, o null si no hay autores con fechas.
+     */
+    public int[] rangoConocido() {
+        cargarSiHaceFalta();
+        return vidas.rango();
+    }
+
+    public void registrar(Long id, Integer fechaNacimiento, Integer fechaMuerte) {
+        if (id != null) {
+            aplicar(new Cambio(id, inicio(fechaNacimiento), fin(fechaMuerte), false));
+        }
+    }
+
+    public void quitar(Long id) {
+        if (id != null) {
+            aplicar(new Cambio(id, 0, 0, true));
+        }
+    }
+
+    private void aplicar(Cambio cambio) {
+        if (!cargado) {
+            cambios.lock();
+            try {
+                if (duranteCarga != null) {
+                    duranteCarga.add(cambio);
+                    return;
+                }
+                if (!cargado) {
+                    // Antes de la primera carga no hace falta: la carga ya lo va a leer de la base
+                    return;
+                }
+            } finally {
+                cambios.unlock();
+            }
+        }
+        if (cambio.quitado()) {
+            vidas.quitar(cambio.id());
+        } else {
+            vidas.guardar(cambio.id(), cambio.inicio(), cambio.fin());
+        }
+    }
+
+    private void cargarSiHaceFalta() {
+        if (cargado) {
+            return;
+        }
+        carga.lock();
+        try {
+            if (cargado) {
+                return;
+            }
+            cambios.lock();
+            try {
+                duranteCarga = new ArrayList<>();
+            } finally {
+                cambios.unlock();
+            }
+            List<VidaAutor> filas;
+            try {
+                filas = autorRepository.findVidasAutores();
+            } catch (RuntimeException e) {
+                cambios.lock();
+                try {
+                    duranteCarga = null;
+                } finally {
+                    cambios.unlock();
+                }
+                throw e;
+            }
+            long[] ids = new long[filas.size()];
+            int[] inicios = new int[filas.size()];
+            int[] fines = new int[filas.size()];
+            for (int i = 0; i < filas.size(); i++) {
+                var fila = filas.get(i);
+                ids[i] = fila.getId();
+                inicios[i] = inicio(fila.getFechaNacimiento());
+                fines[i] = fin(fila.getFechaMuerte());
+            }
+            vidas.cargar(ids, inicios, fines);
+            int aplicados;
+            cambios.lock();
+            try {
+                // Volver a guardar lo que la consulta ya leyó no cambia nada
+                for (Cambio cambio : duranteCarga) {
+                    if (cambio.quitado()) {
+                        vidas.quitar(cambio.id());
+                    } else {
+                        vidas.guardar(cambio.id(), cambio.inicio(), cambio.fin());
+                    }
+                }
+                aplicados = duranteCarga.size();
+                duranteCarga = null;
+                cargado = true;
+            } finally {
+                cambios.unlock();
+            }
+            logger.info("Índice de autores vivos cargado: {} autores, {} cambios durante la carga", ids.length, aplicados);
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    private static int inicio(Integer fechaNacimiento) {
+        return fechaNacimiento != null ? fechaNacimiento : Integer.MIN_VALUE;
+    }
+
+    private static int fin(Integer fechaMuerte) {
+        return fechaMuerte != null ? fechaMuerte : Integer.MAX_VALUE;
+    }
+}
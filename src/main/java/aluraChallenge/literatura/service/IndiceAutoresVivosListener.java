@@ -0,0 +1,35 @@
+package aluraChallenge.literatura.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import aluraChallenge.literatura.models.Autor;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Lleva al índice de autores vivos las fechas de cada autor guardado por JPA, al
+ * confirmar la transacción.
+ */
+@Component
+public class IndiceAutoresVivosListener {
+
+    @Autowired
+    private IndiceAutoresVivos indiceAutoresVivos;
+
+    @PostPersist
+    @PostUpdate
+    void guardado(Autor autor) {
+        var id = autor.getId();
+        var nacimiento = autor.getFechaNacimiento();
+        var muerte = autor.getFechaMuerte();
+        Transacciones.alConfirmar(() -> indiceAutoresVivos.registrar(id, nacimiento, muerte));
+    }
+
+    @PostRemove
+    void borrado(Autor autor) {
+        var id = autor.getId();
+        Transacciones.alConfirmar(() -> indiceAutoresVivos.quitar(id));
+    }
+}
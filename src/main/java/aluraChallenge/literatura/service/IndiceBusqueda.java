@@ -0,0 +1,85 @@
+package aluraChallenge.literatura.service;
+
+import java.util.Comparator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import aluraChallenge.literatura.dto.PosicionRanking;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Búsqueda interactiva de títulos y autores sin consultar PostgreSQL ni Gutendex.
+ *
+ * Los índices se cargan al arrancar y se mantienen al día con cada libro o autor
+ * guardado (ver {@link IndiceBusquedaListener}). Las búsquedas no distinguen
+ * mayúsculas ni acentos y la última palabra se completa como prefijo.
+ */
+@Component
+public class IndiceBusqueda {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceBusqueda.class);
+
+    @Autowired
+    private RecorridoCatalogo recorridoCatalogo;
+
+    // Los libros guardan lo necesario para mostrarlos; los más descargados primero
+    private final IndiceInvertido<PosicionRanking> libros =
+            new IndiceInvertido<>(Comparator.comparingInt(PosicionRanking::descargas).reversed());
+
+    // Los autores solo guardan el id: para mostrarlos hacen falta sus libros
+    private final IndiceInvertido<Long> autores = new IndiceInvertido<>(null);
+
+    @PostConstruct
+    void cargar() {
+        long inicio = System.nanoTime();
+        // Cursores de solo las columnas indexadas: ni entidades ni el resultado entero en memoria
+        recorridoCatalogo.recorrerPosiciones(this::registrarLibro);
+        recorridoCatalogo.recorrerNombresAutores(autor -> registrarAutor(autor.getId(), autor.getNombre()));
+        logger.info("Índice de búsqueda cargado: {} libros, {} autores, {} términos en {} ms",
+                libros.documentos(), autores.documentos(), libros.terminos() + autores.terminos(),
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    public List<PosicionRanking> buscarLibros(String titulo, int limite) {
+        return libros.buscar(titulo, limite);
+    }
+
+    /**
+     * Si dos títulos son el mismo sin distinguir mayúsculas, acentos ni signos de puntuación.
+     */
+    public static boolean mismoTitulo(String titulo, String otro) {
+        return IndiceInvertido.tokenizar(titulo).equals(IndiceInvertido.tokenizar(otro));
+    }
+
+    public List<Long> buscarAutores(String nombre, int limite) {
+        return autores.buscar(nombre, limite);
+    }
+
+    public List<String> completarTitulo(String texto, int limite) {
+        return libros.completar(texto, limite);
+    }
+
+    public void registrarLibro(PosicionRanking libro) {
+        if (libro.id() != null) {
+            libros.guardar(libro.id(), libro.titulo(), libro);
+        }
+    }
+
+    public void registrarAutor(Long id, String nombre) {
+        if (id != null) {
+            autores.guardar(id, nombre, id);
+        }
+    }
+
+    public void quitarLibro(Long id) {
+        libros.quitar(id);
+    }
+
+    public void quitarAutor(Long id) {
+        autores.quitar(id);
+    }
+}
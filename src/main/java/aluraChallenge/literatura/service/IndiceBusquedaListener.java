@@ -0,0 +1,46 @@
+package aluraChallenge.literatura.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import aluraChallenge.literatura.dto.PosicionRanking;
+import aluraChallenge.literatura.models.Autor;
+import aluraChallenge.literatura.models.Libro;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Lleva al índice de búsqueda cada libro y autor guardado por JPA, al confirmar la
+ * transacción. Se registra en ambas entidades, por eso recibe Object.
+ */
+@Component
+public class IndiceBusquedaListener {
+
+    @Autowired
+    private IndiceBusqueda indiceBusqueda;
+
+    @PostPersist
+    @PostUpdate
+    void guardado(Object entidad) {
+        if (entidad instanceof Libro libro) {
+            var posicion = PosicionRanking.de(libro);
+            Transacciones.alConfirmar(() -> indiceBusqueda.registrarLibro(posicion));
+        } else if (entidad instanceof Autor autor) {
+            var id = autor.getId();
+            var nombre = autor.getNombre();
+            Transacciones.alConfirmar(() -> indiceBusqueda.registrarAutor(id, nombre));
+        }
+    }
+
+    @PostRemove
+    void borrado(Object entidad) {
+        if (entidad instanceof Libro libro) {
+            var id = libro.getId();
+            Transacciones.alConfirmar(() -> indiceBusqueda.quitarLibro(id));
+        } else if (entidad instanceof Autor autor) {
+            var id = autor.getId();
+            Transacciones.alConfirmar(() -> indiceBusqueda.quitarAutor(id));
+        }
+    }
+}
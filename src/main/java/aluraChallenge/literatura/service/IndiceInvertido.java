@@ -0,0 +1,402 @@
+package aluraChallenge.literatura.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre un texto por documento (un título, un nombre).
+ *
+ * Los términos viven en un trie: cada nodo terminal guarda su lista de documentos
+ * como un int[] ordenado, y el mismo trie sirve para completar prefijos. Cada
+ * documento recibe un número interno creciente, así que agregar al final de la
+ * lista la mantiene ordenada. Borrar un documento solo lo marca; sus entradas
+ * se descartan al consultar. Cuando los marcados pasan de {@link #COMPACTAR_DESDE}
+ * y de la cuarta parte de los documentos, el índice se compacta: los vivos se
+ * renumeran en el mismo orden, las listas se reescriben sin los borrados y se podan
+ * los términos que solo aparecían en ellos.
+ *
+ * @param <T> lo que se devuelve por cada documento encontrado
+ */
+public class IndiceInvertido<T> {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    static final int COMPACTAR_DESDE = 1024;
+
+    private final Comparator<? super T> orden;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Nodo raiz = new Nodo();
+    private final List<T> datos = new ArrayList<>();
+    private final List<String> textos = new ArrayList<>();
+    private final Map<Long, Integer> documentoPorId = new HashMap<>();
+    private final BitSet borrados = new BitSet();
+    private int cantidadBorrados;
+    private int terminos;
+
+    /**
+     * @param orden orden de los resultados; null para devolverlos en orden de inserción
+     */
+    public IndiceInvertido(Comparator<? super T> orden) {
+        this.orden = orden;
+    }
+
+    /**
+     * "Canción de Amor, Vol. 2" -> [cancion, de, amor, vol, 2]
+     */
+    public static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String sinAcentos = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(SEPARADORES.split(sinAcentos.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Agrega o reemplaza el documento con este id.
+     */
+    public void guardar(long id, String texto, T dato) {
+        lock.writeLock().lock();
+        try {
+            Integer anterior = documentoPorId.get(id);
+            if (anterior != null && Objects.equals(textos.get(anterior), texto)) {
+                // Mismo texto: las listas de documentos no cambian
+                datos.set(anterior, dato);
+                return;
+            }
+            if (anterior != null) {
+                borrar(anterior);
+            }
+
+            int documento = datos.size();
+            datos.add(dato);
+            textos.add(texto);
+            documentoPorId.put(id, documento);
+            for (String token : tokenizar(texto)) {
+                insertar(token).agregar(documento);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer documento = documentoPorId.remove(id);
+            if (documento != null) {
+                borrar(documento);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Documentos que contienen todas las palabras de la consulta. La última palabra
+     * se toma como prefijo, para que funcione mientras el usuario escribe.
+     */
+    public List<T> buscar(String consulta, int limite) {
+        List<String> tokens = tokenizar(consulta);
+        if (tokens.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int[] resultado = null;
+            for (int i = 0; i < tokens.size(); i++) {
+                Nodo nodo = buscarNodo(tokens.get(i));
+                if (nodo == null) {
+                    return List.of();
+                }
+                int[] documentos = i == tokens.size() - 1 ? nodo.documentosBajo() : nodo.documentos();
+                resultado = resultado == null ? documentos : intersectar(resultado, documentos);
+                if (resultado.length == 0) {
+                    return List.of();
+                }
+            }
+
+            var encontrados = new ArrayList<T>();
+            for (int documento : resultado) {
+                if (!borrados.get(documento)) {
+                    encontrados.add(datos.get(documento));
+                    if (orden == null && encontrados.size() == limite) {
+                        break;
+                    }
+                }
+            }
+            if (orden != null) {
+                encontrados.sort(orden);
+            }
+            return encontrados.size() > limite ? List.copyOf(encontrados.subList(0, limite)) : encontrados;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Palabras del índice que empiezan como la última palabra del texto, de las más
+     * frecuentes a las menos.
+     */
+    public List<String> completar(String texto, int limite) {
+        List<String> tokens = tokenizar(texto);
+        if (tokens.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Nodo nodo = buscarNodo(tokens.get(tokens.size() - 1));
+            if (nodo == null) {
+                return List.of();
+            }
+            List<Nodo> terminales = new ArrayList<>();
+            nodo.terminales(terminales);
+            return terminales.stream()
+                    .sorted(Comparator.comparingInt((Nodo n) -> n.tamano).reversed())
+                    .limit(limite)
+                    .map(n -> n.termino)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int documentos() {
+        lock.readLock().lock();
+        try {
+            return documentoPorId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int terminos() {
+        lock.readLock().lock();
+        try {
+            return terminos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void borrar(int documento) {
+        borrados.set(documento);
+        datos.set(documento, null);
+        textos.set(documento, null);
+        cantidadBorrados++;
+        if (cantidadBorrados >= COMPACTAR_DESDE && cantidadBorrados * 4L > datos.size()) {
+            compactar();
+        }
+    }
+
+    // Con el cerrojo de escritura tomado. La renumeración conserva el orden, así que
+    // cada lista sigue ordenada sin volver a tokenizar ningún texto
+    private void compactar() {
+        int[] nuevoNumero = new int[datos.size()];
+        int vivos = 0;
+        for (int documento = 0; documento < datos.size(); documento++) {
+            if (borrados.get(documento)) {
+                nuevoNumero[documento] = -1;
+            } else {
+                datos.set(vivos, datos.get(documento));
+                textos.set(vivos, textos.get(documento));
+                nuevoNumero[documento] = vivos++;
+            }
+        }
+        datos.subList(vivos, datos.size()).clear();
+        textos.subList(vivos, textos.size()).clear();
+        documentoPorId.replaceAll((id, documento) -> nuevoNumero[documento]);
+        raiz.renumerar(nuevoNumero);
+        terminos = raiz.contarTerminos();
+        borrados.clear();
+        cantidadBorrados = 0;
+    }
+
+    private Nodo insertar(String token) {
+        Nodo nodo = raiz;
+        for (int i = 0; i < token.length(); i++) {
+            nodo = nodo.hijoCreando(token.charAt(i));
+        }
+        if (nodo.termino == null) {
+            nodo.termino = token;
+            terminos++;
+        }
+        return nodo;
+    }
+
+    private Nodo buscarNodo(String prefijo) {
+        Nodo nodo = raiz;
+        for (int i = 0; i < prefijo.length() && nodo != null; i++) {
+            nodo = nodo.hijo(prefijo.charAt(i));
+        }
+        return nodo;
+    }
+
+    private static int[] intersectar(int[] a, int[] b) {
+        int[] resultado = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                resultado[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(resultado, k);
+    }
+
+    /**
+     * Nodo del trie. Los hijos van en dos arreglos paralelos ordenados por carácter,
+     * que ocupan mucho menos que un mapa para los 1-3 hijos típicos.
+     */
+    private static final class Nodo {
+        private static final char[] SIN_CLAVES = new char[0];
+        private static final Nodo[] SIN_HIJOS = new Nodo[0];
+        private static final int[] VACIA = new int[0];
+
+        private char[] claves = SIN_CLAVES;
+        private Nodo[] hijos = SIN_HIJOS;
+
+        // Solo en nodos terminales
+        private String termino;
+        private int[] lista = VACIA;
+        private int tamano;
+
+        Nodo hijo(char c) {
+            int pos = Arrays.binarySearch(claves, c);
+            return pos >= 0 ? hijos[pos] : null;
+        }
+
+        Nodo hijoCreando(char c) {
+            int pos = Arrays.binarySearch(claves, c);
+            if (pos >= 0) {
+                return hijos[pos];
+            }
+            int insercion = -pos - 1;
+            char[] nuevasClaves = new char[claves.length + 1];
+            Nodo[] nuevosHijos = new Nodo[hijos.length + 1];
+            System.arraycopy(claves, 0, nuevasClaves, 0, insercion);
+            System.arraycopy(hijos, 0, nuevosHijos, 0, insercion);
+            System.arraycopy(claves, insercion, nuevasClaves, insercion + 1, claves.length - insercion);
+            System.arraycopy(hijos, insercion, nuevosHijos, insercion + 1, hijos.length - insercion);
+            var nuevo = new Nodo();
+            nuevasClaves[insercion] = c;
+            nuevosHijos[insercion] = nuevo;
+            claves = nuevasClaves;
+            hijos = nuevosHijos;
+            return nuevo;
+        }
+
+        void agregar(int documento) {
+            // Un término repetido en el mismo texto se guarda una vez
+            if (tamano > 0 && lista[tamano - 1] == documento) {
+                return;
+            }
+            if (tamano == lista.length) {
+                lista = Arrays.copyOf(lista, Math.max(4, tamano * 2));
+            }
+            lista[tamano++] = documento;
+        }
+
+        int[] documentos() {
+            return Arrays.copyOf(lista, tamano);
+        }
+
+        // Unión de las listas de todo el subárbol, ordenada y sin repetidos
+        int[] documentosBajo() {
+            List<Nodo> terminales = new ArrayList<>();
+            terminales(terminales);
+            if (terminales.size() == 1) {
+                return terminales.get(0).documentos();
+            }
+            int total = terminales.stream().mapToInt(n -> n.tamano).sum();
+            int[] union = new int[total];
+            int k = 0;
+            for (Nodo n : terminales) {
+                System.arraycopy(n.lista, 0, union, k, n.tamano);
+                k += n.tamano;
+            }
+            Arrays.sort(union);
+            int unicos = 0;
+            for (int i = 0; i < union.length; i++) {
+                if (unicos == 0 || union[unicos - 1] != union[i]) {
+                    union[unicos++] = union[i];
+                }
+            }
+            return Arrays.copyOf(union, unicos);
+        }
+
+        /**
+         * Aplica la renumeración a las listas del subárbol, descarta los borrados (-1) y
+         * quita los términos y los hijos que quedan sin documentos.
+         *
+         * @return true si el nodo quedó vacío y su padre puede soltarlo
+         */
+        boolean renumerar(int[] nuevoNumero) {
+            if (termino != null) {
+                int quedan = 0;
+                for (int i = 0; i < tamano; i++) {
+                    int numero = nuevoNumero[lista[i]];
+                    if (numero >= 0) {
+                        lista[quedan++] = numero;
+                    }
+                }
+                tamano = quedan;
+                if (tamano == 0) {
+                    termino = null;
+                    lista = VACIA;
+                } else if (tamano < lista.length / 4) {
+                    lista = Arrays.copyOf(lista, Math.max(4, tamano));
+                }
+            }
+            int conservados = 0;
+            for (int i = 0; i < hijos.length; i++) {
+                if (!hijos[i].renumerar(nuevoNumero)) {
+                    claves[conservados] = claves[i];
+                    hijos[conservados++] = hijos[i];
+                }
+            }
+            if (conservados < hijos.length) {
+                claves = conservados == 0 ? SIN_CLAVES : Arrays.copyOf(claves, conservados);
+                hijos = conservados == 0 ? SIN_HIJOS : Arrays.copyOf(hijos, conservados);
+            }
+            return termino == null && hijos.length == 0;
+        }
+
+        int contarTerminos() {
+            int total = termino != null ? 1 : 0;
+            for (Nodo hijo : hijos) {
+                total += hijo.contarTerminos();
+            }
+            return total;
+        }
+
+        void terminales(List<Nodo> destino) {
+            if (termino != null) {
+                destino.add(this);
+            }
+            for (Nodo hijo : hijos) {
+                hijo.terminales(destino);
+            }
+        }
+    }
+}
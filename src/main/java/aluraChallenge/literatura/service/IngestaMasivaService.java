@@ -0,0 +1,238 @@
+package aluraChallenge.literatura.service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import aluraChallenge.literatura.dto.DatosLibro;
+import aluraChallenge.literatura.dto.ResumenIngesta;
+
+/**
+ * Carga masiva del catálogo de Gutendex.
+ *
+ * Las páginas se descargan en hilos virtuales con un máximo de peticiones en
+ * vuelo y se decodifican en streaming, sin pasar por un String. Una única etapa
+ * de persistencia ({@link PersistenciaLotes}) las agrupa en lotes y guarda cada
+ * lote en su propia transacción.
+ */
+@Service
+public class IngestaMasivaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestaMasivaService.class);
+
+    public static final int EN_VUELO_POR_DEFECTO = 8;
+    public static final int TAMANO_LOTE_POR_DEFECTO = 500;
+
+    // Marca de fin de la cola; se compara por identidad
+    private static final List<DatosLibro> FIN = new ArrayList<>(0);
+
+    private static final Duration INTERVALO_MUESTREO_HEAP = Duration.ofMillis(100);
+
+    @Autowired
+    private ConsumoApi consumoApi;
+
+    @Autowired
+    private PersistenciaLotes persistenciaLotes;
+
+    /**
+     * Recorre el catálogo completo (o las primeras {@code maxPaginas} páginas si es mayor a 0)
+     * y guarda los libros que aún no están en la biblioteca.
+     */
+    public ResumenIngesta ingerirCatalogo(int maxPaginas, int enVuelo, int tamanoLote) {
+        if (enVuelo <= 0) {
+            throw new IllegalArgumentException("El número de peticiones en vuelo debe ser mayor a 0");
+        }
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor a 0");
+        }
+
+        try (var muestreoHeap = new MuestreoHeap()) {
+            return ingerir(maxPaginas, enVuelo, tamanoLote, muestreoHeap);
+        }
+    }
+
+    private ResumenIngesta ingerir(int maxPaginas, int enVuelo, int tamanoLote, MuestreoHeap muestreoHeap) {
+        long inicio = System.nanoTime();
+        var transferenciaInicial = consumoApi.transferencia();
+
+        var paginasLeidas = new AtomicInteger();
+        var paginasFallidas = new AtomicInteger();
+        var etapa = persistenciaLotes.nuevaEtapa(tamanoLote);
+
+        List<DatosLibro> librosPrimera = new ArrayList<>();
+        var primera = consumoApi.procesarPaginaCatalogo(1, librosPrimera::add);
+        paginasLeidas.incrementAndGet();
+        etapa.agregar(librosPrimera);
+
+        int librosPorPagina = primera.librosEmitidos();
+        if (primera.total() != null && librosPorPagina > 0) {
+            int totalPaginas = (primera.total() + librosPorPagina - 1) / librosPorPagina;
+            if (maxPaginas > 0) {
+                totalPaginas = Math.min(totalPaginas, maxPaginas);
+            }
+            logger.info("Ingesta masiva: {} libros en {} páginas, {} peticiones en vuelo",
+                    primera.total(), totalPaginas, enVuelo);
+            descargarEnParalelo(totalPaginas, enVuelo, etapa, paginasLeidas, paginasFallidas);
+        } else {
+            // Sin total conocido no se puede repartir el trabajo: se siguen los enlaces "next"
+            seguirEnlaces(primera.siguiente(), maxPaginas, etapa, paginasLeidas, paginasFallidas);
+        }
+        etapa.vaciar();
+
+        var resumen = new ResumenIngesta(
+                paginasLeidas.get(),
+                paginasFallidas.get(),
+                etapa.librosLeidos(),
+                etapa.librosGuardados(),
+                etapa.autoresNuevos(),
+                etapa.duplicados(),
+                etapa.fallidos(),
+                Duration.ofNanos(System.nanoTime() - inicio),
+                muestreoHeap.pico(),
+                consumoApi.transferencia().menos(transferenciaInicial));
+        logger.info("Ingesta masiva terminada: {}", resumen);
+        return resumen;
+    }
+
+    private void descargarEnParalelo(int totalPaginas, int enVuelo, PersistenciaLotes.Etapa etapa,
+                                     AtomicInteger paginasLeidas, AtomicInteger paginasFallidas) {
+        if (totalPaginas <= 1) {
+            return;
+        }
+
+        BlockingQueue<List<DatosLibro>> cola = new ArrayBlockingQueue<>(enVuelo * 2);
+        Semaphore ventana = new Semaphore(enVuelo);
+        AtomicInteger pendientes = new AtomicInteger(totalPaginas - 1);
+
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            ejecutor.submit(() -> {
+                for (int p = 2; p <= totalPaginas; p++) {
+                    int pagina = p;
+                    try {
+                        ventana.acquire();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    ejecutor.submit(() -> {
+                        try {
+                            List<DatosLibro> libros = new ArrayList<>();
+                            consumoApi.procesarPaginaCatalogo(pagina, libros::add);
+                            paginasLeidas.incrementAndGet();
+                            encolar(cola, libros);
+                        } catch (RuntimeException e) {
+                            paginasFallidas.incrementAndGet();
+                            logger.warn("No se pudo descargar la página {}: {}", pagina, e.getMessage());
+                        } finally {
+                            // El permiso se libera después de encolar: si la persistencia va lenta,
+                            // la descarga se frena en vez de acumular páginas en memoria
+                            ventana.release();
+                            if (pendientes.decrementAndGet() == 0) {
+                                encolar(cola, FIN);
+                            }
+                        }
+                    });
+                }
+            });
+
+            try {
+                while (true) {
+                    List<DatosLibro> libros = cola.take();
+                    if (libros == FIN) {
+                        break;
+                    }
+                    etapa.agregar(libros);
+                }
+            } catch (Throwable e) {
+                // Si la persistencia falla, incluso con un Error, nadie vacía la cola: los
+                // productores quedarían bloqueados en put() y close() no volvería nunca
+                ejecutor.shutdownNow();
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Ingesta masiva interrumpida", e);
+        }
+    }
+
+    private void seguirEnlaces(String siguiente, int maxPaginas, PersistenciaLotes.Etapa etapa,
+                               AtomicInteger paginasLeidas, AtomicInteger paginasFallidas) {
+        while (siguiente != null && (maxPaginas <= 0 || paginasLeidas.get() < maxPaginas)) {
+            try {
+                List<DatosLibro> libros = new ArrayList<>();
+                var pagina = consumoApi.procesarLibros(siguiente, libros::add);
+                paginasLeidas.incrementAndGet();
+                etapa.agregar(libros);
+                siguiente = pagina.siguiente();
+            } catch (RuntimeException e) {
+                paginasFallidas.incrementAndGet();
+                logger.warn("No se pudo descargar {}: {}", siguiente, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    // Un productor interrumpido abandona su página: solo pasa si la persistencia
+    // terminó con error y ya nadie consume la cola
+    private static void encolar(BlockingQueue<List<DatosLibro>> cola, List<DatosLibro> libros) {
+        try {
+            cola.put(libros);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Ingesta masiva cancelada", e);
+        }
+    }
+
+    /**
+     * Máximo del heap total en uso mientras dura la ingesta. Los picos de cada pool
+     * (eden, survivor, old) ocurren en momentos distintos y su suma sobrestima el pico
+     * real, así que se muestrea el total en un hilo virtual aparte.
+     */
+    private static final class MuestreoHeap implements AutoCloseable {
+
+        private final MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        private final AtomicLong pico = new AtomicLong();
+        private final Thread hilo;
+
+        MuestreoHeap() {
+            muestrear();
+            hilo = Thread.ofVirtual().name("muestreo-heap").start(() -> {
+                try {
+                    while (true) {
+                        Thread.sleep(INTERVALO_MUESTREO_HEAP);
+                        muestrear();
+                    }
+                } catch (InterruptedException e) {
+                    // close()
+                }
+            });
+        }
+
+        long pico() {
+            muestrear();
+            return pico.get();
+        }
+
+        private void muestrear() {
+            pico.accumulateAndGet(memoria.getHeapMemoryUsage().getUsed(), Math::max);
+        }
+
+        @Override
+        public void close() {
+            hilo.interrupt();
+        }
+    }
+}
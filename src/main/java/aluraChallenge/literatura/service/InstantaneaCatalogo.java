@@ -0,0 +1,754 @@
+package aluraChallenge.literatura.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import aluraChallenge.literatura.dto.EstadisticasBiblioteca;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Copia del catálogo en columnas de tipos primitivos para los análisis del menú.
+ *
+ * Cada libro es una fila: id ({@code long[]}, ordenado), descargas ({@code int[]}),
+ * idioma codificado con un diccionario ({@code short[]}) y ordinal del autor
+ * ({@code int[]}). Los autores tienen sus propias columnas, con los años de
+ * nacimiento y muerte como {@code int} y la cantidad de libros de cada uno. Son
+ * unos 18 bytes por libro, y los recorridos de las consultas no crean objetos: solo
+ * se reservan arreglos del tamaño del diccionario para agrupar y el resultado. Los
+ * análisis en paralelo ({@link AnalisisCatalogo}) recorren las mismas columnas.
+ *
+ * Se carga la primera vez que se consulta, recorriendo autores y libros con un cursor
+ * ({@link RecorridoCatalogo}), y después se mantiene con cada cambio confirmado: los
+ * de JPA llegan por {@link InstantaneaCatalogoListener} y los de JDBC desde
+ * {@link GuardadoLibros} y {@link ActualizacionDescargas}. Los que llegan mientras se
+ * carga se guardan aparte y se aplican al terminar, como en {@link IndiceAutoresVivos}.
+ *
+ * Con literatura.instantanea.archivo configurado, la copia también se guarda en disco
+ * ({@link ArchivoInstantanea}) junto con una marca de tiempo de la base. Al arrancar
+ * se abre ese archivo y solo se releen de la base los libros y autores cuya columna
+ * actualizado_en (schema.sql) es posterior a la marca, y se quitan los anotados en
+ * borrados_catalogo desde entonces. Si el archivo es más viejo que
+ * literatura.instantanea.retencion-borrados (los borrados ya se purgaron) o hubo un
+ * TRUNCATE, se vuelve a cargar todo. Cada literatura.instantanea.intervalo se releen
+ * los cambios y se reescribe el archivo.
+ */
+@Component
+public class InstantaneaCatalogo {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstantaneaCatalogo.class);
+
+    /** Año de nacimiento o de muerte desconocido. */
+    static final int SIN_AÑO = Integer.MIN_VALUE;
+    /** Ordinal de autor de un libro sin autor. */
+    static final int SIN_AUTOR = -1;
+
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    // Ninguna transacción abierta puede confirmar una fila con actualizado_en anterior a la marca.
+    // Sin permisos para ver las sesiones de otros usuarios, min() solo considera las propias
+    private static final String SQL_MARCA =
+            "SELECT LEAST(clock_timestamp(), " +
+            "(SELECT min(xact_start) FROM pg_stat_activity WHERE backend_type = 'client backend'))";
+
+    private static final String SQL_AUTORES_CAMBIADOS =
+            "SELECT id, nombre, fecha_nacimiento, fecha_muerte FROM autores WHERE actualizado_en >= ?";
+
+    private static final String SQL_LIBROS_CAMBIADOS =
+            "SELECT id, idioma, numero_descargas, autor_id FROM libros WHERE actualizado_en >= ?";
+
+    // Anotados por los triggers de borrado de schema.sql
+    private static final String SQL_BORRADOS =
+            "SELECT tabla, id FROM borrados_catalogo WHERE borrado_en >= ?";
+
+    private static final String SQL_PURGAR_BORRADOS =
+            "DELETE FROM borrados_catalogo WHERE borrado_en < ?";
+
+    // Id con el que se anota un TRUNCATE: no se sabe qué filas se quitaron
+    private static final long TABLA_VACIADA = 0;
+
+    private record AutorCambiado(long id, String nombre, Integer fechaNacimiento, Integer fechaMuerte) {}
+
+    private record LibroCambiado(long id, String idioma, int descargas, Long autorId) {}
+
+    private record Cambios(List<AutorCambiado> autores, List<LibroCambiado> libros,
+            List<Long> autoresBorrados, List<Long> librosBorrados) {
+        int cantidad() {
+            return autores.size() + libros.size() + autoresBorrados.size() + librosBorrados.size();
+        }
+
+        boolean vaciado() {
+            return autoresBorrados.contains(TABLA_VACIADA) || librosBorrados.contains(TABLA_VACIADA);
+        }
+    }
+
+    @Value("${literatura.instantanea.archivo:}")
+    private String archivo;
+
+    @Value("${literatura.instantanea.retencion-borrados:P30D}")
+    private Duration retencionBorrados;
+
+    @Autowired
+    private RecorridoCatalogo recorridoCatalogo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Libros, en orden de id
+    private long[] ids = new long[CAPACIDAD_INICIAL];
+    private int[] descargas = new int[CAPACIDAD_INICIAL];
+    private short[] idiomas = new short[CAPACIDAD_INICIAL];
+    private int[] autores = new int[CAPACIDAD_INICIAL];
+    private int filas;
+
+    // Diccionario de idiomas: el código es la posición en la lista (null incluido)
+    private final List<String> idiomasPorCodigo = new ArrayList<>();
+    private final Map<String, Short> codigosIdioma = new HashMap<>();
+
+    // Autores, por ordinal; un autor borrado conserva su ordinal pero deja de estar activo
+    private long[] idsAutor = new long[CAPACIDAD_INICIAL];
+    private String[] nombresAutor = new String[CAPACIDAD_INICIAL];
+    private int[] nacimientos = new int[CAPACIDAD_INICIAL];
+    private int[] muertes = new int[CAPACIDAD_INICIAL];
+    private int[] librosPorAutor = new int[CAPACIDAD_INICIAL];
+    private boolean[] autorActivo = new boolean[CAPACIDAD_INICIAL];
+    private int ordinales;
+    private int autoresActivos;
+    private final Map<Long, Integer> ordinalesAutor = new HashMap<>();
+
+    // Las consultas se leen en paralelo; los cambios y la carga son exclusivos
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    // Protege duranteCarga y el paso de "cargando" a "cargado"
+    private final ReentrantLock cerrojoCambios = new ReentrantLock();
+    private List<Runnable> duranteCarga;
+    private volatile boolean cargado;
+
+    // Marca de la última lectura de la base; solo con archivo configurado
+    private Instant marca;
+    // Cambios que el archivo en disco todavía no tiene
+    private volatile boolean sinGuardar;
+
+    @Scheduled(initialDelayString = "PT0S", fixedDelayString = "${literatura.instantanea.intervalo:PT15M}")
+    void sincronizarProgramada() {
+        try {
+            purgarBorrados();
+            // Sin archivo la carga sigue siendo perezosa y los listeners bastan
+            if (ruta() == null) {
+                return;
+            }
+            sincronizar();
+        } catch (RuntimeException e) {
+            logger.error("Falló la sincronización de la instantánea del catálogo: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Carga la instantánea si hace falta (del archivo o de la base), relee lo que cambió
+     * en la base desde la última lectura y, si hubo cambios, reescribe el archivo.
+     */
+    public void sincronizar() {
+        if (!cargado) {
+            cargarSiHaceFalta();
+        } else if (ruta() != null) {
+            Instant nuevaMarca = marcaSegura();
+            Instant desde = marcaActual();
+            Cambios cambios = leerCambios(desde);
+            cerrojo.writeLock().lock();
+            try {
+                if (borradosIncompletos(desde, nuevaMarca, cambios)) {
+                    logger.warn("La instantánea del catálogo no puede saber qué se borró desde {}: se recarga", desde);
+                    reiniciar();
+                    cargarDesdeBase();
+                } else {
+                    aplicar(cambios);
+                    marca = nuevaMarca;
+                }
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+        }
+        guardarSiHaceFalta();
+    }
+
+    @PreDestroy
+    void guardarAlCerrar() {
+        guardarSiHaceFalta();
+    }
+
+    /**
+     * Los mismos totales que {@link EstadisticasService}, calculados en una pasada sobre las columnas.
+     */
+    public EstadisticasBiblioteca estadisticas() {
+        cargarSiHaceFalta();
+        cerrojo.readLock().lock();
+        try {
+            long total = 0;
+            int maximo = 0;
+            int minimo = filas > 0 ? Integer.MAX_VALUE : 0;
+            long[] porIdioma = new long[idiomasPorCodigo.size()];
+            for (int i = 0; i < filas; i++) {
+                int valor = descargas[i];
+                total += valor;
+                maximo = Math.max(maximo, valor);
+                minimo = Math.min(minimo, valor);
+                porIdioma[idiomas[i]]++;
+            }
+
+            int prolifico = SIN_AUTOR;
+            for (int a = 0; a < ordinales; a++) {
+                if (autorActivo[a] && librosPorAutor[a] > 0
+                        && (prolifico == SIN_AUTOR || librosPorAutor[a] > librosPorAutor[prolifico])) {
+                    prolifico = a;
+                }
+            }
+
+            Map<String, Long> librosPorIdioma = new LinkedHashMap<>();
+            for (int codigo = 0; codigo < porIdioma.length; codigo++) {
+                if (porIdioma[codigo] > 0) {
+                    librosPorIdioma.put(idiomasPorCodigo.get(codigo), porIdioma[codigo]);
+                }
+            }
+            return new EstadisticasBiblioteca(
+                    filas,
+                    autoresActivos,
+                    filas > 0 ? (double) total / filas : 0,
+                    maximo,
+                    minimo,
+                    total,
+                    librosPorIdioma,
+                    prolifico != SIN_AUTOR ? nombresAutor[prolifico] : null,
+                    prolifico != SIN_AUTOR ? librosPorAutor[prolifico] : 0);
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Vista de las columnas para {@link AnalisisCatalogo}. Los arreglos son los de la
+     * instantánea, sin copiar: solo se leen, y solo dentro de {@link #consultar}.
+     */
+    record Columnas(
+        int filas,
+        int[] descargas,
+        short[] idiomas,
+        int[] autores,
+        List<String> idiomasPorCodigo,
+        int ordinales,
+        long[] idsAutor,
+        int[] nacimientos,
+        int[] librosPorAutor
+    ) {}
+
+    /**
+     * Ejecuta {@code consulta} con el cerrojo de lectura tomado. Puede repartir el trabajo
+     * entre otros hilos, siempre que los espere antes de volver.
+     */
+    <T> T consultar(Function<Columnas, T> consulta) {
+        cargarSiHaceFalta();
+        cerrojo.readLock().lock();
+        try {
+            return consulta.apply(new Columnas(filas, descargas, idiomas, autores, idiomasPorCodigo,
+                    ordinales, idsAutor, nacimientos, librosPorAutor));
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Libros (de un idioma, o de todos si es null) cuyo autor estaba vivo en {@code año}.
+     * Igual que {@link IndiceAutoresVivos}, un nacimiento o una muerte desconocidos no limitan.
+     */
+    public long contarDeAutoresVivosEn(int año, String idioma) {
+        cargarSiHaceFalta();
+        cerrojo.readLock().lock();
+        try {
+            int codigo = idioma != null ? codigo(idioma) : -1;
+            if (idioma != null && codigo < 0) {
+                return 0;
+            }
+            long cantidad = 0;
+            for (int i = 0; i < filas; i++) {
+                int autor = autores[i];
+                if (autor == SIN_AUTOR || (codigo >= 0 && idiomas[i] != codigo)) {
+                    continue;
+                }
+                if ((nacimientos[autor] == SIN_AÑO || nacimientos[autor] <= año)
+                        && (muertes[autor] == SIN_AÑO || muertes[autor] >= año)) {
+                    cantidad++;
+                }
+            }
+            return cantidad;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Libros (de un idioma, o de todos si es null) con al menos {@code minimoDescargas}.
+     */
+    public long contar(String idioma, int minimoDescargas) {
+        cargarSiHaceFalta();
+        cerrojo.readLock().lock();
+        try {
+            int codigo = idioma != null ? codigo(idioma) : -1;
+            if (idioma != null && codigo < 0) {
+                return 0;
+            }
+            long cantidad = 0;
+            for (int i = 0; i < filas; i++) {
+                if (descargas[i] >= minimoDescargas && (codigo < 0 || idiomas[i] == codigo)) {
+                    cantidad++;
+                }
+            }
+            return cantidad;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    public void registrarLibro(Long id, String idioma, int descargasLibro, Long autorId) {
+        if (id != null) {
+            cambiar(() -> guardarLibro(id, idioma, descargasLibro, autorId));
+        }
+    }
+
+    public void actualizarDescargas(Long id, int descargasLibro) {
+        if (id != null) {
+            cambiar(() -> {
+                int fila = Arrays.binarySearch(ids, 0, filas, id);
+                if (fila >= 0) {
+                    descargas[fila] = descargasLibro;
+                }
+            });
+        }
+    }
+
+    public void quitarLibro(Long id) {
+        if (id != null) {
+            cambiar(() -> borrarLibro(id));
+        }
+    }
+
+    public void registrarAutor(Long id, String nombre, Integer fechaNacimiento, Integer fechaMuerte) {
+        if (id != null) {
+            cambiar(() -> guardarAutor(id, nombre, fechaNacimiento, fechaMuerte));
+        }
+    }
+
+    public void quitarAutor(Long id) {
+        if (id != null) {
+            cambiar(() -> borrarAutor(id));
+        }
+    }
+
+    /**
+     * Aplica un cambio confirmado. Durante la carga se guarda para aplicarlo al terminar:
+     * la consulta de la carga pudo haber leído la fila antes de que cambiara.
+     */
+    private void cambiar(Runnable cambio) {
+        if (!cargado) {
+            cerrojoCambios.lock();
+            try {
+                if (duranteCarga != null) {
+                    duranteCarga.add(cambio);
+                    return;
+                }
+                if (!cargado) {
+                    // Antes de la primera carga no hace falta: la carga ya lo va a leer de la base
+                    return;
+                }
+            } finally {
+                cerrojoCambios.unlock();
+            }
+        }
+        cerrojo.writeLock().lock();
+        try {
+            cambio.run();
+            sinGuardar = true;
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    private void cargarSiHaceFalta() {
+        if (cargado) {
+            return;
+        }
+        cerrojo.writeLock().lock();
+        try {
+            if (cargado) {
+                return;
+            }
+            cerrojoCambios.lock();
+            try {
+                duranteCarga = new ArrayList<>();
+            } finally {
+                cerrojoCambios.unlock();
+            }
+            try {
+                if (!cargarDesdeArchivo()) {
+                    cargarDesdeBase();
+                }
+            } catch (RuntimeException e) {
+                cerrojoCambios.lock();
+                try {
+                    duranteCarga = null;
+                } finally {
+                    cerrojoCambios.unlock();
+                }
+                throw e;
+            }
+            cerrojoCambios.lock();
+            try {
+                // Volver a aplicar lo que la carga ya leyó no cambia nada
+                duranteCarga.forEach(Runnable::run);
+                if (!duranteCarga.isEmpty()) {
+                    sinGuardar = true;
+                    logger.info("{} cambios recibidos durante la carga de la instantánea", duranteCarga.size());
+                }
+                duranteCarga = null;
+                cargado = true;
+            } finally {
+                cerrojoCambios.unlock();
+            }
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    // Con el cerrojo de escritura tomado
+    private void cargarDesdeBase() {
+        long inicio = System.nanoTime();
+        Instant nuevaMarca = ruta() != null ? marcaSegura() : null;
+        // Primero los autores: así también cuentan los que todavía no tienen libros
+        recorridoCatalogo.recorrerAutores(autor -> guardarAutor(autor.getId(), autor.getNombre(),
+                autor.getFechaNacimiento(), autor.getFechaMuerte()));
+        recorridoCatalogo.recorrerLibros(null, libro -> guardarLibro(libro.getId(), libro.getIdioma(),
+                libro.getNumeroDescargas() != null ? libro.getNumeroDescargas() : 0,
+                libro.getAutor() != null ? libro.getAutor().getId() : null));
+        marca = nuevaMarca;
+        sinGuardar = true;
+        logger.info("Instantánea del catálogo cargada: {} libros, {} autores, {} idiomas en {} ms",
+                filas, autoresActivos, idiomasPorCodigo.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Abre el archivo y relee de la base lo que cambió desde su marca. Con el cerrojo de
+     * escritura tomado; si algo falla deja la instantánea vacía y devuelve false.
+     */
+    private boolean cargarDesdeArchivo() {
+        Path ruta = ruta();
+        if (ruta == null || !Files.exists(ruta)) {
+            return false;
+        }
+        long inicio = System.nanoTime();
+        try {
+            var contenido = ArchivoInstantanea.leer(ruta);
+            restaurar(contenido);
+            long abierto = System.nanoTime();
+
+            Instant nuevaMarca = marcaSegura();
+            Cambios cambios = leerCambios(contenido.marca());
+            if (borradosIncompletos(contenido.marca(), nuevaMarca, cambios)) {
+                logger.warn("La instantánea {} es de {} y no se puede saber qué se borró desde entonces: "
+                        + "se carga desde la base", ruta, contenido.marca());
+                reiniciar();
+                return false;
+            }
+            aplicar(cambios);
+            marca = nuevaMarca;
+            sinGuardar = cambios.cantidad() > 0;
+            logger.info("Instantánea del catálogo abierta desde {}: {} libros, {} autores en {} ms; "
+                    + "{} filas cambiadas desde {} releídas en {} ms",
+                    ruta, filas, autoresActivos, (abierto - inicio) / 1_000_000,
+                    cambios.cantidad(), contenido.marca(), (System.nanoTime() - abierto) / 1_000_000);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("No se pudo abrir la instantánea {}: {}; se carga desde la base", ruta, e.getMessage());
+            reiniciar();
+            return false;
+        }
+    }
+
+    private Cambios leerCambios(Instant desde) {
+        var parametro = Timestamp.from(desde);
+        List<AutorCambiado> autoresCambiados = jdbcTemplate.query(SQL_AUTORES_CAMBIADOS,
+                (rs, fila) -> new AutorCambiado(rs.getLong("id"), rs.getString("nombre"),
+                        rs.getObject("fecha_nacimiento", Integer.class), rs.getObject("fecha_muerte", Integer.class)),
+                parametro);
+        List<LibroCambiado> librosCambiados = jdbcTemplate.query(SQL_LIBROS_CAMBIADOS,
+                (rs, fila) -> new LibroCambiado(rs.getLong("id"), rs.getString("idioma"), rs.getInt("numero_descargas"),
+                        rs.getObject("autor_id", Long.class)),
+                parametro);
+        List<Long> autoresBorrados = new ArrayList<>();
+        List<Long> librosBorrados = new ArrayList<>();
+        jdbcTemplate.query(SQL_BORRADOS,
+                (rs, fila) -> (rs.getString("tabla").equals("autores") ? autoresBorrados : librosBorrados)
+                        .add(rs.getLong("id")),
+                parametro);
+        return new Cambios(autoresCambiados, librosCambiados, autoresBorrados, librosBorrados);
+    }
+
+    // Con el cerrojo de escritura tomado. Volver a aplicar una fila que ya estaba es inofensivo
+    private void aplicar(Cambios cambios) {
+        cambios.autores().forEach(autor -> guardarAutor(autor.id(), autor.nombre(),
+                autor.fechaNacimiento(), autor.fechaMuerte()));
+        cambios.libros().forEach(libro -> guardarLibro(libro.id(), libro.idioma(), libro.descargas(), libro.autorId()));
+        // Después de los cambios: una fila borrada ya no aparece entre las cambiadas
+        cambios.librosBorrados().forEach(this::borrarLibro);
+        cambios.autoresBorrados().forEach(this::borrarAutor);
+        if (cambios.cantidad() > 0) {
+            sinGuardar = true;
+        }
+    }
+
+    // Los borrados anteriores a la retención ya se purgaron, y un TRUNCATE no dice qué filas quitó
+    private boolean borradosIncompletos(Instant desde, Instant nuevaMarca, Cambios cambios) {
+        return desde.isBefore(nuevaMarca.minus(retencionBorrados)) || cambios.vaciado();
+    }
+
+    private void purgarBorrados() {
+        int purgados = jdbcTemplate.update(SQL_PURGAR_BORRADOS, Timestamp.from(marcaSegura().minus(retencionBorrados)));
+        if (purgados > 0) {
+            logger.info("Purgados {} borrados de más de {}", purgados, retencionBorrados);
+        }
+    }
+
+    private Instant marcaSegura() {
+        return jdbcTemplate.queryForObject(SQL_MARCA, Timestamp.class).toInstant();
+    }
+
+    private Instant marcaActual() {
+        cerrojo.readLock().lock();
+        try {
+            return marca;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    private void guardarSiHaceFalta() {
+        Path ruta = ruta();
+        if (ruta == null || !cargado || !sinGuardar) {
+            return;
+        }
+        ArchivoInstantanea.Contenido contenido;
+        cerrojo.readLock().lock();
+        try {
+            // Copia de las columnas: el archivo se escribe sin frenar a quienes actualizan
+            contenido = new ArchivoInstantanea.Contenido(marca, filas,
+                    Arrays.copyOf(ids, filas), Arrays.copyOf(descargas, filas),
+                    Arrays.copyOf(idiomas, filas), Arrays.copyOf(autores, filas),
+                    List.copyOf(idiomasPorCodigo), ordinales,
+                    Arrays.copyOf(idsAutor, ordinales), Arrays.copyOf(nombresAutor, ordinales),
+                    Arrays.copyOf(nacimientos, ordinales), Arrays.copyOf(muertes, ordinales),
+                    Arrays.copyOf(librosPorAutor, ordinales), Arrays.copyOf(autorActivo, ordinales));
+            sinGuardar = false;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+        try {
+            long inicio = System.nanoTime();
+            ArchivoInstantanea.escribir(ruta, contenido);
+            logger.info("Instantánea del catálogo guardada en {}: {} libros en {} ms",
+                    ruta, contenido.filas(), (System.nanoTime() - inicio) / 1_000_000);
+        } catch (IOException e) {
+            sinGuardar = true;
+            logger.warn("No se pudo guardar la instantánea en {}: {}", ruta, e.getMessage());
+        }
+    }
+
+    // Con el cerrojo de escritura tomado
+    private void restaurar(ArchivoInstantanea.Contenido contenido) {
+        reiniciar();
+        filas = contenido.filas();
+        ids = contenido.ids();
+        descargas = contenido.descargas();
+        idiomas = contenido.idiomas();
+        autores = contenido.autores();
+        for (String idioma : contenido.idiomasPorCodigo()) {
+            codigosIdioma.put(idioma, (short) idiomasPorCodigo.size());
+            idiomasPorCodigo.add(idioma);
+        }
+        ordinales = contenido.ordinales();
+        idsAutor = contenido.idsAutor();
+        nombresAutor = contenido.nombresAutor();
+        nacimientos = contenido.nacimientos();
+        muertes = contenido.muertes();
+        librosPorAutor = contenido.librosPorAutor();
+        autorActivo = contenido.autorActivo();
+        for (int a = 0; a < ordinales; a++) {
+            if (autorActivo[a]) {
+                ordinalesAutor.put(idsAutor[a], a);
+                autoresActivos++;
+            }
+        }
+    }
+
+    // Con el cerrojo de escritura tomado
+    private void reiniciar() {
+        ids = new long[CAPACIDAD_INICIAL];
+        descargas = new int[CAPACIDAD_INICIAL];
+        idiomas = new short[CAPACIDAD_INICIAL];
+        autores = new int[CAPACIDAD_INICIAL];
+        filas = 0;
+        idiomasPorCodigo.clear();
+        codigosIdioma.clear();
+        idsAutor = new long[CAPACIDAD_INICIAL];
+        nombresAutor = new String[CAPACIDAD_INICIAL];
+        nacimientos = new int[CAPACIDAD_INICIAL];
+        muertes = new int[CAPACIDAD_INICIAL];
+        librosPorAutor = new int[CAPACIDAD_INICIAL];
+        autorActivo = new boolean[CAPACIDAD_INICIAL];
+        ordinales = 0;
+        autoresActivos = 0;
+        ordinalesAutor.clear();
+    }
+
+    private Path ruta() {
+        return archivo == null || archivo.isBlank() ? null : Path.of(archivo);
+    }
+
+    // Con el cerrojo de escritura tomado
+    private void guardarLibro(long id, String idioma, int descargasLibro, Long autorId) {
+        int autor = autorId != null ? ordinalAutor(autorId) : SIN_AUTOR;
+        int fila = Arrays.binarySearch(ids, 0, filas, id);
+        if (fila >= 0) {
+            if (autores[fila] != SIN_AUTOR) {
+                librosPorAutor[autores[fila]]--;
+            }
+        } else {
+            // La carga y casi todos los libros nuevos llegan en orden de id: se agregan al final
+            fila = -(fila + 1);
+            asegurarFilas(filas + 1);
+            int siguientes = filas - fila;
+            if (siguientes > 0) {
+                System.arraycopy(ids, fila, ids, fila + 1, siguientes);
+                System.arraycopy(descargas, fila, descargas, fila + 1, siguientes);
+                System.arraycopy(idiomas, fila, idiomas, fila + 1, siguientes);
+                System.arraycopy(autores, fila, autores, fila + 1, siguientes);
+            }
+            filas++;
+            ids[fila] = id;
+        }
+        descargas[fila] = descargasLibro;
+        idiomas[fila] = codificar(idioma);
+        autores[fila] = autor;
+        if (autor != SIN_AUTOR) {
+            librosPorAutor[autor]++;
+        }
+    }
+
+    private void guardarAutor(long id, String nombre, Integer fechaNacimiento, Integer fechaMuerte) {
+        int ordinal = ordinalAutor(id);
+        nombresAutor[ordinal] = nombre;
+        nacimientos[ordinal] = fechaNacimiento != null ? fechaNacimiento : SIN_AÑO;
+        muertes[ordinal] = fechaMuerte != null ? fechaMuerte : SIN_AÑO;
+    }
+
+    // Con el cerrojo de escritura tomado
+    private void borrarLibro(long id) {
+        int fila = Arrays.binarySearch(ids, 0, filas, id);
+        if (fila < 0) {
+            return;
+        }
+        if (autores[fila] != SIN_AUTOR) {
+            librosPorAutor[autores[fila]]--;
+        }
+        int siguientes = filas - fila - 1;
+        System.arraycopy(ids, fila + 1, ids, fila, siguientes);
+        System.arraycopy(descargas, fila + 1, descargas, fila, siguientes);
+        System.arraycopy(idiomas, fila + 1, idiomas, fila, siguientes);
+        System.arraycopy(autores, fila + 1, autores, fila, siguientes);
+        filas--;
+    }
+
+    // Con el cerrojo de escritura tomado; el ordinal queda, inactivo
+    private void borrarAutor(long id) {
+        Integer ordinal = ordinalesAutor.remove(id);
+        if (ordinal != null && autorActivo[ordinal]) {
+            autorActivo[ordinal] = false;
+            autoresActivos--;
+        }
+    }
+
+    // Un libro puede llegar antes que su autor: el ordinal se crea sin datos y guardarAutor los completa
+    private int ordinalAutor(long id) {
+        Integer ordinal = ordinalesAutor.get(id);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        asegurarAutores(ordinales + 1);
+        int nuevo = ordinales++;
+        idsAutor[nuevo] = id;
+        nacimientos[nuevo] = SIN_AÑO;
+        muertes[nuevo] = SIN_AÑO;
+        autorActivo[nuevo] = true;
+        autoresActivos++;
+        ordinalesAutor.put(id, nuevo);
+        return nuevo;
+    }
+
+    private short codificar(String idioma) {
+        Short codigo = codigosIdioma.get(idioma);
+        if (codigo != null) {
+            return codigo;
+        }
+        if (idiomasPorCodigo.size() > Short.MAX_VALUE) {
+            throw new IllegalStateException("Demasiados idiomas distintos para la instantánea del catálogo");
+        }
+        short nuevo = (short) idiomasPorCodigo.size();
+        idiomasPorCodigo.add(idioma);
+        codigosIdioma.put(idioma, nuevo);
+        return nuevo;
+    }
+
+    private int codigo(String idioma) {
+        Short codigo = codigosIdioma.get(idioma);
+        return codigo != null ? codigo : -1;
+    }
+
+    private void asegurarFilas(int minimo) {
+        if (minimo <= ids.length) {
+            return;
+        }
+        int capacidad = Math.max(minimo, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacidad);
+        descargas = Arrays.copyOf(descargas, capacidad);
+        idiomas = Arrays.copyOf(idiomas, capacidad);
+        autores = Arrays.copyOf(autores, capacidad);
+    }
+
+    private void asegurarAutores(int minimo) {
+        if (minimo <= idsAutor.length) {
+            return;
+        }
+        int capacidad = Math.max(minimo, idsAutor.length + (idsAutor.length >> 1));
+        idsAutor = Arrays.copyOf(idsAutor, capacidad);
+        nombresAutor = Arrays.copyOf(nombresAutor, capacidad);
+        nacimientos = Arrays.copyOf(nacimientos, capacidad);
+        muertes = Arrays.copyOf(muertes, capacidad);
+        librosPorAutor = Arrays.copyOf(librosPorAutor, capacidad);
+        autorActivo = Arrays.copyOf(autorActivo, capacidad);
+    }
+}
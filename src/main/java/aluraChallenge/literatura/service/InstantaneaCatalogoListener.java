@@ -0,0 +1,50 @@
+package aluraChallenge.literatura.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import aluraChallenge.literatura.models.Autor;
+import aluraChallenge.literatura.models.Libro;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Lleva a la instantánea del catálogo cada libro y autor guardado por JPA, al
+ * confirmar la transacción. Se registra en ambas entidades, por eso recibe Object.
+ */
+@Component
+public class InstantaneaCatalogoListener {
+
+    @Autowired
+    private InstantaneaCatalogo instantaneaCatalogo;
+
+    @PostPersist
+    @PostUpdate
+    void guardado(Object entidad) {
+        if (entidad instanceof Libro libro) {
+            var id = libro.getId();
+            var idioma = libro.getIdioma();
+            int descargas = libro.getNumeroDescargas() != null ? libro.getNumeroDescargas() : 0;
+            var autorId = libro.getAutor() != null ? libro.getAutor().getId() : null;
+            Transacciones.alConfirmar(() -> instantaneaCatalogo.registrarLibro(id, idioma, descargas, autorId));
+        } else if (entidad instanceof Autor autor) {
+            var id = autor.getId();
+            var nombre = autor.getNombre();
+            var nacimiento = autor.getFechaNacimiento();
+            var muerte = autor.getFechaMuerte();
+            Transacciones.alConfirmar(() -> instantaneaCatalogo.registrarAutor(id, nombre, nacimiento, muerte));
+        }
+    }
+
+    @PostRemove
+    void borrado(Object entidad) {
+        if (entidad instanceof Libro libro) {
+            var id = libro.getId();
+            Transacciones.alConfirmar(() -> instantaneaCatalogo.quitarLibro(id));
+        } else if (entidad instanceof Autor autor) {
+            var id = autor.getId();
+            Transacciones.alConfirmar(() -> instantaneaCatalogo.quitarAutor(id));
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package aluraChallenge.literatura.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import aluraChallenge.literatura.dto.DatosAutor;
+import aluraChallenge.literatura.dto.DatosLibro;
+
+/**
+ * Lee pg_catalog.csv, el catálogo completo que publica Project Gutenberg, desde un
+ * buffer (normalmente un archivo mapeado en memoria).
+ *
+ * Columnas: Text#, Type, Issued, Title, Language, Authors, Subjects, LoCC, Bookshelves.
+ * Los campos entre comillas pueden tener comas y saltos de línea, así que el archivo
+ * no se puede cortar en cualquier salto de línea: {@link #dividir} busca cortes fuera
+ * de comillas y cada trozo se puede leer después en paralelo con {@link #leer}.
+ */
+public final class LectorCatalogoCsv {
+
+    private static final int COLUMNA_ID = 0;
+    private static final int COLUMNA_TIPO = 1;
+    private static final int COLUMNA_TITULO = 3;
+    private static final int COLUMNA_IDIOMAS = 4;
+    private static final int COLUMNA_AUTORES = 5;
+
+    // "Dickens, Charles, 1812-1870", "Homer, 751? BCE-651? BCE", "Smith, John, -1850"
+    private static final Pattern AUTOR_CON_FECHAS = Pattern.compile("^(.*?),\\s*([^,]*\\d[^,]*)$");
+    private static final Pattern ROL = Pattern.compile("\\s*\\[[^\\]]*\\]\\s*$");
+    private static final Pattern SALTOS = Pattern.compile("\\s*\\R\\s*");
+    private static final Pattern ANIO = Pattern.compile("(\\d+)\\??\\s*(BCE)?");
+
+    /** Filas leídas y descartadas (cabecera, audiolibros, sin título) de un trozo. */
+    public record Conteo(int filas, int descartadas) {}
+
+    private LectorCatalogoCsv() {}
+
+    /**
+     * Divide el buffer en hasta {@code partes} trozos que empiezan al principio de una fila.
+     * Solo sigue la paridad de las comillas byte a byte; el trabajo caro queda para {@link #leer}.
+     *
+     * @return posiciones de inicio de cada trozo, más el final del buffer
+     */
+    public static int[] dividir(ByteBuffer datos, int partes) {
+        int tamano = datos.limit();
+        List<Integer> cortes = new ArrayList<>();
+        cortes.add(0);
+        long objetivo = (long) tamano / partes;
+        boolean enComillas = false;
+        for (int i = 0; i < tamano && cortes.size() < partes; i++) {
+            byte b = datos.get(i);
+            if (b == '"') {
+                enComillas = !enComillas;
+            } else if (b == '\n' && !enComillas && i + 1 >= objetivo * cortes.size() && i + 1 < tamano) {
+                cortes.add(i + 1);
+            }
+        }
+        cortes.add(tamano);
+        return cortes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Lee las filas entre {@code inicio} y {@code fin} y entrega como {@link DatosLibro}
+     * las que son textos. El buffer no se modifica, así que varios hilos pueden leer a la vez.
+     */
+    public static Conteo leer(ByteBuffer datos, int inicio, int fin, Consumer<DatosLibro> destino) {
+        var campos = new ArrayList<String>(9);
+        byte[] campo = new byte[256];
+        int largo = 0;
+        boolean enComillas = false;
+        int filas = 0;
+        int descartadas = 0;
+
+        for (int i = inicio; i < fin; i++) {
+            byte b = datos.get(i);
+            if (enComillas) {
+                if (b == '"') {
+                    if (i + 1 < fin && datos.get(i + 1) == '"') {
+                        // "" dentro de comillas es una comilla literal
+                        i++;
+                    } else {
+                        enComillas = false;
+                        continue;
+                    }
+                }
+            } else if (b == '"') {
+                enComillas = true;
+                continue;
+            } else if (b == ',') {
+                campos.add(new String(campo, 0, largo, StandardCharsets.UTF_8));
+                largo = 0;
+                continue;
+            } else if (b == '\n' || b == '\r') {
+                if (b == '\r' && i + 1 < fin && datos.get(i + 1) == '\n') {
+                    i++;
+                }
+                campos.add(new String(campo, 0, largo, StandardCharsets.UTF_8));
+                largo = 0;
+                filas++;
+                if (!entregar(campos, destino)) {
+                    descartadas++;
+                }
+                campos.clear();
+                continue;
+            }
+            if (largo == campo.length) {
+                campo = Arrays.copyOf(campo, largo * 2);
+            }
+            campo[largo++] = b;
+        }
+        // Última fila sin salto de línea final
+        if (largo > 0 || !campos.isEmpty()) {
+            campos.add(new String(campo, 0, largo, StandardCharsets.UTF_8));
+            filas++;
+            if (!entregar(campos, destino)) {
+                descartadas++;
+            }
+        }
+        return new Conteo(filas, descartadas);
+    }
+
+    private static boolean entregar(List<String> campos, Consumer<DatosLibro> destino) {
+        // Gutendex solo lista textos; la cabecera ("Type") también queda fuera
+        if (campos.size() <= COLUMNA_AUTORES || !"Text".equals(campos.get(COLUMNA_TIPO))) {
+            return false;
+        }
+        String titulo = campos.get(COLUMNA_TITULO);
+        if (titulo.indexOf('\n') >= 0 || titulo.indexOf('\r') >= 0) {
+            // Algunos títulos traen el subtítulo en otra línea
+            titulo = SALTOS.matcher(titulo).replaceAll(" ");
+        }
+        titulo = titulo.trim();
+        if (titulo.isEmpty()) {
+            return false;
+        }
+        // Sin conteo de descargas en el CSV: MapeoLibros deja 0
+        destino.accept(new DatosLibro(titulo,
+                autores(campos.get(COLUMNA_AUTORES)),
+                idiomas(campos.get(COLUMNA_IDIOMAS)),
+                null,
+                idGutenberg(campos.get(COLUMNA_ID))));
+        return true;
+    }
+
+    // Text# es el mismo id que usa Gutendex
+    static Integer idGutenberg(String campo) {
+        try {
+            return Integer.valueOf(campo.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static List<String> idiomas(String campo) {
+        return Arrays.stream(campo.split(";"))
+                .map(String::trim)
+                .filter(idioma -> !idioma.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Autores de la fila, sin ilustradores, editores ni otros colaboradores (los que
+     * llevan un rol entre corchetes), igual que la lista "authors" de Gutendex.
+     */
+    static List<DatosAutor> autores(String campo) {
+        List<DatosAutor> autores = new ArrayList<>();
+        for (String parte : campo.split(";")) {
+            String texto = parte.trim();
+            if (texto.isEmpty() || ROL.matcher(texto).find()) {
+                continue;
+            }
+            autores.add(autor(texto));
+        }
+        return autores;
+    }
+
+    static DatosAutor autor(String texto) {
+        Matcher conFechas = AUTOR_CON_FECHAS.matcher(texto);
+        if (!conFechas.matches()) {
+            return new DatosAutor(texto, null, null);
+        }
+        String fechas = conFechas.group(2).trim();
+        // Los años antes de Cristo no llevan signo: el único guion separa nacimiento y muerte
+        int guion = fechas.indexOf('-');
+        if (guion < 0) {
+            // "active 1800", "fl. 1400": no son fechas de vida
+            return new DatosAutor(conFechas.group(1).trim(), null, null);
+        }
+        return new DatosAutor(conFechas.group(1).trim(),
+                anio(fechas.substring(0, guion)),
+                anio(fechas.substring(guion + 1)));
+    }
+
+    private static Integer anio(String texto) {
+        Matcher anio = ANIO.matcher(texto);
+        if (!anio.find()) {
+            return null;
+        }
+        int valor = Integer.parseInt(anio.group(1));
+        return anio.group(2) != null ? -valor : valor;
+    }
+}
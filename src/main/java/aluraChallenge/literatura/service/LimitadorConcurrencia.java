@@ -0,0 +1,131 @@
+package aluraChallenge.literatura.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import aluraChallenge.literatura.dto.EstadoLimitador;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Límite adaptativo de peticiones simultáneas a Gutendex (AIMD).
+ *
+ * Cada respuesta correcta con el límite en uso lo sube en 1/límite, es decir, en
+ * una unidad por cada ronda completa de peticiones; cada señal de sobrecarga
+ * (429, 5xx o error de red) lo multiplica por {@code factorReduccion}. Las
+ * peticiones que no caben esperan en una cola acotada; si la cola está llena se
+ * rechazan de inmediato.
+ */
+@Component
+public class LimitadorConcurrencia {
+
+    private static final Logger logger = LoggerFactory.getLogger(LimitadorConcurrencia.class);
+
+    @Value("${literatura.api.limite.inicial:4}")
+    private int limiteInicial;
+
+    @Value("${literatura.api.limite.minimo:1}")
+    private int limiteMinimo;
+
+    @Value("${literatura.api.limite.maximo:64}")
+    private int limiteMaximo;
+
+    @Value("${literatura.api.limite.factor-reduccion:0.7}")
+    private double factorReduccion;
+
+    @Value("${literatura.api.limite.cola-maxima:1000}")
+    private int colaMaxima;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<CompletableFuture<Void>> enEspera = new ArrayDeque<>();
+    private double limite;
+    private int enVuelo;
+
+    private final AtomicLong rechazos = new AtomicLong();
+    private final AtomicLong reducciones = new AtomicLong();
+    private final AtomicLong reintentos = new AtomicLong();
+
+    @PostConstruct
+    void iniciar() {
+        limite = Math.max(limiteMinimo, Math.min(limiteMaximo, limiteInicial));
+    }
+
+    /**
+     * Pide un permiso. El futuro se completa cuando hay hueco; cada permiso obtenido
+     * debe devolverse con {@link #liberar(boolean)}.
+     */
+    public CompletableFuture<Void> adquirir() {
+        lock.lock();
+        try {
+            if (enVuelo < (int) limite && enEspera.isEmpty()) {
+                enVuelo++;
+                return CompletableFuture.completedFuture(null);
+            }
+            if (enEspera.size() >= colaMaxima) {
+                rechazos.incrementAndGet();
+                return CompletableFuture.failedFuture(new RuntimeException(
+                        "Demasiadas peticiones en espera hacia Gutendex, intente más tarde"));
+            }
+            var espera = new CompletableFuture<Void>();
+            enEspera.addLast(espera);
+            return espera;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Devuelve un permiso y ajusta el límite según el resultado de la petición.
+     *
+     * @param sobrecarga true si el servidor respondió 429/5xx o la petición falló por red
+     */
+    public void liberar(boolean sobrecarga) {
+        List<CompletableFuture<Void>> despertar = new ArrayList<>();
+        lock.lock();
+        try {
+            if (sobrecarga) {
+                double anterior = limite;
+                limite = Math.max(limiteMinimo, limite * factorReduccion);
+                if ((int) limite < (int) anterior) {
+                    reducciones.incrementAndGet();
+                    logger.debug("Gutendex sobrecargado, límite de concurrencia {} -> {}", (int) anterior, (int) limite);
+                }
+            } else if (enVuelo >= (int) limite) {
+                // Solo crece si el límite realmente se estaba usando
+                limite = Math.min(limiteMaximo, limite + 1.0 / limite);
+            }
+            enVuelo--;
+
+            while (enVuelo < (int) limite && !enEspera.isEmpty()) {
+                enVuelo++;
+                despertar.add(enEspera.pollFirst());
+            }
+        } finally {
+            lock.unlock();
+        }
+        // Las continuaciones de los que esperaban se ejecutan fuera del lock
+        despertar.forEach(espera -> espera.complete(null));
+    }
+
+    public void registrarReintento() {
+        reintentos.incrementAndGet();
+    }
+
+    public EstadoLimitador estado() {
+        lock.lock();
+        try {
+            return new EstadoLimitador((int) limite, enVuelo, enEspera.size(),
+                    rechazos.get(), reducciones.get(), reintentos.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
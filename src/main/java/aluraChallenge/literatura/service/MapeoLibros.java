@@ -0,0 +1,98 @@
+package aluraChallenge.literatura.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import aluraChallenge.literatura.dto.DatosAutor;
+import aluraChallenge.literatura.dto.DatosLibro;
+import aluraChallenge.literatura.dto.PosicionRanking;
+
+/**
+ * Reglas para convertir los datos de Gutendex en filas de la biblioteca.
+ * {@link GuardadoLibros} las aplica tanto al guardar libros desde el menú como en la carga masiva.
+ */
+public final class MapeoLibros {
+
+    public static final String IDIOMA_DESCONOCIDO = "desconocido";
+
+    private MapeoLibros() {}
+
+    // Solo se registra el primer autor del libro
+    public static DatosAutor autorPrincipal(DatosLibro datosLibro) {
+        if (datosLibro.autores() == null || datosLibro.autores().isEmpty()) {
+            return null;
+        }
+        return datosLibro.autores().get(0);
+    }
+
+    public static String idioma(DatosLibro datosLibro) {
+        if (datosLibro.idiomas() == null || datosLibro.idiomas().isEmpty()) {
+            return IDIOMA_DESCONOCIDO;
+        }
+        return datosLibro.idiomas().get(0);
+    }
+
+    public static Integer descargas(DatosLibro datosLibro) {
+        return datosLibro.numeroDescargas() != null ? datosLibro.numeroDescargas() : 0;
+    }
+
+    /**
+     * Autor principal de cada libro por clave normalizada: "Twain, Mark" y "twain,  mark"
+     * son el mismo autor y gana el primero que aparece.
+     */
+    public static Map<String, DatosAutor> autoresPorClave(Collection<DatosLibro> libros) {
+        Map<String, DatosAutor> autores = new LinkedHashMap<>();
+        for (DatosLibro datosLibro : libros) {
+            DatosAutor datosAutor = autorPrincipal(datosLibro);
+            if (datosAutor != null && datosAutor.nombre() != null && !datosAutor.nombre().isBlank()) {
+                autores.putIfAbsent(CacheAutores.clave(datosAutor.nombre()), datosAutor);
+            }
+        }
+        return autores;
+    }
+
+    /**
+     * Un libro listo para mostrar y registrar. El id del autor va aparte: el nombre de la
+     * posición puede ser el de relleno ("Desconocido") y no sirve para buscarlo.
+     */
+    public record LibroMapeado(PosicionRanking posicion, Long autorId) {}
+
+    /** Columnas del INSERT ... unnest de libros, y lo que se registra de cada título. */
+    public record ColumnasLibros(
+        Long[] ids,
+        String[] titulos,
+        Long[] autores,
+        String[] idiomas,
+        Integer[] descargas,
+        Integer[] idsGutenberg,
+        Map<String, LibroMapeado> porTitulo
+    ) {}
+
+    /**
+     * Arma las columnas de {@code libros} con los {@code ids} ya reservados; el autor sale
+     * de {@code idsAutores} (por clave normalizada) y queda null si no está.
+     */
+    public static ColumnasLibros columnasLibros(List<DatosLibro> libros, long[] ids, Map<String, Long> idsAutores) {
+        int n = libros.size();
+        var columnas = new ColumnasLibros(new Long[n], new String[n], new Long[n], new String[n],
+                new Integer[n], new Integer[n], new HashMap<>());
+        for (int i = 0; i < n; i++) {
+            DatosLibro libro = libros.get(i);
+            DatosAutor autor = autorPrincipal(libro);
+            boolean conAutor = autor != null && autor.nombre() != null;
+            columnas.ids()[i] = ids[i];
+            columnas.titulos()[i] = libro.titulo();
+            columnas.autores()[i] = conAutor ? idsAutores.get(CacheAutores.clave(autor.nombre())) : null;
+            columnas.idiomas()[i] = idioma(libro);
+            columnas.descargas()[i] = descargas(libro);
+            columnas.idsGutenberg()[i] = libro.idGutenberg();
+            var posicion = new PosicionRanking(ids[i], libro.titulo(),
+                    conAutor ? autor.nombre() : "Desconocido", columnas.idiomas()[i], columnas.descargas()[i]);
+            columnas.porTitulo().put(libro.titulo(), new LibroMapeado(posicion, columnas.autores()[i]));
+        }
+        return columnas;
+    }
+}
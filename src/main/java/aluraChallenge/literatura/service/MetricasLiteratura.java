@@ -0,0 +1,224 @@
+package aluraChallenge.literatura.service;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import aluraChallenge.literatura.models.Autor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Métricas propias de la aplicación, publicadas en Micrometer (/actuator/prometheus):
+ *
+ * - literatura.gutendex.peticiones: latencia de cada petición HTTP a Gutendex,
+ *   por tipo de consulta y código de estado; literatura.gutendex.bytes, el tamaño
+ *   comprimido (en la red) y descomprimido de cada respuesta.
+ * - literatura.operaciones: duración de cada opción del menú, y con ella las entidades
+ *   cargadas y sentencias preparadas por Hibernate mientras se ejecutaba.
+ *
+ * Los métodos de los repositorios los mide Spring Boot (spring.data.repository.invocations)
+ * y las estadísticas globales de Hibernate salen como hibernate.*.
+ */
+@Component
+public class MetricasLiteratura {
+
+    public static final String PETICIONES = "literatura.gutendex.peticiones";
+    public static final String BYTES = "literatura.gutendex.bytes";
+    public static final String OPERACIONES = "literatura.operaciones";
+    public static final String ENTIDADES = "literatura.operaciones.entidades";
+    public static final String SENTENCIAS = "literatura.operaciones.sentencias";
+    public static final String REPOSITORIOS = "spring.data.repository.invocations";
+
+    /** Una fila del resumen por consola: cantidad, promedio, p95 y máximo en ms. */
+    public record Medicion(String nombre, long cantidad, double promedioMs, double p95Ms, double maximoMs) {}
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RegistroConsultasLentas consultasLentas;
+
+    @Autowired
+    private CoberturaPeticiones cobertura;
+
+    private Statistics hibernate;
+
+    @PostConstruct
+    void iniciar() {
+        hibernate = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        FunctionCounter.builder("literatura.sql.lentas", consultasLentas, RegistroConsultasLentas::lentas)
+                .description("Sentencias SQL que superaron literatura.sql.lenta.umbral")
+                .register(registry);
+        FunctionCounter.builder("literatura.gutendex.coberturas", cobertura, c -> c.estado().coberturas())
+                .description("Peticiones de cobertura enviadas por respuestas lentas")
+                .register(registry);
+        FunctionCounter.builder("literatura.gutendex.coberturas.ganadas", cobertura, c -> c.estado().ganadas())
+                .description("Coberturas que respondieron antes que la petición original")
+                .register(registry);
+    }
+
+    /**
+     * Tipo de consulta a Gutendex según sus parámetros, para no crear una serie por URL.
+     */
+    public static String tipoConsulta(String url) {
+        String consulta = URI.create(url).getRawQuery();
+        if (consulta == null) {
+            return "raiz";
+        }
+        if (consulta.contains("sort=popular")) {
+            return "populares";
+        }
+        if (consulta.contains("search=")) {
+            return "busqueda";
+        }
+        if (consulta.contains("topic=")) {
+            return "tema";
+        }
+        if (consulta.contains("languages=")) {
+            return "idioma";
+        }
+        if (consulta.contains("author_year_")) {
+            return "anios_autor";
+        }
+        if (consulta.contains("ids=")) {
+            return "ids";
+        }
+        if (consulta.contains("page=")) {
+            return "catalogo";
+        }
+        return "otra";
+    }
+
+    /**
+     * @param estado código HTTP, o el nombre de la excepción si no hubo respuesta
+     */
+    public void registrarPeticion(String url, String estado, long nanos) {
+        Timer.builder(PETICIONES)
+                .tag("consulta", tipoConsulta(url))
+                .tag("estado", estado)
+                .publishPercentiles(0.5, 0.95)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Tamaño de un cuerpo tal como llegó por la red (capa=red) y ya descomprimido
+     * (capa=decodificado).
+     */
+    public void registrarBytes(String url, long red, long decodificados) {
+        String tipo = tipoConsulta(url);
+        DistributionSummary.builder(BYTES)
+                .tag("consulta", tipo)
+                .tag("capa", "red")
+                .baseUnit("bytes")
+                .register(registry)
+                .record(red);
+        DistributionSummary.builder(BYTES)
+                .tag("consulta", tipo)
+                .tag("capa", "decodificado")
+                .baseUnit("bytes")
+                .register(registry)
+                .record(decodificados);
+    }
+
+    /**
+     * Ejecuta una opción del menú midiendo su duración y el trabajo de Hibernate.
+     * Las estadísticas de Hibernate son globales: si a la vez llegan peticiones a la
+     * API HTTP, su trabajo también se suma aquí.
+     */
+    public void medir(String operacion, Runnable accion) {
+        long entidades = hibernate.getEntityLoadCount() + hibernate.getEntityFetchCount();
+        long sentencias = hibernate.getPrepareStatementCount();
+        long inicio = System.nanoTime();
+        String resultado = "ok";
+        try {
+            accion.run();
+        } catch (RuntimeException e) {
+            resultado = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Timer.builder(OPERACIONES)
+                    .tag("operacion", operacion)
+                    .tag("resultado", resultado)
+                    .publishPercentiles(0.5, 0.95)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            if (hibernate.isStatisticsEnabled()) {
+                DistributionSummary.builder(ENTIDADES)
+                        .tag("operacion", operacion)
+                        .register(registry)
+                        .record(hibernate.getEntityLoadCount() + hibernate.getEntityFetchCount() - entidades);
+                DistributionSummary.builder(SENTENCIAS)
+                        .tag("operacion", operacion)
+                        .register(registry)
+                        .record(hibernate.getPrepareStatementCount() - sentencias);
+            }
+        }
+    }
+
+    /**
+     * Filas de un timer agrupadas por las etiquetas indicadas, de la más usada a la menos.
+     */
+    public List<Medicion> resumen(String metrica, String... etiquetas) {
+        return registry.find(metrica).timers().stream()
+                .map(timer -> new Medicion(
+                        String.join(" ", Arrays.stream(etiquetas).map(timer.getId()::getTag).toList()),
+                        timer.count(),
+                        timer.mean(TimeUnit.MILLISECONDS),
+                        percentil(timer, 0.95),
+                        timer.max(TimeUnit.MILLISECONDS)))
+                .sorted(Comparator.comparingLong(Medicion::cantidad).reversed())
+                .toList();
+    }
+
+    /** Promedio de un DistributionSummary con esta etiqueta, o 0 si no hay datos. */
+    public double promedio(String metrica, String etiqueta, String valor) {
+        var resumen = registry.find(metrica).tag(etiqueta, valor).summary();
+        return resumen != null ? resumen.mean() : 0;
+    }
+
+    public Statistics hibernate() {
+        return hibernate;
+    }
+
+    public double tasaAciertosCacheAutores() {
+        var region = hibernate.getDomainDataRegionStatistics(Autor.REGION_CACHE);
+        if (region == null) {
+            return 0;
+        }
+        long consultas = region.getHitCount() + region.getMissCount();
+        return consultas > 0 ? (double) region.getHitCount() / consultas : 0;
+    }
+
+    public long consultasLentas() {
+        return consultasLentas.lentas();
+    }
+
+    // -1 si la métrica no publica ese percentil
+    private static double percentil(Timer timer, double percentil) {
+        for (ValueAtPercentile valor : timer.takeSnapshot().percentileValues()) {
+            if (valor.percentile() == percentil) {
+                return valor.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return -1;
+    }
+}
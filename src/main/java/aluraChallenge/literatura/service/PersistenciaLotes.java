@@ -0,0 +1,101 @@
+package aluraChallenge.literatura.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import aluraChallenge.literatura.dto.DatosLibro;
+
+/**
+ * Guarda libros en lotes, cada lote en su propia transacción, con
+ * {@link GuardadoLibros}. Si un lote falla se reintenta libro por libro. La usan
+ * la carga masiva desde Gutendex y la importación del CSV.
+ */
+@Component
+public class PersistenciaLotes {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistenciaLotes.class);
+
+    @Autowired
+    private GuardadoLibros guardadoLibros;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    public Etapa nuevaEtapa(int tamanoLote) {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor a 0");
+        }
+        return new Etapa(tamanoLote);
+    }
+
+    /**
+     * Acumula libros hasta completar un lote y lo persiste. La usa un solo hilo,
+     * así que los contadores no necesitan sincronización.
+     */
+    public class Etapa {
+        private final int tamanoLote;
+        private final List<DatosLibro> pendientes;
+
+        private int librosLeidos;
+        private int librosGuardados;
+        private int autoresNuevos;
+        private int duplicados;
+        private int fallidos;
+
+        private Etapa(int tamanoLote) {
+            this.tamanoLote = tamanoLote;
+            this.pendientes = new ArrayList<>(tamanoLote);
+        }
+
+        public void agregar(List<DatosLibro> libros) {
+            librosLeidos += libros.size();
+            for (DatosLibro libro : libros) {
+                pendientes.add(libro);
+                if (pendientes.size() >= tamanoLote) {
+                    vaciar();
+                }
+            }
+        }
+
+        public void vaciar() {
+            if (pendientes.isEmpty()) {
+                return;
+            }
+            var lote = List.copyOf(pendientes);
+            pendientes.clear();
+
+            try {
+                sumar(transactionTemplate.execute(estado -> guardadoLibros.guardar(lote)));
+            } catch (RuntimeException e) {
+                // Un solo libro inválido (p. ej. un título demasiado largo) no debe tumbar todo el lote
+                logger.warn("Falló el lote de {} libros, se reintenta uno por uno: {}", lote.size(), e.getMessage());
+                for (DatosLibro datosLibro : lote) {
+                    try {
+                        sumar(transactionTemplate.execute(estado -> guardadoLibros.guardar(List.of(datosLibro))));
+                    } catch (RuntimeException ex) {
+                        fallidos++;
+                        logger.debug("No se pudo guardar '{}': {}", datosLibro.titulo(), ex.getMessage());
+                    }
+                }
+            }
+        }
+
+        private void sumar(GuardadoLibros.Resultado resultado) {
+            librosGuardados += resultado.guardados().size();
+            autoresNuevos += resultado.autoresNuevos();
+            duplicados += resultado.duplicados();
+        }
+
+        public int librosLeidos() { return librosLeidos; }
+        public int librosGuardados() { return librosGuardados; }
+        public int autoresNuevos() { return autoresNuevos; }
+        public int duplicados() { return duplicados; }
+        public int fallidos() { return fallidos; }
+    }
+}
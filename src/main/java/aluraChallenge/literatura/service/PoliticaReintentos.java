@@ -0,0 +1,86 @@
+package aluraChallenge.literatura.service;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cuándo y cuánto esperar antes de repetir una petición fallida a Gutendex.
+ *
+ * La espera es exponencial con jitter completo (un valor aleatorio entre 0 y
+ * base·2^intento, con tope), para que los clientes no reintenten todos a la vez.
+ * Si el servidor envía Retry-After, nunca se espera menos de lo que pide; si pide
+ * más que la espera máxima, no se reintenta.
+ */
+@Component
+public class PoliticaReintentos {
+
+    private static final Logger logger = LoggerFactory.getLogger(PoliticaReintentos.class);
+
+    // Más segundos que esto no entran en un Duration expresado en milisegundos
+    private static final long MAXIMO_SEGUNDOS = Long.MAX_VALUE / 1000;
+
+    @Value("${literatura.api.reintentos.maximo:4}")
+    private int maxReintentos;
+
+    @Value("${literatura.api.reintentos.espera-base:PT0.5S}")
+    private Duration esperaBase;
+
+    @Value("${literatura.api.reintentos.espera-maxima:PT30S}")
+    private Duration esperaMaxima;
+
+    public boolean debeReintentar(int intento) {
+        return intento < maxReintentos;
+    }
+
+    // 429 y 5xx indican un problema pasajero del servidor; el resto de errores no cambia al repetir
+    public static boolean esReintentable(int codigo) {
+        return codigo == 429 || codigo >= 500;
+    }
+
+    /**
+     * La espera antes del próximo intento. El tope solo se aplica a la espera exponencial:
+     * vacío si el servidor pide esperar más que {@code esperaMaxima}, y entonces no se reintenta.
+     */
+    public Optional<Duration> espera(int intento, Optional<String> retryAfter) {
+        long techo = Math.min(esperaMaxima.toMillis(), esperaBase.toMillis() << Math.min(intento, 20));
+        long conJitter = ThreadLocalRandom.current().nextLong(techo + 1);
+        Optional<Duration> pedida = retryAfter.flatMap(PoliticaReintentos::leerRetryAfter);
+        if (pedida.isPresent() && pedida.get().compareTo(esperaMaxima) > 0) {
+            logger.warn("Retry-After pide esperar {} s, más que la espera máxima ({} s): no se reintenta",
+                    pedida.get().toSeconds(), esperaMaxima.toSeconds());
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofMillis(Math.max(conJitter, pedida.map(Duration::toMillis).orElse(0L))));
+    }
+
+    // Retry-After admite segundos o una fecha HTTP
+    static Optional<Duration> leerRetryAfter(String valor) {
+        String texto = valor.trim();
+        if (texto.matches("-?\\d+")) {
+            // Lo que no entra en un long se toma como el extremo; negativo es no esperar
+            long segundos;
+            try {
+                segundos = Long.parseLong(texto);
+            } catch (NumberFormatException e) {
+                segundos = texto.startsWith("-") ? 0 : MAXIMO_SEGUNDOS;
+            }
+            return Optional.of(Duration.ofSeconds(Math.clamp(segundos, 0, MAXIMO_SEGUNDOS)));
+        }
+        try {
+            var fecha = ZonedDateTime.parse(texto, DateTimeFormatter.RFC_1123_DATE_TIME);
+            var hastaFecha = Duration.between(ZonedDateTime.now(fecha.getZone()), fecha);
+            return Optional.of(hastaFecha.isNegative() ? Duration.ZERO : hastaFecha);
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+}
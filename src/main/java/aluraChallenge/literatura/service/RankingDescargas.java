@@ -0,0 +1,251 @@
+package aluraChallenge.literatura.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import aluraChallenge.literatura.dto.PosicionRanking;
+import aluraChallenge.literatura.repository.LibroRepository;
+
+/**
+ * Los K libros más descargados, global y por idioma, guardados en memoria.
+ *
+ * Cada tabla es un min-heap de tamaño K: la cima es el libro con menos descargas
+ * del ranking, así que decidir si un libro nuevo entra cuesta O(log K). Las tablas
+ * se cargan de la base de datos la primera vez que se consultan y después se
+ * actualizan con cada libro guardado (ver {@link RankingDescargasListener}).
+ *
+ * La consulta de carga corre fuera del cerrojo de la tabla, así que registrar y
+ * quitar nunca esperan a la base de datos. Los cambios que llegan mientras tanto se
+ * anotan y se aplican sobre el resultado de la carga.
+ */
+@Component
+public class RankingDescargas {
+
+    private static final String TODOS = "*";
+
+    private static final Comparator<PosicionRanking> MENOS_DESCARGAS =
+            Comparator.comparingInt(PosicionRanking::descargas).thenComparing(PosicionRanking::id);
+
+    @Value("${literatura.ranking.tamano:100}")
+    private int tamano;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    private final Map<String, Tabla> tablas = new ConcurrentHashMap<>();
+
+    public List<PosicionRanking> top(int n) {
+        return top(null, n);
+    }
+
+    public List<PosicionRanking> top(String idioma, int n) {
+        if (n > tamano) {
+            // Más de lo que se guarda en memoria: se consulta directamente
+            return consultar(idioma, n);
+        }
+        return tablas.computeIfAbsent(clave(idioma), clave -> new Tabla(idioma)).top(n);
+    }
+
+    public void registrar(PosicionRanking posicion) {
+        tablas.forEach((clave, tabla) -> {
+            if (clave.equals(TODOS) || clave.equals(posicion.idioma())) {
+                tabla.registrar(posicion);
+            } else {
+                // Por si el libro cambió de idioma
+                tabla.quitar(posicion.id());
+            }
+        });
+    }
+
+    public void quitar(Long id) {
+        tablas.values().forEach(tabla -> tabla.quitar(id));
+    }
+
+    private List<PosicionRanking> consultar(String idioma, int n) {
+        var pagina = PageRequest.of(0, n);
+        var libros = idioma == null
+                ? libroRepository.findMasDescargados(pagina)
+                : libroRepository.findMasDescargadosPorIdioma(idioma, pagina);
+        return libros.stream().map(PosicionRanking::de).toList();
+    }
+
+    private static String clave(String idioma) {
+        return idioma == null ? TODOS : idioma;
+    }
+
+    private final class Tabla {
+        // Un cambio recibido durante la carga: una posición nueva o el id de un libro borrado
+        private record Cambio(PosicionRanking posicion, Long quitado) {}
+
+        private final String idioma;
+        private final PriorityQueue<PosicionRanking> heap = new PriorityQueue<>(MENOS_DESCARGAS);
+        private final Map<Long, PosicionRanking> porId = new HashMap<>();
+        private final ReentrantLock cerrojo = new ReentrantLock();
+        // Un solo hilo consulta la base a la vez; los demás esperan su resultado
+        private final ReentrantLock cerrojoCarga = new ReentrantLock();
+        private boolean cargada;
+        private List<Cambio> duranteCarga;
+
+        Tabla(String idioma) {
+            this.idioma = idioma;
+        }
+
+        List<PosicionRanking> top(int n) {
+            var resultado = leer(n);
+            if (resultado != null) {
+                return resultado;
+            }
+            cargar();
+            resultado = leer(n);
+            // Un cambio aplicado tras la carga pudo vaciarla de nuevo: se responde sin memoria
+            return resultado != null ? resultado : consultar(idioma, n);
+        }
+
+        void registrar(PosicionRanking posicion) {
+            cerrojo.lock();
+            try {
+                if (duranteCarga != null) {
+                    duranteCarga.add(new Cambio(posicion, null));
+                } else if (cargada) {
+                    aplicarRegistro(posicion);
+                }
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+
+        void quitar(Long id) {
+            cerrojo.lock();
+            try {
+                if (duranteCarga != null) {
+                    duranteCarga.add(new Cambio(null, id));
+                } else if (cargada) {
+                    aplicarQuitado(id);
+                }
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+
+        // null si la tabla no está cargada
+        private List<PosicionRanking> leer(int n) {
+            cerrojo.lock();
+            try {
+                if (!cargada) {
+                    return null;
+                }
+                return heap.stream()
+                        .sorted(MENOS_DESCARGAS.reversed())
+                        .limit(n)
+                        .toList();
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+
+        private void cargar() {
+            cerrojoCarga.lock();
+            try {
+                cerrojo.lock();
+                try {
+                    if (cargada) {
+                        return;
+                    }
+                    duranteCarga = new ArrayList<>();
+                } finally {
+                    cerrojo.unlock();
+                }
+
+                List<PosicionRanking> filas;
+                try {
+                    filas = consultar(idioma, tamano);
+                } catch (RuntimeException e) {
+                    cerrojo.lock();
+                    try {
+                        duranteCarga = null;
+                    } finally {
+                        cerrojo.unlock();
+                    }
+                    throw e;
+                }
+
+                cerrojo.lock();
+                try {
+                    filas.forEach(this::agregar);
+                    cargada = true;
+                    // Registrar es idempotente: un cambio que la consulta ya incluía no altera nada
+                    var cambios = duranteCarga;
+                    duranteCarga = null;
+                    for (Cambio cambio : cambios) {
+                        if (!cargada) {
+                            break;
+                        }
+                        if (cambio.posicion() != null) {
+                            aplicarRegistro(cambio.posicion());
+                        } else {
+                            aplicarQuitado(cambio.quitado());
+                        }
+                    }
+                } finally {
+                    cerrojo.unlock();
+                }
+            } finally {
+                cerrojoCarga.unlock();
+            }
+        }
+
+        private void aplicarRegistro(PosicionRanking posicion) {
+            var anterior = porId.get(posicion.id());
+            if (anterior != null && posicion.descargas() < anterior.descargas() && heap.size() >= tamano) {
+                // Bajó dentro de un ranking lleno: el siguiente candidato no está en memoria
+                invalidar();
+                return;
+            }
+            if (anterior != null) {
+                heap.remove(anterior);
+                porId.remove(anterior.id());
+            }
+
+            if (heap.size() < tamano) {
+                agregar(posicion);
+            } else if (MENOS_DESCARGAS.compare(posicion, heap.peek()) > 0) {
+                porId.remove(heap.poll().id());
+                agregar(posicion);
+            }
+        }
+
+        private void aplicarQuitado(Long id) {
+            var anterior = porId.remove(id);
+            if (anterior == null) {
+                return;
+            }
+            if (heap.size() >= tamano) {
+                invalidar();
+            } else {
+                heap.remove(anterior);
+            }
+        }
+
+        private void agregar(PosicionRanking posicion) {
+            heap.add(posicion);
+            porId.put(posicion.id(), posicion);
+        }
+
+        private void invalidar() {
+            heap.clear();
+            porId.clear();
+            cargada = false;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package aluraChallenge.literatura.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import aluraChallenge.literatura.dto.PosicionRanking;
+import aluraChallenge.literatura.models.Libro;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Lleva al ranking en memoria cada libro guardado por JPA. Los cambios se aplican
+ * al confirmar la transacción, para no mostrar libros de una transacción revertida.
+ */
+@Component
+public class RankingDescargasListener {
+
+    @Autowired
+    private RankingDescargas rankingDescargas;
+
+    @PostPersist
+    @PostUpdate
+    void guardado(Libro libro) {
+        var posicion = PosicionRanking.de(libro);
+        Transacciones.alConfirmar(() -> rankingDescargas.registrar(posicion));
+    }
+
+    @PostRemove
+    void borrado(Libro libro) {
+        var id = libro.getId();
+        Transacciones.alConfirmar(() -> rankingDescargas.quitar(id));
+    }
+}
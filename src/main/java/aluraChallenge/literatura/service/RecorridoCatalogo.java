@@ -0,0 +1,104 @@
+package aluraChallenge.literatura.service;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import aluraChallenge.literatura.dto.NombreAutor;
+import aluraChallenge.literatura.dto.PosicionRanking;
+import aluraChallenge.literatura.models.Autor;
+import aluraChallenge.literatura.models.Libro;
+import aluraChallenge.literatura.repository.AutorRepository;
+import aluraChallenge.literatura.repository.LibroRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Recorre libros o autores de la base con un cursor, en memoria constante.
+ *
+ * Las filas llegan de a {@code fetchSize} y el contexto de persistencia se vacía
+ * cada {@link #FILAS_POR_LIMPIEZA} filas, así que ni el driver ni Hibernate
+ * acumulan el resultado completo.
+ */
+@Service
+public class RecorridoCatalogo {
+
+    private static final int FILAS_POR_LIMPIEZA = 500;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate soloLectura;
+
+    @PostConstruct
+    void iniciar() {
+        // PostgreSQL solo usa el cursor dentro de una transacción
+        soloLectura = new TransactionTemplate(transactionManager);
+        soloLectura.setReadOnly(true);
+    }
+
+    /**
+     * Pasa cada libro (todos, o los de un idioma si no es null) a {@code accion}, en orden de id.
+     *
+     * @return cantidad de libros recorridos
+     */
+    public long recorrerLibros(String idioma, Consumer<Libro> accion) {
+        return recorrer(() -> idioma == null
+                ? libroRepository.streamTodos()
+                : libroRepository.streamPorIdioma(idioma), accion);
+    }
+
+    /**
+     * Pasa cada autor a {@code accion}, en orden de id. Sus libros no se cargan.
+     */
+    public long recorrerAutores(Consumer<Autor> accion) {
+        return recorrer(autorRepository::streamTodos, accion);
+    }
+
+    /**
+     * Pasa id, título, autor, idioma y descargas de cada libro a {@code accion}, en orden
+     * de id, leídos como columnas: no se crea ninguna entidad.
+     */
+    public long recorrerPosiciones(Consumer<PosicionRanking> accion) {
+        return recorrer(libroRepository::streamPosiciones, accion);
+    }
+
+    /**
+     * Pasa id y nombre de cada autor a {@code accion}, en orden de id, sin crear entidades.
+     */
+    public long recorrerNombresAutores(Consumer<NombreAutor> accion) {
+        return recorrer(autorRepository::streamNombres, accion);
+    }
+
+    private <T> long recorrer(Supplier<Stream<T>> consulta, Consumer<T> accion) {
+        Long filas = soloLectura.execute(estado -> {
+            try (Stream<T> resultados = consulta.get()) {
+                long leidas = 0;
+                for (Iterator<T> it = resultados.iterator(); it.hasNext(); ) {
+                    accion.accept(it.next());
+                    if (++leidas % FILAS_POR_LIMPIEZA == 0) {
+                        entityManager.clear();
+                    }
+                }
+                return leidas;
+            }
+        });
+        return filas != null ? filas : 0;
+    }
+}
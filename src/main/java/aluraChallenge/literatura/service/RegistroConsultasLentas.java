@@ -0,0 +1,149 @@
+package aluraChallenge.literatura.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registro muestreado de sentencias SQL lentas, en lugar de imprimir cada sentencia
+ * con spring.jpa.show-sql.
+ *
+ * Envuelve el DataSource y mide cada execute* de JDBC, así que cubre tanto lo que
+ * genera Hibernate como lo que se ejecuta con JdbcTemplate. Una sentencia que supera
+ * el umbral se avisa como mucho una vez por intervalo; las repeticiones dentro del
+ * intervalo solo se cuentan y se informan en el aviso siguiente.
+ */
+@Component
+public class RegistroConsultasLentas implements BeanPostProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistroConsultasLentas.class);
+
+    private static final int LARGO_MAXIMO_SQL = 500;
+    private static final int SENTENCIAS_MAXIMAS = 1000;
+
+    private record Muestra(AtomicLong ultimoAviso, AtomicLong omitidas) {}
+
+    // Sentencias lentas vistas, por texto SQL
+    private final ConcurrentHashMap<String, Muestra> muestras = new ConcurrentHashMap<>();
+    private final AtomicLong lentas = new AtomicLong();
+    private final AtomicLong avisos = new AtomicLong();
+
+    @Value("${literatura.sql.lenta.umbral:PT0.2S}")
+    private Duration umbral;
+
+    @Value("${literatura.sql.lenta.intervalo:PT1M}")
+    private Duration intervalo;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof DataSourceMedido)) {
+            return new DataSourceMedido(dataSource);
+        }
+        return bean;
+    }
+
+    public long lentas() {
+        return lentas.get();
+    }
+
+    public long avisos() {
+        return avisos.get();
+    }
+
+    private void registrar(String sql, long nanos) {
+        if (nanos < umbral.toNanos() || sql == null) {
+            return;
+        }
+        lentas.incrementAndGet();
+        if (muestras.size() >= SENTENCIAS_MAXIMAS) {
+            // SQL armado con literales: cada texto es distinto y el mapa no debe crecer sin límite
+            muestras.clear();
+        }
+        var muestra = muestras.computeIfAbsent(sql, clave -> new Muestra(new AtomicLong(Long.MIN_VALUE), new AtomicLong()));
+        long ahora = System.nanoTime();
+        long anterior = muestra.ultimoAviso().get();
+        if (anterior != Long.MIN_VALUE && ahora - anterior < intervalo.toNanos()
+                || !muestra.ultimoAviso().compareAndSet(anterior, ahora)) {
+            muestra.omitidas().incrementAndGet();
+            return;
+        }
+        avisos.incrementAndGet();
+        long omitidas = muestra.omitidas().getAndSet(0);
+        logger.warn("Consulta lenta ({} ms{}): {}", nanos / 1_000_000,
+                omitidas > 0 ? ", " + omitidas + " más desde el último aviso" : "",
+                sql.length() > LARGO_MAXIMO_SQL ? sql.substring(0, LARGO_MAXIMO_SQL) + "..." : sql);
+    }
+
+    private final class DataSourceMedido extends DelegatingDataSource {
+
+        DataSourceMedido(DataSource destino) {
+            super(destino);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return (Connection) medir(Connection.class, super.getConnection(), null);
+        }
+
+        @Override
+        public Connection getConnection(String usuario, String clave) throws SQLException {
+            return (Connection) medir(Connection.class, super.getConnection(usuario, clave), null);
+        }
+    }
+
+    /**
+     * Proxy de una conexión o sentencia JDBC: las sentencias que crea la conexión
+     * recuerdan su SQL y cada execute* se cronometra.
+     */
+    private Object medir(Class<?> tipo, Object destino, String sql) {
+        InvocationHandler manejador = (proxy, metodo, args) -> {
+            String nombre = metodo.getName();
+            if (nombre.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (nombre.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (nombre.startsWith("execute")) {
+                String texto = args != null && args.length > 0 && args[0] instanceof String propio ? propio : sql;
+                long inicio = System.nanoTime();
+                try {
+                    return invocar(metodo, destino, args);
+                } finally {
+                    registrar(texto, System.nanoTime() - inicio);
+                }
+            }
+            Object resultado = invocar(metodo, destino, args);
+            if (destino instanceof Connection && resultado != null && (nombre.equals("prepareStatement")
+                    || nombre.equals("prepareCall") || nombre.equals("createStatement"))) {
+                String preparado = args != null && args.length > 0 && args[0] instanceof String texto ? texto : null;
+                return medir(metodo.getReturnType(), resultado, preparado);
+            }
+            return resultado;
+        };
+        return Proxy.newProxyInstance(RegistroConsultasLentas.class.getClassLoader(), new Class<?>[] {tipo}, manejador);
+    }
+
+    private static Object invocar(Method metodo, Object destino, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
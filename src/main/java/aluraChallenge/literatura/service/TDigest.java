@@ -0,0 +1,204 @@
+package aluraChallenge.literatura.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Percentiles aproximados en memoria acotada (t-digest de Dunning, variante "merging").
+ *
+ * Los valores se acumulan en un búfer; al llenarse se ordenan y se funden con los
+ * centroides existentes, que nunca pasan de unos {@code 2 × compresión}. La función
+ * de escala k1 (arcoseno) deja centroides chicos en los extremos, así que p99 y p1
+ * son mucho más precisos que la mediana. Dos digests se unen sin perder precisión
+ * apreciable, y {@link #aBytes()} permite juntarlos entre procesos.
+ */
+final class TDigest {
+
+    static final double COMPRESION_POR_DEFECTO = 200;
+
+    private final double compresion;
+    private double[] medias;
+    private double[] pesos;
+    private int centroides;
+    private final double[] pendientes;
+    private int cantidadPendientes;
+    private double pesoTotal;
+    private double minimo = Double.POSITIVE_INFINITY;
+    private double maximo = Double.NEGATIVE_INFINITY;
+
+    TDigest() {
+        this(COMPRESION_POR_DEFECTO);
+    }
+
+    TDigest(double compresion) {
+        this.compresion = compresion;
+        int capacidad = (int) Math.ceil(2 * compresion) + 10;
+        this.medias = new double[capacidad];
+        this.pesos = new double[capacidad];
+        this.pendientes = new double[capacidad * 5];
+    }
+
+    void agregar(double valor) {
+        if (cantidadPendientes == pendientes.length) {
+            comprimir();
+        }
+        pendientes[cantidadPendientes++] = valor;
+        minimo = Math.min(minimo, valor);
+        maximo = Math.max(maximo, valor);
+    }
+
+    /** Suma a este digest los valores de {@code otro}, que no se modifica salvo para comprimirse. */
+    void unir(TDigest otro) {
+        otro.comprimir();
+        if (otro.centroides == 0) {
+            return;
+        }
+        comprimir();
+        // Dos listas ordenadas por media: se intercalan y se vuelven a fundir
+        int total = centroides + otro.centroides;
+        double[] m = new double[total];
+        double[] w = new double[total];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < total; k++) {
+            if (j >= otro.centroides || (i < centroides && medias[i] <= otro.medias[j])) {
+                m[k] = medias[i];
+                w[k] = pesos[i++];
+            } else {
+                m[k] = otro.medias[j];
+                w[k] = otro.pesos[j++];
+            }
+        }
+        minimo = Math.min(minimo, otro.minimo);
+        maximo = Math.max(maximo, otro.maximo);
+        fundir(m, w, total);
+    }
+
+    /**
+     * Valor aproximado del cuantil {@code q} (entre 0 y 1), interpolando entre los centros
+     * de los centroides; NaN si no hay valores.
+     */
+    double cuantil(double q) {
+        comprimir();
+        if (centroides == 0) {
+            return Double.NaN;
+        }
+        if (centroides == 1) {
+            return medias[0];
+        }
+        double objetivo = Math.max(0, Math.min(1, q)) * pesoTotal;
+        if (objetivo < pesos[0] / 2) {
+            return interpolar(minimo, medias[0], objetivo / (pesos[0] / 2));
+        }
+        double acumulado = pesos[0] / 2;
+        for (int i = 0; i < centroides - 1; i++) {
+            double tramo = (pesos[i] + pesos[i + 1]) / 2;
+            if (objetivo < acumulado + tramo) {
+                return interpolar(medias[i], medias[i + 1], (objetivo - acumulado) / tramo);
+            }
+            acumulado += tramo;
+        }
+        double ultimo = pesos[centroides - 1] / 2;
+        return interpolar(medias[centroides - 1], maximo, Math.min(1, (objetivo - acumulado) / ultimo));
+    }
+
+    /** Compresión, extremos y centroides (media, peso). */
+    byte[] aBytes() {
+        comprimir();
+        ByteBuffer bytes = ByteBuffer.allocate(Double.BYTES * 3 + Integer.BYTES + centroides * Double.BYTES * 2);
+        bytes.putDouble(compresion).putDouble(minimo).putDouble(maximo).putInt(centroides);
+        for (int i = 0; i < centroides; i++) {
+            bytes.putDouble(medias[i]).putDouble(pesos[i]);
+        }
+        return bytes.array();
+    }
+
+    static TDigest desdeBytes(byte[] datos) {
+        ByteBuffer bytes = ByteBuffer.wrap(datos);
+        var digest = new TDigest(bytes.getDouble());
+        digest.minimo = bytes.getDouble();
+        digest.maximo = bytes.getDouble();
+        int centroides = bytes.getInt();
+        double[] m = new double[centroides];
+        double[] w = new double[centroides];
+        for (int i = 0; i < centroides; i++) {
+            m[i] = bytes.getDouble();
+            w[i] = bytes.getDouble();
+        }
+        digest.fundir(m, w, centroides);
+        return digest;
+    }
+
+    private void comprimir() {
+        if (cantidadPendientes == 0) {
+            return;
+        }
+        Arrays.sort(pendientes, 0, cantidadPendientes);
+        int total = centroides + cantidadPendientes;
+        double[] m = new double[total];
+        double[] w = new double[total];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < total; k++) {
+            if (j >= cantidadPendientes || (i < centroides && medias[i] <= pendientes[j])) {
+                m[k] = medias[i];
+                w[k] = pesos[i++];
+            } else {
+                m[k] = pendientes[j++];
+                w[k] = 1;
+            }
+        }
+        cantidadPendientes = 0;
+        fundir(m, w, total);
+    }
+
+    // Recorre puntos ordenados por media y junta vecinos mientras el centroide no supere
+    // una unidad de la escala k1; reemplaza los centroides actuales por el resultado
+    private void fundir(double[] m, double[] w, int n) {
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += w[i];
+        }
+        pesoTotal = total;
+        if (n == 0) {
+            centroides = 0;
+            return;
+        }
+        double[] nuevasMedias = new double[Math.max(medias.length, n)];
+        double[] nuevosPesos = new double[nuevasMedias.length];
+        int ultimo = 0;
+        nuevasMedias[0] = m[0];
+        nuevosPesos[0] = w[0];
+        double pesoPrevio = 0;
+        double limite = total * cuantilDeEscala(escala(0) + 1);
+        for (int i = 1; i < n; i++) {
+            double propuesto = nuevosPesos[ultimo] + w[i];
+            if (pesoPrevio + propuesto <= limite) {
+                nuevosPesos[ultimo] = propuesto;
+                nuevasMedias[ultimo] += (m[i] - nuevasMedias[ultimo]) * w[i] / propuesto;
+            } else {
+                pesoPrevio += nuevosPesos[ultimo];
+                limite = total * cuantilDeEscala(escala(pesoPrevio / total) + 1);
+                ultimo++;
+                nuevasMedias[ultimo] = m[i];
+                nuevosPesos[ultimo] = w[i];
+            }
+        }
+        centroides = ultimo + 1;
+        medias = nuevasMedias;
+        pesos = nuevosPesos;
+    }
+
+    // k1(q) = δ/π · (asin(2q − 1) + π/2), entre 0 y δ
+    private double escala(double q) {
+        return compresion * (Math.asin(2 * q - 1) + Math.PI / 2) / Math.PI;
+    }
+
+    private double cuantilDeEscala(double k) {
+        return (Math.sin(Math.min(k, compresion) * Math.PI / compresion - Math.PI / 2) + 1) / 2;
+    }
+
+    private static double interpolar(double desde, double hasta, double fraccion) {
+        return desde + (hasta - desde) * fraccion;
+    }
+}
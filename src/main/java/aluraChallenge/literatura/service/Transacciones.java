@@ -0,0 +1,27 @@
+package aluraChallenge.literatura.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Utilidades compartidas por los listeners de entidades
+final class Transacciones {
+
+    private Transacciones() {}
+
+    /**
+     * Ejecuta la acción al confirmar la transacción actual, para no reflejar en memoria
+     * cambios de una transacción revertida. Sin transacción, se ejecuta de inmediato.
+     */
+    static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+}
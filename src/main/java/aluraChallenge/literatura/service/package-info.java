@@ -0,0 +1,20 @@
+/**
+ * Servicios de la aplicación: acceso a Gutendex, guardado, índices y estadísticas.
+ *
+ * <h2>Concurrencia</h2>
+ *
+ * Las clases de este paquete que guardan estado mutable compartido lo protegen con
+ * {@link java.util.concurrent.locks.ReentrantLock} o
+ * {@link java.util.concurrent.locks.ReentrantReadWriteLock}, nunca con
+ * {@code synchronized}. La aplicación corre con hilos virtuales
+ * ({@code spring.threads.virtual.enabled}) y el cliente HTTP también los usa. En
+ * Java 21 un hilo virtual que se bloquea dentro de un bloque {@code synchronized}
+ * queda fijado a su hilo portador. Con los cerrojos de {@code java.util.concurrent}
+ * se desmonta y libera al portador. Las colecciones concurrentes y los atómicos no
+ * necesitan cerrojo.
+ *
+ * En lo posible, las consultas a la base y las peticiones HTTP se hacen fuera de los
+ * cerrojos que protegen los datos. Las cargas usan un cerrojo de carga aparte, así un
+ * solo hilo consulta la base y las actualizaciones no esperan a esa consulta.
+ */
+package aluraChallenge.literatura.service;
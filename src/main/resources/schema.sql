@@ -0,0 +1,354 @@
+-- Se ejecuta en cada arranque, después de que Hibernate cree/actualice las tablas
+-- (spring.jpa.defer-datasource-initialization=true). Todo es idempotente.
+-- Las sentencias se separan con @@ porque los cuerpos PL/pgSQL contienen ';'.
+
+-- Índices para el ranking de descargas (global y por idioma)
+CREATE INDEX IF NOT EXISTS idx_libros_descargas ON libros (numero_descargas DESC NULLS LAST)@@
+
+CREATE INDEX IF NOT EXISTS idx_libros_idioma_descargas ON libros (idioma, numero_descargas DESC NULLS LAST)@@
+
+-- Paginación por clave dentro de un idioma (la global usa la clave primaria)
+CREATE INDEX IF NOT EXISTS idx_libros_idioma_id ON libros (idioma, id)@@
+
+-- Los ids salen de secuencias en bloques de 50 (Libro.BLOQUE_IDS, Autor.BLOQUE_IDS).
+-- Si las tablas ya tenían filas con ids de IDENTITY, la secuencia arranca por encima de ellas
+SELECT setval('libros_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM libros), (SELECT last_value FROM libros_seq), 1))@@
+
+SELECT setval('autores_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM autores), (SELECT last_value FROM autores_seq), 1))@@
+
+-- Clave con la que se reconoce a un autor al guardar libros (igual que CacheAutores.clave):
+-- sin distinguir mayúsculas ni espacios repetidos. Los espacios van enumerados (la misma
+-- clase que CacheAutores.CLASE_ESPACIOS) y lower usa la colación ICU raíz, así la clave
+-- no depende del locale ni de la colación con que se creó la base
+CREATE OR REPLACE FUNCTION clave_autor(nombre TEXT) RETURNS TEXT
+LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT AS $$
+    SELECT lower(regexp_replace(regexp_replace(normalize(nombre, NFC),
+        '[\t\n\x0B\f\r \x85\xA0\u1680\u2000-\u200A\u2028\u2029\u202F\u205F\u3000]+', ' ', 'g'),
+        '^ | $', '', 'g') COLLATE "und-x-icu")
+$$@@
+
+-- idx_autores_clave se armó con la definición anterior (\s y lower de la base)
+DROP INDEX IF EXISTS idx_autores_clave@@
+
+CREATE INDEX IF NOT EXISTS idx_autores_clave_unicode ON autores (clave_autor(nombre))@@
+
+-- Búsqueda de títulos y autores sin distinguir acentos ni mayúsculas
+CREATE EXTENSION IF NOT EXISTS pg_trgm@@
+
+CREATE EXTENSION IF NOT EXISTS unaccent@@
+
+-- unaccent() no es IMMUTABLE y no se puede indexar; este envoltorio fija el diccionario
+CREATE OR REPLACE FUNCTION f_unaccent(texto TEXT) RETURNS TEXT
+LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT AS $$
+    SELECT public.unaccent('public.unaccent', texto)
+$$@@
+
+-- Subcadenas y errores de tipeo: índices de trigramas (sirven para LIKE '%x%' y para %)
+CREATE INDEX IF NOT EXISTS idx_libros_titulo_trgm ON libros USING gin (f_unaccent(lower(titulo)) gin_trgm_ops)@@
+
+CREATE INDEX IF NOT EXISTS idx_autores_nombre_trgm ON autores USING gin (f_unaccent(lower(nombre)) gin_trgm_ops)@@
+
+-- Palabras completas en cualquier orden, con ranking; 'simple' porque el catálogo es multilingüe
+ALTER TABLE libros ADD COLUMN IF NOT EXISTS titulo_busqueda tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', f_unaccent(coalesce(titulo, '')))) STORED@@
+
+ALTER TABLE autores ADD COLUMN IF NOT EXISTS nombre_busqueda tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', f_unaccent(coalesce(nombre, '')))) STORED@@
+
+CREATE INDEX IF NOT EXISTS idx_libros_titulo_busqueda ON libros USING gin (titulo_busqueda)@@
+
+CREATE INDEX IF NOT EXISTS idx_autores_nombre_busqueda ON autores USING gin (nombre_busqueda)@@
+
+-- Resumen del catálogo mantenido por triggers: las estadísticas se leen en tiempo constante
+CREATE TABLE IF NOT EXISTS estadisticas_catalogo (
+    id INTEGER PRIMARY KEY CHECK (id = 1),
+    total_libros BIGINT NOT NULL DEFAULT 0,
+    total_autores BIGINT NOT NULL DEFAULT 0,
+    total_descargas BIGINT NOT NULL DEFAULT 0,
+    max_descargas INTEGER,
+    min_descargas INTEGER
+)@@
+
+CREATE TABLE IF NOT EXISTS estadisticas_idioma (
+    idioma VARCHAR(255) PRIMARY KEY,
+    total_libros BIGINT NOT NULL DEFAULT 0,
+    total_descargas BIGINT NOT NULL DEFAULT 0
+)@@
+
+CREATE TABLE IF NOT EXISTS estadisticas_autor (
+    autor_id BIGINT PRIMARY KEY REFERENCES autores (id) ON DELETE CASCADE,
+    total_libros BIGINT NOT NULL DEFAULT 0
+)@@
+
+CREATE INDEX IF NOT EXISTS idx_estadisticas_autor_total ON estadisticas_autor (total_libros DESC)@@
+
+-- Reconstruye el resumen desde cero a partir de libros y autores
+CREATE OR REPLACE PROCEDURE recalcular_estadisticas()
+LANGUAGE plpgsql AS $$
+BEGIN
+    DELETE FROM estadisticas_catalogo;
+    DELETE FROM estadisticas_idioma;
+    DELETE FROM estadisticas_autor;
+
+    INSERT INTO estadisticas_catalogo (id, total_libros, total_autores, total_descargas, max_descargas, min_descargas)
+    SELECT 1, COUNT(*), (SELECT COUNT(*) FROM autores), COALESCE(SUM(numero_descargas), 0),
+           MAX(numero_descargas), MIN(numero_descargas)
+    FROM libros;
+
+    INSERT INTO estadisticas_idioma (idioma, total_libros, total_descargas)
+    SELECT COALESCE(idioma, 'desconocido'), COUNT(*), COALESCE(SUM(numero_descargas), 0)
+    FROM libros
+    GROUP BY COALESCE(idioma, 'desconocido');
+
+    INSERT INTO estadisticas_autor (autor_id, total_libros)
+    SELECT autor_id, COUNT(*)
+    FROM libros
+    WHERE autor_id IS NOT NULL
+    GROUP BY autor_id;
+END
+$$@@
+
+-- Por sentencia y con tablas de transición: un lote de N libros aplica un solo delta por tabla
+-- en vez de N UPDATE sobre la misma fila de estadisticas_catalogo (y de cada idioma y autor).
+-- PostgreSQL no admite tablas de transición en un trigger de varios eventos ni con UPDATE OF
+-- columnas, así que hay un trigger por evento y los UPDATE se filtran acá
+CREATE OR REPLACE FUNCTION actualizar_estadisticas_libros() RETURNS trigger
+LANGUAGE plpgsql AS $$
+DECLARE
+    -- Filas que salen del resumen (signo -1) y que entran (signo +1)
+    cambios TEXT;
+    -- Valores de descargas que dejaron de existir: solo ellos pueden invalidar máximo y mínimo
+    salidas TEXT;
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        cambios := 'SELECT 1 AS signo, idioma, numero_descargas, autor_id FROM nuevos';
+    ELSIF TG_OP = 'DELETE' THEN
+        cambios := 'SELECT -1 AS signo, idioma, numero_descargas, autor_id FROM viejos';
+        salidas := 'SELECT numero_descargas FROM viejos';
+    ELSE
+        -- El id no cambia: las filas viejas y nuevas se emparejan por id y se ignoran las
+        -- que no tocaron nada del resumen
+        cambios := 'SELECT s.* FROM viejos v JOIN nuevos n USING (id)
+                    CROSS JOIN LATERAL (VALUES (-1, v.idioma, v.numero_descargas, v.autor_id),
+                                               (1, n.idioma, n.numero_descargas, n.autor_id))
+                        AS s (signo, idioma, numero_descargas, autor_id)
+                    WHERE (v.idioma, v.numero_descargas, v.autor_id)
+                          IS DISTINCT FROM (n.idioma, n.numero_descargas, n.autor_id)';
+        salidas := 'SELECT v.numero_descargas FROM viejos v JOIN nuevos n USING (id)
+                    WHERE v.numero_descargas IS DISTINCT FROM n.numero_descargas';
+    END IF;
+
+    EXECUTE format($sql$
+        WITH cambios AS (%s),
+        delta AS (
+            SELECT COALESCE(SUM(signo), 0) AS libros,
+                   COALESCE(SUM(signo * COALESCE(numero_descargas, 0)), 0) AS descargas,
+                   MAX(numero_descargas) FILTER (WHERE signo > 0) AS maximo,
+                   MIN(numero_descargas) FILTER (WHERE signo > 0) AS minimo
+            FROM cambios)
+        UPDATE estadisticas_catalogo c
+        SET total_libros = c.total_libros + d.libros,
+            total_descargas = c.total_descargas + d.descargas,
+            max_descargas = GREATEST(c.max_descargas, d.maximo),
+            min_descargas = LEAST(c.min_descargas, d.minimo)
+        FROM delta d
+        WHERE c.id = 1
+          AND (d.libros <> 0 OR d.descargas <> 0
+               OR d.maximo > c.max_descargas OR d.minimo < c.min_descargas
+               OR (c.max_descargas IS NULL AND d.maximo IS NOT NULL))
+    $sql$, cambios);
+
+    -- Máximo y mínimo no se pueden restar: solo se recalculan si salió una fila que los tenía
+    IF salidas IS NOT NULL THEN
+        EXECUTE format($sql$
+            UPDATE estadisticas_catalogo c
+            SET max_descargas = (SELECT MAX(numero_descargas) FROM libros),
+                min_descargas = (SELECT MIN(numero_descargas) FROM libros)
+            WHERE c.id = 1
+              AND EXISTS (SELECT 1 FROM (%s) s
+                          WHERE s.numero_descargas = c.max_descargas OR s.numero_descargas = c.min_descargas)
+        $sql$, salidas);
+    END IF;
+
+    -- ORDER BY: dos lotes concurrentes bloquean las filas de resumen en el mismo orden
+    EXECUTE format($sql$
+        WITH cambios AS (%s)
+        INSERT INTO estadisticas_idioma (idioma, total_libros, total_descargas)
+        SELECT COALESCE(idioma, 'desconocido'), SUM(signo), SUM(signo * COALESCE(numero_descargas, 0))
+        FROM cambios
+        GROUP BY COALESCE(idioma, 'desconocido')
+        HAVING SUM(signo) <> 0 OR SUM(signo * COALESCE(numero_descargas, 0)) <> 0
+        ORDER BY 1
+        ON CONFLICT (idioma) DO UPDATE
+        SET total_libros = estadisticas_idioma.total_libros + EXCLUDED.total_libros,
+            total_descargas = estadisticas_idioma.total_descargas + EXCLUDED.total_descargas
+    $sql$, cambios);
+
+    -- Solo autores que siguen existiendo: al borrar un autor su resumen se va en cascada
+    EXECUTE format($sql$
+        WITH cambios AS (%s)
+        INSERT INTO estadisticas_autor (autor_id, total_libros)
+        SELECT c.autor_id, SUM(c.signo)
+        FROM cambios c
+        JOIN autores a ON a.id = c.autor_id
+        GROUP BY c.autor_id
+        HAVING SUM(c.signo) <> 0
+        ORDER BY 1
+        ON CONFLICT (autor_id) DO UPDATE
+        SET total_libros = estadisticas_autor.total_libros + EXCLUDED.total_libros
+    $sql$, cambios);
+
+    RETURN NULL;
+END
+$$@@
+
+CREATE OR REPLACE FUNCTION actualizar_estadisticas_autores() RETURNS trigger
+LANGUAGE plpgsql AS $$
+DECLARE
+    delta BIGINT;
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        SELECT COUNT(*) INTO delta FROM nuevos;
+    ELSE
+        SELECT -COUNT(*) INTO delta FROM viejos;
+    END IF;
+    IF delta <> 0 THEN
+        UPDATE estadisticas_catalogo SET total_autores = total_autores + delta WHERE id = 1;
+    END IF;
+    RETURN NULL;
+END
+$$@@
+
+-- Los triggers por fila de versiones anteriores
+DROP TRIGGER IF EXISTS trg_estadisticas_libros ON libros@@
+
+DROP TRIGGER IF EXISTS trg_estadisticas_autores ON autores@@
+
+DROP TRIGGER IF EXISTS trg_estadisticas_libros_insert ON libros@@
+
+CREATE TRIGGER trg_estadisticas_libros_insert
+AFTER INSERT ON libros
+REFERENCING NEW TABLE AS nuevos
+FOR EACH STATEMENT EXECUTE FUNCTION actualizar_estadisticas_libros()@@
+
+DROP TRIGGER IF EXISTS trg_estadisticas_libros_update ON libros@@
+
+CREATE TRIGGER trg_estadisticas_libros_update
+AFTER UPDATE ON libros
+REFERENCING OLD TABLE AS viejos NEW TABLE AS nuevos
+FOR EACH STATEMENT EXECUTE FUNCTION actualizar_estadisticas_libros()@@
+
+DROP TRIGGER IF EXISTS trg_estadisticas_libros_delete ON libros@@
+
+CREATE TRIGGER trg_estadisticas_libros_delete
+AFTER DELETE ON libros
+REFERENCING OLD TABLE AS viejos
+FOR EACH STATEMENT EXECUTE FUNCTION actualizar_estadisticas_libros()@@
+
+DROP TRIGGER IF EXISTS trg_estadisticas_autores_insert ON autores@@
+
+CREATE TRIGGER trg_estadisticas_autores_insert
+AFTER INSERT ON autores
+REFERENCING NEW TABLE AS nuevos
+FOR EACH STATEMENT EXECUTE FUNCTION actualizar_estadisticas_autores()@@
+
+DROP TRIGGER IF EXISTS trg_estadisticas_autores_delete ON autores@@
+
+CREATE TRIGGER trg_estadisticas_autores_delete
+AFTER DELETE ON autores
+REFERENCING OLD TABLE AS viejos
+FOR EACH STATEMENT EXECUTE FUNCTION actualizar_estadisticas_autores()@@
+
+-- Primera ejecución (o base creada antes de los triggers): se calcula el resumen una vez
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM estadisticas_catalogo) THEN
+        CALL recalcular_estadisticas();
+    END IF;
+END
+$$@@
+
+-- Última modificación de cada fila: la instantánea del catálogo en disco (InstantaneaCatalogo)
+-- solo relee lo que cambió después de su marca. Las filas existentes reciben la hora de este ALTER
+ALTER TABLE libros ADD COLUMN IF NOT EXISTS actualizado_en TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp()@@
+
+ALTER TABLE autores ADD COLUMN IF NOT EXISTS actualizado_en TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp()@@
+
+CREATE INDEX IF NOT EXISTS idx_libros_actualizado_en ON libros (actualizado_en)@@
+
+CREATE INDEX IF NOT EXISTS idx_autores_actualizado_en ON autores (actualizado_en)@@
+
+CREATE OR REPLACE FUNCTION marcar_actualizado_en() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    NEW.actualizado_en := clock_timestamp();
+    RETURN NEW;
+END
+$$@@
+
+DROP TRIGGER IF EXISTS trg_actualizado_libros ON libros@@
+
+-- Con cualquier UPDATE: un UPDATE OF columnas no ve lo que cambian otros triggers, y una
+-- columna que la instantánea no guarda hoy puede guardarla mañana
+CREATE TRIGGER trg_actualizado_libros
+BEFORE UPDATE ON libros
+FOR EACH ROW EXECUTE FUNCTION marcar_actualizado_en()@@
+
+DROP TRIGGER IF EXISTS trg_actualizado_autores ON autores@@
+
+CREATE TRIGGER trg_actualizado_autores
+BEFORE UPDATE ON autores
+FOR EACH ROW EXECUTE FUNCTION marcar_actualizado_en()@@
+
+-- Libros y autores borrados: actualizado_en no puede registrarlos, y sin esto la instantánea
+-- no sabría qué filas quitar. Un TRUNCATE se anota con id 0 (los ids empiezan en 1) y obliga
+-- a recargar todo. InstantaneaCatalogo purga lo anterior a literatura.instantanea.retencion-borrados
+CREATE TABLE IF NOT EXISTS borrados_catalogo (
+    tabla TEXT NOT NULL,
+    id BIGINT NOT NULL,
+    borrado_en TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp(),
+    PRIMARY KEY (tabla, id)
+)@@
+
+CREATE INDEX IF NOT EXISTS idx_borrados_catalogo_borrado_en ON borrados_catalogo (borrado_en)@@
+
+CREATE OR REPLACE FUNCTION registrar_borrado() RETURNS trigger
+LANGUAGE plpgsql AS $$
+DECLARE
+    borrado BIGINT;
+BEGIN
+    -- En un TRUNCATE (por sentencia) no hay OLD
+    IF TG_OP = 'TRUNCATE' THEN
+        borrado := 0;
+    ELSE
+        borrado := OLD.id;
+    END IF;
+    INSERT INTO borrados_catalogo (tabla, id) VALUES (TG_TABLE_NAME, borrado)
+    ON CONFLICT (tabla, id) DO UPDATE SET borrado_en = EXCLUDED.borrado_en;
+    RETURN NULL;
+END
+$$@@
+
+DROP TRIGGER IF EXISTS trg_borrado_libros ON libros@@
+
+CREATE TRIGGER trg_borrado_libros
+AFTER DELETE ON libros
+FOR EACH ROW EXECUTE FUNCTION registrar_borrado()@@
+
+DROP TRIGGER IF EXISTS trg_vaciado_libros ON libros@@
+
+CREATE TRIGGER trg_vaciado_libros
+AFTER TRUNCATE ON libros
+FOR EACH STATEMENT EXECUTE FUNCTION registrar_borrado()@@
+
+DROP TRIGGER IF EXISTS trg_borrado_autores ON autores@@
+
+CREATE TRIGGER trg_borrado_autores
+AFTER DELETE ON autores
+FOR EACH ROW EXECUTE FUNCTION registrar_borrado()@@
+
+DROP TRIGGER IF EXISTS trg_vaciado_autores ON autores@@
+
+CREATE TRIGGER trg_vaciado_autores
+AFTER TRUNCATE ON autores
+FOR EACH STATEMENT EXECUTE FUNCTION registrar_borrado()@@
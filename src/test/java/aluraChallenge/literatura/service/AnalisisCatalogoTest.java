@@ -0,0 +1,134 @@
+package aluraChallenge.literatura.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import aluraChallenge.literatura.dto.EstadisticasIdioma;
+import aluraChallenge.literatura.dto.ResultadoAnalisis;
+
+class AnalisisCatalogoTest {
+
+    private static final int LIBROS = 200_000;
+    private static final int AUTORES = 20_000;
+    private static final String[] IDIOMAS = {"en", "en", "en", "fr", "es", "de", null};
+
+    private AnalisisCatalogo analisis;
+    private int[] descargas;
+    private Map<String, Set<Long>> autoresPorIdioma;
+
+    // Instantánea armada con los mismos métodos que usan los listeners, sin base de datos
+    @BeforeEach
+    void preparar() {
+        var instantanea = new InstantaneaCatalogo();
+        ReflectionTestUtils.setField(instantanea, "cargado", true);
+        var aleatorio = new SplittableRandom(20240801L);
+        for (long autor = 1; autor <= AUTORES; autor++) {
+            Integer nacimiento = autor % 10 == 0 ? null : -400 + aleatorio.nextInt(2300);
+            instantanea.registrarAutor(autor, "Autor " + autor, nacimiento, null);
+        }
+        descargas = new int[LIBROS];
+        autoresPorIdioma = new HashMap<>();
+        for (int i = 0; i < LIBROS; i++) {
+            descargas[i] = i % 50 == 0 ? 0 : (int) Math.exp(aleatorio.nextDouble() * 13);
+            String idioma = IDIOMAS[aleatorio.nextInt(IDIOMAS.length)];
+            Long autor = i % 20 == 0 ? null : 1 + (long) aleatorio.nextInt(AUTORES);
+            instantanea.registrarLibro((long) i + 1, idioma, descargas[i], autor);
+            if (autor != null) {
+                autoresPorIdioma.computeIfAbsent(idioma, k -> new HashSet<>()).add(autor);
+            }
+        }
+
+        analisis = new AnalisisCatalogo();
+        ReflectionTestUtils.setField(analisis, "modo", "auto");
+        ReflectionTestUtils.setField(analisis, "umbralAproximado", 5_000_000L);
+        ReflectionTestUtils.setField(analisis, "paralelismo", 2);
+        ReflectionTestUtils.setField(analisis, "instantaneaCatalogo", instantanea);
+        analisis.iniciar();
+    }
+
+    @AfterEach
+    void cerrar() {
+        analisis.cerrar();
+    }
+
+    @Test
+    void elModoExactoCoincideConUnCalculoDirecto() {
+        ResultadoAnalisis exacto = analisis.analizar(AnalisisCatalogo.Modo.EXACTO);
+
+        int[] ordenadas = descargas.clone();
+        Arrays.sort(ordenadas);
+        assertFalse(exacto.aproximado());
+        assertTrue(exacto.particiones() > 1, "el catálogo debería repartirse en particiones");
+        assertEquals(LIBROS, exacto.libros());
+        assertEquals(Arrays.stream(descargas).asLongStream().sum(), exacto.totalDescargas());
+        assertEquals(0, exacto.minDescargas());
+        assertEquals(ordenadas[LIBROS - 1], exacto.maxDescargas());
+        assertEquals(ordenadas[LIBROS / 2 - 1], exacto.p50(), 0);
+        assertEquals(ordenadas[LIBROS * 99 / 100 - 1], exacto.p99(), 0);
+        assertEquals(LIBROS / 50, exacto.histograma()[0]);
+        assertEquals(LIBROS, Arrays.stream(exacto.histograma()).sum());
+
+        Set<Long> todos = new HashSet<>();
+        autoresPorIdioma.values().forEach(todos::addAll);
+        assertEquals(todos.size(), exacto.autoresDistintos());
+        for (EstadisticasIdioma idioma : exacto.porIdioma()) {
+            assertEquals(autoresPorIdioma.get(idioma.idioma()).size(), idioma.autores(), String.valueOf(idioma.idioma()));
+        }
+    }
+
+    @Test
+    void losModosCoincidenEnLoExactoYSeAcercanEnLoAproximado() {
+        ResultadoAnalisis exacto = analisis.analizar(AnalisisCatalogo.Modo.EXACTO);
+        ResultadoAnalisis aproximado = analisis.analizar(AnalisisCatalogo.Modo.APROXIMADO);
+
+        assertTrue(aproximado.aproximado());
+        assertEquals(exacto.particiones(), aproximado.particiones());
+        assertEquals(exacto.libros(), aproximado.libros());
+        assertEquals(exacto.totalDescargas(), aproximado.totalDescargas());
+        assertEquals(exacto.minDescargas(), aproximado.minDescargas());
+        assertEquals(exacto.maxDescargas(), aproximado.maxDescargas());
+        assertArrayEquals(exacto.histograma(), aproximado.histograma());
+        assertEquals(exacto.porSiglo(), aproximado.porSiglo());
+
+        // Percentiles: el t-digest es más preciso en las colas
+        assertEquals(exacto.p50(), aproximado.p50(), exacto.p50() * 0.05);
+        assertEquals(exacto.p90(), aproximado.p90(), exacto.p90() * 0.03);
+        assertEquals(exacto.p99(), aproximado.p99(), exacto.p99() * 0.02);
+        assertEquals(exacto.autoresDistintos(), aproximado.autoresDistintos(), exacto.autoresDistintos() * 0.025);
+
+        List<EstadisticasIdioma> idiomasExactos = exacto.porIdioma();
+        List<EstadisticasIdioma> idiomasAproximados = aproximado.porIdioma();
+        assertEquals(idiomasExactos.size(), idiomasAproximados.size());
+        for (int i = 0; i < idiomasExactos.size(); i++) {
+            var e = idiomasExactos.get(i);
+            var a = idiomasAproximados.get(i);
+            assertEquals(e.idioma(), a.idioma());
+            assertEquals(e.libros(), a.libros());
+            assertEquals(e.descargas(), a.descargas());
+            assertEquals(e.maxDescargas(), a.maxDescargas());
+            assertEquals(e.autores(), a.autores(), e.autores() * 0.025, String.valueOf(e.idioma()));
+        }
+    }
+
+    @Test
+    void elModoAutoUsaElUmbral() {
+        assertFalse(analisis.analizar(AnalisisCatalogo.Modo.AUTO).aproximado());
+        ReflectionTestUtils.setField(analisis, "umbralAproximado", (long) LIBROS);
+        assertTrue(analisis.analizar(AnalisisCatalogo.Modo.AUTO).aproximado());
+    }
+}
@@ -0,0 +1,137 @@
+package aluraChallenge.literatura.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+class ArbolIntervalosTest {
+
+    private static final int DESCONOCIDO_INICIO = Integer.MIN_VALUE;
+    private static final int DESCONOCIDO_FIN = Integer.MAX_VALUE;
+
+    private final ArbolIntervalos arbol = new ArbolIntervalos();
+
+    @Test
+    void encuentraLosIntervalosQueContienenUnAño() {
+        arbol.cargar(new long[] {1, 2, 3, 4},
+                new int[] {1800, 1850, 1900, DESCONOCIDO_INICIO},
+                new int[] {1860, 1910, 1950, 1820});
+
+        assertEquals(new TreeSet<>(List.of(1L, 4L)), new TreeSet<>(arbol.buscar(1810, 1810)));
+        assertEquals(new TreeSet<>(List.of(1L, 2L)), new TreeSet<>(arbol.buscar(1855, 1855)));
+        // Los extremos son cerrados
+        assertEquals(new TreeSet<>(List.of(2L, 3L)), new TreeSet<>(arbol.buscar(1900, 1900)));
+        assertEquals(List.of(), arbol.buscar(1990, 1990));
+    }
+
+    @Test
+    void unRangoDevuelveLosQueSeSolapanEnAlgunAño() {
+        arbol.cargar(new long[] {1, 2, 3},
+                new int[] {1500, 1700, 1900},
+                new int[] {1550, 1750, DESCONOCIDO_FIN});
+
+        assertEquals(new TreeSet<>(List.of(1L, 2L)), new TreeSet<>(arbol.buscar(1540, 1710)));
+        assertEquals(new TreeSet<>(List.of(3L)), new TreeSet<>(arbol.buscar(2500, 2600)));
+    }
+
+    @Test
+    void unIntervaloReemplazadoDejaDeAparecerConSusAñosViejos() {
+        arbol.cargar(new long[] {1, 2}, new int[] {1800, 1900}, new int[] {1850, 1950});
+
+        // El 1 queda en el árbol con su intervalo viejo, pero enmascarado
+        arbol.guardar(1, 1700, 1750);
+        assertEquals(List.of(), arbol.buscar(1820, 1820));
+        assertEquals(List.of(1L), arbol.buscar(1720, 1720));
+
+        arbol.quitar(2);
+        assertEquals(List.of(), arbol.buscar(1920, 1920));
+        assertEquals(1, arbol.tamano());
+
+        // Volver a guardarlo con el mismo intervalo lo trae de vuelta
+        arbol.guardar(2, 1900, 1950);
+        assertEquals(List.of(2L), arbol.buscar(1920, 1920));
+    }
+
+    @Test
+    void coincideConUnaBusquedaLinealTrasMuchosCambios() {
+        var azar = new SplittableRandom(42);
+        Map<Long, int[]> esperado = new HashMap<>();
+        int n = 2000;
+        long[] ids = new long[n];
+        int[] inicios = new int[n];
+        int[] fines = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+            inicios[i] = azar.nextInt(10) == 0 ? DESCONOCIDO_INICIO : 1500 + azar.nextInt(500);
+            fines[i] = azar.nextInt(10) == 0 ? DESCONOCIDO_FIN : inicios[i] == DESCONOCIDO_INICIO
+                    ? 1500 + azar.nextInt(500) : inicios[i] + azar.nextInt(90);
+            esperado.put(ids[i], new int[] {inicios[i], fines[i]});
+        }
+        arbol.cargar(ids, inicios, fines);
+
+        // Suficientes cambios para pasar varias veces por pendientes y reconstrucción
+        for (int paso = 0; paso < 3000; paso++) {
+            long id = azar.nextInt(n + 500);
+            if (azar.nextInt(4) == 0) {
+                arbol.quitar(id);
+                esperado.remove(id);
+            } else {
+                int inicio = 1500 + azar.nextInt(500);
+                int fin = inicio + azar.nextInt(90);
+                arbol.guardar(id, inicio, fin);
+                esperado.put(id, new int[] {inicio, fin});
+            }
+            if (paso % 100 == 0) {
+                int desde = 1450 + azar.nextInt(600);
+                int hasta = desde + azar.nextInt(20);
+                assertEquals(lineal(esperado, desde, hasta), new TreeSet<>(arbol.buscar(desde, hasta)),
+                        "paso " + paso + ", [" + desde + ", " + hasta + "]");
+            }
+        }
+        assertEquals(esperado.size(), arbol.tamano());
+        assertEquals(lineal(esperado, 1700, 1700), new TreeSet<>(arbol.buscar(1700, 1700)));
+    }
+
+    @Test
+    void elHistogramaCuentaLosVivosDeCadaAñoYSeInvalidaConCambios() {
+        arbol.cargar(new long[] {1, 2, 3},
+                new int[] {1800, 1802, DESCONOCIDO_INICIO},
+                new int[] {1803, DESCONOCIDO_FIN, 1801});
+
+        assertArrayEquals(new int[] {2, 2, 2, 2, 1, 1}, arbol.histograma(1800, 1805));
+        assertArrayEquals(new int[] {2, 1}, arbol.histograma(1803, 1804));
+
+        arbol.quitar(2);
+        assertArrayEquals(new int[] {2, 2, 1, 1, 0, 0}, arbol.histograma(1800, 1805));
+        assertArrayEquals(new int[0], arbol.histograma(1805, 1800));
+    }
+
+    @Test
+    void elRangoIgnoraLosExtremosDesconocidos() {
+        assertNull(arbol.rango());
+
+        arbol.cargar(new long[] {1, 2}, new int[] {DESCONOCIDO_INICIO, 1650}, new int[] {1700, DESCONOCIDO_FIN});
+        assertArrayEquals(new int[] {1650, 1700}, arbol.rango());
+
+        arbol.cargar(new long[] {1}, new int[] {DESCONOCIDO_INICIO}, new int[] {DESCONOCIDO_FIN});
+        assertNull(arbol.rango());
+    }
+
+    private static TreeSet<Long> lineal(Map<Long, int[]> intervalos, int desde, int hasta) {
+        var resultado = new TreeSet<Long>();
+        intervalos.forEach((id, intervalo) -> {
+            if (intervalo[0] <= hasta && intervalo[1] >= desde) {
+                resultado.add(id);
+            }
+        });
+        return resultado;
+    }
+}
@@ -0,0 +1,152 @@
+package aluraChallenge.literatura.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ArchivoInstantaneaTest {
+
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void leeLoMismoQueEscribio() throws IOException {
+        Path archivo = carpeta.resolve("catalogo.instantanea");
+        var escrito = contenido();
+
+        ArchivoInstantanea.escribir(archivo, escrito);
+        var leido = ArchivoInstantanea.leer(archivo);
+
+        assertEquals(escrito.marca(), leido.marca());
+        assertEquals(3, leido.filas());
+        // Los arreglos se guardan solo hasta filas y ordinales
+        assertArrayEquals(new long[] {10, 20, 30}, leido.ids());
+        assertArrayEquals(new int[] {500, 0, 70_000}, leido.descargas());
+        assertArrayEquals(new short[] {0, 1, 0}, leido.idiomas());
+        assertArrayEquals(new int[] {0, InstantaneaCatalogo.SIN_AUTOR, 1}, leido.autores());
+        assertEquals(Arrays.asList("en", null), leido.idiomasPorCodigo());
+        assertEquals(2, leido.ordinales());
+        assertArrayEquals(new long[] {7, 8}, leido.idsAutor());
+        assertArrayEquals(new String[] {"Cervantes, Miguel de", null}, leido.nombresAutor());
+        assertArrayEquals(new int[] {1547, InstantaneaCatalogo.SIN_AÑO}, leido.nacimientos());
+        assertArrayEquals(new int[] {1616, InstantaneaCatalogo.SIN_AÑO}, leido.muertes());
+        assertArrayEquals(new int[] {1, 1}, leido.librosPorAutor());
+        assertArrayEquals(new boolean[] {true, false}, leido.autorActivo());
+    }
+
+    @Test
+    void reemplazaElArchivoSinDejarTemporales() throws IOException {
+        Path archivo = carpeta.resolve("catalogo.instantanea");
+        ArchivoInstantanea.escribir(archivo, contenido());
+        ArchivoInstantanea.escribir(archivo, vacio());
+
+        assertEquals(0, ArchivoInstantanea.leer(archivo).filas());
+        try (var archivos = Files.list(carpeta)) {
+            assertEquals(List.of(archivo), archivos.toList());
+        }
+    }
+
+    @Test
+    void rechazaUnArchivoTruncado() throws IOException {
+        Path archivo = carpeta.resolve("catalogo.instantanea");
+        ArchivoInstantanea.escribir(archivo, contenido());
+        byte[] completo = Files.readAllBytes(archivo);
+
+        // Cortado en la cabecera, en las columnas y en la tabla de cadenas
+        for (int largo : new int[] {6, 40, completo.length - 3}) {
+            Files.write(archivo, Arrays.copyOf(completo, largo));
+            var error = assertThrows(IOException.class, () -> ArchivoInstantanea.leer(archivo), largo + " bytes");
+            assertTrue(error.getMessage().contains("truncada"), error.getMessage());
+        }
+    }
+
+    @Test
+    void rechazaCantidadesImposiblesSinReservarMemoria() throws IOException {
+        Path archivo = carpeta.resolve("catalogo.instantanea");
+        ArchivoInstantanea.escribir(archivo, contenido());
+        byte[] bytes = Files.readAllBytes(archivo);
+
+        // Filas, autores, idiomas y cadenas van después de magia, versión y marca
+        for (int posicion : new int[] {16, 20, 24, 28}) {
+            byte[] dañado = bytes.clone();
+            ByteBuffer.wrap(dañado).putInt(posicion, Integer.MAX_VALUE);
+            Files.write(archivo, dañado);
+            var enorme = assertThrows(IOException.class, () -> ArchivoInstantanea.leer(archivo), "posición " + posicion);
+            assertTrue(enorme.getMessage().contains("truncada"), enorme.getMessage());
+
+            ByteBuffer.wrap(dañado).putInt(posicion, -5);
+            Files.write(archivo, dañado);
+            var negativa = assertThrows(IOException.class, () -> ArchivoInstantanea.leer(archivo), "posición " + posicion);
+            assertTrue(negativa.getMessage().contains("dañada"), negativa.getMessage());
+        }
+    }
+
+    @Test
+    void rechazaUnaCadenaMasLargaQueElArchivo() throws IOException {
+        Path archivo = carpeta.resolve("catalogo.instantanea");
+        ArchivoInstantanea.escribir(archivo, contenido());
+        byte[] bytes = Files.readAllBytes(archivo);
+
+        // La última cadena es "Cervantes, Miguel de": su largo va justo antes de los bytes
+        int largo = "Cervantes, Miguel de".getBytes(StandardCharsets.UTF_8).length;
+        ByteBuffer.wrap(bytes).putInt(bytes.length - largo - Integer.BYTES, Integer.MAX_VALUE);
+        Files.write(archivo, bytes);
+
+        var error = assertThrows(IOException.class, () -> ArchivoInstantanea.leer(archivo));
+        assertTrue(error.getMessage().contains("truncada"), error.getMessage());
+    }
+
+    @Test
+    void rechazaOtraVersionYOtroFormato() throws IOException {
+        Path archivo = carpeta.resolve("catalogo.instantanea");
+        ArchivoInstantanea.escribir(archivo, contenido());
+        byte[] bytes = Files.readAllBytes(archivo);
+
+        ByteBuffer.wrap(bytes).putInt(4, ArchivoInstantanea.VERSION - 1);
+        Files.write(archivo, bytes);
+        var version = assertThrows(IOException.class, () -> ArchivoInstantanea.leer(archivo));
+        assertTrue(version.getMessage().contains("Versión"), version.getMessage());
+
+        ByteBuffer.wrap(bytes).putInt(0, 0x504B0304);
+        Files.write(archivo, bytes);
+        var formato = assertThrows(IOException.class, () -> ArchivoInstantanea.leer(archivo));
+        assertTrue(formato.getMessage().contains("No es una instantánea"), formato.getMessage());
+    }
+
+    // Arreglos con lugar de sobra, como los de InstantaneaCatalogo
+    private static ArchivoInstantanea.Contenido contenido() {
+        return new ArchivoInstantanea.Contenido(
+                Instant.parse("2024-08-01T12:30:45.123456Z"),
+                3,
+                new long[] {10, 20, 30, 0},
+                new int[] {500, 0, 70_000, 0},
+                new short[] {0, 1, 0, 0},
+                new int[] {0, InstantaneaCatalogo.SIN_AUTOR, 1, 0},
+                Arrays.asList("en", null),
+                2,
+                new long[] {7, 8, 0},
+                new String[] {"Cervantes, Miguel de", null, null},
+                new int[] {1547, InstantaneaCatalogo.SIN_AÑO, 0},
+                new int[] {1616, InstantaneaCatalogo.SIN_AÑO, 0},
+                new int[] {1, 1, 0},
+                new boolean[] {true, false, false});
+    }
+
+    private static ArchivoInstantanea.Contenido vacio() {
+        return new ArchivoInstantanea.Contenido(Instant.EPOCH, 0, new long[0], new int[0], new short[0], new int[0],
+                List.of(), 0, new long[0], new String[0], new int[0], new int[0], new int[0], new boolean[0]);
+    }
+}
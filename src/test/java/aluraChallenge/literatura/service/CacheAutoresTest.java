@@ -0,0 +1,55 @@
+package aluraChallenge.literatura.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class CacheAutoresTest {
+
+    @Test
+    void unificaEspaciosUnicode() {
+        assertEquals("dickens, charles", CacheAutores.clave("  Dickens,   CHARLES "));
+        // Espacio duro, ideográfico, em y angosto: \s de Java no cubre ninguno
+        assertEquals("dickens, charles", CacheAutores.clave("Dickens,\u00A0Charles"));
+        assertEquals("tolstoy, leo", CacheAutores.clave("\u3000Tolstoy,\u2003Leo\t"));
+        assertEquals("tolstoy, leo", CacheAutores.clave("Tolstoy,\u202F\n Leo"));
+    }
+
+    @Test
+    void minusculasUnicodeCompletas() {
+        assertEquals("émile zola", CacheAutores.clave("ÉMILE ZOLA"));
+        // Compuesta y descompuesta dan la misma clave (NFC antes de todo)
+        assertEquals(CacheAutores.clave("Émile Zola"), CacheAutores.clave("E\u0301mile Zola"));
+        assertEquals("οδυσσευς", CacheAutores.clave("ΟΔΥΣΣΕΥΣ"));
+        assertEquals("i\u0307stanbul", CacheAutores.clave("İSTANBUL"));
+    }
+
+    // clave_autor de schema.sql tiene que usar la misma clase de espacios y una
+    // colación fija: si alguien cambia un lado sin el otro, esta prueba lo detecta
+    @Test
+    void schemaUsaLaMismaClaveQueJava() throws IOException {
+        String funcion = funcionClaveAutor();
+        assertTrue(funcion.contains("'" + CacheAutores.CLASE_ESPACIOS + "+'"),
+                "clave_autor no usa CacheAutores.CLASE_ESPACIOS:\n" + funcion);
+        assertTrue(funcion.contains("normalize(nombre, NFC)"), funcion);
+        assertTrue(funcion.contains("'^ | $'"), funcion);
+        assertTrue(funcion.contains("COLLATE \"und-x-icu\")"), funcion);
+        assertTrue(!funcion.contains("\\s"), "\\s depende del locale de la base:\n" + funcion);
+    }
+
+    private static String funcionClaveAutor() throws IOException {
+        try (InputStream entrada = CacheAutoresTest.class.getResourceAsStream("/schema.sql")) {
+            assertNotNull(entrada, "schema.sql no está en el classpath");
+            String schema = new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+            int inicio = schema.indexOf("CREATE OR REPLACE FUNCTION clave_autor");
+            assertTrue(inicio >= 0, "schema.sql no define clave_autor");
+            return schema.substring(inicio, schema.indexOf("@@", inicio));
+        }
+    }
+}
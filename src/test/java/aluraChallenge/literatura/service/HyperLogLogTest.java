@@ -0,0 +1,85 @@
+package aluraChallenge.literatura.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimaDentroDelErrorEsperado() {
+        // 1,04/√m con m = 2^14; se admiten tres desvíos
+        double tolerancia = 3 * 1.04 / Math.sqrt(1 << HyperLogLog.PRECISION_POR_DEFECTO);
+        for (int cantidad : new int[] {1_000, 50_000, 1_000_000}) {
+            var hll = new HyperLogLog();
+            for (long id = 1; id <= cantidad; id++) {
+                hll.agregar(id);
+            }
+            double error = Math.abs(hll.estimar() - cantidad) / (double) cantidad;
+            assertTrue(error <= tolerancia, cantidad + " valores: error " + error);
+        }
+    }
+
+    @Test
+    void pocosValoresYRepetidos() {
+        var hll = new HyperLogLog();
+        assertEquals(0, hll.estimar());
+        for (int vuelta = 0; vuelta < 10; vuelta++) {
+            for (long id = 1; id <= 100; id++) {
+                hll.agregar(id);
+            }
+        }
+        assertEquals(100, hll.estimar(), 2);
+    }
+
+    @Test
+    void unirEsLaUnionDeLosConjuntos() {
+        var pares = new HyperLogLog();
+        var tercios = new HyperLogLog();
+        var union = new HyperLogLog();
+        for (long id = 0; id < 300_000; id++) {
+            if (id % 2 == 0) {
+                pares.agregar(id);
+                union.agregar(id);
+            }
+            if (id % 3 == 0) {
+                tercios.agregar(id);
+                union.agregar(id);
+            }
+        }
+        pares.unir(tercios);
+
+        // Máximo registro a registro: da exactamente lo mismo que agregar todo a uno
+        assertArrayEquals(union.aBytes(), pares.aBytes());
+        assertEquals(200_000, pares.estimar(), 200_000 * 0.025);
+    }
+
+    @Test
+    void sobreviveALaSerializacion() {
+        var hll = new HyperLogLog(10);
+        for (long id = 0; id < 5_000; id++) {
+            hll.agregar(id * 7919);
+        }
+
+        byte[] bytes = hll.aBytes();
+        var copia = HyperLogLog.desdeBytes(bytes);
+
+        assertEquals(1 + (1 << 10), bytes.length);
+        assertEquals(hll.estimar(), copia.estimar());
+        assertArrayEquals(bytes, copia.aBytes());
+    }
+
+    @Test
+    void rechazaParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(19));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(10).unir(new HyperLogLog(12)));
+        byte[] corto = Arrays.copyOf(new HyperLogLog(10).aBytes(), 100);
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.desdeBytes(corto));
+    }
+}
@@ -0,0 +1,117 @@
+package aluraChallenge.literatura.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class IndiceInvertidoTest {
+
+    private final IndiceInvertido<String> indice = new IndiceInvertido<>(null);
+
+    @Test
+    void tokenizaSinAcentosNiMayusculasNiPuntuacion() {
+        assertEquals(List.of("cancion", "de", "amor", "vol", "2"),
+                IndiceInvertido.tokenizar("Canción de Amor, Vol. 2"));
+        assertEquals(List.of(), IndiceInvertido.tokenizar("  ¡¿…?!  "));
+        assertEquals(List.of(), IndiceInvertido.tokenizar(null));
+    }
+
+    @Test
+    void exigeTodasLasPalabrasYCompletaLaUltimaComoPrefijo() {
+        indice.guardar(1, "Don Quijote de la Mancha", "quijote");
+        indice.guardar(2, "La Celestina", "celestina");
+        indice.guardar(3, "Don Juan Tenorio", "tenorio");
+
+        assertEquals(List.of("quijote", "tenorio"), indice.buscar("don", 10));
+        assertEquals(List.of("quijote"), indice.buscar("don quij", 10));
+        assertEquals(List.of("quijote", "celestina"), indice.buscar("LA", 10));
+        // Solo la última palabra es prefijo: "qui" entera no es un término
+        assertEquals(List.of(), indice.buscar("qui don", 10));
+        assertEquals(List.of(), indice.buscar("mancha celestina", 10));
+    }
+
+    @Test
+    void ignoraAcentosEnLaConsulta() {
+        indice.guardar(1, "Canción de cuna", "cuna");
+        assertEquals(List.of("cuna"), indice.buscar("CANCION", 10));
+        assertEquals(List.of("cuna"), indice.buscar("cancíon", 10));
+    }
+
+    @Test
+    void respetaElLimiteYElOrden() {
+        var porLargo = new IndiceInvertido<String>(Comparator.comparingInt(String::length).reversed());
+        porLargo.guardar(1, "historia breve", "corto");
+        porLargo.guardar(2, "historia larga", "larguísimo");
+        porLargo.guardar(3, "historia media", "mediano");
+
+        assertEquals(List.of("larguísimo", "mediano", "corto"), porLargo.buscar("historia", 10));
+        assertEquals(List.of("larguísimo"), porLargo.buscar("historia", 1));
+        assertEquals(List.of(), porLargo.buscar("historia", 0));
+    }
+
+    @Test
+    void completaPorFrecuencia() {
+        indice.guardar(1, "El amor brujo", "a");
+        indice.guardar(2, "Amor de perdición", "b");
+        indice.guardar(3, "Amistad", "c");
+
+        assertEquals(List.of("amor", "amistad"), indice.completar("am", 10));
+        assertEquals(List.of("amor"), indice.completar("el amo", 10));
+        assertEquals(List.of(), indice.completar("zz", 10));
+    }
+
+    @Test
+    void reemplazarYQuitarActualizanLosResultados() {
+        indice.guardar(1, "Viaje al centro de la Tierra", "v1");
+        indice.guardar(1, "Veinte mil leguas de viaje submarino", "v2");
+        assertEquals(List.of(), indice.buscar("tierra", 10));
+        assertEquals(List.of("v2"), indice.buscar("viaje", 10));
+
+        // Mismo texto: solo cambia el dato devuelto
+        indice.guardar(1, "Veinte mil leguas de viaje submarino", "v3");
+        assertEquals(List.of("v3"), indice.buscar("submarino", 10));
+
+        indice.quitar(1);
+        assertEquals(List.of(), indice.buscar("viaje", 10));
+        assertEquals(0, indice.documentos());
+    }
+
+    @Test
+    void compactaLosBorradosSinPerderDocumentosVivos() {
+        int total = IndiceInvertido.COMPACTAR_DESDE * 2;
+        for (int id = 0; id < total; id++) {
+            indice.guardar(id, "comun libro" + id + (id % 2 == 0 ? " par" : " impar"), "d" + id);
+        }
+        int terminosAntes = indice.terminos();
+
+        // Se borran los impares: pasa el umbral y el índice se compacta
+        for (int id = 1; id < total; id += 2) {
+            indice.quitar(id);
+        }
+
+        assertEquals(total / 2, indice.documentos());
+        assertEquals(List.of(), indice.completar("impar", 10));
+        assertTrue(indice.terminos() < terminosAntes, "los términos de los borrados se podan");
+        // Sin ser la última palabra "libro1" es un término exacto, y era impar
+        assertEquals(List.of(), indice.buscar("libro1 comun", 10));
+        assertEquals(List.of("d10"), indice.buscar("libro10", 1));
+
+        List<String> pares = indice.buscar("comun par", total);
+        assertEquals(total / 2, pares.size());
+        for (int i = 0; i < pares.size(); i++) {
+            assertEquals("d" + (i * 2), pares.get(i), "el orden de inserción se conserva");
+        }
+
+        // Tras compactar se sigue pudiendo agregar y reemplazar
+        indice.guardar(0, "otro titulo", "nuevo");
+        indice.guardar(total + 1, "comun par nuevo", "ultimo");
+        assertEquals(List.of("nuevo"), indice.buscar("otro", 10));
+        List<String> despues = indice.buscar("comun par", total);
+        assertEquals(total / 2, despues.size());
+        assertEquals("ultimo", despues.get(despues.size() - 1));
+    }
+}
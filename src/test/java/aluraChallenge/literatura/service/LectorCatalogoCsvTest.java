@@ -0,0 +1,132 @@
+package aluraChallenge.literatura.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import aluraChallenge.literatura.dto.DatosAutor;
+import aluraChallenge.literatura.dto.DatosLibro;
+
+class LectorCatalogoCsvTest {
+
+    private static final String CABECERA = "Text#,Type,Issued,Title,Language,Authors,Subjects,LoCC,Bookshelves\n";
+
+    @Test
+    void leeFilasConComillasEscapadasYSaltosDeLinea() {
+        String csv = CABECERA
+                + "1,Text,1971-12-01,\"The \"\"Declaration\"\" of Independence\",en,\"Jefferson, Thomas, 1743-1826\",,,\n"
+                + "2,Text,2004-01-01,\"Alice's Adventures\nin Wonderland\",en,\"Carroll, Lewis, 1832-1898\",,,\n"
+                + "3,Sound,2004-01-01,Un audiolibro,en,,,,\n"
+                + "4,Text,2004-01-01,\"  \",en,,,,\n"
+                + "5,Text,2004-01-01,Sin salto final,es; fr,\"Anónimo\",,,";
+        List<DatosLibro> libros = new ArrayList<>();
+
+        var conteo = LectorCatalogoCsv.leer(buffer(csv), 0, csv.getBytes(StandardCharsets.UTF_8).length, libros::add);
+
+        assertEquals(6, conteo.filas());
+        // Cabecera, audiolibro y título vacío
+        assertEquals(3, conteo.descartadas());
+        assertEquals(List.of("The \"Declaration\" of Independence", "Alice's Adventures in Wonderland", "Sin salto final"),
+                libros.stream().map(DatosLibro::titulo).toList());
+        assertEquals(Integer.valueOf(1), libros.get(0).idGutenberg());
+        assertEquals(new DatosAutor("Carroll, Lewis", 1832, 1898), libros.get(1).autores().get(0));
+        assertEquals(List.of("es", "fr"), libros.get(2).idiomas());
+        assertNull(libros.get(2).numeroDescargas());
+    }
+
+    @Test
+    void aceptaFinesDeLineaWindows() {
+        String csv = CABECERA.replace("\n", "\r\n")
+                + "7,Text,2004-01-01,Primero,en,,,,\r\n"
+                + "8,Text,2004-01-01,Segundo,en,,,,\r\n";
+        List<DatosLibro> libros = new ArrayList<>();
+
+        var conteo = LectorCatalogoCsv.leer(buffer(csv), 0, csv.length(), libros::add);
+
+        assertEquals(3, conteo.filas());
+        assertEquals(List.of("Primero", "Segundo"), libros.stream().map(DatosLibro::titulo).toList());
+        assertEquals(List.of(), libros.get(0).autores());
+    }
+
+    @Test
+    void dividirNoCortaDentroDeComillas() {
+        var csv = new StringBuilder(CABECERA);
+        for (int i = 0; i < 200; i++) {
+            // Cada tercera fila trae saltos de línea y comillas escapadas dentro del título
+            String titulo = i % 3 == 0
+                    ? "\"Tomo " + i + "\n\"\"segunda\"\" línea\n,tercera\""
+                    : "Tomo " + i;
+            csv.append(i).append(",Text,2004-01-01,").append(titulo).append(",en,\"Autor, Uno, 1800-1850\",,,\n");
+        }
+        ByteBuffer datos = buffer(csv.toString());
+        List<String> completos = titulos(datos, new int[] {0, datos.limit()});
+
+        for (int partes : new int[] {1, 2, 7, 50, 1000}) {
+            int[] cortes = LectorCatalogoCsv.dividir(datos, partes);
+            assertEquals(0, cortes[0]);
+            assertEquals(datos.limit(), cortes[cortes.length - 1]);
+            assertTrue(cortes.length - 1 <= partes, "no más trozos que los pedidos");
+            for (int c = 1; c < cortes.length - 1; c++) {
+                assertEquals('\n', datos.get(cortes[c] - 1), "cada trozo empieza después de un salto de línea");
+                assertEquals(0, comillasAntes(datos, cortes[c]) % 2, "el corte " + cortes[c] + " queda fuera de comillas");
+            }
+            assertEquals(completos, titulos(datos, cortes), partes + " partes");
+        }
+        assertEquals(200, completos.size());
+    }
+
+    @Test
+    void separaNombreYFechasDeLosAutores() {
+        assertEquals(new DatosAutor("Dickens, Charles", 1812, 1870), LectorCatalogoCsv.autor("Dickens, Charles, 1812-1870"));
+        // Antes de Cristo: sin signo en el texto, negativos en el resultado
+        assertEquals(new DatosAutor("Homer", -751, -651), LectorCatalogoCsv.autor("Homer, 751? BCE-651? BCE"));
+        assertEquals(new DatosAutor("Plutarch", -46, 120), LectorCatalogoCsv.autor("Plutarch, 46 BCE-120"));
+        // Solo la muerte conocida: el guion inicial no es un signo
+        assertEquals(new DatosAutor("Smith, John", null, 1850), LectorCatalogoCsv.autor("Smith, John, -1850"));
+        assertEquals(new DatosAutor("Doe, Jane", 1901, null), LectorCatalogoCsv.autor("Doe, Jane, 1901-"));
+        assertEquals(new DatosAutor("Bach, Anna", null, null), LectorCatalogoCsv.autor("Bach, Anna, active 1720"));
+        assertEquals(new DatosAutor("Anónimo", null, null), LectorCatalogoCsv.autor("Anónimo"));
+    }
+
+    @Test
+    void descartaColaboradoresConRol() {
+        assertEquals(List.of(new DatosAutor("Carroll, Lewis", 1832, 1898)),
+                LectorCatalogoCsv.autores("Carroll, Lewis, 1832-1898; Tenniel, John, 1820-1914 [Illustrator]; "));
+    }
+
+    @Test
+    void idsEIdiomas() {
+        assertEquals(Integer.valueOf(84), LectorCatalogoCsv.idGutenberg(" 84 "));
+        assertNull(LectorCatalogoCsv.idGutenberg("Text#"));
+        assertEquals(List.of("en", "la"), LectorCatalogoCsv.idiomas("en; la;"));
+    }
+
+    private static ByteBuffer buffer(String texto) {
+        return ByteBuffer.wrap(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> titulos(ByteBuffer datos, int[] cortes) {
+        List<String> titulos = new ArrayList<>();
+        for (int c = 0; c < cortes.length - 1; c++) {
+            LectorCatalogoCsv.leer(datos, cortes[c], cortes[c + 1], libro -> titulos.add(libro.titulo()));
+        }
+        return titulos;
+    }
+
+    private static int comillasAntes(ByteBuffer datos, int posicion) {
+        int comillas = 0;
+        for (int i = 0; i < posicion; i++) {
+            if (datos.get(i) == '"') {
+                comillas++;
+            }
+        }
+        return comillas;
+    }
+}
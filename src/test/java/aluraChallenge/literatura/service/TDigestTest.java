@@ -0,0 +1,114 @@
+package aluraChallenge.literatura.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class TDigestTest {
+
+    private static final double[] CUANTILES = {0.01, 0.1, 0.5, 0.9, 0.99, 0.999};
+
+    @Test
+    void cuantilesCercaDeLosExactos() {
+        double[] valores = descargasSimuladas(200_000, 1);
+        var digest = new TDigest();
+        for (double valor : valores) {
+            digest.agregar(valor);
+        }
+        Arrays.sort(valores);
+
+        for (double q : CUANTILES) {
+            assertRangoCerca(valores, q, digest.cuantil(q));
+        }
+        assertEquals(valores[0], digest.cuantil(0), 0);
+        assertEquals(valores[valores.length - 1], digest.cuantil(1), 0);
+    }
+
+    @Test
+    void unirEquivaleAAgregarTodo() {
+        double[] valores = descargasSimuladas(100_000, 2);
+        var izquierda = new TDigest();
+        var derecha = new TDigest();
+        for (int i = 0; i < valores.length; i++) {
+            (i < valores.length / 3 ? izquierda : derecha).agregar(valores[i]);
+        }
+        izquierda.unir(derecha);
+        izquierda.unir(new TDigest());
+        Arrays.sort(valores);
+
+        for (double q : CUANTILES) {
+            assertRangoCerca(valores, q, izquierda.cuantil(q));
+        }
+        assertEquals(valores[valores.length - 1], izquierda.cuantil(1), 0);
+    }
+
+    @Test
+    void sobreviveALaSerializacion() {
+        var digest = new TDigest();
+        for (double valor : descargasSimuladas(50_000, 3)) {
+            digest.agregar(valor);
+        }
+
+        var copia = TDigest.desdeBytes(digest.aBytes());
+
+        for (double q : CUANTILES) {
+            double original = digest.cuantil(q);
+            assertEquals(original, copia.cuantil(q), Math.max(1e-9, Math.abs(original) * 1e-9), "q=" + q);
+        }
+        assertEquals(digest.cuantil(0), copia.cuantil(0), 0);
+        assertEquals(digest.cuantil(1), copia.cuantil(1), 0);
+    }
+
+    @Test
+    void casosBorde() {
+        assertTrue(Double.isNaN(new TDigest().cuantil(0.5)));
+        var uno = new TDigest();
+        uno.agregar(42);
+        assertEquals(42, uno.cuantil(0.01), 0);
+        assertEquals(42, uno.cuantil(0.99), 0);
+        assertTrue(Double.isNaN(TDigest.desdeBytes(new TDigest().aBytes()).cuantil(0.5)));
+    }
+
+    // El valor devuelto debe caer cerca de la posición pedida; más ajustado en las colas
+    private static void assertRangoCerca(double[] ordenados, double q, double estimado) {
+        int menores = lowerBound(ordenados, estimado);
+        int hasta = upperBound(ordenados, estimado);
+        double tolerancia = (q <= 0.01 || q >= 0.99 ? 0.002 : 0.01) * ordenados.length;
+        double objetivo = q * ordenados.length;
+        assertTrue(objetivo >= menores - tolerancia && objetivo <= hasta + tolerancia,
+                "q=" + q + ": " + estimado + " ocupa las posiciones " + menores + ".." + hasta);
+    }
+
+    private static int lowerBound(double[] ordenados, double valor) {
+        int i = Arrays.binarySearch(ordenados, valor);
+        if (i < 0) {
+            return -(i + 1);
+        }
+        while (i > 0 && ordenados[i - 1] == valor) {
+            i--;
+        }
+        return i;
+    }
+
+    private static int upperBound(double[] ordenados, double valor) {
+        int i = lowerBound(ordenados, valor);
+        while (i < ordenados.length && ordenados[i] == valor) {
+            i++;
+        }
+        return i;
+    }
+
+    // Cola larga como las descargas reales: la mayoría pocas, unos pocos libros muchísimas
+    private static double[] descargasSimuladas(int cantidad, long semilla) {
+        var aleatorio = new SplittableRandom(semilla);
+        double[] valores = new double[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            valores[i] = Math.floor(Math.exp(aleatorio.nextDouble() * 12));
+        }
+        return valores;
+    }
+}